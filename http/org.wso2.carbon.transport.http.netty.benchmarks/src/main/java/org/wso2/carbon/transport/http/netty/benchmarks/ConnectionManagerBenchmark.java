@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.benchmarks;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.Future;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.listener.SourceHandler;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
+import org.wso2.carbon.transport.http.netty.sender.channel.BootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.PoolConfiguration;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the acquire and return of a target channel through the {@link ConnectionManager}, with each of the pool
+ * management policies.
+ * <p>
+ * Unlike {@link TargetChannelPoolBenchmark}, which drives the pools directly, the channels are acquired on behalf of
+ * real incoming connections, so that the lookup of the pool of the route and of the incoming channel is included.
+ * Every benchmark thread owns an incoming connection and runs its batches on the event loop of that connection.
+ * The connection manager is a singleton, so each policy runs in its own fork.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConnectionManagerBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * Listener, backend and the connection manager which are shared between the benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedState {
+
+        @Param({"LOCK_DEFAULT_POOLING", "GLOBAL_POOLING", "EVENT_LOOP_POOLING"})
+        public String policy;
+
+        EventLoopGroup bossGroup;
+        EventLoopGroup workerGroup;
+        Channel listenerChannel;
+        Channel backendChannel;
+        HttpRoute httpRoute;
+        ConnectionManager connectionManager;
+        final BlockingQueue<SourceHandler> sourceHandlers = new LinkedBlockingQueue<>();
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            Map<String, Object> transportProperties = new HashMap<>();
+            transportProperties.put(Constants.CONNECTION_POOL_MANAGEMENT_POLICY, policy);
+            transportProperties.put(Constants.NATIVE_TRANSPORT_ENABLED, false);
+            BootstrapConfiguration.createBootStrapConfiguration(transportProperties);
+            PoolConfiguration.createPoolConfiguration(transportProperties);
+            ConnectionManager.init(transportProperties);
+            connectionManager = ConnectionManager.getInstance();
+
+            bossGroup = new NioEventLoopGroup(1);
+            workerGroup = new NioEventLoopGroup(4);
+            backendChannel = new ServerBootstrap().group(bossGroup, workerGroup)
+                    .channel(NioServerSocketChannel.class).childHandler(new ChannelInboundHandlerAdapter())
+                    .bind(new InetSocketAddress("localhost", 0)).sync().channel();
+            httpRoute = new HttpRoute("localhost", ((InetSocketAddress) backendChannel.localAddress()).getPort());
+            EntityCollectorFactory entityCollectorFactory = EntityCollectorFactory.getDefault();
+            listenerChannel = new ServerBootstrap().group(bossGroup, workerGroup)
+                    .channel(NioServerSocketChannel.class).childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel channel) throws Exception {
+                            SourceHandler sourceHandler = new SourceHandler(null, "benchmark",
+                                    entityCollectorFactory);
+                            channel.pipeline().addLast(sourceHandler);
+                            sourceHandlers.add(sourceHandler);
+                        }
+                    }).bind(new InetSocketAddress("localhost", 0)).sync().channel();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            connectionManager.closeRoutePools();
+            listenerChannel.close().sync();
+            backendChannel.close().sync();
+            workerGroup.shutdownGracefully().sync();
+            bossGroup.shutdownGracefully().sync();
+        }
+    }
+
+    /**
+     * An incoming connection which the target channels are acquired for.
+     */
+    @State(Scope.Thread)
+    public static class ConnectionState {
+
+        EventLoopGroup clientGroup;
+        Channel clientChannel;
+        SourceHandler sourceHandler;
+        EventLoop eventLoop;
+
+        @Setup(Level.Trial)
+        public void setup(SharedState sharedState) throws Exception {
+            clientGroup = new NioEventLoopGroup(1);
+            clientChannel = new Bootstrap().group(clientGroup).channel(NioSocketChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(sharedState.listenerChannel.localAddress()).sync().channel();
+            sourceHandler = sharedState.sourceHandlers.poll(10, TimeUnit.SECONDS);
+            eventLoop = sourceHandler.getInboundChannelContext().channel().eventLoop();
+
+            // Open the target connection of the incoming connection before measuring.
+            TargetChannel targetChannel = acquire(sharedState, sourceHandler).sync().getNow();
+            if (targetChannel.getChannel() == null) {
+                targetChannel.setChannel(targetChannel.getChannelFuture().sync().channel());
+            }
+            sharedState.connectionManager.returnChannel(targetChannel);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            clientChannel.close().sync();
+            clientGroup.shutdownGracefully().sync();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void acquireAndReturn(SharedState sharedState, ConnectionState connectionState) throws Exception {
+        ConnectionManager connectionManager = sharedState.connectionManager;
+        SourceHandler sourceHandler = connectionState.sourceHandler;
+        connectionState.eventLoop.submit(() -> {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                TargetChannel targetChannel = acquire(sharedState, sourceHandler).getNow();
+                connectionManager.returnChannel(targetChannel);
+            }
+            return null;
+        }).sync();
+    }
+
+    private static Future<TargetChannel> acquire(SharedState sharedState, SourceHandler sourceHandler) {
+        return sharedState.connectionManager.acquireTargetChannel(sharedState.httpRoute, sourceHandler, null, false,
+                false, false, 5, null, false);
+    }
+}
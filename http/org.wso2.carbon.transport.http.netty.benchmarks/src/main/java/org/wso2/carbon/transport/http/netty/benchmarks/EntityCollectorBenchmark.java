@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.carbon.transport.http.netty.message.BlockingEntityCollector;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HttpCarbonRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the content of a message is handed over, from the transport thread which adds it to the consumer.
+ * <p>
+ * {@code blockingCollector} adds and takes the content of a single chunk message directly on the collector, while
+ * {@code messageFuture} pushes the content of a message to a listener registered through
+ * {@link HTTPCarbonMessage#getHttpContentAsync()}, as done when a message is written out by the transport.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntityCollectorBenchmark {
+
+    private static final ByteBuf PAYLOAD = Unpooled.unreleasableBuffer(Unpooled.directBuffer(1024).writeZero(1024));
+
+    private final BlockingEntityCollector blockingEntityCollector = new BlockingEntityCollector(60000);
+
+    /**
+     * Collector settings of the messages handed over through the message future.
+     */
+    @State(Scope.Thread)
+    public static class FutureState {
+
+        /**
+         * Whether the messages use the non-blocking collector, which pushes the content to the listener as it
+         * arrives.
+         */
+        @Param({"false", "true"})
+        public boolean nonBlocking;
+
+        /**
+         * Whether the listener is registered before the content arrives, as for a passthrough, or after it is
+         * queued.
+         */
+        @Param({"true", "false"})
+        public boolean listenerFirst;
+
+        EntityCollectorFactory entityCollectorFactory;
+
+        @Setup
+        public void setup() {
+            entityCollectorFactory = new EntityCollectorFactory(60000, 0, nonBlocking);
+        }
+    }
+
+    @Benchmark
+    public HttpContent blockingCollector() {
+        blockingEntityCollector.addHttpContent(new DefaultLastHttpContent(PAYLOAD.duplicate()));
+        return blockingEntityCollector.getHttpContent();
+    }
+
+    @Benchmark
+    public void messageFuture(FutureState state, Blackhole blackhole) {
+        HTTPCarbonMessage message = new HttpCarbonRequest(
+                new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"), state.entityCollectorFactory);
+        if (state.listenerFirst) {
+            message.getHttpContentAsync().setMessageListener(blackhole::consume);
+            addContent(message);
+        } else {
+            addContent(message);
+            message.getHttpContentAsync().setMessageListener(blackhole::consume);
+        }
+        message.release();
+    }
+
+    private static void addContent(HTTPCarbonMessage message) {
+        message.addHttpContent(new DefaultHttpContent(PAYLOAD.duplicate()));
+        message.addHttpContent(new DefaultLastHttpContent(PAYLOAD.duplicate()));
+    }
+}
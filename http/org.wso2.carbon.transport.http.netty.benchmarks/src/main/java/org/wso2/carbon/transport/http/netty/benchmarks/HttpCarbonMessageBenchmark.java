@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HttpCarbonRequest;
+import org.wso2.carbon.transport.http.netty.message.HttpCarbonResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the carbon messages of a request and response pair, as created by the transport.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation per pair in {@code gc.alloc.rate.norm}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpCarbonMessageBenchmark {
+
+    private static final ByteBuf PAYLOAD = Unpooled.unreleasableBuffer(Unpooled.directBuffer(1024).writeZero(1024));
+
+    private EntityCollectorFactory connectorFactory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        connectorFactory = EntityCollectorFactory.of(ServerBootstrapConfiguration.getInstance());
+    }
+
+    /**
+     * Messages created with the collector factory of the connector, as the server connector does.
+     */
+    @Benchmark
+    public void connectorFactory(Blackhole blackhole) {
+        HTTPCarbonMessage request = new HttpCarbonRequest(
+                new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"), connectorFactory);
+        exchange(request, blackhole);
+    }
+
+    /**
+     * Messages created without a factory, which is resolved from the bootstrap configuration.
+     */
+    @Benchmark
+    public void defaultFactory(Blackhole blackhole) {
+        HTTPCarbonMessage request = new HttpCarbonRequest(
+                new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"));
+        exchange(request, blackhole);
+    }
+
+    private static void exchange(HTTPCarbonMessage request, Blackhole blackhole) {
+        request.setProperty(Constants.HTTP_METHOD, HttpMethod.POST.name());
+        request.setProperty(Constants.HTTP_VERSION, HttpVersion.HTTP_1_1.text());
+        request.setProperty(Constants.REQUEST_URL, "/");
+        request.setProperty(Constants.TO, "/");
+        addContent(request);
+        blackhole.consume(readContent(request));
+
+        HTTPCarbonMessage response = new HttpCarbonResponse(
+                new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        response.setProperty(Constants.HTTP_STATUS_CODE, HttpResponseStatus.OK.code());
+        addContent(response);
+        blackhole.consume(readContent(response));
+    }
+
+    private static void addContent(HTTPCarbonMessage message) {
+        message.addHttpContent(new DefaultHttpContent(PAYLOAD.duplicate()));
+        message.addHttpContent(new DefaultLastHttpContent(PAYLOAD.duplicate()));
+    }
+
+    private static int readContent(HTTPCarbonMessage message) {
+        int length = 0;
+        HttpContent httpContent;
+        do {
+            httpContent = message.getHttpContent();
+            length += httpContent.content().readableBytes();
+        } while (!(httpContent instanceof DefaultLastHttpContent));
+        return length;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.benchmarks;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
+import org.wso2.carbon.transport.http.netty.config.SenderConfiguration;
+import org.wso2.carbon.transport.http.netty.contract.HttpClientConnector;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnector;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorException;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsConnectorFactoryImpl;
+import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
+import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.util.TestUtil;
+import org.wso2.carbon.transport.http.netty.util.server.HttpServer;
+import org.wso2.carbon.transport.http.netty.util.server.initializers.MockServerInitializer;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full passthrough exchange over loopback: a client sends a request to a server connector, whose listener
+ * forwards it with a client connector to the mock backend of the functional tests and responds with the backend
+ * response.
+ * <p>
+ * Each benchmark thread is a keep-alive client connection with a single request in flight, so the score is the
+ * latency of an exchange through the transport, both connections included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@Threads(4)
+public class PassthroughBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(PassthroughBenchmark.class);
+
+    private static final String RESPONSE_PAYLOAD = new String(new char[1024]).replace('\0', 'x');
+    private static final ByteBuf REQUEST_PAYLOAD =
+            Unpooled.unreleasableBuffer(Unpooled.directBuffer(1024).writeZero(1024));
+
+    /**
+     * Server connector, client connector and backend which are shared between the benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class TransportState {
+
+        HttpServer backend;
+        ServerConnector serverConnector;
+        HttpClientConnector clientConnector;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            backend = new HttpServer(TestUtil.TEST_HTTP_SERVER_PORT,
+                    new MockServerInitializer(RESPONSE_PAYLOAD, Constants.TEXT_PLAIN, 200));
+            backend.start();
+
+            HTTPTransportContextHolder.getInstance().setBossGroup(new NioEventLoopGroup(1));
+            HTTPTransportContextHolder.getInstance().setWorkerGroup(new NioEventLoopGroup());
+            HttpWsConnectorFactoryImpl connectorFactory = new HttpWsConnectorFactoryImpl();
+            clientConnector = connectorFactory.createHttpClientConnector(new HashMap<>(), new SenderConfiguration());
+            serverConnector = connectorFactory.createServerConnector(ServerBootstrapConfiguration.getInstance(),
+                    new ListenerConfiguration("benchmark", TestUtil.TEST_HOST, TestUtil.TEST_DEFAULT_INTERFACE_PORT));
+            ServerConnectorFuture serverConnectorFuture = serverConnector.start();
+            serverConnectorFuture.setHttpConnectorListener(new PassthroughListener(clientConnector));
+            serverConnectorFuture.sync();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            serverConnector.stop();
+            clientConnector.close();
+            backend.shutdown();
+            HTTPTransportContextHolder.getInstance().getBossGroup().shutdownGracefully().sync();
+            HTTPTransportContextHolder.getInstance().getWorkerGroup().shutdownGracefully().sync();
+        }
+    }
+
+    /**
+     * A keep-alive client connection to the server connector.
+     */
+    @State(Scope.Thread)
+    public static class ClientState {
+
+        EventLoopGroup clientGroup;
+        Channel channel;
+        ResponseHandler responseHandler;
+
+        @Setup(Level.Trial)
+        public void setup(TransportState transportState) throws Exception {
+            clientGroup = new NioEventLoopGroup(1);
+            responseHandler = new ResponseHandler();
+            channel = new Bootstrap().group(clientGroup).channel(NioSocketChannel.class)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel channel) {
+                            channel.pipeline().addLast(new HttpClientCodec(), new HttpObjectAggregator(64 * 1024),
+                                    responseHandler);
+                        }
+                    })
+                    .connect(new InetSocketAddress(TestUtil.TEST_HOST, TestUtil.TEST_DEFAULT_INTERFACE_PORT))
+                    .sync().channel();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            channel.close().sync();
+            clientGroup.shutdownGracefully().sync();
+        }
+    }
+
+    @Benchmark
+    public int passthrough(ClientState clientState) throws Exception {
+        Promise<Integer> response = clientState.channel.eventLoop().newPromise();
+        clientState.responseHandler.response = response;
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/",
+                REQUEST_PAYLOAD.duplicate());
+        request.headers().set(HttpHeaderNames.HOST, TestUtil.TEST_HOST);
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN);
+        request.headers().set(HttpHeaderNames.CONTENT_LENGTH, REQUEST_PAYLOAD.readableBytes());
+        clientState.channel.writeAndFlush(request);
+        return response.sync().getNow();
+    }
+
+    /**
+     * Completes the promise of the request in flight with the length of the response payload.
+     */
+    private static class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+        private volatile Promise<Integer> response;
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+            response.trySuccess(msg.content().readableBytes());
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            response.tryFailure(cause);
+        }
+    }
+
+    /**
+     * Forwards each request to the backend and responds with the backend response.
+     */
+    private static class PassthroughListener implements HttpConnectorListener {
+
+        private final HttpClientConnector clientConnector;
+
+        PassthroughListener(HttpClientConnector clientConnector) {
+            this.clientConnector = clientConnector;
+        }
+
+        @Override
+        public void onMessage(HTTPCarbonMessage request) {
+            request.setProperty(Constants.HOST, TestUtil.TEST_HOST);
+            request.setProperty(Constants.PORT, TestUtil.TEST_HTTP_SERVER_PORT);
+            clientConnector.send(request).setHttpConnectorListener(new HttpConnectorListener() {
+                @Override
+                public void onMessage(HTTPCarbonMessage response) {
+                    try {
+                        request.respond(response);
+                    } catch (ServerConnectorException e) {
+                        log.error("Cannot respond to the request", e);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    log.error("Cannot forward the request to the backend", throwable);
+                }
+            });
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            log.error("Error in the server connector", throwable);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.Util;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.listener.SourceHandler;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HttpCarbonRequest;
+import org.wso2.carbon.transport.http.netty.message.HttpCarbonResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per request work of the listener, without any network I/O.
+ * <p>
+ * {@code requestSetup} feeds a decoded request through a {@link SourceHandler} on an {@link EmbeddedChannel}, which
+ * creates the carbon message and notifies the connector listener. {@code createHttpRequest} and
+ * {@code createHttpResponse} measure the conversion of carbon messages to the Netty messages which are written out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SourceHandlerBenchmark {
+
+    private static final ByteBuf PAYLOAD = Unpooled.unreleasableBuffer(Unpooled.directBuffer(1024).writeZero(1024));
+
+    private EmbeddedChannel channel;
+    private HTTPCarbonMessage outboundRequest;
+    private HTTPCarbonMessage outboundResponse;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        HttpWsServerConnectorFuture serverConnectorFuture = new HttpWsServerConnectorFuture();
+        serverConnectorFuture.setHttpConnectorListener(new HttpConnectorListener() {
+            @Override
+            public void onMessage(HTTPCarbonMessage httpMessage) {
+                // Nothing responds, so the request is abandoned as soon as it is received
+                httpMessage.release();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+        });
+        channel = new EmbeddedChannel(new SourceHandler(serverConnectorFuture, "benchmark",
+                EntityCollectorFactory.of(ServerBootstrapConfiguration.getInstance())));
+
+        outboundRequest = new HttpCarbonRequest(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"));
+        outboundRequest.setProperty(Constants.HTTP_METHOD, HttpMethod.POST.name());
+        outboundRequest.setProperty(Constants.HTTP_VERSION, HttpVersion.HTTP_1_1.text());
+        outboundRequest.setProperty(Constants.TO, "/services/echo");
+        outboundRequest.getHeaders().add(createHeaders());
+
+        outboundResponse = new HttpCarbonResponse(new DefaultHttpResponse(HttpVersion.HTTP_1_1,
+                HttpResponseStatus.OK));
+        outboundResponse.setProperty(Constants.HTTP_STATUS_CODE, HttpResponseStatus.OK.code());
+        outboundResponse.getHeaders().add(createHeaders());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        outboundRequest.release();
+        outboundResponse.release();
+    }
+
+    @Benchmark
+    public void requestSetup() {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/services/echo",
+                createHeaders());
+        channel.writeInbound(request);
+        channel.writeInbound(new DefaultLastHttpContent(PAYLOAD.duplicate()));
+    }
+
+    @Benchmark
+    public HttpRequest createHttpRequest() {
+        return Util.createHttpRequest(outboundRequest);
+    }
+
+    @Benchmark
+    public HttpResponse createHttpResponse() {
+        return Util.createHttpResponse(outboundResponse);
+    }
+
+    private static HttpHeaders createHeaders() {
+        HttpHeaders headers = new DefaultHttpHeaders(false);
+        headers.set(HttpHeaderNames.HOST, "localhost:9000");
+        headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+        headers.set(HttpHeaderNames.CONTENT_LENGTH, PAYLOAD.readableBytes());
+        headers.set(HttpHeaderNames.ACCEPT, "*/*");
+        headers.set(HttpHeaderNames.USER_AGENT, "jmh");
+        return headers;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.benchmarks;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.sender.channel.BootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionPoolMetrics;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.EventLoopChannelPool;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.PoolConfiguration;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.PoolableTargetChannelFactory;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.PoolableTargetChannelFactoryPerSrcHndlr;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the borrow/return cost of the target channel pool implementations.
+ * <p>
+ * Each invocation runs a batch of borrow and return cycles on an event loop, which is where the pools are used by
+ * the transport. Every benchmark thread is bound to its own event loop, similar to incoming connections.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+public class TargetChannelPoolBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * Backend and the pools which are shared between the benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedState {
+
+        EventLoopGroup serverGroup;
+        EventLoopGroup clientGroup;
+        Channel serverChannel;
+        HttpRoute httpRoute;
+        GenericObjectPool globalPool;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            BootstrapConfiguration.createBootStrapConfiguration(new HashMap<>());
+            serverGroup = new NioEventLoopGroup(1);
+            clientGroup = new NioEventLoopGroup(4);
+            serverChannel = new ServerBootstrap().group(serverGroup).channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInboundHandlerAdapter())
+                    .bind(new InetSocketAddress("localhost", 0)).sync().channel();
+            httpRoute = new HttpRoute("localhost", ((InetSocketAddress) serverChannel.localAddress()).getPort());
+            globalPool = new GenericObjectPool(createChannelFactory(clientGroup), createPoolConfig());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            globalPool.close();
+            serverChannel.close().sync();
+            clientGroup.shutdownGracefully().sync();
+            serverGroup.shutdownGracefully().sync();
+        }
+
+        PoolableTargetChannelFactory createChannelFactory(EventLoopGroup group) {
+            return new PoolableTargetChannelFactory(httpRoute, group, NioSocketChannel.class, null, false, false,
+                    false, 5, null);
+        }
+    }
+
+    /**
+     * Pools of a single event loop.
+     */
+    @State(Scope.Thread)
+    public static class EventLoopState {
+
+        EventLoop eventLoop;
+        GenericObjectPool lockDefaultPool;
+        GenericObjectPool perSrcHndlrPool;
+        EventLoopChannelPool eventLoopChannelPool;
+
+        @Setup(Level.Trial)
+        public void setup(SharedState sharedState) throws Exception {
+            eventLoop = sharedState.clientGroup.next();
+            lockDefaultPool = new GenericObjectPool(sharedState.createChannelFactory(eventLoop), createPoolConfig());
+            perSrcHndlrPool = new GenericObjectPool(
+                    new PoolableTargetChannelFactoryPerSrcHndlr(sharedState.globalPool), createPoolConfig());
+            Map<String, Object> transportProperties = new HashMap<>();
+            transportProperties.put(Constants.MAX_IDLE_CONNECTIONS_PER_POOL, -1);
+            transportProperties.put(Constants.TIME_BETWEEN_EVICTION_RUNS, 0);
+            eventLoopChannelPool = new EventLoopChannelPool(sharedState.httpRoute, eventLoop,
+                    sharedState.createChannelFactory(eventLoop), new PoolConfiguration(transportProperties), 0,
+                    new ConnectionPoolMetrics(sharedState.httpRoute, ConnectionPoolMetrics.EVENT_LOOP_SCOPE));
+
+            // Open a connection in each pool before measuring.
+            TargetChannel targetChannel = connect((TargetChannel) lockDefaultPool.borrowObject());
+            lockDefaultPool.returnObject(targetChannel);
+            targetChannel = connect((TargetChannel) perSrcHndlrPool.borrowObject());
+            perSrcHndlrPool.returnObject(targetChannel);
+            targetChannel = connect(eventLoopChannelPool.acquire().sync().getNow());
+            eventLoopChannelPool.release(targetChannel);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            lockDefaultPool.close();
+            perSrcHndlrPool.close();
+            eventLoopChannelPool.close();
+        }
+
+        private static TargetChannel connect(TargetChannel targetChannel) throws InterruptedException {
+            if (targetChannel.getChannel() == null) {
+                targetChannel.setChannel(targetChannel.getChannelFuture().sync().channel());
+            }
+            return targetChannel;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void lockDefaultPooling(EventLoopState state) throws Exception {
+        borrowAndReturn(state.eventLoop, state.lockDefaultPool);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void perSourceHandlerPooling(EventLoopState state) throws Exception {
+        borrowAndReturn(state.eventLoop, state.perSrcHndlrPool);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void eventLoopPooling(EventLoopState state) throws Exception {
+        EventLoopChannelPool channelPool = state.eventLoopChannelPool;
+        state.eventLoop.submit(() -> {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                TargetChannel targetChannel = channelPool.acquire().getNow();
+                channelPool.release(targetChannel);
+            }
+        }).sync();
+    }
+
+    private static void borrowAndReturn(EventLoop eventLoop, GenericObjectPool pool) throws Exception {
+        eventLoop.submit(() -> {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Object targetChannel = pool.borrowObject();
+                pool.returnObject(targetChannel);
+            }
+            return null;
+        }).sync();
+    }
+
+    private static GenericObjectPool.Config createPoolConfig() {
+        GenericObjectPool.Config config = new GenericObjectPool.Config();
+        config.maxActive = -1;
+        config.maxIdle = 100;
+        config.testOnBorrow = true;
+        config.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
+        config.maxWait = 60000L;
+        return config;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.loadtest;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.contract.HttpClientConnector;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorException;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HttpMessageDataStreamer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Reads each request and backend response in full on a worker thread and forwards a copy of it with a content
+ * length, as a mediation which looks into the payload does.
+ */
+public class ContentAwareListener implements HttpConnectorListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentAwareListener.class);
+
+    private final HttpClientConnector clientConnector;
+    private final String backendHost;
+    private final int backendPort;
+    private final ExecutorService executor;
+
+    public ContentAwareListener(HttpClientConnector clientConnector, String backendHost, int backendPort,
+                                ExecutorService executor) {
+        this.clientConnector = clientConnector;
+        this.backendHost = backendHost;
+        this.backendPort = backendPort;
+        this.executor = executor;
+    }
+
+    @Override
+    public void onMessage(HTTPCarbonMessage request) {
+        executor.execute(() -> {
+            try {
+                HTTPCarbonMessage outboundRequest = copyWithContent(request);
+                outboundRequest.setProperty(Constants.HOST, backendHost);
+                outboundRequest.setProperty(Constants.PORT, backendPort);
+                clientConnector.send(outboundRequest).setHttpConnectorListener(new ResponseListener(request));
+            } catch (IOException e) {
+                log.error("Cannot read the request", e);
+            }
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.error("Error in the server connector", throwable);
+    }
+
+    private static HTTPCarbonMessage copyWithContent(HTTPCarbonMessage message) throws IOException {
+        byte[] content = readContent(message);
+        HTTPCarbonMessage copy = message.cloneCarbonMessageWithOutData();
+        copy.removeHeader(HttpHeaderNames.TRANSFER_ENCODING.toString());
+        copy.setHeader(HttpHeaderNames.CONTENT_LENGTH.toString(), String.valueOf(content.length));
+        copy.addHttpContent(new DefaultLastHttpContent(Unpooled.wrappedBuffer(content)));
+        return copy;
+    }
+
+    private static byte[] readContent(HTTPCarbonMessage message) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (InputStream inputStream = new HttpMessageDataStreamer(message).getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * Reads the backend response in full and responds to the client with a copy of it.
+     */
+    private class ResponseListener implements HttpConnectorListener {
+
+        private final HTTPCarbonMessage request;
+
+        ResponseListener(HTTPCarbonMessage request) {
+            this.request = request;
+        }
+
+        @Override
+        public void onMessage(HTTPCarbonMessage response) {
+            executor.execute(() -> {
+                try {
+                    request.respond(copyWithContent(response));
+                } catch (IOException | ServerConnectorException e) {
+                    log.error("Cannot respond to the request", e);
+                }
+            });
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            log.error("Cannot forward the request to the backend", throwable);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.loadtest;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import javax.net.ssl.SSLException;
+
+/**
+ * Sends HTTP POST requests with a payload of the configured size, on connections which are kept alive for the
+ * configured number of requests.
+ */
+public class HttpLoadGenerator extends LoadGenerator {
+
+    private static final int MAX_RESPONSE_SIZE = 16 * 1024 * 1024;
+
+    private final ByteBuf payload;
+
+    public HttpLoadGenerator(LoadTestConfiguration configuration, String host, int port) throws SSLException {
+        super(configuration, host, port);
+        this.payload = Unpooled.unreleasableBuffer(
+                Unpooled.directBuffer(configuration.getPayloadSize()).writeZero(configuration.getPayloadSize()));
+    }
+
+    @Override
+    protected void initPipeline(Channel channel) {
+        channel.pipeline().addLast(new HttpClientCodec());
+        if (configuration.isCompression()) {
+            channel.pipeline().addLast(new HttpContentDecompressor());
+        }
+        channel.pipeline().addLast(new HttpObjectAggregator(MAX_RESPONSE_SIZE), new ExchangeHandler());
+    }
+
+    /**
+     * Drives the exchanges of a single connection.
+     */
+    private class ExchangeHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+        private int requestCount;
+        private long startNanos;
+        private ScheduledFuture<?> timeout;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            sendRequest(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            timeout.cancel(false);
+            timeout = null;
+            if (response.status().code() < 400) {
+                recordLatency(startNanos);
+            } else {
+                recordError();
+            }
+            int requestsPerConnection = configuration.getRequestsPerConnection();
+            if (isRunning() && HttpUtil.isKeepAlive(response)
+                    && (requestsPerConnection <= 0 || requestCount < requestsPerConnection)) {
+                sendRequest(ctx);
+            } else {
+                ctx.close();
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            if (timeout != null) {
+                // The connection is closed with a request in flight
+                timeout.cancel(false);
+                recordError();
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+
+        private void sendRequest(ChannelHandlerContext ctx) {
+            requestCount++;
+            boolean lastRequest = requestCount == configuration.getRequestsPerConnection();
+            startNanos = System.nanoTime();
+            timeout = scheduleTimeout(ctx);
+            if (configuration.isChunkedRequests()) {
+                HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+                setHeaders(request.headers(), lastRequest);
+                HttpUtil.setTransferEncodingChunked(request, true);
+                ctx.write(request);
+                ctx.write(new DefaultHttpContent(payload.duplicate()));
+                ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+            } else {
+                HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/",
+                        payload.duplicate());
+                setHeaders(request.headers(), lastRequest);
+                HttpUtil.setContentLength(request, payload.readableBytes());
+                ctx.writeAndFlush(request);
+            }
+        }
+
+        private void setHeaders(HttpHeaders headers, boolean lastRequest) {
+            headers.set(HttpHeaderNames.HOST, getAddress().getHostString() + ':' + getAddress().getPort());
+            headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN);
+            if (configuration.isCompression()) {
+                headers.set(HttpHeaderNames.ACCEPT_ENCODING, HttpHeaderValues.GZIP);
+            }
+            if (lastRequest) {
+                headers.set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.loadtest;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.HdrHistogram.Histogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Measures the heap allocation and the garbage collection pauses of the JVM over the measurement of a run. The load
+ * generator runs in the same JVM as the transport, so both take their share.
+ */
+public class JvmMonitor implements NotificationListener {
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Histogram pauses = new Histogram(3);
+    private Map<Long, Long> allocatedBytesAtStart;
+    private long allocatedBytes;
+
+    /**
+     * Takes the allocation of the live threads and starts listening to the collections of the garbage collectors.
+     */
+    public void start() {
+        allocatedBytesAtStart = getAllocatedBytesByThread();
+        for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (garbageCollector instanceof NotificationEmitter) {
+                ((NotificationEmitter) garbageCollector).addNotificationListener(this, null, null);
+            }
+        }
+    }
+
+    /**
+     * Stops listening to the garbage collectors and takes the allocation of each thread since the start. Threads
+     * which terminate before the end of the measurement are not accounted.
+     */
+    public void stop() {
+        for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (garbageCollector instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) garbageCollector).removeNotificationListener(this);
+                } catch (ListenerNotFoundException e) {
+                    // The collector was added after the start
+                }
+            }
+        }
+        allocatedBytes = 0;
+        for (Map.Entry<Long, Long> allocation : getAllocatedBytesByThread().entrySet()) {
+            allocatedBytes += allocation.getValue() - allocatedBytesAtStart.getOrDefault(allocation.getKey(), 0L);
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            synchronized (pauses) {
+                pauses.recordValue(info.getGcInfo().getDuration());
+            }
+        }
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return the durations of the collections, in milliseconds, as reported by the collectors
+     */
+    public Histogram getPauses() {
+        synchronized (pauses) {
+            return pauses.copy();
+        }
+    }
+
+    private Map<Long, Long> getAllocatedBytesByThread() {
+        long[] threadIds = threadMXBean.getAllThreadIds();
+        long[] allocated = threadMXBean.getThreadAllocatedBytes(threadIds);
+        Map<Long, Long> allocatedBytesByThread = new HashMap<>();
+        for (int i = 0; i < threadIds.length; i++) {
+            if (allocated[i] >= 0) {
+                allocatedBytesByThread.put(threadIds[i], allocated[i]);
+            }
+        }
+        return allocatedBytesByThread;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.loadtest;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.net.ssl.SSLException;
+
+/**
+ * A closed loop load generator: each of its connections sends a request, waits for the response and sends the next
+ * one. A connection which is closed, by either side, is replaced by a new one for as long as the generator runs.
+ * <p>
+ * The latency of each exchange is recorded in microseconds. As the generator does not send more than the transport
+ * can take, latencies do not include the time a request would have waited in an open system.
+ */
+public abstract class LoadGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+
+    protected final LoadTestConfiguration configuration;
+    private final InetSocketAddress address;
+    private final Recorder latencies = new Recorder(3);
+    private final LongAdder errors = new LongAdder();
+    private final EventLoopGroup group;
+    private final Bootstrap bootstrap;
+    private final SslContext sslContext;
+    private volatile boolean running;
+
+    protected LoadGenerator(LoadTestConfiguration configuration, String host, int port) throws SSLException {
+        this.configuration = configuration;
+        this.address = new InetSocketAddress(host, port);
+        this.group = new NioEventLoopGroup(configuration.getClientThreads());
+        this.sslContext = configuration.isTls() ? SslContextBuilder.forClient()
+                .trustManager(InsecureTrustManagerFactory.INSTANCE).build() : null;
+        this.bootstrap = new Bootstrap().group(group).channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        if (sslContext != null) {
+                            channel.pipeline().addLast(sslContext.newHandler(channel.alloc(), address.getHostString(),
+                                    address.getPort()));
+                        }
+                        initPipeline(channel);
+                    }
+                });
+    }
+
+    /**
+     * Adds the codecs and the handler which drives the exchanges of a new connection.
+     */
+    protected abstract void initPipeline(Channel channel);
+
+    /**
+     * Opens the connections of the generator, each of which starts sending once it is established.
+     */
+    public void start() {
+        running = true;
+        for (int i = 0; i < configuration.getConcurrency(); i++) {
+            connect();
+        }
+    }
+
+    /**
+     * Stops sending, closes the connections and waits until the event loops of the generator are shut down.
+     */
+    public void stop() throws InterruptedException {
+        running = false;
+        group.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the latencies recorded since the previous call, in microseconds
+     */
+    public Recorder getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @return the number of failed exchanges since the previous call
+     */
+    public long takeErrorCount() {
+        return errors.sumThenReset();
+    }
+
+    protected InetSocketAddress getAddress() {
+        return address;
+    }
+
+    protected void recordLatency(long startNanos) {
+        latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    protected void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Closes the connection if no response arrives in time. The handler counts the exchange in flight as failed
+     * when the connection becomes inactive.
+     */
+    protected ScheduledFuture<?> scheduleTimeout(ChannelHandlerContext ctx) {
+        return ctx.executor().schedule(() -> {
+            ctx.close();
+        }, configuration.getTimeoutSeconds(), TimeUnit.SECONDS);
+    }
+
+    private void connect() {
+        if (!running) {
+            return;
+        }
+        bootstrap.connect(address).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                future.channel().closeFuture().addListener(closeFuture -> connect());
+            } else if (running) {
+                log.warn("Cannot connect to " + address + ": " + future.cause().getMessage());
+                recordError();
+                future.channel().eventLoop().schedule(this::connect, 100, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a load test against the transport on loopback and reports the result as JSON.
+ * <p>
+ * Arguments are given as {@code key=value}, for example:
+ * <pre>
+ * java -jar loadtest.jar scenario=content-aware concurrency=128 payloadSize=4096 poolPolicy=global_pooling tls=true
+ * </pre>
+ * See {@link LoadTestConfiguration} for the settings and their defaults. Run each configuration in a JVM of its own,
+ * with the same JVM options, to compare them.
+ */
+public class LoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfiguration configuration = LoadTestConfiguration.parse(args);
+        String report = run(configuration).toJson();
+        if (configuration.getOutput() != null) {
+            Files.write(Paths.get(configuration.getOutput()), report.getBytes(StandardCharsets.UTF_8));
+        } else {
+            System.out.print(report);
+        }
+    }
+
+    /**
+     * Starts the transport under test, warms it up and measures it under load for the configured duration.
+     */
+    public static LoadTestReport run(LoadTestConfiguration configuration)
+            throws IOException, InterruptedException {
+        try (TransportUnderTest transport = new TransportUnderTest(configuration)) {
+            transport.start();
+            LoadGenerator generator = configuration.getScenario() == LoadTestConfiguration.Scenario.WEBSOCKET
+                    ? new WebSocketLoadGenerator(configuration, transport.getHost(), transport.getPort())
+                    : new HttpLoadGenerator(configuration, transport.getHost(), transport.getPort());
+            JvmMonitor jvmMonitor = new JvmMonitor();
+
+            log.info("Warming up for " + configuration.getWarmupSeconds() + "s with " + configuration.toMap());
+            generator.start();
+            TimeUnit.SECONDS.sleep(configuration.getWarmupSeconds());
+
+            log.info("Measuring for " + configuration.getDurationSeconds() + "s");
+            generator.getLatencies().getIntervalHistogram();
+            generator.takeErrorCount();
+            jvmMonitor.start();
+            long startNanos = System.nanoTime();
+            TimeUnit.SECONDS.sleep(configuration.getDurationSeconds());
+            Histogram latencies = generator.getLatencies().getIntervalHistogram();
+            long errors = generator.takeErrorCount();
+            double elapsedSeconds = (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            jvmMonitor.stop();
+
+            generator.stop();
+            return new LoadTestReport(configuration, latencies, errors, elapsedSeconds,
+                    jvmMonitor.getAllocatedBytes(), jvmMonitor.getPauses());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.loadtest;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Configuration of a load test run, parsed from {@code key=value} arguments.
+ */
+public class LoadTestConfiguration {
+
+    /**
+     * The message flow through the transport which is put under load.
+     */
+    public enum Scenario {
+        /**
+         * The listener streams each request to the backend and the backend response back to the client.
+         */
+        PASSTHROUGH,
+        /**
+         * The listener reads each request and response in full before forwarding it, on a worker thread.
+         */
+        CONTENT_AWARE,
+        /**
+         * The listener relays WebSocket frames between the client and the backend.
+         */
+        WEBSOCKET
+    }
+
+    /**
+     * The HTTP backend which responds to the requests forwarded by the transport.
+     */
+    public enum Backend {
+        /**
+         * Echoes the request in a chunked response and closes the connection.
+         */
+        ECHO,
+        /**
+         * Responds with a fixed payload on a keep-alive connection.
+         */
+        CHUNKED
+    }
+
+    private Scenario scenario = Scenario.PASSTHROUGH;
+    private Backend backend = Backend.CHUNKED;
+    private int concurrency = 64;
+    private int warmupSeconds = 10;
+    private int durationSeconds = 30;
+    private int payloadSize = 1024;
+    private int requestsPerConnection = 0;
+    private int timeoutSeconds = 30;
+    private boolean chunkedRequests = false;
+    private String poolPolicy = "EVENT_LOOP_POOLING";
+    private boolean chunkDisabled = false;
+    private boolean compression = false;
+    private boolean tls = false;
+    private int clientThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private String output;
+
+    /**
+     * Parses the arguments of a run. Arguments which are not given keep their defaults.
+     *
+     * @param args arguments in the form {@code key=value}
+     * @return the configuration of the run
+     */
+    public static LoadTestConfiguration parse(String[] args) {
+        LoadTestConfiguration configuration = new LoadTestConfiguration();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected an argument in the form key=value, found: " + arg);
+            }
+            configuration.set(arg.substring(0, separator).trim(), arg.substring(separator + 1).trim());
+        }
+        return configuration;
+    }
+
+    private void set(String key, String value) {
+        switch (key) {
+        case "scenario":
+            scenario = Scenario.valueOf(toEnumName(value));
+            break;
+        case "backend":
+            backend = Backend.valueOf(toEnumName(value));
+            break;
+        case "concurrency":
+            concurrency = Integer.parseInt(value);
+            break;
+        case "warmup":
+            warmupSeconds = Integer.parseInt(value);
+            break;
+        case "duration":
+            durationSeconds = Integer.parseInt(value);
+            break;
+        case "payloadSize":
+            payloadSize = Integer.parseInt(value);
+            break;
+        case "requestsPerConnection":
+            requestsPerConnection = Integer.parseInt(value);
+            break;
+        case "timeout":
+            timeoutSeconds = Integer.parseInt(value);
+            break;
+        case "chunkedRequests":
+            chunkedRequests = Boolean.parseBoolean(value);
+            break;
+        case "poolPolicy":
+            poolPolicy = toEnumName(value);
+            break;
+        case "chunkDisabled":
+            chunkDisabled = Boolean.parseBoolean(value);
+            break;
+        case "compression":
+            compression = Boolean.parseBoolean(value);
+            break;
+        case "tls":
+            tls = Boolean.parseBoolean(value);
+            break;
+        case "clientThreads":
+            clientThreads = Integer.parseInt(value);
+            break;
+        case "output":
+            output = value;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown load test argument: " + key);
+        }
+    }
+
+    private static String toEnumName(String value) {
+        return value.trim().replace('-', '_').toUpperCase(Locale.ENGLISH);
+    }
+
+    public Scenario getScenario() {
+        return scenario;
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return the number of client connections, each with a single request or frame in flight
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getPayloadSize() {
+        return payloadSize;
+    }
+
+    /**
+     * @return the number of requests sent on a client connection before it is closed, or 0 to keep it open
+     */
+    public int getRequestsPerConnection() {
+        return requestsPerConnection;
+    }
+
+    /**
+     * @return the time to wait for a response before the connection is counted as failed and replaced
+     */
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public boolean isChunkedRequests() {
+        return chunkedRequests;
+    }
+
+    public String getPoolPolicy() {
+        return poolPolicy;
+    }
+
+    public boolean isChunkDisabled() {
+        return chunkDisabled;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public boolean isTls() {
+        return tls;
+    }
+
+    public int getClientThreads() {
+        return clientThreads;
+    }
+
+    /**
+     * @return the file the report is written to, or null to write it to the standard output
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * @return the effective value of each setting of the run, for the report
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("scenario", scenario.name());
+        settings.put("backend", backend.name());
+        settings.put("concurrency", String.valueOf(concurrency));
+        settings.put("warmup", String.valueOf(warmupSeconds));
+        settings.put("duration", String.valueOf(durationSeconds));
+        settings.put("payloadSize", String.valueOf(payloadSize));
+        settings.put("requestsPerConnection", String.valueOf(requestsPerConnection));
+        settings.put("timeout", String.valueOf(timeoutSeconds));
+        settings.put("chunkedRequests", String.valueOf(chunkedRequests));
+        settings.put("poolPolicy", poolPolicy);
+        settings.put("chunkDisabled", String.valueOf(chunkDisabled));
+        settings.put("compression", String.valueOf(compression));
+        settings.put("tls", String.valueOf(tls));
+        settings.put("clientThreads", String.valueOf(clientThreads));
+        return Collections.unmodifiableMap(settings);
+    }
+}
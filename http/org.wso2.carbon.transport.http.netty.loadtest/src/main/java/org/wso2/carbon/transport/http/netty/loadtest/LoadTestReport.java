@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The result of a run, written as a JSON document so that runs of different configurations can be compared.
+ */
+public class LoadTestReport {
+
+    private final LoadTestConfiguration configuration;
+    private final Histogram latencies;
+    private final long errors;
+    private final double elapsedSeconds;
+    private final long allocatedBytes;
+    private final Histogram pauses;
+
+    public LoadTestReport(LoadTestConfiguration configuration, Histogram latencies, long errors, double elapsedSeconds,
+                          long allocatedBytes, Histogram pauses) {
+        this.configuration = configuration;
+        this.latencies = latencies;
+        this.errors = errors;
+        this.elapsedSeconds = elapsedSeconds;
+        this.allocatedBytes = allocatedBytes;
+        this.pauses = pauses;
+    }
+
+    public String toJson() {
+        long exchanges = latencies.getTotalCount();
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"configuration\": {\n");
+        int remaining = configuration.toMap().size();
+        for (Map.Entry<String, String> setting : configuration.toMap().entrySet()) {
+            json.append("    \"").append(setting.getKey()).append("\": \"").append(escape(setting.getValue()))
+                    .append(--remaining > 0 ? "\",\n" : "\"\n");
+        }
+        json.append("  },\n");
+        json.append("  \"elapsedSeconds\": ").append(format(elapsedSeconds)).append(",\n");
+        json.append("  \"exchanges\": ").append(exchanges).append(",\n");
+        json.append("  \"errors\": ").append(errors).append(",\n");
+        json.append("  \"throughput\": ").append(format(exchanges / elapsedSeconds)).append(",\n");
+        json.append("  \"latencyMicros\": {\n");
+        json.append("    \"mean\": ").append(format(latencies.getMean())).append(",\n");
+        json.append("    \"p50\": ").append(latencies.getValueAtPercentile(50)).append(",\n");
+        json.append("    \"p90\": ").append(latencies.getValueAtPercentile(90)).append(",\n");
+        json.append("    \"p99\": ").append(latencies.getValueAtPercentile(99)).append(",\n");
+        json.append("    \"p999\": ").append(latencies.getValueAtPercentile(99.9)).append(",\n");
+        json.append("    \"max\": ").append(latencies.getMaxValue()).append("\n");
+        json.append("  },\n");
+        json.append("  \"allocation\": {\n");
+        json.append("    \"bytes\": ").append(allocatedBytes).append(",\n");
+        json.append("    \"bytesPerSecond\": ").append(format(allocatedBytes / elapsedSeconds)).append(",\n");
+        json.append("    \"bytesPerExchange\": ")
+                .append(format(exchanges > 0 ? (double) allocatedBytes / exchanges : 0)).append("\n");
+        json.append("  },\n");
+        json.append("  \"gcPausesMillis\": {\n");
+        json.append("    \"count\": ").append(pauses.getTotalCount()).append(",\n");
+        json.append("    \"total\": ").append(format(pauses.getMean() * pauses.getTotalCount())).append(",\n");
+        json.append("    \"p99\": ").append(pauses.getValueAtPercentile(99)).append(",\n");
+        json.append("    \"max\": ").append(pauses.getMaxValue()).append("\n");
+        json.append("  }\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ENGLISH, "%.2f", value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.contract.HttpClientConnector;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorException;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+
+/**
+ * Streams each request to the backend and the backend response back to the client, as a passthrough proxy does.
+ */
+public class PassthroughListener implements HttpConnectorListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PassthroughListener.class);
+
+    private final HttpClientConnector clientConnector;
+    private final String backendHost;
+    private final int backendPort;
+
+    public PassthroughListener(HttpClientConnector clientConnector, String backendHost, int backendPort) {
+        this.clientConnector = clientConnector;
+        this.backendHost = backendHost;
+        this.backendPort = backendPort;
+    }
+
+    @Override
+    public void onMessage(HTTPCarbonMessage request) {
+        request.setProperty(Constants.HOST, backendHost);
+        request.setProperty(Constants.PORT, backendPort);
+        clientConnector.send(request).setHttpConnectorListener(new HttpConnectorListener() {
+            @Override
+            public void onMessage(HTTPCarbonMessage response) {
+                try {
+                    request.respond(response);
+                } catch (ServerConnectorException e) {
+                    log.error("Cannot respond to the request", e);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                log.error("Cannot forward the request to the backend", throwable);
+            }
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.error("Error in the server connector", throwable);
+    }
+}
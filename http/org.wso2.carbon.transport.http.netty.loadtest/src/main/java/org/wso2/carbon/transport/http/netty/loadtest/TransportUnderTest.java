@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.loadtest;
+
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
+import org.wso2.carbon.transport.http.netty.config.SenderConfiguration;
+import org.wso2.carbon.transport.http.netty.contract.HttpClientConnector;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnector;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsConnectorFactoryImpl;
+import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
+import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.util.TestUtil;
+import org.wso2.carbon.transport.http.netty.util.server.HttpServer;
+import org.wso2.carbon.transport.http.netty.util.server.initializers.ChunkBasedServerInitializer;
+import org.wso2.carbon.transport.http.netty.util.server.initializers.EchoServerInitializer;
+import org.wso2.carbon.transport.http.netty.util.server.websocket.WebSocketRemoteServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The transport put under load: a server connector of {@link HttpWsConnectorFactoryImpl} with the listener of the
+ * scenario, forwarding to a backend of the functional tests. Everything runs on loopback.
+ */
+public class TransportUnderTest implements AutoCloseable {
+
+    private static final String KEY_STORE = "/simple-test-config/wso2carbon.jks";
+    private static final String KEY_STORE_PASSWORD = "wso2carbon";
+
+    private final LoadTestConfiguration configuration;
+
+    private HttpServer httpBackend;
+    private WebSocketRemoteServer webSocketBackend;
+    private ServerConnector serverConnector;
+    private HttpClientConnector clientConnector;
+    private ExecutorService executor;
+    private File keyStoreFile;
+
+    public TransportUnderTest(LoadTestConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Starts the backend and the server connector, and waits until the server connector is bound.
+     */
+    public void start() throws IOException, InterruptedException {
+        startBackend();
+
+        HTTPTransportContextHolder.getInstance().setBossGroup(new NioEventLoopGroup(1));
+        HTTPTransportContextHolder.getInstance().setWorkerGroup(new NioEventLoopGroup());
+        HttpWsConnectorFactoryImpl connectorFactory = new HttpWsConnectorFactoryImpl();
+
+        ListenerConfiguration listenerConfiguration = new ListenerConfiguration("loadtest", TestUtil.TEST_HOST,
+                TestUtil.TEST_DEFAULT_INTERFACE_PORT);
+        if (configuration.isTls()) {
+            keyStoreFile = extractKeyStore();
+            listenerConfiguration.setScheme(Constants.HTTPS_SCHEME);
+            listenerConfiguration.setKeyStoreFile(keyStoreFile.getAbsolutePath());
+            listenerConfiguration.setKeyStorePass(KEY_STORE_PASSWORD);
+            listenerConfiguration.setCertPass(KEY_STORE_PASSWORD);
+        }
+        serverConnector = connectorFactory.createServerConnector(ServerBootstrapConfiguration.getInstance(),
+                listenerConfiguration);
+        ServerConnectorFuture serverConnectorFuture = serverConnector.start();
+
+        switch (configuration.getScenario()) {
+        case WEBSOCKET:
+            serverConnectorFuture.setWSConnectorListener(new WebSocketPassthroughListener(connectorFactory,
+                    String.format("ws://%s:%d/websocket", TestUtil.TEST_HOST,
+                            TestUtil.TEST_REMOTE_WS_SERVER_PORT)));
+            break;
+        case CONTENT_AWARE:
+            clientConnector = createClientConnector(connectorFactory);
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+            serverConnectorFuture.setHttpConnectorListener(new ContentAwareListener(clientConnector,
+                    TestUtil.TEST_HOST, TestUtil.TEST_HTTP_SERVER_PORT, executor));
+            break;
+        default:
+            clientConnector = createClientConnector(connectorFactory);
+            serverConnectorFuture.setHttpConnectorListener(new PassthroughListener(clientConnector,
+                    TestUtil.TEST_HOST, TestUtil.TEST_HTTP_SERVER_PORT));
+            break;
+        }
+        serverConnectorFuture.sync();
+    }
+
+    public String getHost() {
+        return TestUtil.TEST_HOST;
+    }
+
+    public int getPort() {
+        return TestUtil.TEST_DEFAULT_INTERFACE_PORT;
+    }
+
+    private void startBackend() throws InterruptedException {
+        if (configuration.getScenario() == LoadTestConfiguration.Scenario.WEBSOCKET) {
+            webSocketBackend = new WebSocketRemoteServer(TestUtil.TEST_REMOTE_WS_SERVER_PORT);
+            webSocketBackend.run();
+            return;
+        }
+        ChannelInitializer initializer;
+        if (configuration.getBackend() == LoadTestConfiguration.Backend.ECHO) {
+            initializer = new EchoServerInitializer();
+        } else {
+            initializer = new ChunkBasedServerInitializer(
+                    new String(new char[configuration.getPayloadSize()]).replace('\0', 'x'),
+                    Constants.TEXT_PLAIN, 200);
+        }
+        httpBackend = new HttpServer(TestUtil.TEST_HTTP_SERVER_PORT, initializer);
+        httpBackend.start();
+    }
+
+    private HttpClientConnector createClientConnector(HttpWsConnectorFactoryImpl connectorFactory) {
+        Map<String, Object> transportProperties = new HashMap<>();
+        transportProperties.put(Constants.CONNECTION_POOL_MANAGEMENT_POLICY, configuration.getPoolPolicy());
+        SenderConfiguration senderConfiguration = new SenderConfiguration();
+        senderConfiguration.setChunkDisabled(configuration.isChunkDisabled());
+        return connectorFactory.createHttpClientConnector(transportProperties, senderConfiguration);
+    }
+
+    private static File extractKeyStore() throws IOException {
+        File file = File.createTempFile("loadtest", ".jks");
+        file.deleteOnExit();
+        try (InputStream keyStore = TransportUnderTest.class.getResourceAsStream(KEY_STORE)) {
+            if (keyStore == null) {
+                throw new IOException("Cannot find the key store " + KEY_STORE + " in the class path");
+            }
+            Files.copy(keyStore, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (serverConnector != null) {
+            serverConnector.stop();
+        }
+        if (clientConnector != null) {
+            clientConnector.close();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (httpBackend != null) {
+            httpBackend.shutdown();
+        }
+        if (webSocketBackend != null) {
+            webSocketBackend.stop();
+        }
+        HTTPTransportContextHolder contextHolder = HTTPTransportContextHolder.getInstance();
+        if (contextHolder.getBossGroup() != null) {
+            contextHolder.getBossGroup().shutdownGracefully().sync();
+            contextHolder.getWorkerGroup().shutdownGracefully().sync();
+        }
+        if (keyStoreFile != null && !keyStoreFile.delete()) {
+            keyStoreFile.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.loadtest;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
+import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolHandler;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.net.URI;
+import javax.net.ssl.SSLException;
+
+/**
+ * Sends text frames with a payload of the configured size and waits for each to be echoed back, on connections
+ * which are kept open for the configured number of frames.
+ */
+public class WebSocketLoadGenerator extends LoadGenerator {
+
+    private static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    private final URI uri;
+    private final String payload;
+
+    public WebSocketLoadGenerator(LoadTestConfiguration configuration, String host, int port) throws SSLException {
+        super(configuration, host, port);
+        this.uri = URI.create(String.format("%s://%s:%d/websocket", configuration.isTls() ? "wss" : "ws", host,
+                port));
+        this.payload = new String(new char[configuration.getPayloadSize()]).replace('\0', 'x');
+    }
+
+    @Override
+    protected void initPipeline(Channel channel) {
+        channel.pipeline().addLast(new HttpClientCodec(), new HttpObjectAggregator(8192),
+                new WebSocketClientProtocolHandler(WebSocketClientHandshakerFactory.newHandshaker(
+                        uri, WebSocketVersion.V13, null, false, new DefaultHttpHeaders(), MAX_FRAME_SIZE)),
+                new ExchangeHandler());
+    }
+
+    /**
+     * Drives the exchanges of a single connection once its handshake is complete.
+     */
+    private class ExchangeHandler extends SimpleChannelInboundHandler<WebSocketFrame> {
+
+        private int frameCount;
+        private long startNanos;
+        private ScheduledFuture<?> timeout;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            // The handshake is sent on activation by the protocol handler
+            timeout = scheduleTimeout(ctx);
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object event) throws Exception {
+            if (event == WebSocketClientProtocolHandler.ClientHandshakeStateEvent.HANDSHAKE_COMPLETE) {
+                timeout.cancel(false);
+                sendFrame(ctx);
+            } else {
+                super.userEventTriggered(ctx, event);
+            }
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, WebSocketFrame frame) {
+            if (!(frame instanceof TextWebSocketFrame)) {
+                return;
+            }
+            timeout.cancel(false);
+            timeout = null;
+            recordLatency(startNanos);
+            int framesPerConnection = configuration.getRequestsPerConnection();
+            if (isRunning() && (framesPerConnection <= 0 || frameCount < framesPerConnection)) {
+                sendFrame(ctx);
+            } else {
+                ctx.close();
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (timeout != null) {
+                // The connection is closed with a handshake or a frame in flight
+                timeout.cancel(false);
+                recordError();
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+
+        private void sendFrame(ChannelHandlerContext ctx) {
+            frameCount++;
+            startNanos = System.nanoTime();
+            timeout = scheduleTimeout(ctx);
+            ctx.writeAndFlush(new TextWebSocketFrame(payload));
+        }
+    }
+}
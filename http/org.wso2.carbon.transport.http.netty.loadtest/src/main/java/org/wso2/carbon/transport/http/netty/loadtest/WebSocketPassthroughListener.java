@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.contract.HttpWsConnectorFactory;
+import org.wso2.carbon.transport.http.netty.contract.websocket.HandshakeListener;
+import org.wso2.carbon.transport.http.netty.contract.websocket.WebSocketBinaryMessage;
+import org.wso2.carbon.transport.http.netty.contract.websocket.WebSocketClientConnector;
+import org.wso2.carbon.transport.http.netty.contract.websocket.WebSocketCloseMessage;
+import org.wso2.carbon.transport.http.netty.contract.websocket.WebSocketConnectorListener;
+import org.wso2.carbon.transport.http.netty.contract.websocket.WebSocketControlMessage;
+import org.wso2.carbon.transport.http.netty.contract.websocket.WebSocketInitMessage;
+import org.wso2.carbon.transport.http.netty.contract.websocket.WebSocketTextMessage;
+import org.wso2.carbon.transport.http.netty.contract.websocket.WsClientConnectorConfig;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.websocket.Session;
+
+/**
+ * Relays the frames of each WebSocket connection to a connection of its own to the backend, and the frames of the
+ * backend back to the client.
+ */
+public class WebSocketPassthroughListener implements WebSocketConnectorListener {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketPassthroughListener.class);
+
+    // Map <serverSessionID, clientSession>
+    private final Map<String, Session> clientSessions = new ConcurrentHashMap<>();
+    // Map <clientSessionID, serverSession>
+    private final Map<String, Session> serverSessions = new ConcurrentHashMap<>();
+
+    private final HttpWsConnectorFactory connectorFactory;
+    private final String remoteUrl;
+    private final WebSocketConnectorListener backendListener = new BackendListener();
+
+    public WebSocketPassthroughListener(HttpWsConnectorFactory connectorFactory, String remoteUrl) {
+        this.connectorFactory = connectorFactory;
+        this.remoteUrl = remoteUrl;
+    }
+
+    @Override
+    public void onMessage(WebSocketInitMessage initMessage) {
+        WebSocketClientConnector clientConnector =
+                connectorFactory.createWsClientConnector(new WsClientConnectorConfig(remoteUrl));
+        clientConnector.connect(backendListener).setHandshakeListener(new HandshakeListener() {
+            @Override
+            public void onSuccess(Session clientSession) {
+                initMessage.handshake().setHandshakeListener(new HandshakeListener() {
+                    @Override
+                    public void onSuccess(Session serverSession) {
+                        clientSessions.put(serverSession.getId(), clientSession);
+                        serverSessions.put(clientSession.getId(), serverSession);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        log.error("Cannot complete the handshake of the client", throwable);
+                        close(clientSession);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                log.error("Cannot connect to the backend", throwable);
+                initMessage.cancelHandShake(1011, "Cannot connect to the backend");
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(WebSocketTextMessage textMessage) {
+        Session clientSession = clientSessions.get(textMessage.getChannelSession().getId());
+        if (clientSession == null) {
+            return;
+        }
+        try {
+            clientSession.getBasicRemote().sendText(textMessage.getText());
+        } catch (IOException e) {
+            log.error("Cannot relay a text frame to the backend", e);
+        }
+    }
+
+    @Override
+    public void onMessage(WebSocketBinaryMessage binaryMessage) {
+        Session clientSession = clientSessions.get(binaryMessage.getChannelSession().getId());
+        if (clientSession == null) {
+            return;
+        }
+        try {
+            clientSession.getBasicRemote().sendBinary(binaryMessage.getByteBuffer());
+        } catch (IOException e) {
+            log.error("Cannot relay a binary frame to the backend", e);
+        }
+    }
+
+    @Override
+    public void onMessage(WebSocketControlMessage controlMessage) {
+        // Control frames are answered by the transport
+    }
+
+    @Override
+    public void onMessage(WebSocketCloseMessage closeMessage) {
+        Session clientSession = clientSessions.remove(closeMessage.getChannelSession().getId());
+        if (clientSession != null) {
+            serverSessions.remove(clientSession.getId());
+            close(clientSession);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.error("Error in the WebSocket server connector", throwable);
+    }
+
+    @Override
+    public void onIdleTimeout(WebSocketControlMessage controlMessage) {
+    }
+
+    private static void close(Session session) {
+        try {
+            session.close();
+        } catch (IOException e) {
+            log.error("Cannot close the session " + session.getId(), e);
+        }
+    }
+
+    /**
+     * Relays the frames of the backend connections back to their clients.
+     */
+    private class BackendListener implements WebSocketConnectorListener {
+
+        @Override
+        public void onMessage(WebSocketInitMessage initMessage) {
+            throw new UnsupportedOperationException("Method is not supported");
+        }
+
+        @Override
+        public void onMessage(WebSocketTextMessage textMessage) {
+            Session serverSession = serverSessions.get(textMessage.getChannelSession().getId());
+            if (serverSession == null) {
+                return;
+            }
+            try {
+                serverSession.getBasicRemote().sendText(textMessage.getText());
+            } catch (IOException e) {
+                log.error("Cannot relay a text frame to the client", e);
+            }
+        }
+
+        @Override
+        public void onMessage(WebSocketBinaryMessage binaryMessage) {
+            Session serverSession = serverSessions.get(binaryMessage.getChannelSession().getId());
+            if (serverSession == null) {
+                return;
+            }
+            try {
+                serverSession.getBasicRemote().sendBinary(binaryMessage.getByteBuffer());
+            } catch (IOException e) {
+                log.error("Cannot relay a binary frame to the client", e);
+            }
+        }
+
+        @Override
+        public void onMessage(WebSocketControlMessage controlMessage) {
+        }
+
+        @Override
+        public void onMessage(WebSocketCloseMessage closeMessage) {
+            Session serverSession = serverSessions.remove(closeMessage.getChannelSession().getId());
+            if (serverSession != null) {
+                clientSessions.remove(serverSession.getId());
+                close(serverSession);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            log.error("Error in the WebSocket client connector", throwable);
+        }
+
+        @Override
+        public void onIdleTimeout(WebSocketControlMessage controlMessage) {
+        }
+    }
+}
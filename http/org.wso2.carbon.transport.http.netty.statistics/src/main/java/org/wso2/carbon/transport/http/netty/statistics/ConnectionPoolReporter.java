@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.statistics;
+
+import org.wso2.carbon.metrics.core.Gauge;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.transport.http.netty.common.metrics.EndpointSnapshot;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionPoolMetrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the statistics of the client connection pools as carbon metrics gauges. Pools created since the last
+ * transport metrics snapshot are picked up with the next one, and the gauges of a pool are named after its scope and
+ * route.
+ */
+public class ConnectionPoolReporter implements Consumer<Map<String, EndpointSnapshot>> {
+
+    private static final String PREFIX = "http.pool.";
+
+    private final MetricService metricService;
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+    public ConnectionPoolReporter(MetricService metricService) {
+        this.metricService = metricService;
+    }
+
+    @Override
+    public void accept(Map<String, EndpointSnapshot> snapshot) {
+        ConnectionManager connectionManager = ConnectionManager.getInstance();
+        if (connectionManager == null) {
+            return;
+        }
+        for (ConnectionPoolMetrics poolMetrics : connectionManager.getPoolMetrics()) {
+            String pool = poolMetrics.getScope() + "." + poolMetrics.getRoute();
+            // A pool which is closed and created again takes the place of the old one under the same gauges
+            if (pools.put(pool, poolMetrics) == null) {
+                registerGauges(pool);
+            }
+        }
+    }
+
+    private void registerGauges(String pool) {
+        String name = PREFIX + pool;
+        registerGauge(name + ".connections.open", pool, ConnectionPoolMetrics::getOpenConnections);
+        registerGauge(name + ".connections.active", pool, ConnectionPoolMetrics::getActiveConnections);
+        registerGauge(name + ".connections.idle", pool, ConnectionPoolMetrics::getIdleConnections);
+        registerGauge(name + ".connections.created", pool, ConnectionPoolMetrics::getCreatedConnections);
+        registerGauge(name + ".connections.evicted", pool, ConnectionPoolMetrics::getEvictedConnections);
+        registerGauge(name + ".connections.invalidated", pool, ConnectionPoolMetrics::getInvalidatedConnections);
+        registerGauge(name + ".acquires", pool, ConnectionPoolMetrics::getAcquireCount);
+        registerGauge(name + ".acquires.pending", pool, ConnectionPoolMetrics::getPendingAcquires);
+        registerGauge(name + ".acquires.wait.mean", pool, ConnectionPoolMetrics::getMeanAcquireWaitTime);
+        registerGauge(name + ".acquires.wait.max", pool, ConnectionPoolMetrics::getMaxAcquireWaitTime);
+        registerGauge(name + ".exhausted", pool, ConnectionPoolMetrics::getExhaustedCount);
+        registerGauge(name + ".connect.time.mean", pool, ConnectionPoolMetrics::getMeanConnectTime);
+        registerGauge(name + ".connect.time.max", pool, ConnectionPoolMetrics::getMaxConnectTime);
+    }
+
+    private void registerGauge(String name, String pool, ToLongFunction<ConnectionPoolMetrics> value) {
+        metricService.gauge(name, Level.INFO, (Gauge<Long>) () -> {
+            ConnectionPoolMetrics poolMetrics = pools.get(pool);
+            return poolMetrics != null ? value.applyAsLong(poolMetrics) : 0L;
+        });
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.statistics;
+
+import org.wso2.carbon.metrics.core.Gauge;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.transport.http.netty.common.metrics.EndpointSnapshot;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the snapshots of the transport metrics as carbon metrics gauges. The gauges of a listener or a route are
+ * registered with its first snapshot, and read the latest snapshot of it.
+ */
+public class TransportMetricsReporter implements Consumer<Map<String, EndpointSnapshot>> {
+
+    private static final String PREFIX = "http.";
+
+    private final MetricService metricService;
+    private final Set<String> registeredEndpoints = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, EndpointSnapshot> snapshot = Collections.emptyMap();
+
+    public TransportMetricsReporter(MetricService metricService) {
+        this.metricService = metricService;
+    }
+
+    @Override
+    public void accept(Map<String, EndpointSnapshot> snapshot) {
+        this.snapshot = snapshot;
+        for (String endpoint : snapshot.keySet()) {
+            if (registeredEndpoints.add(endpoint)) {
+                registerGauges(endpoint);
+            }
+        }
+    }
+
+    private void registerGauges(String endpoint) {
+        String name = PREFIX + endpoint;
+        registerLatencyGauge(name + ".latency.p50", endpoint, 50);
+        registerLatencyGauge(name + ".latency.p99", endpoint, 99);
+        registerLatencyGauge(name + ".latency.p999", endpoint, 99.9);
+        registerGauge(name + ".latency.max", endpoint, endpointSnapshot -> endpointSnapshot.getLatency().getMaxValue());
+        registerGauge(name + ".requests", endpoint, EndpointSnapshot::getRequestCount);
+        registerGauge(name + ".bytes.in", endpoint, EndpointSnapshot::getBytesIn);
+        registerGauge(name + ".bytes.out", endpoint, EndpointSnapshot::getBytesOut);
+        registerGauge(name + ".connections.active", endpoint, EndpointSnapshot::getActiveConnections);
+        registerGauge(name + ".connections.opened", endpoint, EndpointSnapshot::getOpenedConnections);
+        registerGauge(name + ".connection.duration.p99", endpoint,
+                endpointSnapshot -> endpointSnapshot.getConnectionDuration().getValueAtPercentile(99));
+        registerGauge(name + ".tls.handshakes", endpoint, EndpointSnapshot::getHandshakeCount);
+        registerGauge(name + ".tls.handshakes.resumed", endpoint, EndpointSnapshot::getResumedHandshakeCount);
+        registerGauge(name + ".tls.handshakes.failed", endpoint, EndpointSnapshot::getFailedHandshakeCount);
+        registerGauge(name + ".tls.handshake.time.p99", endpoint,
+                endpointSnapshot -> endpointSnapshot.getHandshakeTime().getValueAtPercentile(99));
+    }
+
+    private void registerLatencyGauge(String name, String endpoint, double percentile) {
+        registerGauge(name, endpoint,
+                endpointSnapshot -> endpointSnapshot.getLatency().getValueAtPercentile(percentile));
+    }
+
+    private void registerGauge(String name, String endpoint, ToLongFunction<EndpointSnapshot> value) {
+        metricService.gauge(name, Level.INFO, (Gauge<Long>) () -> {
+            EndpointSnapshot endpointSnapshot = snapshot.get(endpoint);
+            return endpointSnapshot != null ? value.applyAsLong(endpointSnapshot) : 0L;
+        });
+    }
+}
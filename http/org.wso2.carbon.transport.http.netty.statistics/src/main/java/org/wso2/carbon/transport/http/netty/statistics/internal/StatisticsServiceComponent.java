@@ -25,15 +25,16 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
-import org.wso2.carbon.messaging.handler.MessagingHandler;
 import org.wso2.carbon.metrics.core.MetricManagementService;
 import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.transport.http.netty.common.metrics.TransportMetrics;
 import org.wso2.carbon.transport.http.netty.config.ConfigurationBuilder;
 import org.wso2.carbon.transport.http.netty.config.TransportProperty;
-import org.wso2.carbon.transport.http.netty.statistics.StatisticsHandler;
-import org.wso2.carbon.transport.http.netty.statistics.TimerHolder;
+import org.wso2.carbon.transport.http.netty.statistics.ConnectionPoolReporter;
+import org.wso2.carbon.transport.http.netty.statistics.TransportMetricsReporter;
 
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service component to refer metrics services
@@ -43,6 +44,14 @@ import java.util.Set;
         immediate = true
 )
 public class StatisticsServiceComponent {
+
+    // Interval in milliseconds at which the metrics of the event loops are merged and published
+    private static final long DEFAULT_SNAPSHOT_INTERVAL = 10000;
+
+    private TransportMetricsReporter metricsReporter;
+
+    private ConnectionPoolReporter poolReporter;
+
     /**
      * This bind method will be called when {@link MetricService} is registered.
      *
@@ -96,14 +105,25 @@ public class StatisticsServiceComponent {
     @Activate
     public void activate(BundleContext bundleContext) {
         if (getMetricsStatus()) {
-            bundleContext
-                    .registerService(MessagingHandler.class, new StatisticsHandler(TimerHolder.getInstance()), null);
+            metricsReporter = new TransportMetricsReporter(DataHolder.getInstance().getMetricService());
+            poolReporter = new ConnectionPoolReporter(DataHolder.getInstance().getMetricService());
+            TransportMetrics transportMetrics = TransportMetrics.getInstance();
+            transportMetrics.addSnapshotListener(metricsReporter);
+            transportMetrics.addSnapshotListener(poolReporter);
+            transportMetrics.enable(getSnapshotInterval(), TimeUnit.MILLISECONDS);
         }
     }
 
     @Deactivate
     public void deactivate(BundleContext bundleContext) {
-
+        if (metricsReporter != null) {
+            TransportMetrics transportMetrics = TransportMetrics.getInstance();
+            transportMetrics.disable();
+            transportMetrics.removeSnapshotListener(metricsReporter);
+            transportMetrics.removeSnapshotListener(poolReporter);
+            metricsReporter = null;
+            poolReporter = null;
+        }
     }
 
     private boolean getMetricsStatus() {
@@ -120,4 +140,18 @@ public class StatisticsServiceComponent {
         return statStatus;
     }
 
+    private long getSnapshotInterval() {
+        long snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+
+        Set<TransportProperty> transportProperties =
+                ConfigurationBuilder.getInstance().getConfiguration().getTransportProperties();
+        for (TransportProperty property : transportProperties) {
+            if (property.getName().equalsIgnoreCase("latency.metrics.snapshot.interval")) {
+                snapshotInterval = Long.parseLong(String.valueOf(property.getValue()));
+            }
+        }
+
+        return snapshotInterval;
+    }
+
 }
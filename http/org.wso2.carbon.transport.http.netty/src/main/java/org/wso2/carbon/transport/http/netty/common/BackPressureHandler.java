@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies back pressure to the channels which feed the content written to this handler's channel. Reading from them
+ * is paused while the outbound buffer of the channel is above its high water mark, and resumed once the buffer
+ * drains below the low water mark or the channel is closed.
+ * <p>
+ * All the state is accessed from the event loop of the channel this handler belongs to.
+ */
+public class BackPressureHandler extends ChannelInboundHandlerAdapter {
+
+    private final List<Channel> pausedChannels = new ArrayList<>(1);
+
+    /**
+     * Pause reading from the inbound channel if the outbound channel is no longer writable. Must be called from the
+     * event loop of the outbound channel, after content is written to it.
+     *
+     * @param outboundChannel channel the content is written to.
+     * @param inboundChannel  channel the content is read from, may be null for content built by the application.
+     */
+    public static void pauseIfUnwritable(Channel outboundChannel, Channel inboundChannel) {
+        if (inboundChannel == null || outboundChannel.isWritable()) {
+            return;
+        }
+        BackPressureHandler backPressureHandler =
+                (BackPressureHandler) outboundChannel.pipeline().get(Constants.BACK_PRESSURE_HANDLER);
+        if (backPressureHandler != null) {
+            backPressureHandler.pause(inboundChannel);
+        }
+    }
+
+    private void pause(Channel inboundChannel) {
+        if (!pausedChannels.contains(inboundChannel)) {
+            inboundChannel.config().setAutoRead(false);
+            pausedChannels.add(inboundChannel);
+        }
+    }
+
+    private void resumeAll() {
+        for (Channel pausedChannel : pausedChannels) {
+            pausedChannel.config().setAutoRead(true);
+        }
+        pausedChannels.clear();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            resumeAll();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        resumeAll();
+        super.channelInactive(ctx);
+    }
+}
@@ -78,6 +78,23 @@ public final class Constants {
     //Worker group size of the server bootstrap
     public static final String SERVER_BOOTSTRAP_WORKER_GROUP_SIZE = "server.bootstrap.worker.group.size";
 
+    // Enables SO_REUSEPORT so that multiple acceptors can bind to the same port (native transport only)
+    public static final String SERVER_BOOTSTRAP_SO_REUSE_PORT = "server.bootstrap.socket.reuse.port";
+
+    // Prefer the native (epoll) transport when it is available on the platform. Falls back to NIO otherwise.
+    public static final String NATIVE_TRANSPORT_ENABLED = "native.transport.enabled";
+
+    public static final boolean DEFAULT_NATIVE_TRANSPORT_ENABLED = true;
+
+    // Payload size in bytes kept in memory per message, the rest is spilled to a temporary file. Disabled if not set.
+    public static final String ENTITY_SPILL_THRESHOLD = "entity.collector.spill.threshold";
+
+    // Collect the payload without locking between the I/O thread and the thread consuming it
+    public static final String ENTITY_COLLECTOR_NON_BLOCKING = "entity.collector.non.blocking";
+
+    // System property which enables tracking a sample of the messages for leaks
+    public static final String MESSAGE_LEAK_DETECTION = "http.message.leak.detection";
+
     //Event group size of server bootstrap
     public static final String EVENT_GROUP_EXECUTOR_THREAD_SIZE = "event.group.executor.thread.size";
 
@@ -92,6 +109,12 @@ public final class Constants {
     public static final String SSL_VERIFY_CLIENT = "sslVerifyClient";
     public static final String SSL_PROTOCOL = "sslProtocol";
 
+    // SSL parameters of both listeners and senders
+    public static final String SSL_PROVIDER = "sslProvider";
+    public static final String SSL_CERTIFICATE_RELOAD_INTERVAL = "certificateReloadInterval";
+    public static final String SSL_SESSION_CACHE_SIZE = "sslSessionCacheSize";
+    public static final String SSL_SESSION_TIMEOUT = "sslSessionTimeout";
+
     public static final String IS_SECURED_CONNECTION = "IS_SECURED_CONNECTION";
 
     // Connection Pool parameters
@@ -107,14 +130,33 @@ public final class Constants {
 
     public static final String MIN_EVICTION_IDLE_TIME = "client.min.eviction.idle.time";
 
+    public static final String TIME_BETWEEN_EVICTION_RUNS = "client.time.between.eviction.runs";
+
+    public static final String MAX_PENDING_ACQUIRES_PER_POOL = "client.max.pending.acquires.per.pool";
+
+    public static final int DEFAULT_MAX_PENDING_ACQUIRES_PER_POOL = 1000;
+
+    public static final String PENDING_ACQUIRE_TIMEOUT = "client.pending.acquire.timeout";
+
+    // Maximum number of in-flight requests on a single connection, pipelining is disabled when it is 1
+    public static final String CLIENT_PIPELINING_MAX_DEPTH = "client.pipelining.max.depth";
+
+    // Whether the statistics of each connection pool are registered as an MXBean
+    public static final String CONNECTION_POOL_JMX_ENABLED = "client.connection.pool.jmx.enabled";
+
     public static final String ENABLE_GLOBAL_CONNECTION_POOLING = "enable.global.client.connection.pooling";
 
+    // One of GLOBAL_POOLING (default, or LOCK_DEFAULT_POOLING when connection.pool.count is 1), LOCK_DEFAULT_POOLING
+    // or EVENT_LOOP_POOLING
+    public static final String CONNECTION_POOL_MANAGEMENT_POLICY = "client.connection.pool.management.policy";
+
     public static final String NO_THREADS_IN_EXECUTOR_SERVICE = "sender.thread.count";
 
 
     public static final String EXECUTOR_WORKER_POOL = "executor.workerpool";
 
-    public static final String OUTPUT_CONTENT_BUFFER_SIZE = "output.content.buffer.size";
+    // Size in bytes of the buffers which content written to a message output stream is collected in
+    public static final int DEFAULT_OUTPUT_CONTENT_BUFFER_SIZE = 8 * 1024;
 
     public static final String CERTPASS = "certPass";
 
@@ -254,6 +296,8 @@ public final class Constants {
     public static final String UPGRADE_RESPONSE_HEADER = "http-to-http2-upgrade";
     public static final String HTTP2_VERSION = "HTTP/2.0";
     public static final String STREAM_ID = "STREAM_ID";
+
+    public static final int HTTP2_DEFAULT_MAX_CONCURRENT_STREAMS = 100;
 //    public static final String SCHEME = "SCHEME";
     public static final String AUTHORITY = "AUTHORITY";
     public static final String HTTP2_METHOD = ":method";
@@ -262,12 +306,33 @@ public final class Constants {
     public static final String HTTP2_SCHEME = ":scheme";
 
     public static final String HTTP_SOURCE_HANDLER = "SourceHandler";
+    public static final String HTTP2_SOURCE_HANDLER = "http2SourceHandler";
+    public static final String HTTP2_ALPN_HANDLER = "http2AlpnHandler";
+    public static final String HTTP2_CLEARTEXT_UPGRADE_HANDLER = "http2CleartextUpgradeHandler";
     public static final String WEBSOCKET_SOURCE_HANDLER = "ws_handler";
     public static final String TARGET_HANDLER = "targetHandler";
     public static final String REDIRECT_HANDLER = "redirectHandler";
     public static final String IDLE_STATE_HANDLER = "idleStateHandler";
     public static final String HTTP_TRACE_LOG_HANDLER = "http-trace-logger";
     public static final String WEBSOCKET_SERVER_HANDSHAKE_HANDLER = "websocket-server-handshake-handler";
+    public static final String BACK_PRESSURE_HANDLER = "backPressureHandler";
+    public static final String METRICS_HANDLER = "metricsHandler";
+    public static final String ENDPOINT_TIMEOUT_HANDLER = "endpointTimeoutHandler";
+
+    // Bounds in seconds of the time to live of the DNS records of target hosts
+    public static final int DEFAULT_DNS_CACHE_MIN_TTL = 0;
+    public static final int DEFAULT_DNS_CACHE_MAX_TTL = 3600;
+    // Time in seconds a failed lookup of a target host is answered from the cache
+    public static final int DEFAULT_DNS_CACHE_NEGATIVE_TTL = 5;
+    public static final int DEFAULT_DNS_QUERY_TIMEOUT = 5000;
+
+    // Resolution in milliseconds of the timer which tracks the timeouts of the requests to the endpoints
+    public static final int ENDPOINT_TIMEOUT_TICK_DURATION = 10;
+
+    // Outbound buffer size in bytes above which reading from the channel feeding the content is paused
+    public static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024;
+    // Outbound buffer size in bytes below which reading from the channel feeding the content is resumed
+    public static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 32 * 1024;
 
     public static final AttributeKey<Integer> REDIRECT_COUNT = AttributeKey.<Integer>valueOf
             ("REDIRECT_COUNT");
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selects the event loop and channel implementations to be used by the transport.
+ */
+public class EventLoopUtil {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLoopUtil.class);
+
+    private EventLoopUtil() {
+    }
+
+    /**
+     * Check whether the native epoll transport can be used on this platform.
+     *
+     * @return true if the native transport libraries are loaded.
+     */
+    public static boolean isNativeTransportAvailable() {
+        return Epoll.isAvailable();
+    }
+
+    /**
+     * Check whether the calling thread is an event loop thread, of any group. The threads of the netty event loops
+     * are created as {@link FastThreadLocalThread}s, so are the threads of the other netty executors, which must not
+     * block either.
+     *
+     * @return true if the calling thread must not block.
+     */
+    public static boolean isEventLoopThread() {
+        return Thread.currentThread() instanceof FastThreadLocalThread;
+    }
+
+    /**
+     * Create an event loop group. The native epoll group is returned when it is preferred and available,
+     * otherwise this falls back to a NIO group.
+     *
+     * @param nThreads        number of threads in the group. Zero means the netty default.
+     * @param preferNative    whether the native transport should be used when available.
+     * @return the event loop group.
+     */
+    public static EventLoopGroup createEventLoopGroup(int nThreads, boolean preferNative) {
+        if (preferNative) {
+            if (Epoll.isAvailable()) {
+                return new EpollEventLoopGroup(nThreads);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Native transport is not available, falling back to NIO: "
+                        + Epoll.unavailabilityCause());
+            }
+        }
+        return new NioEventLoopGroup(nThreads);
+    }
+
+    /**
+     * Check whether the given group is backed by the native transport.
+     *
+     * @param eventLoopGroup the event loop group or a single event loop of a group.
+     * @return true if the group is a native epoll group.
+     */
+    public static boolean isNativeEventLoopGroup(EventLoopGroup eventLoopGroup) {
+        if (eventLoopGroup instanceof EventLoop) {
+            return ((EventLoop) eventLoopGroup).parent() instanceof EpollEventLoopGroup;
+        }
+        return eventLoopGroup instanceof EpollEventLoopGroup;
+    }
+
+    /**
+     * Get the server channel class which matches the given group.
+     *
+     * @param eventLoopGroup the event loop group which the server channel is registered with.
+     * @return the server socket channel class.
+     */
+    public static Class<? extends ServerChannel> getServerChannelClass(EventLoopGroup eventLoopGroup) {
+        return isNativeEventLoopGroup(eventLoopGroup) ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    /**
+     * Get the client socket channel class which matches the given group.
+     *
+     * @param eventLoopGroup the event loop group which the client channel is registered with.
+     * @return the socket channel class.
+     */
+    public static Class<? extends SocketChannel> getSocketChannelClass(EventLoopGroup eventLoopGroup) {
+        return isNativeEventLoopGroup(eventLoopGroup) ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    /**
+     * Get the datagram channel class which matches the given group.
+     *
+     * @param eventLoopGroup the event loop group which the datagram channel is registered with.
+     * @return the datagram channel class.
+     */
+    public static Class<? extends DatagramChannel> getDatagramChannelClass(EventLoopGroup eventLoopGroup) {
+        return isNativeEventLoopGroup(eventLoopGroup) ? EpollDatagramChannel.class : NioDatagramChannel.class;
+    }
+}
@@ -19,13 +19,15 @@ package org.wso2.carbon.transport.http.netty.common;
  * Class encapsulates the Endpoint address.
  */
 public class HttpRoute {
-    private String host;
-    private int port;
+    private final String host;
+    private final int port;
+    private final int hashCode;
 
 
     public HttpRoute(String host, int port) {
         this.host = host;
         this.port = port;
+        this.hashCode = 31 * host.hashCode() + port;
     }
 
     @Override
@@ -33,6 +35,23 @@ public class HttpRoute {
         return host + "-" + port;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HttpRoute)) {
+            return false;
+        }
+        HttpRoute httpRoute = (HttpRoute) o;
+        return port == httpRoute.port && host.equals(httpRoute.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
     public String getHost() {
         return host;
     }
@@ -41,7 +60,3 @@ public class HttpRoute {
         return port;
     }
 }
-
-
-
-
@@ -38,6 +38,7 @@ import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
 import java.io.File;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -114,6 +115,36 @@ public class Util {
         return outgoingResponse;
     }
 
+    /**
+     * Check whether the request can be pipelined behind other requests on the same connection. Only HTTP/1.1 requests
+     * with idempotent methods are pipelined, since a non-idempotent request cannot be retried safely if the connection
+     * is closed before its response is received.
+     *
+     * @param msg the outbound request.
+     * @return true if the request can be pipelined.
+     */
+    public static boolean isPipelinableRequest(HTTPCarbonMessage msg) {
+        Object httpVersion = msg.getProperty(Constants.HTTP_VERSION);
+        if (httpVersion != null && !DEFAULT_VERSION_HTTP_1_1.equals(httpVersion)) {
+            return false;
+        }
+        Object httpMethod = msg.getProperty(Constants.HTTP_METHOD);
+        if (httpMethod == null) {
+            return false;
+        }
+        switch (((String) httpMethod).toUpperCase(Locale.ENGLISH)) {
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+            case "TRACE":
+            case "PUT":
+            case "DELETE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static HttpRequest createHttpRequest(HTTPCarbonMessage msg) {
         HttpMethod httpMethod;
@@ -156,7 +187,7 @@ public class Util {
     private static void  setContentLength(HTTPCarbonMessage cMsg) {
         if (cMsg.isAlreadyRead() || (cMsg.getHeader(Constants.HTTP_CONTENT_LENGTH) == null && !cMsg.isEmpty())) {
             Util.prepareBuiltMessageForTransfer(cMsg);
-            int contentLength = cMsg.getFullMessageLength();
+            long contentLength = cMsg.getFullPayloadLength();
             if (contentLength > 0) {
                 cMsg.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(contentLength));
             }
@@ -211,7 +242,10 @@ public class Util {
             (cMsg.isAlreadyRead() || (cMsg.getHeader(Constants.HTTP_CONTENT_LENGTH) == null))) {
             Util.prepareBuiltMessageForTransfer(cMsg);
             if (!cMsg.isEmpty()) {
-                int contentLength = cMsg.getFullMessageLength();
+                if (setChunkedIfIncomplete(cMsg, requestDataHolder)) {
+                    return;
+                }
+                long contentLength = cMsg.getFullPayloadLength();
                 if (contentLength > 0) {
                     cMsg.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(contentLength));
                 }
@@ -226,7 +260,10 @@ public class Util {
         } else if (cMsg.isAlreadyRead() || (cMsg.getHeader(Constants.HTTP_CONTENT_LENGTH) == null)) {
             Util.prepareBuiltMessageForTransfer(cMsg);
             if (!cMsg.isEmpty()) {
-                int contentLength = cMsg.getFullMessageLength();
+                if (setChunkedIfIncomplete(cMsg, requestDataHolder)) {
+                    return;
+                }
+                long contentLength = cMsg.getFullPayloadLength();
                 cMsg.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(contentLength));
             } else {
                 cMsg.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(0));
@@ -234,6 +271,23 @@ public class Util {
         }
     }
 
+    /**
+     * Send the response chunked rather than waiting for the rest of the payload to compute its length, unless the
+     * client does not support chunked responses.
+     *
+     * @param cMsg              response message.
+     * @param requestDataHolder data of the request.
+     * @return true if the response is to be chunked.
+     */
+    private static boolean setChunkedIfIncomplete(HTTPCarbonMessage cMsg, RequestDataHolder requestDataHolder) {
+        if (cMsg.isContentComplete() || HttpVersion.HTTP_1_0.text().equals(requestDataHolder.getHttpVersion())) {
+            return false;
+        }
+        cMsg.setHeader(Constants.HTTP_TRANSFER_ENCODING, Constants.CHUNKED);
+        cMsg.removeHeader(Constants.HTTP_CONTENT_LENGTH);
+        return true;
+    }
+
     /**
      * Prepare built message to transfer through the wire.
      * This will populate the message content from the DataSource into the output stream of the carbon message
@@ -280,6 +334,8 @@ public class Util {
             } else if (parameter.getName()
                     .equals(Constants.SERVER_ENABLE_SESSION_CREATION)) {
                 sslConfig.setEnableSessionCreation(Boolean.parseBoolean(parameter.getValue()));
+            } else {
+                setSharedSSLParameter(sslConfig, parameter);
             }
         }
         if ("require".equalsIgnoreCase(verifyClient)) {
@@ -342,12 +398,26 @@ public class Util {
                     sslConfig.setEnableProtocols(parameter.getValue());
                 } else if (Constants.CLIENT_ENABLE_SESSION_CREATION.equals(paramName)) {
                     sslConfig.setEnableSessionCreation(Boolean.parseBoolean(parameter.getValue()));
+                } else {
+                    setSharedSSLParameter(sslConfig, parameter);
                 }
             }
         }
         return sslConfig;
     }
 
+    private static void setSharedSSLParameter(SSLConfig sslConfig, Parameter parameter) {
+        if (Constants.SSL_PROVIDER.equals(parameter.getName())) {
+            sslConfig.setSslProvider(parameter.getValue());
+        } else if (Constants.SSL_CERTIFICATE_RELOAD_INTERVAL.equals(parameter.getName())) {
+            sslConfig.setCertificateReloadInterval(Long.parseLong(parameter.getValue()));
+        } else if (Constants.SSL_SESSION_CACHE_SIZE.equals(parameter.getName())) {
+            sslConfig.setSessionCacheSize(Integer.parseInt(parameter.getValue()));
+        } else if (Constants.SSL_SESSION_TIMEOUT.equals(parameter.getName())) {
+            sslConfig.setSessionTimeout(Integer.parseInt(parameter.getValue()));
+        }
+    }
+
     /**
      * Get integer type property value from a property map.
      * <p>
@@ -555,4 +625,16 @@ public class Util {
     public static boolean isLastHttpContent(HttpContent httpContent) {
         return httpContent instanceof LastHttpContent;
     }
+
+    /**
+     * Release the reference a message is created with, at the end of its exchange. The reference is released only
+     * once, whichever of the response write, the connection close and the application comes first.
+     *
+     * @param msg message to release.
+     */
+    public static void releaseMessage(HTTPCarbonMessage msg) {
+        if (msg != null) {
+            msg.release();
+        }
+    }
 }
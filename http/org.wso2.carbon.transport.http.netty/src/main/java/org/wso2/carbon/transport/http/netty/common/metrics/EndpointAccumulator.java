@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Accumulates the metrics an endpoint records on all the event loops.
+ */
+final class EndpointAccumulator {
+
+    private final Histogram latency = new Histogram(EndpointRecorder.SIGNIFICANT_DIGITS);
+    private final Histogram connectionDuration = new Histogram(EndpointRecorder.SIGNIFICANT_DIGITS);
+    private final Histogram handshakeTime = new Histogram(EndpointRecorder.SIGNIFICANT_DIGITS);
+    // The counters of the recorders are cumulative, so they are summed up again on each merge
+    private long bytesIn;
+    private long bytesOut;
+    private long openedConnections;
+    private long closedConnections;
+    private long resumedHandshakes;
+    private long failedHandshakes;
+    // Counters of the recorders of terminated event loops, which are not merged any more
+    private long retiredBytesIn;
+    private long retiredBytesOut;
+    private long retiredOpenedConnections;
+    private long retiredClosedConnections;
+    private long retiredResumedHandshakes;
+    private long retiredFailedHandshakes;
+
+    void reset() {
+        bytesIn = retiredBytesIn;
+        bytesOut = retiredBytesOut;
+        openedConnections = retiredOpenedConnections;
+        closedConnections = retiredClosedConnections;
+        resumedHandshakes = retiredResumedHandshakes;
+        failedHandshakes = retiredFailedHandshakes;
+    }
+
+    void add(Histogram latencyInterval, Histogram connectionDurationInterval, long bytesIn, long bytesOut,
+            long openedConnections, long closedConnections) {
+        latency.add(latencyInterval);
+        connectionDuration.add(connectionDurationInterval);
+        this.bytesIn += bytesIn;
+        this.bytesOut += bytesOut;
+        this.openedConnections += openedConnections;
+        this.closedConnections += closedConnections;
+    }
+
+    void addHandshakes(Histogram handshakeTimeInterval, long resumedHandshakes, long failedHandshakes) {
+        handshakeTime.add(handshakeTimeInterval);
+        this.resumedHandshakes += resumedHandshakes;
+        this.failedHandshakes += failedHandshakes;
+    }
+
+    void retire(long bytesIn, long bytesOut, long openedConnections, long closedConnections, long resumedHandshakes,
+            long failedHandshakes) {
+        retiredBytesIn += bytesIn;
+        retiredBytesOut += bytesOut;
+        retiredOpenedConnections += openedConnections;
+        retiredClosedConnections += closedConnections;
+        retiredResumedHandshakes += resumedHandshakes;
+        retiredFailedHandshakes += failedHandshakes;
+    }
+
+    EndpointSnapshot snapshot(String endpoint) {
+        return new EndpointSnapshot(endpoint, latency.copy(), connectionDuration.copy(), bytesIn, bytesOut,
+                openedConnections, closedConnections, handshakeTime.copy(), resumedHandshakes, failedHandshakes);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Records the metrics of an endpoint on one event loop. Only the event loop writes to it, and only the thread merging
+ * the snapshots reads it.
+ */
+class EndpointRecorder {
+
+    static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final AtomicLongFieldUpdater<EndpointRecorder> BYTES_IN_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(EndpointRecorder.class, "bytesIn");
+    private static final AtomicLongFieldUpdater<EndpointRecorder> BYTES_OUT_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(EndpointRecorder.class, "bytesOut");
+    private static final AtomicLongFieldUpdater<EndpointRecorder> OPENED_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(EndpointRecorder.class, "openedConnections");
+    private static final AtomicLongFieldUpdater<EndpointRecorder> CLOSED_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(EndpointRecorder.class, "closedConnections");
+    private static final AtomicLongFieldUpdater<EndpointRecorder> RESUMED_HANDSHAKES_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(EndpointRecorder.class, "resumedHandshakes");
+    private static final AtomicLongFieldUpdater<EndpointRecorder> FAILED_HANDSHAKES_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(EndpointRecorder.class, "failedHandshakes");
+
+    // Latency and TLS handshake time in microseconds, connection duration in milliseconds
+    private final SingleWriterRecorder latency = new SingleWriterRecorder(SIGNIFICANT_DIGITS);
+    private final SingleWriterRecorder connectionDuration = new SingleWriterRecorder(SIGNIFICANT_DIGITS);
+    private final SingleWriterRecorder handshakeTime = new SingleWriterRecorder(SIGNIFICANT_DIGITS);
+    // Counters have a single writer, so they are published with lazySet rather than incremented atomically
+    private volatile long bytesIn;
+    private volatile long bytesOut;
+    private volatile long openedConnections;
+    private volatile long closedConnections;
+    private volatile long resumedHandshakes;
+    private volatile long failedHandshakes;
+    // Recycled by the merging thread
+    private Histogram latencyInterval;
+    private Histogram connectionDurationInterval;
+    private Histogram handshakeTimeInterval;
+
+    void recordLatency(long latencyNanos) {
+        latency.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    void addBytesIn(long bytes) {
+        BYTES_IN_UPDATER.lazySet(this, bytesIn + bytes);
+    }
+
+    void addBytesOut(long bytes) {
+        BYTES_OUT_UPDATER.lazySet(this, bytesOut + bytes);
+    }
+
+    void connectionOpened() {
+        OPENED_UPDATER.lazySet(this, openedConnections + 1);
+    }
+
+    void connectionClosed(long durationNanos) {
+        CLOSED_UPDATER.lazySet(this, closedConnections + 1);
+        connectionDuration.recordValue(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    void handshakeCompleted(long durationNanos, boolean resumed) {
+        handshakeTime.recordValue(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        if (resumed) {
+            RESUMED_HANDSHAKES_UPDATER.lazySet(this, resumedHandshakes + 1);
+        }
+    }
+
+    void handshakeFailed() {
+        FAILED_HANDSHAKES_UPDATER.lazySet(this, failedHandshakes + 1);
+    }
+
+    /**
+     * Add what is recorded since the last merge to the given accumulator.
+     *
+     * @param accumulator accumulated metrics of the endpoint.
+     */
+    void mergeInto(EndpointAccumulator accumulator) {
+        latencyInterval = latency.getIntervalHistogram(latencyInterval);
+        connectionDurationInterval = connectionDuration.getIntervalHistogram(connectionDurationInterval);
+        handshakeTimeInterval = handshakeTime.getIntervalHistogram(handshakeTimeInterval);
+        accumulator.add(latencyInterval, connectionDurationInterval, bytesIn, bytesOut, openedConnections,
+                closedConnections);
+        accumulator.addHandshakes(handshakeTimeInterval, resumedHandshakes, failedHandshakes);
+    }
+
+    /**
+     * Add what is recorded since the last merge to the given accumulator for the last time, and keep the counters in
+     * it, as this recorder is not merged again.
+     *
+     * @param accumulator accumulated metrics of the endpoint.
+     */
+    void retireInto(EndpointAccumulator accumulator) {
+        mergeInto(accumulator);
+        accumulator.retire(bytesIn, bytesOut, openedConnections, closedConnections, resumedHandshakes,
+                failedHandshakes);
+    }
+}
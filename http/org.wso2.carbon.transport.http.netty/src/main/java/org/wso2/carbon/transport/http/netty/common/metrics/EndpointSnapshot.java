@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Metrics of a listener or a route, accumulated since the metrics are enabled. The histograms must not be modified.
+ */
+public final class EndpointSnapshot {
+
+    private final String endpoint;
+    private final Histogram latency;
+    private final Histogram connectionDuration;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final long openedConnections;
+    private final long closedConnections;
+    private final Histogram handshakeTime;
+    private final long resumedHandshakes;
+    private final long failedHandshakes;
+
+    EndpointSnapshot(String endpoint, Histogram latency, Histogram connectionDuration, long bytesIn, long bytesOut,
+            long openedConnections, long closedConnections, Histogram handshakeTime, long resumedHandshakes,
+            long failedHandshakes) {
+        this.endpoint = endpoint;
+        this.latency = latency;
+        this.connectionDuration = connectionDuration;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.openedConnections = openedConnections;
+        this.closedConnections = closedConnections;
+        this.handshakeTime = handshakeTime;
+        this.resumedHandshakes = resumedHandshakes;
+        this.failedHandshakes = failedHandshakes;
+    }
+
+    /**
+     * @return name of the endpoint, prefixed with {@link TransportMetrics#LISTENER_PREFIX} or
+     * {@link TransportMetrics#ROUTE_PREFIX}.
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return latency of the exchanges in microseconds. For a listener it is measured from reading the request to
+     * writing the end of the response, and for a route from writing the request to reading the end of the response.
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return lifetime of the closed connections in milliseconds.
+     */
+    public Histogram getConnectionDuration() {
+        return connectionDuration;
+    }
+
+    /**
+     * @return number of exchanges completed.
+     */
+    public long getRequestCount() {
+        return latency.getTotalCount();
+    }
+
+    /**
+     * @return payload bytes read.
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * @return payload bytes written.
+     */
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    public long getOpenedConnections() {
+        return openedConnections;
+    }
+
+    public long getActiveConnections() {
+        return openedConnections - closedConnections;
+    }
+
+    /**
+     * @return time from opening a connection to completing its TLS handshake, in microseconds.
+     */
+    public Histogram getHandshakeTime() {
+        return handshakeTime;
+    }
+
+    /**
+     * @return number of TLS handshakes completed, full or abbreviated.
+     */
+    public long getHandshakeCount() {
+        return handshakeTime.getTotalCount();
+    }
+
+    /**
+     * @return number of TLS handshakes which resumed a cached session.
+     */
+    public long getResumedHandshakeCount() {
+        return resumedHandshakes;
+    }
+
+    public long getFailedHandshakeCount() {
+        return failedHandshakes;
+    }
+}
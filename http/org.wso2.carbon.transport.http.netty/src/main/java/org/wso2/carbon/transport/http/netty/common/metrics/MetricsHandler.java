@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common.metrics;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslHandshakeCompletionEvent;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records the metrics of the connections of a listener or a route. It is shared by all the connections of the
+ * endpoint and keeps the state of a connection in an attribute of the channel. It is placed after the HTTP codec, so
+ * the payload bytes are counted rather than the bytes on the wire. The TLS handshakes of the connections are counted
+ * as well, telling the handshakes which resume a cached session from the full ones by the id of the session.
+ */
+@ChannelHandler.Sharable
+public class MetricsHandler extends ChannelDuplexHandler {
+
+    private static final AttributeKey<ConnectionMetrics> CONNECTION_METRICS =
+            AttributeKey.valueOf("CONNECTION_METRICS");
+    // Matches the default size of the session caches of the JDK
+    private static final int MAX_SESSION_IDS = 20480;
+
+    private final TransportMetrics transportMetrics;
+    private final String endpoint;
+    // Whether the exchange starts with reading the request, or with writing it
+    private final boolean server;
+    // Ids of the sessions of the handshakes completed by the endpoint, the least recently resumed are forgotten first
+    private final Map<ByteBuffer, Boolean> sessionIds = Collections.synchronizedMap(
+            new LinkedHashMap<ByteBuffer, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Boolean> eldest) {
+                    return size() > MAX_SESSION_IDS;
+                }
+            });
+
+    MetricsHandler(TransportMetrics transportMetrics, String endpoint, boolean server) {
+        this.transportMetrics = transportMetrics;
+        this.endpoint = endpoint;
+        this.server = server;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        // Added to an active channel when the protocol is negotiated after the connection is accepted
+        if (ctx.channel().isActive()) {
+            connectionOpened(ctx);
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        connectionOpened(ctx);
+        super.channelActive(ctx);
+    }
+
+    private void connectionOpened(ChannelHandlerContext ctx) {
+        Attribute<ConnectionMetrics> attribute = ctx.channel().attr(CONNECTION_METRICS);
+        if (attribute.get() == null) {
+            EndpointRecorder recorder = transportMetrics.getRecorder(endpoint);
+            attribute.set(new ConnectionMetrics(recorder, System.nanoTime()));
+            recorder.connectionOpened();
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        ConnectionMetrics connectionMetrics = ctx.channel().attr(CONNECTION_METRICS).getAndSet(null);
+        if (connectionMetrics != null) {
+            connectionMetrics.recorder.connectionClosed(System.nanoTime() - connectionMetrics.openedNanos);
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof SslHandshakeCompletionEvent) {
+            ConnectionMetrics connectionMetrics = ctx.channel().attr(CONNECTION_METRICS).get();
+            if (connectionMetrics != null) {
+                handshakeCompleted(ctx, connectionMetrics, (SslHandshakeCompletionEvent) evt);
+            }
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    // A handshake which ends up with the session of an earlier handshake resumes it
+    private void handshakeCompleted(ChannelHandlerContext ctx, ConnectionMetrics connectionMetrics,
+            SslHandshakeCompletionEvent event) {
+        SslHandler sslHandler = ctx.pipeline().get(SslHandler.class);
+        if (!event.isSuccess() || sslHandler == null) {
+            connectionMetrics.recorder.handshakeFailed();
+            return;
+        }
+        byte[] sessionId = sslHandler.engine().getSession().getId();
+        boolean resumed = sessionId != null && sessionId.length > 0
+                && sessionIds.put(ByteBuffer.wrap(sessionId), Boolean.TRUE) != null;
+        connectionMetrics.recorder.handshakeCompleted(System.nanoTime() - connectionMetrics.openedNanos, resumed);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        ConnectionMetrics connectionMetrics = ctx.channel().attr(CONNECTION_METRICS).get();
+        if (connectionMetrics != null) {
+            if (server) {
+                connectionMetrics.startExchange(msg);
+            }
+            if (msg instanceof HttpContent) {
+                connectionMetrics.recorder.addBytesIn(((HttpContent) msg).content().readableBytes());
+            }
+            if (!server) {
+                connectionMetrics.endExchange(msg);
+            }
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        ConnectionMetrics connectionMetrics = ctx.channel().attr(CONNECTION_METRICS).get();
+        if (connectionMetrics != null) {
+            if (!server) {
+                connectionMetrics.startExchange(msg);
+            }
+            if (msg instanceof HttpContent) {
+                connectionMetrics.recorder.addBytesOut(((HttpContent) msg).content().readableBytes());
+            }
+            if (server) {
+                connectionMetrics.endExchange(msg);
+            }
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    /**
+     * State of a connection, only accessed by its event loop.
+     */
+    private static final class ConnectionMetrics {
+
+        private final EndpointRecorder recorder;
+        private final long openedNanos;
+        private long exchangeStartNanos;
+
+        ConnectionMetrics(EndpointRecorder recorder, long openedNanos) {
+            this.recorder = recorder;
+            this.openedNanos = openedNanos;
+        }
+
+        // Pipelined requests are measured from the first one, till its response ends
+        void startExchange(Object msg) {
+            if (msg instanceof HttpRequest && exchangeStartNanos == 0) {
+                exchangeStartNanos = System.nanoTime();
+            }
+        }
+
+        void endExchange(Object msg) {
+            if (msg instanceof LastHttpContent && exchangeStartNanos != 0) {
+                recorder.recordLatency(System.nanoTime() - exchangeStartNanos);
+                exchangeStartNanos = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common.metrics;
+
+/**
+ * Records the metrics of an endpoint on the threads which are not event loops. The writers share it, so they are
+ * serialized, keeping a single writer at a time for the recorders and counters underneath.
+ */
+final class SharedEndpointRecorder extends EndpointRecorder {
+
+    @Override
+    synchronized void recordLatency(long latencyNanos) {
+        super.recordLatency(latencyNanos);
+    }
+
+    @Override
+    synchronized void addBytesIn(long bytes) {
+        super.addBytesIn(bytes);
+    }
+
+    @Override
+    synchronized void addBytesOut(long bytes) {
+        super.addBytesOut(bytes);
+    }
+
+    @Override
+    synchronized void connectionOpened() {
+        super.connectionOpened();
+    }
+
+    @Override
+    synchronized void connectionClosed(long durationNanos) {
+        super.connectionClosed(durationNanos);
+    }
+
+    @Override
+    synchronized void handshakeCompleted(long durationNanos, boolean resumed) {
+        super.handshakeCompleted(durationNanos, resumed);
+    }
+
+    @Override
+    synchronized void handshakeFailed() {
+        super.handshakeFailed();
+    }
+}
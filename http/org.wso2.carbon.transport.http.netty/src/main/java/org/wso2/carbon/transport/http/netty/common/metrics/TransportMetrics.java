@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common.metrics;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Latency, payload size and connection metrics of the listeners and the routes of the transport.
+ * <p>
+ * Each event loop records into its own stripe of HdrHistogram recorders and counters, so recording neither locks nor
+ * contends with the other event loops. The stripe of an event loop is merged a last time and dropped when the event
+ * loop terminates. Other threads, which are not expected to record often, share a single set of recorders. The
+ * stripes are merged periodically into a snapshot which is handed to the registered listeners.
+ */
+public class TransportMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(TransportMetrics.class);
+
+    public static final String LISTENER_PREFIX = "listener.";
+    public static final String ROUTE_PREFIX = "route.";
+
+    private static final TransportMetrics INSTANCE = new TransportMetrics();
+
+    private final List<Map<String, EndpointRecorder>> stripes = new CopyOnWriteArrayList<>();
+    private final FastThreadLocal<Map<String, EndpointRecorder>> stripe =
+            new FastThreadLocal<Map<String, EndpointRecorder>>() {
+                @Override
+                protected Map<String, EndpointRecorder> initialValue() {
+                    Map<String, EndpointRecorder> recorders = new ConcurrentHashMap<>();
+                    stripes.add(recorders);
+                    return recorders;
+                }
+
+                @Override
+                protected void onRemoval(Map<String, EndpointRecorder> recorders) {
+                    retire(recorders);
+                }
+            };
+    // Recorders of the threads which are not event loops, whose termination cannot be observed
+    private final Map<String, EndpointRecorder> sharedRecorders = new ConcurrentHashMap<>();
+    private final Map<String, MetricsHandler> handlers = new ConcurrentHashMap<>();
+    private final Map<String, EndpointAccumulator> accumulators = new HashMap<>();
+    private final List<Consumer<Map<String, EndpointSnapshot>>> snapshotListeners = new CopyOnWriteArrayList<>();
+    private volatile Map<String, EndpointSnapshot> lastSnapshot = Collections.emptyMap();
+    private volatile boolean enabled;
+    private ScheduledExecutorService snapshotScheduler;
+
+    public static TransportMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start recording the metrics of the connections created from now on, and merge them at the given interval.
+     *
+     * @param snapshotInterval interval between the snapshots.
+     * @param unit             unit of the interval.
+     */
+    public synchronized void enable(long snapshotInterval, TimeUnit unit) {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-transport-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleAtFixedRate(this::snapshot, snapshotInterval, snapshotInterval, unit);
+        enabled = true;
+    }
+
+    /**
+     * Stop recording the metrics of new connections and stop taking snapshots.
+     */
+    public synchronized void disable() {
+        enabled = false;
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+            snapshotScheduler = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param interfaceId id of the listener.
+     * @return the handler which records the metrics of the connections of the listener.
+     */
+    public MetricsHandler getListenerHandler(String interfaceId) {
+        return handlers.computeIfAbsent(LISTENER_PREFIX + interfaceId, endpoint -> new MetricsHandler(this, endpoint,
+                true));
+    }
+
+    /**
+     * @param host host of the route.
+     * @param port port of the route.
+     * @return the handler which records the metrics of the connections of the route.
+     */
+    public MetricsHandler getRouteHandler(String host, int port) {
+        return handlers.computeIfAbsent(ROUTE_PREFIX + host + ":" + port, endpoint -> new MetricsHandler(this,
+                endpoint, false));
+    }
+
+    public void addSnapshotListener(Consumer<Map<String, EndpointSnapshot>> snapshotListener) {
+        snapshotListeners.add(snapshotListener);
+    }
+
+    public void removeSnapshotListener(Consumer<Map<String, EndpointSnapshot>> snapshotListener) {
+        snapshotListeners.remove(snapshotListener);
+    }
+
+    /**
+     * @return the last periodic snapshot, keyed by endpoint.
+     */
+    public Map<String, EndpointSnapshot> getSnapshot() {
+        return lastSnapshot;
+    }
+
+    /**
+     * Merge what is recorded on all the event loops since the last snapshot into a new snapshot.
+     *
+     * @return the snapshot, keyed by endpoint.
+     */
+    public synchronized Map<String, EndpointSnapshot> snapshot() {
+        accumulators.values().forEach(EndpointAccumulator::reset);
+        for (Map<String, EndpointRecorder> recorders : stripes) {
+            recorders.forEach((endpoint, recorder) -> recorder.mergeInto(accumulatorOf(endpoint)));
+        }
+        sharedRecorders.forEach((endpoint, recorder) -> recorder.mergeInto(accumulatorOf(endpoint)));
+        Map<String, EndpointSnapshot> snapshot = new HashMap<>(accumulators.size() * 2);
+        accumulators.forEach((endpoint, accumulator) -> snapshot.put(endpoint, accumulator.snapshot(endpoint)));
+        lastSnapshot = Collections.unmodifiableMap(snapshot);
+        for (Consumer<Map<String, EndpointSnapshot>> snapshotListener : snapshotListeners) {
+            try {
+                snapshotListener.accept(lastSnapshot);
+            } catch (RuntimeException e) {
+                log.error("Error while publishing the transport metrics", e);
+            }
+        }
+        return lastSnapshot;
+    }
+
+    /**
+     * @param endpoint name of the endpoint.
+     * @return the recorder of the endpoint for the calling event loop, or the shared one for other threads.
+     */
+    EndpointRecorder getRecorder(String endpoint) {
+        if (Thread.currentThread() instanceof FastThreadLocalThread) {
+            return stripe.get().computeIfAbsent(endpoint, key -> new EndpointRecorder());
+        }
+        return sharedRecorders.computeIfAbsent(endpoint, key -> new SharedEndpointRecorder());
+    }
+
+    /**
+     * Merge the stripe of a terminating event loop a last time, keeping its counters for the later snapshots, and
+     * drop it.
+     *
+     * @param recorders the recorders of the event loop.
+     */
+    private synchronized void retire(Map<String, EndpointRecorder> recorders) {
+        stripes.remove(recorders);
+        recorders.forEach((endpoint, recorder) -> recorder.retireInto(accumulatorOf(endpoint)));
+    }
+
+    private EndpointAccumulator accumulatorOf(String endpoint) {
+        return accumulators.computeIfAbsent(endpoint, key -> new EndpointAccumulator());
+    }
+}
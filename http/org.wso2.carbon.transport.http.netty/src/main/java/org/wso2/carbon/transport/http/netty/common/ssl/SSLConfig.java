@@ -22,6 +22,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * A class that encapsulates SSLContext configuration.
@@ -50,6 +52,10 @@ public class SSLConfig {
     private String[] sniMatchers;
 
     private boolean clientMode;
+    private String sslProvider;
+    private long certificateReloadInterval;
+    private int sessionCacheSize;
+    private int sessionTimeout;
 
     public SSLConfig(File keyStore, String keyStorePass) {
         if (LOGGER.isDebugEnabled()) {
@@ -200,4 +206,86 @@ public class SSLConfig {
     public void setClientMode(boolean clientMode) {
         this.clientMode = clientMode;
     }
+
+    /**
+     * @return the name of the {@link io.netty.handler.ssl.SslProvider} of the engines, or null for the JDK
+     */
+    public String getSslProvider() {
+        return sslProvider;
+    }
+
+    public void setSslProvider(String sslProvider) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Set SSL provider" + sslProvider);
+        }
+        this.sslProvider = sslProvider;
+    }
+
+    /**
+     * @return the interval in milliseconds at which the key and trust stores are checked for changes, or 0 if they
+     * are loaded only once
+     */
+    public long getCertificateReloadInterval() {
+        return certificateReloadInterval;
+    }
+
+    public void setCertificateReloadInterval(long certificateReloadInterval) {
+        this.certificateReloadInterval = certificateReloadInterval;
+    }
+
+    /**
+     * @return the number of TLS sessions cached for resumption, or 0 for the default of the provider
+     */
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    /**
+     * @return the time in seconds a cached TLS session can be resumed, or 0 for the default of the provider
+     */
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    public void setSessionTimeout(int sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SSLConfig that = (SSLConfig) o;
+        return enableSessionCreation == that.enableSessionCreation && needClientAuth == that.needClientAuth
+                && wantClientAuth == that.wantClientAuth && clientMode == that.clientMode
+                && certificateReloadInterval == that.certificateReloadInterval
+                && sessionCacheSize == that.sessionCacheSize && sessionTimeout == that.sessionTimeout
+                && Objects.equals(keyStore, that.keyStore) && Objects.equals(keyStorePass, that.keyStorePass)
+                && Objects.equals(certPass, that.certPass) && Objects.equals(trustStore, that.trustStore)
+                && Objects.equals(trustStorePass, that.trustStorePass)
+                && Objects.equals(sslProtocol, that.sslProtocol) && Objects.equals(tlsStoreType, that.tlsStoreType)
+                && Objects.equals(sslProvider, that.sslProvider) && Arrays.equals(cipherSuites, that.cipherSuites)
+                && Arrays.equals(enableProtocols, that.enableProtocols)
+                && Arrays.equals(serverNames, that.serverNames) && Arrays.equals(sniMatchers, that.sniMatchers);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(keyStore, keyStorePass, certPass, trustStore, trustStorePass, sslProtocol,
+                tlsStoreType, enableSessionCreation, needClientAuth, wantClientAuth, clientMode, sslProvider,
+                certificateReloadInterval, sessionCacheSize, sessionTimeout);
+        result = 31 * result + Arrays.hashCode(cipherSuites);
+        result = 31 * result + Arrays.hashCode(enableProtocols);
+        result = 31 * result + Arrays.hashCode(serverNames);
+        result = 31 * result + Arrays.hashCode(sniMatchers);
+        return result;
+    }
 }
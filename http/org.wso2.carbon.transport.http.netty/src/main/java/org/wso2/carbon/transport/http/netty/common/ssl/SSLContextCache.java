@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common.ssl;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a single {@link SSLHandlerFactory} per {@link SSLConfig}, so that the key and trust stores are loaded once
+ * rather than for every connection.
+ * <p>
+ * If the configuration has a certificate reload interval, the stores are checked for changes at that interval and
+ * the factory is replaced once they change. The check and the reload run on a background thread, so the I/O threads
+ * which ask for the factory never read the stores themselves. Connections which are open keep their engines, new
+ * connections get the new certificates. A factory which cannot be created from the changed stores is logged, and the
+ * previous one is kept until the next check.
+ */
+public class SSLContextCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SSLContextCache.class);
+
+    private static final SSLContextCache INSTANCE = new SSLContextCache();
+
+    private static final ScheduledExecutorService RELOAD_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new DefaultThreadFactory("ssl-context-reload", true));
+
+    private final Map<SSLConfig, CachedFactory> factories = new ConcurrentHashMap<>();
+
+    private SSLContextCache() {
+    }
+
+    public static SSLContextCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param sslConfig SSL configuration of a listener or a sender
+     * @return the factory of the configuration, which is created on the first call
+     */
+    public SSLHandlerFactory getSSLHandlerFactory(SSLConfig sslConfig) {
+        return factories.computeIfAbsent(sslConfig, CachedFactory::new).get();
+    }
+
+    /**
+     * Removes the factory of a configuration, for example when the listener which uses it is stopped.
+     *
+     * @param sslConfig SSL configuration of a listener or a sender
+     */
+    public void invalidate(SSLConfig sslConfig) {
+        CachedFactory cachedFactory = factories.remove(sslConfig);
+        if (cachedFactory != null) {
+            cachedFactory.cancelReload();
+        }
+    }
+
+    /**
+     * The factory of a configuration, with the modification times of the stores it is created from.
+     */
+    private static class CachedFactory {
+
+        private final SSLConfig sslConfig;
+        private volatile SSLHandlerFactory sslHandlerFactory;
+        private long keyStoreModified;
+        private long trustStoreModified;
+        private ScheduledFuture<?> reloadTask;
+
+        CachedFactory(SSLConfig sslConfig) {
+            this.sslConfig = sslConfig;
+            this.keyStoreModified = lastModified(sslConfig.getKeyStore());
+            this.trustStoreModified = lastModified(sslConfig.getTrustStore());
+            this.sslHandlerFactory = new SSLHandlerFactory(sslConfig);
+            long reloadInterval = sslConfig.getCertificateReloadInterval();
+            if (reloadInterval > 0) {
+                this.reloadTask = RELOAD_SCHEDULER.scheduleWithFixedDelay(this::reloadIfModified, reloadInterval,
+                        reloadInterval, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        SSLHandlerFactory get() {
+            return sslHandlerFactory;
+        }
+
+        void cancelReload() {
+            if (reloadTask != null) {
+                reloadTask.cancel(false);
+            }
+        }
+
+        private void reloadIfModified() {
+            long keyStoreModifiedNow = lastModified(sslConfig.getKeyStore());
+            long trustStoreModifiedNow = lastModified(sslConfig.getTrustStore());
+            if (keyStoreModifiedNow == keyStoreModified && trustStoreModifiedNow == trustStoreModified) {
+                return;
+            }
+            try {
+                sslHandlerFactory = new SSLHandlerFactory(sslConfig);
+                keyStoreModified = keyStoreModifiedNow;
+                trustStoreModified = trustStoreModifiedNow;
+                log.info("Reloaded the key and trust stores of {}", sslConfig.getKeyStore() != null
+                        ? sslConfig.getKeyStore() : sslConfig.getTrustStore());
+            } catch (RuntimeException e) {
+                // A failure must not cancel the periodic task, the next check tries again
+                log.error("Cannot reload the key and trust stores, the previous certificates are kept", e);
+            }
+        }
+
+        private static long lastModified(File store) {
+            return store != null ? store.lastModified() : 0;
+        }
+    }
+}
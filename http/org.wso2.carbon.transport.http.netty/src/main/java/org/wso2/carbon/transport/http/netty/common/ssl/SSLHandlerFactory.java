@@ -18,6 +18,7 @@
  */
 package org.wso2.carbon.transport.http.netty.common.ssl;
 
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.codec.http2.Http2SecurityUtil;
 import io.netty.handler.ssl.ApplicationProtocolConfig;
 import io.netty.handler.ssl.ApplicationProtocolNames;
@@ -27,6 +28,8 @@ import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslProvider;
 import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -51,18 +54,26 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 
 /**
  * A class that encapsulates SSL Certificate Information.
+ * <p>
+ * The key and trust stores are loaded when the factory is created, so a factory is meant to be shared by the
+ * connections of a configuration, see {@link SSLContextCache}.
  */
 public class SSLHandlerFactory {
 
+    private static final Logger log = LoggerFactory.getLogger(SSLHandlerFactory.class);
+
     private String protocol = null;
     private final SSLContext serverContext;
+    private final SslContext openSslContext;
     private SSLConfig sslConfig;
     private boolean needClientAuth;
+    private boolean wantClientAuth;
     private KeyManagerFactory kmf;
     private TrustManagerFactory tmf;
 
@@ -73,6 +84,7 @@ public class SSLHandlerFactory {
             algorithm = "SunX509";
         }
         needClientAuth = sslConfig.isNeedClientAuth();
+        wantClientAuth = sslConfig.isWantClientAuth();
         protocol = sslConfig.getSslProtocol();
         try {
             KeyStore ks = getKeyStore(sslConfig.getKeyStore(), sslConfig.getKeyStorePass());
@@ -94,7 +106,9 @@ public class SSLHandlerFactory {
             }
             serverContext = SSLContext.getInstance(protocol);
             serverContext.init(keyManagers, trustManagers, null);
-
+            configureSessionContext(sslConfig.isClientMode() ? serverContext.getClientSessionContext()
+                    : serverContext.getServerSessionContext());
+            openSslContext = createOpenSslContext(keyManagers != null);
         } catch (UnrecoverableKeyException | KeyManagementException |
                 NoSuchAlgorithmException | KeyStoreException | IOException e) {
             throw new IllegalArgumentException("Failed to initialize the server-side SSLContext", e);
@@ -115,20 +129,117 @@ public class SSLHandlerFactory {
         return ks;
     }
 
+    /**
+     * Sizes the cache of the sessions which are resumed by later connections. On the client side the sessions are
+     * cached by the host and port of the peer, see {@link #build(String, int)}.
+     */
+    private void configureSessionContext(SSLSessionContext sessionContext) {
+        if (sessionContext == null) {
+            return;
+        }
+        if (sslConfig.getSessionCacheSize() > 0) {
+            sessionContext.setSessionCacheSize(sslConfig.getSessionCacheSize());
+        }
+        if (sslConfig.getSessionTimeout() > 0) {
+            sessionContext.setSessionTimeout(sslConfig.getSessionTimeout());
+        }
+    }
+
+    /**
+     * Creates the OpenSSL context of the engines if the configuration asks for the OpenSSL provider and
+     * netty-tcnative is available.
+     *
+     * @param hasKeyStore whether the key manager factory is initialized with a key store
+     * @return the OpenSSL context, or null if the engines are created by the JDK
+     */
+    private SslContext createOpenSslContext(boolean hasKeyStore) throws SSLException {
+        String sslProvider = sslConfig.getSslProvider();
+        if (sslProvider == null || !SslProvider.OPENSSL.name().equalsIgnoreCase(sslProvider.trim())) {
+            return null;
+        }
+        if (!OpenSsl.isAvailable()) {
+            log.warn("OpenSSL is not available, the JDK SSL engine is used instead", OpenSsl.unavailabilityCause());
+            return null;
+        }
+        SslContextBuilder sslContextBuilder;
+        if (sslConfig.isClientMode()) {
+            sslContextBuilder = SslContextBuilder.forClient();
+            if (hasKeyStore) {
+                sslContextBuilder.keyManager(kmf);
+            }
+        } else {
+            sslContextBuilder = SslContextBuilder.forServer(kmf).clientAuth(getClientAuth());
+        }
+        if (sslConfig.getCipherSuites() != null && sslConfig.getCipherSuites().length > 0) {
+            sslContextBuilder.ciphers(Arrays.asList(sslConfig.getCipherSuites()));
+        }
+        if (sslConfig.getEnableProtocols() != null && sslConfig.getEnableProtocols().length > 0) {
+            sslContextBuilder.protocols(sslConfig.getEnableProtocols());
+        }
+        return configureSessionCache(sslContextBuilder).trustManager(tmf).sslProvider(SslProvider.OPENSSL).build();
+    }
+
+    // A client certificate which is needed is requested as well, so need takes precedence over want
+    private ClientAuth getClientAuth() {
+        if (needClientAuth) {
+            return ClientAuth.REQUIRE;
+        }
+        return wantClientAuth ? ClientAuth.OPTIONAL : ClientAuth.NONE;
+    }
+
+    private SslContextBuilder configureSessionCache(SslContextBuilder sslContextBuilder) {
+        if (sslConfig.getSessionCacheSize() > 0) {
+            sslContextBuilder.sessionCacheSize(sslConfig.getSessionCacheSize());
+        }
+        if (sslConfig.getSessionTimeout() > 0) {
+            sslContextBuilder.sessionTimeout(sslConfig.getSessionTimeout());
+        }
+        return sslContextBuilder;
+    }
+
     /**
      * @return instance of {@code SslHandler}
      */
     public SSLEngine build() {
-        SSLEngine engine = serverContext.createSSLEngine();
-        engine.setNeedClientAuth(needClientAuth);
+        if (openSslContext != null) {
+            return configure(openSslContext.newEngine(ByteBufAllocator.DEFAULT));
+        }
+        return configure(serverContext.createSSLEngine());
+    }
+
+    /**
+     * Creates an engine for a connection to the given peer. A client engine of a peer can resume the sessions of the
+     * earlier connections to the same host and port, instead of doing a full handshake.
+     *
+     * @param peerHost host of the peer
+     * @param peerPort port of the peer
+     * @return instance of {@code SslHandler}
+     */
+    public SSLEngine build(String peerHost, int peerPort) {
+        if (openSslContext != null) {
+            return configure(openSslContext.newEngine(ByteBufAllocator.DEFAULT, peerHost, peerPort));
+        }
+        return configure(serverContext.createSSLEngine(peerHost, peerPort));
+    }
+
+    /**
+     * Applies the configuration to an engine of either provider. An OpenSSL engine always creates sessions and does
+     * not support the setting, so the session creation is only applied to the JDK engines.
+     */
+    private SSLEngine configure(SSLEngine engine) {
         engine.setUseClientMode(sslConfig.isClientMode());
+        if (needClientAuth) {
+            engine.setNeedClientAuth(true);
+        } else {
+            engine.setWantClientAuth(wantClientAuth);
+        }
         if (sslConfig.getCipherSuites() != null && sslConfig.getCipherSuites().length > 0) {
             engine.setEnabledCipherSuites(sslConfig.getCipherSuites());
         }
         if (sslConfig.getEnableProtocols() != null && sslConfig.getEnableProtocols().length > 0) {
             engine.setEnabledProtocols(sslConfig.getEnableProtocols());
         }
-        if (sslConfig.isEnableSessionCreation()) {
+        if (sslConfig.isEnableSessionCreation() && openSslContext == null) {
             engine.setEnableSessionCreation(true);
         }
         return engine;
@@ -148,12 +259,12 @@ public class SSLHandlerFactory {
         List<String> ciphers = sslConfig.getCipherSuites() != null && sslConfig.getCipherSuites().length > 0 ? Arrays
                 .asList(sslConfig.getCipherSuites()) : Http2SecurityUtil.CIPHERS;
         SslProvider provider = OpenSsl.isAlpnSupported() ? SslProvider.OPENSSL : SslProvider.JDK;
-        return SslContextBuilder.forServer(this.getKeyManagerFactory())
+        return configureSessionCache(SslContextBuilder.forServer(this.getKeyManagerFactory()))
                 .trustManager(this.getTrustStoreFactory())
                 .sslProvider(provider)
                 .ciphers(ciphers,
                         SupportedCipherSuiteFilter.INSTANCE)
-                .clientAuth(needClientAuth ? ClientAuth.REQUIRE : ClientAuth.NONE)
+                .clientAuth(getClientAuth())
                 .applicationProtocolConfig(new ApplicationProtocolConfig(
                         ApplicationProtocolConfig.Protocol.ALPN,
                         // NO_ADVERTISE is currently the only mode supported by both OpenSsl and JDK providers.
@@ -164,6 +275,32 @@ public class SSLHandlerFactory {
                         ApplicationProtocolNames.HTTP_1_1)).build();
     }
 
+    /**
+     * This method will provide netty ssl context for the client side of HTTP2 over TLS, which negotiates h2 using
+     * Application Layer Protocol Negotiation (ALPN).
+     *
+     * @return instance of {@link SslContext}
+     * @throws SSLException if any error occurred during building SSL context.
+     */
+    public SslContext createHttp2TLSContextForClient() throws SSLException {
+        List<String> ciphers = sslConfig.getCipherSuites() != null && sslConfig.getCipherSuites().length > 0 ? Arrays
+                .asList(sslConfig.getCipherSuites()) : Http2SecurityUtil.CIPHERS;
+        SslProvider provider = OpenSsl.isAlpnSupported() ? SslProvider.OPENSSL : SslProvider.JDK;
+        SslContextBuilder sslContextBuilder = configureSessionCache(SslContextBuilder.forClient())
+                .trustManager(tmf)
+                .sslProvider(provider)
+                .ciphers(ciphers, SupportedCipherSuiteFilter.INSTANCE)
+                .applicationProtocolConfig(new ApplicationProtocolConfig(
+                        ApplicationProtocolConfig.Protocol.ALPN,
+                        ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                        ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                        ApplicationProtocolNames.HTTP_2));
+        if (sslConfig.getKeyStore() != null && sslConfig.getKeyStorePass() != null) {
+            sslContextBuilder.keyManager(kmf);
+        }
+        return sslContextBuilder.build();
+    }
+
     public KeyManagerFactory getKeyManagerFactory() {
         return kmf;
     }
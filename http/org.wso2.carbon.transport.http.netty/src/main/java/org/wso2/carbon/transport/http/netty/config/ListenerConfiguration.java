@@ -95,6 +95,15 @@ public class ListenerConfiguration {
     @XmlAttribute
     private String tlsStoreType;
 
+    @XmlAttribute
+    private int writeBufferHighWaterMark;
+
+    @XmlAttribute
+    private int writeBufferLowWaterMark;
+
+    @XmlAttribute
+    private int outputContentBufferSize;
+
     @XmlElementWrapper(name = "parameters")
     @XmlElement(name = "parameter")
     private List<Parameter> parameters = getDefaultParameters();
@@ -222,6 +231,39 @@ public class ListenerConfiguration {
         this.http2 = http2;
     }
 
+    public int getWriteBufferHighWaterMark(int defaultValue) {
+        if (writeBufferHighWaterMark == 0) {
+            return defaultValue;
+        }
+        return writeBufferHighWaterMark;
+    }
+
+    public void setWriteBufferHighWaterMark(int writeBufferHighWaterMark) {
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+    }
+
+    public int getWriteBufferLowWaterMark(int defaultValue) {
+        if (writeBufferLowWaterMark == 0) {
+            return defaultValue;
+        }
+        return writeBufferLowWaterMark;
+    }
+
+    public void setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+    }
+
+    public int getOutputContentBufferSize(int defaultValue) {
+        if (outputContentBufferSize == 0) {
+            return defaultValue;
+        }
+        return outputContentBufferSize;
+    }
+
+    public void setOutputContentBufferSize(int outputContentBufferSize) {
+        this.outputContentBufferSize = outputContentBufferSize;
+    }
+
     public List<Parameter> getParameters() {
         return parameters;
     }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.config;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * JAXB representation of a known backend route of a sender. The connection pools of a declared route are connected
+ * when the client connector is created and are kept at the minimum number of idle connections afterwards.
+ * <p>
+ * A request is sent from the event loop of the incoming channel it is made for, or from one of the client event
+ * loops when it is not made for an incoming channel, and each event loop has a pool of its own. Since either may
+ * serve the route, a pool is pre-warmed for every event loop of both groups, so a route keeps
+ * {@code minIdleConnections * (server.bootstrap.worker.group.size + client.bootstrap.worker.group.size)}
+ * connections open to the backend. For example, with 8 server worker threads, 4 client threads and 2 idle
+ * connections, 24 connections are opened.
+ */
+@SuppressWarnings("unused")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class RouteConfiguration {
+
+    @XmlAttribute(required = true)
+    private String host;
+
+    @XmlAttribute(required = true)
+    private int port;
+
+    @XmlAttribute
+    private int minIdleConnections;
+
+    public RouteConfiguration() {
+    }
+
+    public RouteConfiguration(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Minimum number of idle connections kept to the route by each event loop pool, not by the sender as a whole, see
+     * the class description. When not set, the {@code client.min.idle.connections.per.pool} transport property is
+     * used, with a minimum of one connection.
+     */
+    public int getMinIdleConnections(int defaultValue) {
+        if (minIdleConnections == 0) {
+            return defaultValue;
+        }
+        return minIdleConnections;
+    }
+
+    public void setMinIdleConnections(int minIdleConnections) {
+        this.minIdleConnections = minIdleConnections;
+    }
+}
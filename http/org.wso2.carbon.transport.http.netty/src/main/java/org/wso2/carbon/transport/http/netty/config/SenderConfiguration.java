@@ -18,6 +18,7 @@
  */
 package org.wso2.carbon.transport.http.netty.config;
 
+import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
 import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
@@ -70,6 +71,15 @@ public class SenderConfiguration {
     @XmlAttribute
     private int socketIdleTimeout;
 
+    @XmlAttribute
+    private int readTimeout;
+
+    @XmlAttribute
+    private int writeTimeout;
+
+    @XmlAttribute
+    private int totalTimeout;
+
     @XmlAttribute
     private boolean httpTraceLogEnabled;
 
@@ -79,10 +89,44 @@ public class SenderConfiguration {
     @XmlAttribute
     private String sslProtocol;
 
+    @XmlAttribute
+    private boolean http2 = false;
+
+    @XmlAttribute
+    private int http2MaxConcurrentStreams;
+
+    @XmlAttribute
+    private int writeBufferHighWaterMark;
+
+    @XmlAttribute
+    private int writeBufferLowWaterMark;
+
+    @XmlAttribute
+    private boolean asyncDnsResolution = true;
+
+    @XmlAttribute
+    private boolean dnsRoundRobin = true;
+
+    @XmlAttribute
+    private int dnsCacheMinTtl = Constants.DEFAULT_DNS_CACHE_MIN_TTL;
+
+    @XmlAttribute
+    private int dnsCacheMaxTtl = Constants.DEFAULT_DNS_CACHE_MAX_TTL;
+
+    @XmlAttribute
+    private int dnsCacheNegativeTtl = Constants.DEFAULT_DNS_CACHE_NEGATIVE_TTL;
+
+    @XmlAttribute
+    private int dnsQueryTimeout = Constants.DEFAULT_DNS_QUERY_TIMEOUT;
+
     @XmlElementWrapper(name = "parameters")
     @XmlElement(name = "parameter")
     private List<Parameter> parameters;
 
+    @XmlElementWrapper(name = "routes")
+    @XmlElement(name = "route")
+    private List<RouteConfiguration> routes;
+
     private boolean followRedirect;
 
     private int maxRedirectCount;
@@ -163,6 +207,18 @@ public class SenderConfiguration {
         this.parameters = parameters;
     }
 
+    /**
+     * Known backends of the sender, whose connections are established before the first request. The minimum idle
+     * connections of a route are kept by each server and client event loop, see {@link RouteConfiguration}.
+     */
+    public List<RouteConfiguration> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<RouteConfiguration> routes) {
+        this.routes = routes;
+    }
+
     public String getTrustStoreFile() {
         return trustStoreFile;
     }
@@ -198,6 +254,45 @@ public class SenderConfiguration {
         this.socketIdleTimeout = socketIdleTimeout;
     }
 
+    /**
+     * Time in milliseconds the response of a request is waited for, to its first byte and between its reads.
+     */
+    public int getReadTimeout(int defaultValue) {
+        if (readTimeout == 0) {
+            return defaultValue;
+        }
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Time in milliseconds the next write of a request to the endpoint is waited for.
+     */
+    public int getWriteTimeout(int defaultValue) {
+        if (writeTimeout == 0) {
+            return defaultValue;
+        }
+        return writeTimeout;
+    }
+
+    public void setWriteTimeout(int writeTimeout) {
+        this.writeTimeout = writeTimeout;
+    }
+
+    /**
+     * Time in milliseconds a request and its response have to complete in, zero if there is no limit.
+     */
+    public int getTotalTimeout() {
+        return totalTimeout;
+    }
+
+    public void setTotalTimeout(int totalTimeout) {
+        this.totalTimeout = totalTimeout;
+    }
+
     public boolean isHttpTraceLogEnabled() {
         return httpTraceLogEnabled;
     }
@@ -233,6 +328,113 @@ public class SenderConfiguration {
         this.maxRedirectCount = maxRedirectCount;
     }
 
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    public int getHttp2MaxConcurrentStreams(int defaultValue) {
+        if (http2MaxConcurrentStreams == 0) {
+            return defaultValue;
+        }
+        return http2MaxConcurrentStreams;
+    }
+
+    public void setHttp2MaxConcurrentStreams(int http2MaxConcurrentStreams) {
+        this.http2MaxConcurrentStreams = http2MaxConcurrentStreams;
+    }
+
+    public int getWriteBufferHighWaterMark(int defaultValue) {
+        if (writeBufferHighWaterMark == 0) {
+            return defaultValue;
+        }
+        return writeBufferHighWaterMark;
+    }
+
+    public void setWriteBufferHighWaterMark(int writeBufferHighWaterMark) {
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+    }
+
+    public int getWriteBufferLowWaterMark(int defaultValue) {
+        if (writeBufferLowWaterMark == 0) {
+            return defaultValue;
+        }
+        return writeBufferLowWaterMark;
+    }
+
+    public void setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+    }
+
+    /**
+     * Whether target host names are resolved with the non blocking DNS resolver of the transport. Otherwise they
+     * are resolved with the blocking JDK resolver on the event loop of the connection.
+     */
+    public boolean isAsyncDnsResolution() {
+        return asyncDnsResolution;
+    }
+
+    public void setAsyncDnsResolution(boolean asyncDnsResolution) {
+        this.asyncDnsResolution = asyncDnsResolution;
+    }
+
+    /**
+     * Whether connections are spread over all the addresses a target host name resolves to, instead of always
+     * connecting to the first one.
+     */
+    public boolean isDnsRoundRobin() {
+        return dnsRoundRobin;
+    }
+
+    public void setDnsRoundRobin(boolean dnsRoundRobin) {
+        this.dnsRoundRobin = dnsRoundRobin;
+    }
+
+    /**
+     * Minimum time in seconds a resolved address is cached, regardless of the TTL of the DNS record.
+     */
+    public int getDnsCacheMinTtl() {
+        return dnsCacheMinTtl;
+    }
+
+    public void setDnsCacheMinTtl(int dnsCacheMinTtl) {
+        this.dnsCacheMinTtl = dnsCacheMinTtl;
+    }
+
+    /**
+     * Maximum time in seconds a resolved address is cached, regardless of the TTL of the DNS record.
+     */
+    public int getDnsCacheMaxTtl() {
+        return dnsCacheMaxTtl;
+    }
+
+    public void setDnsCacheMaxTtl(int dnsCacheMaxTtl) {
+        this.dnsCacheMaxTtl = dnsCacheMaxTtl;
+    }
+
+    /**
+     * Time in seconds a failed lookup is cached, so that an unknown host is not queried again for every request.
+     * Zero disables the caching of failures.
+     */
+    public int getDnsCacheNegativeTtl() {
+        return dnsCacheNegativeTtl;
+    }
+
+    public void setDnsCacheNegativeTtl(int dnsCacheNegativeTtl) {
+        this.dnsCacheNegativeTtl = dnsCacheNegativeTtl;
+    }
+
+    public int getDnsQueryTimeout() {
+        return dnsQueryTimeout;
+    }
+
+    public void setDnsQueryTimeout(int dnsQueryTimeout) {
+        this.dnsQueryTimeout = dnsQueryTimeout;
+    }
+
     public void setProxyServerConfiguration(ProxyServerConfiguration proxyServerConfiguration) {
         this.proxyServerConfiguration = proxyServerConfiguration;
     }
@@ -22,7 +22,9 @@ package org.wso2.carbon.transport.http.netty.contractimpl;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.transport.http.netty.common.Constants;
@@ -37,6 +39,7 @@ import org.wso2.carbon.transport.http.netty.listener.SourceHandler;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
 import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
 import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import org.wso2.carbon.transport.http.netty.sender.http2.HTTP2TargetHandler;
 
 /**
  * Implementation of the client connector.
@@ -48,25 +51,66 @@ public class HttpClientConnectorImpl implements HttpClientConnector {
     private ConnectionManager connectionManager;
     private SSLConfig sslConfig;
     private int socketIdleTimeout;
+    private int readTimeout;
+    private int writeTimeout;
+    private int totalTimeout;
     private boolean httpTraceLogEnabled;
     private boolean followRedirect;
     private int maxRedirectCount;
     private boolean chunkDisabled;
     private ProxyServerConfiguration proxyServerConfiguration;
+    private boolean http2;
+    private int http2MaxConcurrentStreams;
+    private WriteBufferWaterMark writeBufferWaterMark;
 
     /*This needs to be refactored to hold all the channel properties in a separate bean as there are too many
      arguments here*/
     public HttpClientConnectorImpl(ConnectionManager connectionManager, SSLConfig sslConfig, int socketIdleTimeout,
             boolean httpTraceLogEnabled, boolean chunkDisabled, boolean followRedirect, int maxRedirectCount,
             ProxyServerConfiguration proxyServerConfiguration) {
+        this(connectionManager, sslConfig, socketIdleTimeout, httpTraceLogEnabled, chunkDisabled, followRedirect,
+                maxRedirectCount, proxyServerConfiguration, false, Constants.HTTP2_DEFAULT_MAX_CONCURRENT_STREAMS);
+    }
+
+    public HttpClientConnectorImpl(ConnectionManager connectionManager, SSLConfig sslConfig, int socketIdleTimeout,
+            boolean httpTraceLogEnabled, boolean chunkDisabled, boolean followRedirect, int maxRedirectCount,
+            ProxyServerConfiguration proxyServerConfiguration, boolean http2, int http2MaxConcurrentStreams) {
         this.connectionManager = connectionManager;
         this.httpTraceLogEnabled = httpTraceLogEnabled;
         this.sslConfig = sslConfig;
         this.socketIdleTimeout = socketIdleTimeout;
+        this.readTimeout = socketIdleTimeout;
+        this.writeTimeout = socketIdleTimeout;
         this.chunkDisabled = chunkDisabled;
         this.followRedirect = followRedirect;
         this.maxRedirectCount = maxRedirectCount;
         this.proxyServerConfiguration = proxyServerConfiguration;
+        this.http2 = http2;
+        this.http2MaxConcurrentStreams = http2MaxConcurrentStreams;
+    }
+
+    /**
+     * Set the outbound buffer limits of the target channels, which decide when reading from the source channel is
+     * paused while the request content is written out.
+     *
+     * @param writeBufferWaterMark low and high water marks in bytes.
+     */
+    public void setWriteBufferWaterMark(WriteBufferWaterMark writeBufferWaterMark) {
+        this.writeBufferWaterMark = writeBufferWaterMark;
+    }
+
+    /**
+     * Set the timeouts of the requests sent over HTTP/1.1. Both the read and write timeouts default to the socket
+     * idle timeout, and the total timeout is disabled by default.
+     *
+     * @param readTimeout  time in milliseconds to the first byte of the response and between the reads after that.
+     * @param writeTimeout time in milliseconds between the writes of the request.
+     * @param totalTimeout time in milliseconds to complete the exchange, zero to disable.
+     */
+    public void setEndpointTimeouts(int readTimeout, int writeTimeout, int totalTimeout) {
+        this.readTimeout = readTimeout;
+        this.writeTimeout = writeTimeout;
+        this.totalTimeout = totalTimeout;
     }
 
     @Override
@@ -89,69 +133,125 @@ public class HttpClientConnectorImpl implements HttpClientConnector {
         try {
             final HttpRoute route = getTargetRoute(httpCarbonRequest);
             Util.setupTransferEncodingForRequest(httpCarbonRequest, chunkDisabled);
-            TargetChannel targetChannel = connectionManager
-                    .borrowTargetChannel(route, srcHandler, sslConfig, httpTraceLogEnabled, chunkDisabled
-                            , followRedirect, maxRedirectCount, proxyServerConfiguration);
-            targetChannel.getChannelFuture().addListener(new ChannelFutureListener() {
-                @Override
-                public void operationComplete(ChannelFuture channelFuture) throws Exception {
-                    if (isValidateChannel(channelFuture)) {
-                        targetChannel.setChannel(channelFuture.channel());
-                        targetChannel.configTargetHandler(httpCarbonRequest, httpResponseFuture);
-                        targetChannel.setEndPointTimeout(socketIdleTimeout, followRedirect);
-                        targetChannel.setCorrelationIdForLogging();
-                        targetChannel.setChunkDisabled(chunkDisabled);
-                        targetChannel.setRequestWritten(true);
-                        if (followRedirect) {
-                            setChannelAttributes(channelFuture.channel(), httpCarbonRequest, httpResponseFuture,
-                                    targetChannel);
-                        }
-                        targetChannel.writeContent(httpCarbonRequest);
-                    } else {
-                        notifyErrorState(channelFuture);
-                    }
+            if (http2) {
+                sendOverHttp2(httpCarbonRequest, httpResponseFuture, route, srcHandler);
+                Util.prepareBuiltMessageForTransfer(httpCarbonRequest);
+                return httpResponseFuture;
+            }
+            Future<TargetChannel> targetChannelFuture = connectionManager
+                    .acquireTargetChannel(route, srcHandler, sslConfig, httpTraceLogEnabled, chunkDisabled
+                            , followRedirect, maxRedirectCount, proxyServerConfiguration,
+                            !followRedirect && Util.isPipelinableRequest(httpCarbonRequest));
+            targetChannelFuture.addListener(future -> {
+                if (future.isSuccess()) {
+                    TargetChannel targetChannel = targetChannelFuture.getNow();
+                    targetChannel.setCorrelatedSource(srcHandler);
+                    targetChannel.setConnectionManager(connectionManager);
+                    writeToTargetChannel(targetChannel, httpCarbonRequest, httpResponseFuture, route);
+                } else {
+                    httpResponseFuture.notifyHttpListener(future.cause());
                 }
+            });
+            Util.prepareBuiltMessageForTransfer(httpCarbonRequest);
+        } catch (Exception failedCause) {
+            httpResponseFuture.notifyHttpListener(failedCause);
+        }
 
-                private boolean isValidateChannel(ChannelFuture channelFuture) throws Exception {
-                    if (channelFuture.isDone() && channelFuture.isSuccess()) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Created the connection to address: {}",
-                                    route.toString() + " " + "Original Channel ID is : " + channelFuture.channel()
-                                            .id());
-                        }
-                        return true;
-                    }
-                    return false;
+        return httpResponseFuture;
+    }
+
+    private void sendOverHttp2(HTTPCarbonMessage httpCarbonRequest, HttpResponseFuture httpResponseFuture,
+            HttpRoute route, SourceHandler srcHandler) {
+        Future<TargetChannel> targetChannelFuture = connectionManager.acquireHttp2TargetChannel(route, srcHandler,
+                sslConfig, httpTraceLogEnabled, socketIdleTimeout, http2MaxConcurrentStreams);
+        targetChannelFuture.addListener(future -> {
+            if (!future.isSuccess()) {
+                httpResponseFuture.notifyHttpListener(future.cause());
+                return;
+            }
+            TargetChannel targetChannel = targetChannelFuture.getNow();
+            targetChannel.setCorrelatedSource(srcHandler);
+            targetChannel.setConnectionManager(connectionManager);
+            targetChannel.getHTTP2ClientInitializer().getHandlerFuture().addListener(handlerFuture -> {
+                if (handlerFuture.isSuccess()) {
+                    HTTP2TargetHandler http2TargetHandler = (HTTP2TargetHandler) handlerFuture.getNow();
+                    targetChannel.setChannel(targetChannel.getChannelFuture().channel());
+                    http2TargetHandler.setTargetChannel(targetChannel);
+                    http2TargetHandler.writeRequest(httpCarbonRequest, httpResponseFuture);
+                } else {
+                    connectionManager.invalidateTargetChannel(targetChannel);
+                    ClientConnectorException cause = new ClientConnectorException(
+                            "Failed to establish a HTTP/2 connection, " + route,
+                            HttpResponseStatus.BAD_GATEWAY.code());
+                    Throwable connectCause = targetChannel.getChannelFuture().cause();
+                    cause.initCause(connectCause != null ? connectCause : handlerFuture.cause());
+                    httpResponseFuture.notifyHttpListener(cause);
                 }
+            });
+        });
+    }
 
-                private void notifyErrorState(ChannelFuture channelFuture) {
-                    ClientConnectorException cause;
-
-                    if (channelFuture.isDone() && channelFuture.isCancelled()) {
-                        cause = new ClientConnectorException("Request Cancelled, " + route.toString(),
-                                HttpResponseStatus.BAD_GATEWAY.code());
-                    } else if (!channelFuture.isDone() && !channelFuture.isSuccess() &&
-                            !channelFuture.isCancelled() && (channelFuture.cause() == null)) {
-                        cause = new ClientConnectorException("Connection timeout, " + route.toString(),
-                                HttpResponseStatus.BAD_GATEWAY.code());
-                    } else {
-                        cause = new ClientConnectorException("Connection refused, " + route.toString(),
-                                HttpResponseStatus.BAD_GATEWAY.code());
+    private void writeToTargetChannel(TargetChannel targetChannel, HTTPCarbonMessage httpCarbonRequest,
+            HttpResponseFuture httpResponseFuture, HttpRoute route) {
+        targetChannel.getChannelFuture().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture channelFuture) throws Exception {
+                if (isValidateChannel(channelFuture)) {
+                    targetChannel.setChannel(channelFuture.channel());
+                    if (writeBufferWaterMark != null) {
+                        // Pooled channels are shared between client connectors, hence set for each request
+                        channelFuture.channel().config().setWriteBufferWaterMark(writeBufferWaterMark);
                     }
+                    targetChannel.configTargetHandler(httpCarbonRequest, httpResponseFuture);
+                    targetChannel.setEndPointTimeout(readTimeout, writeTimeout, totalTimeout);
+                    targetChannel.setCorrelationIdForLogging();
+                    targetChannel.setChunkDisabled(chunkDisabled);
+                    targetChannel.setRequestWritten(true);
+                    if (followRedirect) {
+                        setChannelAttributes(channelFuture.channel(), httpCarbonRequest, httpResponseFuture,
+                                targetChannel);
+                    }
+                    targetChannel.writeContent(httpCarbonRequest);
+                } else {
+                    connectionManager.invalidateTargetChannel(targetChannel);
+                    notifyErrorState(channelFuture);
+                }
+            }
 
-                    if (channelFuture.cause() != null) {
-                        cause.initCause(channelFuture.cause());
+            private boolean isValidateChannel(ChannelFuture channelFuture) throws Exception {
+                if (channelFuture.isDone() && channelFuture.isSuccess()) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Created the connection to address: {}",
+                                route.toString() + " " + "Original Channel ID is : " + channelFuture.channel()
+                                        .id());
                     }
+                    return true;
+                }
+                return false;
+            }
 
-                    httpResponseFuture.notifyHttpListener(cause);
+            private void notifyErrorState(ChannelFuture channelFuture) {
+                ClientConnectorException cause;
+
+                if (channelFuture.isDone() && channelFuture.isCancelled()) {
+                    cause = new ClientConnectorException("Request Cancelled, " + route.toString(),
+                            HttpResponseStatus.BAD_GATEWAY.code());
+                } else if (!channelFuture.isDone() && !channelFuture.isSuccess() &&
+                        !channelFuture.isCancelled() && (channelFuture.cause() == null)) {
+                    cause = new ClientConnectorException("Connection timeout, " + route.toString(),
+                            HttpResponseStatus.BAD_GATEWAY.code());
+                } else {
+                    cause = new ClientConnectorException("Connection refused, " + route.toString(),
+                            HttpResponseStatus.BAD_GATEWAY.code());
                 }
-            });
-            Util.prepareBuiltMessageForTransfer(httpCarbonRequest);
-        } catch (Exception failedCause) {
-            httpResponseFuture.notifyHttpListener(failedCause);
-        }
 
-        return httpResponseFuture;
+                if (channelFuture.cause() != null) {
+                    cause.initCause(channelFuture.cause());
+                }
+
+                httpResponseFuture.notifyHttpListener(cause);
+            }
+        });
     }
 
     @Override
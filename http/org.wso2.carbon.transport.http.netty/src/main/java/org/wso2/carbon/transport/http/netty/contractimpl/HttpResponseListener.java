@@ -22,7 +22,9 @@ package org.wso2.carbon.transport.http.netty.contractimpl;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpResponse;
+import org.wso2.carbon.transport.http.netty.common.BackPressureHandler;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
@@ -30,6 +32,7 @@ import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
 import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
 import org.wso2.carbon.transport.http.netty.listener.RequestDataHolder;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.MessageListener;
 
 /**
  * Get executed when the response is available.
@@ -55,7 +58,7 @@ public class HttpResponseListener implements HttpConnectorListener {
         sourceContext.channel().eventLoop().execute(() -> {
             boolean connectionCloseAfterResponse = shouldConnectionClose(httpResponseMessage);
 
-            if (handlerExecutor != null) {
+            if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
                 handlerExecutor.executeAtSourceResponseReceiving(httpResponseMessage);
             }
 
@@ -63,33 +66,49 @@ public class HttpResponseListener implements HttpConnectorListener {
                     .createHttpResponse(httpResponseMessage, connectionCloseAfterResponse);
             sourceContext.write(response);
 
-            httpResponseMessage.getHttpContentAsync().setMessageListener(httpContent ->
-                    this.sourceContext.channel().eventLoop().execute(() -> {
-                if (Util.isLastHttpContent(httpContent)) {
-                    ChannelFuture outboundChannelFuture = sourceContext.writeAndFlush(httpContent);
-                    HttpResponseStatusFuture outboundRespStatusFuture =
-                            inboundRequestMsg.getHttpOutboundRespStatusFuture();
-                    outboundChannelFuture.addListener(genericFutureListener -> {
-                        if (genericFutureListener.cause() != null) {
-                            outboundRespStatusFuture.notifyHttpListener(genericFutureListener.cause());
-                        } else {
-                            outboundRespStatusFuture.notifyHttpListener(inboundRequestMsg);
-                        }
-                    });
-                    if (connectionCloseAfterResponse) {
-                        outboundChannelFuture.addListener(ChannelFutureListener.CLOSE);
-                    }
-                    if (handlerExecutor != null) {
-                        handlerExecutor.executeAtSourceResponseSending(httpResponseMessage);
-                    }
+            MessageListener contentWriter = httpContent -> {
+                if (sourceContext.channel().eventLoop().inEventLoop()) {
+                    writeHttpContent(httpResponseMessage, httpContent, connectionCloseAfterResponse);
                 } else {
-                    sourceContext.write(httpContent);
+                    sourceContext.channel().eventLoop().execute(() ->
+                            writeHttpContent(httpResponseMessage, httpContent, connectionCloseAfterResponse));
                 }
-            }));
+            };
+            // Content read from a target channel is spliced straight to the source channel
+            if (!httpResponseMessage.passthroughHttpContent(contentWriter)) {
+                httpResponseMessage.getHttpContentAsync().setMessageListener(contentWriter);
+            }
         });
         Util.prepareBuiltMessageForTransfer(httpResponseMessage);
     }
 
+    private void writeHttpContent(HTTPCarbonMessage httpResponseMessage, HttpContent httpContent,
+            boolean connectionCloseAfterResponse) {
+        if (Util.isLastHttpContent(httpContent)) {
+            ChannelFuture outboundChannelFuture = sourceContext.writeAndFlush(httpContent);
+            HttpResponseStatusFuture outboundRespStatusFuture = inboundRequestMsg.getHttpOutboundRespStatusFuture();
+            outboundChannelFuture.addListener(genericFutureListener -> {
+                if (genericFutureListener.cause() != null) {
+                    outboundRespStatusFuture.notifyHttpListener(genericFutureListener.cause());
+                } else {
+                    outboundRespStatusFuture.notifyHttpListener(inboundRequestMsg);
+                }
+                // The exchange is over, release what is left of both messages
+                Util.releaseMessage(httpResponseMessage);
+                Util.releaseMessage(inboundRequestMsg);
+            });
+            if (connectionCloseAfterResponse) {
+                outboundChannelFuture.addListener(ChannelFutureListener.CLOSE);
+            }
+            if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+                handlerExecutor.executeAtSourceResponseSending(httpResponseMessage);
+            }
+        } else {
+            sourceContext.write(httpContent);
+        }
+        BackPressureHandler.pauseIfUnwritable(sourceContext.channel(), httpResponseMessage.getContentChannel());
+    }
+
     // Decides whether to close the connection after sending the response
     private boolean shouldConnectionClose(HTTPCarbonMessage responseMsg) {
         String responseConnectionHeader = responseMsg.getHeader(Constants.HTTP_CONNECTION);
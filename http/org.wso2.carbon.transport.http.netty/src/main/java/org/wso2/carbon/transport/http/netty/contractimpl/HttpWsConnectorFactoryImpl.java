@@ -20,9 +20,11 @@
 package org.wso2.carbon.transport.http.netty.contractimpl;
 
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.EventLoopUtil;
 import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
+import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
 import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
 import org.wso2.carbon.transport.http.netty.config.SenderConfiguration;
@@ -35,6 +37,7 @@ import org.wso2.carbon.transport.http.netty.contractimpl.websocket.WebSocketClie
 import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
 import org.wso2.carbon.transport.http.netty.listener.ServerConnectorBootstrap;
 import org.wso2.carbon.transport.http.netty.sender.channel.BootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetAddressResolver;
 import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
 
 import java.util.Map;
@@ -44,26 +47,66 @@ import java.util.Map;
  */
 public class HttpWsConnectorFactoryImpl implements HttpWsConnectorFactory {
 
+    private final int serverSocketThreads;
+    private final int childSocketThreads;
+    // Created by the first connector, and only read after createEventLoopGroups
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
+    private boolean nativeTransport;
 
     public HttpWsConnectorFactoryImpl() {
-        bossGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors());
-        workerGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2);
+        this(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors() * 2);
     }
 
+    /**
+     * Create the factory with event loop groups of the given sizes. The groups are created by the first connector,
+     * with the native transport when the {@code native.transport.enabled} property of its configuration is set and
+     * the native transport is available.
+     *
+     * @param serverSocketThreads number of threads accepting the connections.
+     * @param childSocketThreads  number of threads serving the accepted connections.
+     */
     public HttpWsConnectorFactoryImpl(int serverSocketThreads, int childSocketThreads) {
-        bossGroup = new NioEventLoopGroup(serverSocketThreads);
-        workerGroup = new NioEventLoopGroup(childSocketThreads);
+        this.serverSocketThreads = serverSocketThreads;
+        this.childSocketThreads = childSocketThreads;
+    }
+
+    /**
+     * Create the factory with event loop groups of the given sizes, overriding the {@code native.transport.enabled}
+     * property of the connector configurations.
+     *
+     * @param serverSocketThreads number of threads accepting the connections.
+     * @param childSocketThreads  number of threads serving the accepted connections.
+     * @param nativeTransport     whether the native transport is used when available, falls back to NIO otherwise.
+     */
+    public HttpWsConnectorFactoryImpl(int serverSocketThreads, int childSocketThreads, boolean nativeTransport) {
+        this(serverSocketThreads, childSocketThreads);
+        createEventLoopGroups(nativeTransport);
+    }
+
+    private synchronized void createEventLoopGroups(boolean nativeTransport) {
+        if (workerGroup != null) {
+            return;
+        }
+        bossGroup = EventLoopUtil.createEventLoopGroup(serverSocketThreads, nativeTransport);
+        workerGroup = EventLoopUtil.createEventLoopGroup(childSocketThreads, nativeTransport);
+        this.nativeTransport = EventLoopUtil.isNativeEventLoopGroup(workerGroup);
     }
 
     @Override
     public ServerConnector createServerConnector(ServerBootstrapConfiguration serverBootstrapConfiguration,
             ListenerConfiguration listenerConfig) {
+        createEventLoopGroups(serverBootstrapConfiguration.isNativeTransport());
         ServerConnectorBootstrap serverConnectorBootstrap = new ServerConnectorBootstrap();
         serverConnectorBootstrap.addSocketConfiguration(serverBootstrapConfiguration);
         serverConnectorBootstrap.addSecurity(listenerConfig.getSslConfig());
+        serverConnectorBootstrap.addHttp2Support(listenerConfig.isHttp2());
         serverConnectorBootstrap.addIdleTimeout(listenerConfig.getSocketIdleTimeout(120000));
+        serverConnectorBootstrap.addWriteBufferWaterMark(
+                listenerConfig.getWriteBufferLowWaterMark(Constants.DEFAULT_WRITE_BUFFER_LOW_WATER_MARK),
+                listenerConfig.getWriteBufferHighWaterMark(Constants.DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK));
+        serverConnectorBootstrap.addOutputContentBufferSize(
+                listenerConfig.getOutputContentBufferSize(Constants.DEFAULT_OUTPUT_CONTENT_BUFFER_SIZE));
         serverConnectorBootstrap.addHttpTraceLogHandler(listenerConfig.isHttpTraceLogEnabled());
         serverConnectorBootstrap.addThreadPools(bossGroup, workerGroup);
         serverConnectorBootstrap.addHeaderAndEntitySizeValidation(listenerConfig.getRequestSizeValidationConfig());
@@ -82,16 +125,32 @@ public class HttpWsConnectorFactoryImpl implements HttpWsConnectorFactory {
         boolean chunkDisabled = senderConfiguration.isChunkDisabled();
         ProxyServerConfiguration proxyServerConfiguration = senderConfiguration.getProxyServerConfiguration();
 
+        createEventLoopGroups(Util.getBooleanProperty(transportProperties, Constants.NATIVE_TRANSPORT_ENABLED,
+                Constants.DEFAULT_NATIVE_TRANSPORT_ENABLED));
         ConnectionManager.init(transportProperties);
         ConnectionManager connectionManager = ConnectionManager.getInstance();
         BootstrapConfiguration.createBootStrapConfiguration(transportProperties);
+        TargetAddressResolver.init(senderConfiguration);
 
-        return new HttpClientConnectorImpl(connectionManager, sslConfig, socketIdleTimeout, httpTraceLogEnabled
-                , chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration);
+        HttpClientConnectorImpl httpClientConnector = new HttpClientConnectorImpl(connectionManager, sslConfig,
+                socketIdleTimeout, httpTraceLogEnabled, chunkDisabled, followRedirect, maxRedirectCount,
+                proxyServerConfiguration, senderConfiguration.isHttp2(),
+                senderConfiguration.getHttp2MaxConcurrentStreams(Constants.HTTP2_DEFAULT_MAX_CONCURRENT_STREAMS));
+        httpClientConnector.setWriteBufferWaterMark(new WriteBufferWaterMark(
+                senderConfiguration.getWriteBufferLowWaterMark(Constants.DEFAULT_WRITE_BUFFER_LOW_WATER_MARK),
+                senderConfiguration.getWriteBufferHighWaterMark(Constants.DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK)));
+        httpClientConnector.setEndpointTimeouts(senderConfiguration.getReadTimeout(socketIdleTimeout),
+                senderConfiguration.getWriteTimeout(socketIdleTimeout), senderConfiguration.getTotalTimeout());
+        if (!senderConfiguration.isHttp2()) {
+            connectionManager.prewarmRoutes(senderConfiguration.getRoutes(), workerGroup, sslConfig,
+                    httpTraceLogEnabled, chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration);
+        }
+        return httpClientConnector;
     }
 
     @Override
     public WebSocketClientConnector createWsClientConnector(WsClientConnectorConfig clientConnectorConfig) {
-        return new WebSocketClientConnectorImpl(clientConnectorConfig);
+        createEventLoopGroups(Constants.DEFAULT_NATIVE_TRANSPORT_ENABLED);
+        return new WebSocketClientConnectorImpl(clientConnectorConfig, nativeTransport);
     }
 }
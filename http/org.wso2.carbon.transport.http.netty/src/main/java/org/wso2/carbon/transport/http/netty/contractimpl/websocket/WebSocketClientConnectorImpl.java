@@ -37,19 +37,25 @@ public class WebSocketClientConnectorImpl implements WebSocketClientConnector {
     private final String target;
     private final int idleTimeout;
     private final Map<String, String> customHeaders;
+    private final boolean nativeTransport;
 
     public WebSocketClientConnectorImpl(WsClientConnectorConfig clientConnectorConfig) {
+        this(clientConnectorConfig, false);
+    }
+
+    public WebSocketClientConnectorImpl(WsClientConnectorConfig clientConnectorConfig, boolean nativeTransport) {
         this.remoteUrl = clientConnectorConfig.getRemoteAddress();
         this.target = clientConnectorConfig.getTarget();
         this.subProtocols = clientConnectorConfig.getSubProtocolsAsCSV();
         this.customHeaders = clientConnectorConfig.getHeaders();
         this.idleTimeout = clientConnectorConfig.getIdleTimeoutInMillis();
+        this.nativeTransport = nativeTransport;
     }
 
     @Override
     public HandshakeFuture connect(WebSocketConnectorListener connectorListener) {
         WebSocketClient webSocketClient = new WebSocketClient(remoteUrl, target, subProtocols, idleTimeout,
-                                                              customHeaders, connectorListener);
+                                                              customHeaders, connectorListener, nativeTransport);
         return webSocketClient.handshake();
     }
 }
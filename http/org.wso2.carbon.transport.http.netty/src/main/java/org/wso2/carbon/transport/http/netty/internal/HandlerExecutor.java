@@ -23,23 +23,32 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * The class that is responsible for engaging all the interceptors.
+ * <p>
+ * Handlers are invoked in the order they are added, and only at the phases they declare. The handlers are kept in
+ * arrays which are replaced as a whole when a handler is added or removed, so the I/O threads invoke them without
+ * locking and a phase without handlers costs a single array read.
  */
 public class HandlerExecutor {
 
     private static final Logger LOG = LoggerFactory.getLogger(org.wso2.carbon.messaging.handler.HandlerExecutor.class);
-    private Map<String, MessagingHandler> handlers = new HashMap<>();
+    private static final HandlerPhase[] PHASES = HandlerPhase.values();
+    private static final MessagingHandler[] NO_HANDLERS = new MessagingHandler[0];
+
+    // All the handlers, and the handlers of each phase indexed by the phase ordinal
+    private volatile MessagingHandler[] handlers = NO_HANDLERS;
+    private volatile MessagingHandler[][] phaseHandlers = createPhaseHandlers(NO_HANDLERS);
 
     public boolean executeRequestContinuationValidator(HTTPCarbonMessage carbonMessage, CarbonCallback callback) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.REQUEST_CONTINUATION_VALIDATION);
         try {
-            handlers.forEach((k, v) -> v.validateRequestContinuation(carbonMessage, callback));
-            for (Map.Entry<String, MessagingHandler> messagingHandlerEntry : handlers.entrySet()) {
-                if (!messagingHandlerEntry.getValue()
-                        .validateRequestContinuation(carbonMessage, callback)) {
+            for (MessagingHandler handler : handlers) {
+                if (!handler.validateRequestContinuation(carbonMessage, callback)) {
                     return false;
                 }
             }
@@ -50,108 +59,237 @@ public class HandlerExecutor {
     }
 
     public void executeAtSourceConnectionInitiation(String metadata) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.SOURCE_CONNECTION_INITIATION);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtSourceConnectionInitiation(metadata));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtSourceConnectionInitiation(metadata);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Source connection initiation ", e);
         }
     }
 
     public void executeAtSourceConnectionTermination(String metadata) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.SOURCE_CONNECTION_TERMINATION);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtSourceConnectionTermination(metadata));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtSourceConnectionTermination(metadata);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Source connection termination ", e);
         }
     }
 
     public void executeAtSourceRequestReceiving(HTTPCarbonMessage carbonMessage) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.SOURCE_REQUEST_RECEIVING);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtSourceRequestReceiving(carbonMessage));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtSourceRequestReceiving(carbonMessage);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Source request receiving ", e);
         }
     }
 
     public void executeAtSourceRequestSending(HTTPCarbonMessage carbonMessage) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.SOURCE_REQUEST_SENDING);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtSourceRequestSending(carbonMessage));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtSourceRequestSending(carbonMessage);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Source request sending ", e);
         }
     }
 
     public void executeAtTargetRequestReceiving(HTTPCarbonMessage carbonMessage) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.TARGET_REQUEST_RECEIVING);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtTargetRequestReceiving(carbonMessage));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtTargetRequestReceiving(carbonMessage);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Target request receiving ", e);
         }
     }
 
     public void executeAtTargetRequestSending(HTTPCarbonMessage carbonMessage) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.TARGET_REQUEST_SENDING);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtTargetRequestSending(carbonMessage));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtTargetRequestSending(carbonMessage);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Target request sending ", e);
         }
     }
 
     public void executeAtTargetResponseReceiving(HTTPCarbonMessage carbonMessage) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.TARGET_RESPONSE_RECEIVING);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtTargetResponseReceiving(carbonMessage));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtTargetResponseReceiving(carbonMessage);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Target response receiving ", e);
         }
     }
 
     public void executeAtTargetResponseSending(HTTPCarbonMessage carbonMessage) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.TARGET_RESPONSE_SENDING);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtTargetResponseSending(carbonMessage));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtTargetResponseSending(carbonMessage);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Target response sending ", e);
         }
     }
 
     public void executeAtSourceResponseReceiving(HTTPCarbonMessage carbonMessage) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.SOURCE_RESPONSE_RECEIVING);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtSourceResponseReceiving(carbonMessage));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtSourceResponseReceiving(carbonMessage);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Source response receiving ", e);
         }
     }
 
     public void executeAtSourceResponseSending(HTTPCarbonMessage carbonMessage) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.SOURCE_RESPONSE_SENDING);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtSourceResponseSending(carbonMessage));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtSourceResponseSending(carbonMessage);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Source response sending ", e);
         }
     }
 
     public void executeAtTargetConnectionInitiation(String metadata) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.TARGET_CONNECTION_INITIATION);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtTargetConnectionInitiation(metadata));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtTargetConnectionInitiation(metadata);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Target connection initiation ", e);
         }
     }
 
     public void executeAtTargetConnectionTermination(String metadata) {
+        MessagingHandler[] handlers = handlersOf(HandlerPhase.TARGET_CONNECTION_TERMINATION);
+        if (handlers.length == 0) {
+            return;
+        }
         try {
-            handlers.forEach((k, v) -> v.invokeAtTargetConnectionTermination(metadata));
+            for (MessagingHandler handler : handlers) {
+                handler.invokeAtTargetConnectionTermination(metadata);
+            }
         } catch (Exception e) {
             LOG.error("Error while executing handler at Target connection termination ", e);
         }
     }
 
-    public void addHandler(MessagingHandler messagingHandler) {
-        handlers.put(messagingHandler.handlerName(), messagingHandler);
+    public synchronized void addHandler(MessagingHandler messagingHandler) {
+        List<MessagingHandler> newHandlers = new ArrayList<>(Arrays.asList(handlers));
+        int index = indexOf(messagingHandler.handlerName());
+        // A handler with the same name is replaced in place
+        if (index >= 0) {
+            newHandlers.set(index, messagingHandler);
+        } else {
+            newHandlers.add(messagingHandler);
+        }
+        setHandlers(newHandlers.toArray(NO_HANDLERS));
         LOG.info("A new handler named " + messagingHandler.handlerName() + " is added to the Handler Executor");
     }
 
-    public void removeHandler(MessagingHandler messagingHandler) {
-        handlers.remove(messagingHandler.handlerName());
+    public synchronized void removeHandler(MessagingHandler messagingHandler) {
+        int index = indexOf(messagingHandler.handlerName());
+        if (index >= 0) {
+            List<MessagingHandler> newHandlers = new ArrayList<>(Arrays.asList(handlers));
+            newHandlers.remove(index);
+            setHandlers(newHandlers.toArray(NO_HANDLERS));
+        }
         LOG.info("Handler named " + messagingHandler.handlerName() + " is removed from the Handler Executor");
     }
+
+    /**
+     * Lets the I/O threads skip building the arguments of a phase, such as the connection id, when no handler is
+     * engaged at all.
+     *
+     * @return true if there is a handler to invoke.
+     */
+    public boolean hasHandlers() {
+        return handlers.length != 0;
+    }
+
+    private MessagingHandler[] handlersOf(HandlerPhase phase) {
+        return phaseHandlers[phase.ordinal()];
+    }
+
+    private int indexOf(String handlerName) {
+        MessagingHandler[] currentHandlers = handlers;
+        for (int i = 0; i < currentHandlers.length; i++) {
+            if (currentHandlers[i].handlerName().equals(handlerName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void setHandlers(MessagingHandler[] newHandlers) {
+        phaseHandlers = createPhaseHandlers(newHandlers);
+        handlers = newHandlers;
+    }
+
+    private static MessagingHandler[][] createPhaseHandlers(MessagingHandler[] handlers) {
+        MessagingHandler[][] phaseHandlers = new MessagingHandler[PHASES.length][];
+        for (HandlerPhase phase : PHASES) {
+            List<MessagingHandler> handlersOfPhase = new ArrayList<>(handlers.length);
+            for (MessagingHandler handler : handlers) {
+                if (handler.handlerPhases().contains(phase)) {
+                    handlersOfPhase.add(handler);
+                }
+            }
+            phaseHandlers[phase.ordinal()] = handlersOfPhase.isEmpty()
+                    ? NO_HANDLERS : handlersOfPhase.toArray(NO_HANDLERS);
+        }
+        return phaseHandlers;
+    }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.internal;
+
+/**
+ * Phases of a message flow at which a {@link MessagingHandler} is invoked.
+ */
+public enum HandlerPhase {
+    REQUEST_CONTINUATION_VALIDATION,
+    SOURCE_CONNECTION_INITIATION,
+    SOURCE_CONNECTION_TERMINATION,
+    TARGET_CONNECTION_INITIATION,
+    TARGET_CONNECTION_TERMINATION,
+    SOURCE_REQUEST_RECEIVING,
+    SOURCE_REQUEST_SENDING,
+    TARGET_REQUEST_RECEIVING,
+    TARGET_REQUEST_SENDING,
+    TARGET_RESPONSE_RECEIVING,
+    TARGET_RESPONSE_SENDING,
+    SOURCE_RESPONSE_RECEIVING,
+    SOURCE_RESPONSE_SENDING
+}
@@ -21,6 +21,9 @@ package org.wso2.carbon.transport.http.netty.internal;
 import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Interface for MessagingHandler.
  */
@@ -130,4 +133,13 @@ public interface MessagingHandler {
      * @return handler name
      */
     String handlerName();
+
+    /**
+     * Gives the phases the handler is invoked at. The handler is not invoked at the other phases.
+     *
+     * @return the phases, all of them unless overridden
+     */
+    default Set<HandlerPhase> handlerPhases() {
+        return EnumSet.allOf(HandlerPhase.class);
+    }
 }
@@ -15,23 +15,39 @@
 
 package org.wso2.carbon.transport.http.netty.listener;
 
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
 import io.netty.handler.logging.LogLevel;
+import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AsciiString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.messaging.CarbonTransportInitializer;
+import org.wso2.carbon.transport.http.netty.common.BackPressureHandler;
 import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.metrics.TransportMetrics;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
-import org.wso2.carbon.transport.http.netty.common.ssl.SSLHandlerFactory;
+import org.wso2.carbon.transport.http.netty.common.ssl.SSLContextCache;
 import org.wso2.carbon.transport.http.netty.config.RequestSizeValidationConfiguration;
 import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.listener.http2.HTTP2SourceHandler;
+import org.wso2.carbon.transport.http.netty.listener.http2.HTTP2SourceHandlerBuilder;
+import org.wso2.carbon.transport.http.netty.listener.http2.HTTPProtocolNegotiationHandler;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
 
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -45,11 +61,15 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
     private static final Logger log = LoggerFactory.getLogger(HTTPServerChannelInitializer.class);
 
     private int socketIdleTimeout;
+    private int outputContentBufferSize = Constants.DEFAULT_OUTPUT_CONTENT_BUFFER_SIZE;
+    private EntityCollectorFactory entityCollectorFactory = EntityCollectorFactory.getDefault();
     private boolean httpTraceLogEnabled;
     private String interfaceId;
     private SSLConfig sslConfig;
     private ServerConnectorFuture serverConnectorFuture;
     private RequestSizeValidationConfiguration requestSizeValidationConfig;
+    private boolean http2Enabled;
+    private SslContext http2SslContext;
 
     @Override
     public void setup(Map<String, String> parameters) {
@@ -63,19 +83,27 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
 
         ChannelPipeline pipeline = ch.pipeline();
 
+        if (http2Enabled) {
+            if (socketIdleTimeout > 0) {
+                pipeline.addLast(Constants.IDLE_STATE_HANDLER, new IdleStateHandler(socketIdleTimeout,
+                        socketIdleTimeout, socketIdleTimeout, TimeUnit.MILLISECONDS));
+            }
+            if (http2SslContext != null) {
+                pipeline.addLast(Constants.SSL_HANDLER, http2SslContext.newHandler(ch.alloc()));
+                pipeline.addLast(Constants.HTTP2_ALPN_HANDLER, new HTTPProtocolNegotiationHandler(this));
+            } else {
+                configureH2cPipeline(pipeline);
+            }
+            return;
+        }
+
         if (sslConfig != null) {
-            pipeline.addLast(Constants.SSL_HANDLER, new SslHandler(new SSLHandlerFactory(sslConfig).build()));
+            pipeline.addLast(Constants.SSL_HANDLER, new SslHandler(
+                    SSLContextCache.getInstance().getSSLHandlerFactory(sslConfig).build()));
         }
 
         pipeline.addLast("encoder", new HttpResponseEncoder());
         configureHTTPPipeline(pipeline);
-
-        if (socketIdleTimeout > 0) {
-            pipeline.addBefore(
-                    Constants.HTTP_SOURCE_HANDLER, Constants.IDLE_STATE_HANDLER,
-                    new IdleStateHandler(socketIdleTimeout, socketIdleTimeout, socketIdleTimeout,
-                                         TimeUnit.MILLISECONDS));
-        }
     }
 
     /**
@@ -90,11 +118,59 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
         } else {
             pipeline.addLast("decoder", new HttpRequestDecoder());
         }
+        configureHTTPHandlers(pipeline);
+    }
+
+    /**
+     * Configure the pipeline for HTTP/2 frames, once HTTP/2 is negotiated with ALPN.
+     *
+     * @param pipeline Channel
+     */
+    public void configureHTTP2Pipeline(ChannelPipeline pipeline) {
+        pipeline.addLast(Constants.HTTP2_SOURCE_HANDLER, createHTTP2SourceHandler());
+    }
+
+    /**
+     * Configure the pipeline for cleartext connections which may start HTTP/2 with prior knowledge or upgrade to it
+     * from HTTP/1.1. Connections which do neither are served as HTTP/1.1.
+     *
+     * @param pipeline Channel
+     */
+    private void configureH2cPipeline(ChannelPipeline pipeline) {
+        HttpServerCodec sourceCodec;
+        if (requestSizeValidationConfig != null && requestSizeValidationConfig.isHeaderSizeValidation()) {
+            sourceCodec = new HttpServerCodec(requestSizeValidationConfig.getHeaderMaxRequestLineSize(),
+                    requestSizeValidationConfig.getHeaderMaxSize(), requestSizeValidationConfig.getMaxChunkSize());
+        } else {
+            sourceCodec = new HttpServerCodec();
+        }
+        HttpServerUpgradeHandler upgradeHandler = new HttpServerUpgradeHandler(sourceCodec, protocol -> {
+            if (AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)) {
+                return new Http2ServerUpgradeCodec(Constants.HTTP2_SOURCE_HANDLER, createHTTP2SourceHandler());
+            }
+            return null;
+        });
+        pipeline.addLast(Constants.HTTP2_CLEARTEXT_UPGRADE_HANDLER,
+                new CleartextHttp2ServerUpgradeHandler(sourceCodec, upgradeHandler, createHTTP2SourceHandler()));
+        pipeline.addLast(new HTTP1FallbackHandler());
+    }
+
+    private HTTP2SourceHandler createHTTP2SourceHandler() {
+        return new HTTP2SourceHandlerBuilder(serverConnectorFuture, interfaceId, httpTraceLogEnabled,
+                entityCollectorFactory).build();
+    }
+
+    private void configureHTTPHandlers(ChannelPipeline pipeline) {
+        TransportMetrics transportMetrics = TransportMetrics.getInstance();
+        if (transportMetrics.isEnabled()) {
+            pipeline.addLast(Constants.METRICS_HANDLER, transportMetrics.getListenerHandler(interfaceId));
+        }
         if (requestSizeValidationConfig != null && requestSizeValidationConfig.isRequestSizeValidation()) {
             pipeline.addLast("custom-aggregator", new CustomHttpObjectAggregator(requestSizeValidationConfig));
         }
         pipeline.addLast("compressor", new CustomHttpContentCompressor());
         pipeline.addLast("chunkWriter", new ChunkedWriteHandler());
+        pipeline.addLast(Constants.BACK_PRESSURE_HANDLER, new BackPressureHandler());
 
         if (httpTraceLogEnabled) {
             pipeline.addLast(Constants.HTTP_TRACE_LOG_HANDLER,
@@ -106,10 +182,18 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
 
         try {
             pipeline.addLast(Constants.HTTP_SOURCE_HANDLER,
-                             new SourceHandler(this.serverConnectorFuture, this.interfaceId));
+                             new SourceHandler(this.serverConnectorFuture, this.interfaceId,
+                                               this.entityCollectorFactory));
         } catch (Exception e) {
             log.error("Cannot Create SourceHandler ", e);
         }
+
+        if (socketIdleTimeout > 0 && pipeline.get(Constants.IDLE_STATE_HANDLER) == null) {
+            pipeline.addBefore(
+                    Constants.HTTP_SOURCE_HANDLER, Constants.IDLE_STATE_HANDLER,
+                    new IdleStateHandler(socketIdleTimeout, socketIdleTimeout, socketIdleTimeout,
+                                         TimeUnit.MILLISECONDS));
+        }
     }
 
     @Override
@@ -125,6 +209,15 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
         this.socketIdleTimeout = idleTimeout;
     }
 
+    public void setOutputContentBufferSize(int outputContentBufferSize) {
+        this.outputContentBufferSize = outputContentBufferSize;
+        this.entityCollectorFactory = entityCollectorFactory.withOutputContentBufferSize(outputContentBufferSize);
+    }
+
+    public void setEntityCollectorFactory(EntityCollectorFactory entityCollectorFactory) {
+        this.entityCollectorFactory = entityCollectorFactory.withOutputContentBufferSize(outputContentBufferSize);
+    }
+
     public void setHttpTraceLogEnabled(boolean httpTraceLogEnabled) {
         this.httpTraceLogEnabled = httpTraceLogEnabled;
     }
@@ -141,7 +234,40 @@ public class HTTPServerChannelInitializer extends ChannelInitializer<SocketChann
         this.sslConfig = sslConfig;
     }
 
+    public void setHttp2Enabled(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+    }
+
+    public void setHttp2SslContext(SslContext http2SslContext) {
+        this.http2SslContext = http2SslContext;
+    }
+
     public void setRequestSizeValidationConfig(RequestSizeValidationConfiguration requestSizeValidationConfig) {
         this.requestSizeValidationConfig = requestSizeValidationConfig;
     }
+
+    /**
+     * Sets up the HTTP/1.1 handlers when a cleartext connection neither starts with the HTTP/2 preface nor upgrades to
+     * HTTP/2, and removes itself once either of the upgrades happen.
+     */
+    private class HTTP1FallbackHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof HttpMessage) {
+                configureHTTPHandlers(ctx.pipeline());
+                ctx.pipeline().remove(this);
+            }
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof HttpServerUpgradeHandler.UpgradeEvent
+                    || evt instanceof CleartextHttp2ServerUpgradeHandler.PriorKnowledgeUpgradeEvent) {
+                ctx.pipeline().remove(this);
+            }
+            ctx.fireUserEventTriggered(evt);
+        }
+    }
 }
@@ -33,6 +33,7 @@ public class RequestDataHolder {
     private String transferEncodingHeader;
     private String contentLengthHeader;
     private String httpMethod;
+    private String httpVersion;
 
     public RequestDataHolder(HTTPCarbonMessage requestMessage) {
         acceptEncodingHeader = requestMessage.getHeader(Constants.ACCEPT_ENCODING);
@@ -41,6 +42,7 @@ public class RequestDataHolder {
         transferEncodingHeader = requestMessage.getHeader(Constants.HTTP_TRANSFER_ENCODING);
         contentLengthHeader = requestMessage.getHeader(Constants.HTTP_CONTENT_LENGTH);
         httpMethod = (String) requestMessage.getProperty(Constants.HTTP_METHOD);
+        httpVersion = (String) requestMessage.getProperty(Constants.HTTP_VERSION);
     }
 
     /**
@@ -96,4 +98,13 @@ public class RequestDataHolder {
     public String getHttpMethod() {
         return httpMethod;
     }
+
+    /**
+     * Get the http version
+     *
+     * @return http version
+     */
+    public String getHttpVersion() {
+        return httpVersion;
+    }
 }
@@ -29,9 +29,9 @@ public class ServerBootstrapConfiguration {
     private static final Map<String, Object> properties = new HashMap<>();
     private static ServerBootstrapConfiguration bootstrapConfig = new ServerBootstrapConfiguration(properties);
 
-    private boolean tcpNoDelay, keepAlive, socketReuse;
+    private boolean tcpNoDelay, keepAlive, socketReuse, socketReusePort, nativeTransport, nonBlockingEntityCollector;
 
-    private int connectTimeOut, receiveBufferSize, sendBufferSize, soBackLog, socketTimeOut;
+    private int connectTimeOut, receiveBufferSize, sendBufferSize, soBackLog, socketTimeOut, entitySpillThreshold;
 
     private ServerBootstrapConfiguration(Map<String, Object> properties) {
 
@@ -53,10 +53,21 @@ public class ServerBootstrapConfiguration {
         socketReuse = Util.getBooleanProperty(
                 properties, Constants.SERVER_BOOTSTRAP_SO_REUSE, false);
 
+        socketReusePort = Util.getBooleanProperty(
+                properties, Constants.SERVER_BOOTSTRAP_SO_REUSE_PORT, false);
+
+        nativeTransport = Util.getBooleanProperty(
+                properties, Constants.NATIVE_TRANSPORT_ENABLED, Constants.DEFAULT_NATIVE_TRANSPORT_ENABLED);
+
         soBackLog = Util.getIntProperty(properties, Constants.SERVER_BOOTSTRAP_SO_BACKLOG, 100);
 
         socketTimeOut = Util.getIntProperty(properties, Constants.SERVER_BOOTSTRAP_SO_TIMEOUT, 15);
 
+        entitySpillThreshold = Util.getIntProperty(properties, Constants.ENTITY_SPILL_THRESHOLD, 0);
+
+        nonBlockingEntityCollector = Util.getBooleanProperty(
+                properties, Constants.ENTITY_COLLECTOR_NON_BLOCKING, false);
+
     }
 
     public boolean isTcpNoDelay() {
@@ -83,6 +94,14 @@ public class ServerBootstrapConfiguration {
         return socketReuse;
     }
 
+    public boolean isSocketReusePort() {
+        return socketReusePort;
+    }
+
+    public boolean isNativeTransport() {
+        return nativeTransport;
+    }
+
     public int getSoBackLog() {
         return soBackLog;
     }
@@ -95,6 +114,14 @@ public class ServerBootstrapConfiguration {
         return socketTimeOut;
     }
 
+    public int getEntitySpillThreshold() {
+        return entitySpillThreshold;
+    }
+
+    public boolean isNonBlockingEntityCollector() {
+        return nonBlockingEntityCollector;
+    }
+
     /**
      * configTargetHandler transport level properties such as socket timeouts, tcp no delay
      *
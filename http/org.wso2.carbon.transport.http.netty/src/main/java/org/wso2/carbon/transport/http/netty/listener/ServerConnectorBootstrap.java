@@ -20,13 +20,18 @@ package org.wso2.carbon.transport.http.netty.listener;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.util.concurrent.EventExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.EventLoopUtil;
 import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
+import org.wso2.carbon.transport.http.netty.common.ssl.SSLContextCache;
 import org.wso2.carbon.transport.http.netty.config.RequestSizeValidationConfiguration;
 import org.wso2.carbon.transport.http.netty.contract.ServerConnector;
 import org.wso2.carbon.transport.http.netty.contract.ServerConnectorException;
@@ -34,8 +39,14 @@ import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
 import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsServerConnectorFuture;
 import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
 import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLException;
 
 /**
  * {@code ServerConnectorBootstrap} is the heart of the HTTP Server Connector.
@@ -50,6 +61,10 @@ public class ServerConnectorBootstrap {
     private HTTPServerChannelInitializer httpServerChannelInitializer;
     private boolean initialized = false;
     private boolean isHttps = false;
+    private boolean http2Enabled = false;
+    private SSLConfig sslConfig;
+    private boolean socketReusePort = false;
+    private int acceptorCount = 1;
 
     public ServerConnectorBootstrap() {
         serverBootstrap = new ServerBootstrap();
@@ -66,23 +81,33 @@ public class ServerConnectorBootstrap {
             return null;
         }
 
+        // Create HTTP/2 ssl context during interface binding, since it is shared by all the connections.
+        if (http2Enabled && sslConfig != null) {
+            try {
+                httpServerChannelInitializer.setHttp2SslContext(
+                        SSLContextCache.getInstance().getSSLHandlerFactory(sslConfig).createHttp2TLSContext());
+            } catch (SSLException e) {
+                throw new IllegalArgumentException("Failed to create the HTTP/2 SSL context", e);
+            }
+        }
+
         ChannelFuture future = serverBootstrap
                 .bind(new InetSocketAddress(serverConnector.getHost(), serverConnector.getPort()));
 
         return future;
+    }
 
-        // TODO: Fix this with HTTP2
-//            ListenerConfiguration listenerConfiguration = serverConnector.getListenerConfiguration();
-//            SslContext http2sslContext = null;
-//            // Create HTTP/2 ssl context during interface binding.
-//            if (listenerConfiguration.isHttp2() && listenerConfiguration.getSslConfig() != null) {
-//                http2sslContext = new SSLHandlerFactory(listenerConfiguration.getSslConfig())
-//                        .createHttp2TLSContext();
-//            }
-
-//            httpServerChannelInitializer.registerListenerConfig(listenerConfiguration, http2sslContext);
-//            httpServerChannelInitializer.setSslContext(http2sslContext);
-//            httpServerChannelInitializer.setServerConnectorFuture(serverConnector.getServerConnectorFuture());
+    /**
+     * Bind the additional acceptor channels when SO_REUSEPORT is in effect, so that each boss event loop
+     * accepts connections on its own socket.
+     */
+    private List<ChannelFuture> bindAdditionalAcceptors(HTTPServerConnector serverConnector) {
+        List<ChannelFuture> futures = new ArrayList<>();
+        for (int i = 1; i < acceptorCount; i++) {
+            futures.add(serverBootstrap
+                    .bind(new InetSocketAddress(serverConnector.getHost(), serverConnector.getPort())));
+        }
+        return futures;
     }
 
     public boolean unBindInterface(HTTPServerConnector serverConnector) throws InterruptedException {
@@ -91,11 +116,19 @@ public class ServerConnectorBootstrap {
             return false;
         }
 
+        for (ChannelFuture acceptorFuture : serverConnector.getAcceptorChannelFutures()) {
+            acceptorFuture.channel().close().sync();
+        }
+
         //Remove cached channels and close them.
         ChannelFuture future = serverConnector.getChannelFuture();
         if (future != null) {
             ChannelFuture channelFuture = future.channel().close();
             channelFuture.sync();
+            if (sslConfig != null) {
+                // A listener which is started again reads the key and trust stores afresh
+                SSLContextCache.getInstance().invalidate(sslConfig);
+            }
             log.info("HttpConnectorListener stopped listening on host " + serverConnector.getHost()
                     + " and port " + serverConnector.getPort());
             return true;
@@ -118,6 +151,9 @@ public class ServerConnectorBootstrap {
         serverBootstrap.option(ChannelOption.SO_RCVBUF, serverBootstrapConfiguration.getReceiveBufferSize());
         serverBootstrap.childOption(ChannelOption.SO_RCVBUF, serverBootstrapConfiguration.getReceiveBufferSize());
         serverBootstrap.childOption(ChannelOption.SO_SNDBUF, serverBootstrapConfiguration.getSendBufferSize());
+        socketReusePort = serverBootstrapConfiguration.isSocketReusePort();
+        httpServerChannelInitializer.setEntityCollectorFactory(
+                EntityCollectorFactory.of(serverBootstrapConfiguration));
 
         log.debug("Netty Server Socket BACKLOG " + serverBootstrapConfiguration.getSoBackLog());
         log.debug("Netty Server Socket TCP_NODELAY " + serverBootstrapConfiguration.isTcpNoDelay());
@@ -127,11 +163,13 @@ public class ServerConnectorBootstrap {
         log.debug("Netty Server Socket SO_RCVBUF " + serverBootstrapConfiguration.getReceiveBufferSize());
         log.debug("Netty Server Socket SO_RCVBUF " + serverBootstrapConfiguration.getReceiveBufferSize());
         log.debug("Netty Server Socket SO_SNDBUF " + serverBootstrapConfiguration.getSendBufferSize());
+        log.debug("Netty Server Socket SO_REUSEPORT " + serverBootstrapConfiguration.isSocketReusePort());
     }
 
     public void addSecurity(SSLConfig sslConfig) {
         if (sslConfig != null) {
             httpServerChannelInitializer.setSslConfig(sslConfig);
+            this.sslConfig = sslConfig;
             isHttps = true;
         }
     }
@@ -141,7 +179,32 @@ public class ServerConnectorBootstrap {
     }
 
     public void addThreadPools(EventLoopGroup bossGroup, EventLoopGroup workerGroup) {
-        serverBootstrap.group(bossGroup, workerGroup).channel(NioServerSocketChannel.class);
+        serverBootstrap.group(bossGroup, workerGroup).channel(EventLoopUtil.getServerChannelClass(bossGroup));
+        if (socketReusePort) {
+            if (EventLoopUtil.isNativeEventLoopGroup(bossGroup)) {
+                serverBootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+                acceptorCount = 0;
+                for (EventExecutor ignored : bossGroup) {
+                    acceptorCount++;
+                }
+            } else {
+                log.warn("SO_REUSEPORT is only supported with the native transport, ignoring the configuration");
+            }
+        }
+    }
+
+    public void addHttp2Support(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+        httpServerChannelInitializer.setHttp2Enabled(http2Enabled);
+    }
+
+    public void addWriteBufferWaterMark(int lowWaterMark, int highWaterMark) {
+        serverBootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                new WriteBufferWaterMark(lowWaterMark, highWaterMark));
+    }
+
+    public void addOutputContentBufferSize(int outputContentBufferSize) {
+        httpServerChannelInitializer.setOutputContentBufferSize(outputContentBufferSize);
     }
 
     public void addHttpTraceLogHandler(Boolean isHttpTraceLogEnabled) {
@@ -157,6 +220,7 @@ public class ServerConnectorBootstrap {
        private final Logger log = LoggerFactory.getLogger(HTTPServerConnector.class);
 
         private ChannelFuture channelFuture;
+        private List<ChannelFuture> acceptorChannelFutures = new ArrayList<>();
         private ServerConnectorFuture serverConnectorFuture;
         private ServerConnectorBootstrap serverConnectorBootstrap;
         private String host;
@@ -175,19 +239,45 @@ public class ServerConnectorBootstrap {
         @Override
         public ServerConnectorFuture start() {
             channelFuture = bindInterface(this);
+            acceptorChannelFutures = bindAdditionalAcceptors(this);
             serverConnectorFuture = new HttpWsServerConnectorFuture(channelFuture);
-            channelFuture.addListener(channelFuture -> {
-                if (channelFuture.isSuccess()) {
-                    log.info("HTTP(S) Interface starting on host " + this.getHost() + " and port " + this.getPort());
-                    serverConnectorFuture.notifyPortBindingEvent(this.connectorID, isHttps);
-                } else {
-                    serverConnectorFuture.notifyPortBindingError(channelFuture.cause());
-                }
-            });
             httpServerChannelInitializer.setServerConnectorFuture(serverConnectorFuture);
+
+            // The connector is started once all of its acceptors are bound
+            AtomicInteger pendingBinds = new AtomicInteger(acceptorChannelFutures.size() + 1);
+            ChannelFutureListener bindListener = future -> {
+                if (pendingBinds.decrementAndGet() == 0) {
+                    notifyBindResult();
+                }
+            };
+            channelFuture.addListener(bindListener);
+            for (ChannelFuture acceptorFuture : acceptorChannelFutures) {
+                acceptorFuture.addListener(bindListener);
+            }
             return serverConnectorFuture;
         }
 
+        private void notifyBindResult() {
+            Throwable cause = channelFuture.cause();
+            for (ChannelFuture acceptorFuture : acceptorChannelFutures) {
+                if (cause == null) {
+                    cause = acceptorFuture.cause();
+                }
+            }
+            if (cause == null) {
+                log.info("HTTP(S) Interface starting on host " + this.getHost() + " and port " + this.getPort());
+                serverConnectorFuture.notifyPortBindingEvent(this.connectorID, isHttps);
+                return;
+            }
+
+            log.error("Failed to bind the acceptors of " + this.connectorID, cause);
+            channelFuture.channel().close();
+            for (ChannelFuture acceptorFuture : acceptorChannelFutures) {
+                acceptorFuture.channel().close();
+            }
+            serverConnectorFuture.notifyPortBindingError(cause);
+        }
+
         @Override
         public boolean stop() {
             boolean connectorStopped = false;
@@ -216,6 +306,10 @@ public class ServerConnectorBootstrap {
             return channelFuture;
         }
 
+        private List<ChannelFuture> getAcceptorChannelFutures() {
+            return acceptorChannelFutures;
+        }
+
         @Override
         public String toString() {
             return this.host + "-" + this.port;
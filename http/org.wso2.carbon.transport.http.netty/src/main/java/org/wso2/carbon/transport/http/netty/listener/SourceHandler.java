@@ -39,10 +39,10 @@ import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
 import org.wso2.carbon.transport.http.netty.contractimpl.HttpResponseListener;
 import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
 import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
 import org.wso2.carbon.transport.http.netty.message.HttpCarbonRequest;
 
-import java.net.InetSocketAddress;
 import java.net.URISyntaxException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -59,23 +59,33 @@ public class SourceHandler extends ChannelInboundHandlerAdapter {
     private ServerConnectorFuture serverConnectorFuture;
     private String interfaceId;
     private HandlerExecutor handlerExecutor;
+    private EntityCollectorFactory entityCollectorFactory;
 
+    /**
+     * @deprecated the requests are not created with the configuration of the server connector, use
+     * {@link #SourceHandler(ServerConnectorFuture, String, EntityCollectorFactory)}.
+     */
+    @Deprecated
     public SourceHandler(ServerConnectorFuture serverConnectorFuture, String interfaceId) throws Exception {
+        this(serverConnectorFuture, interfaceId, EntityCollectorFactory.getDefault());
+    }
+
+    public SourceHandler(ServerConnectorFuture serverConnectorFuture, String interfaceId,
+            EntityCollectorFactory entityCollectorFactory) throws Exception {
         this.serverConnectorFuture = serverConnectorFuture;
         this.interfaceId = interfaceId;
+        this.entityCollectorFactory = entityCollectorFactory;
         this.targetChannelPool = new ConcurrentHashMap<>();
     }
 
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         super.handlerAdded(ctx);
-    }
-
-    @Override
-    public void channelActive(final ChannelHandlerContext ctx) throws Exception {
+        // Initialized here rather than in channelActive, since the handler is added to an already active channel
+        // when the protocol is negotiated with ALPN or the cleartext HTTP/2 upgrade.
         // Start the server connection Timer
         this.handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
-        if (this.handlerExecutor != null) {
+        if (this.handlerExecutor != null && this.handlerExecutor.hasHandlers()) {
             this.handlerExecutor.executeAtSourceConnectionInitiation(Integer.toString(ctx.hashCode()));
         }
         this.ctx = ctx;
@@ -91,7 +101,7 @@ public class SourceHandler extends ChannelInboundHandlerAdapter {
             notifyRequestListener(sourceReqCmsg, ctx);
             ByteBuf content = ((FullHttpMessage) msg).content();
             sourceReqCmsg.addHttpContent(new DefaultLastHttpContent(content));
-            if (handlerExecutor != null) {
+            if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
                 handlerExecutor.executeAtSourceRequestSending(sourceReqCmsg);
             }
 
@@ -105,7 +115,7 @@ public class SourceHandler extends ChannelInboundHandlerAdapter {
                     HttpContent httpContent = (HttpContent) msg;
                     sourceReqCmsg.addHttpContent(httpContent);
                     if (Util.isLastHttpContent(httpContent)) {
-                        if (handlerExecutor != null) {
+                        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
                             handlerExecutor.executeAtSourceRequestSending(sourceReqCmsg);
                         }
                     }
@@ -119,7 +129,7 @@ public class SourceHandler extends ChannelInboundHandlerAdapter {
     private void notifyRequestListener(HTTPCarbonMessage httpRequestMsg, ChannelHandlerContext ctx)
             throws URISyntaxException {
 
-        if (handlerExecutor != null) {
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
             handlerExecutor.executeAtSourceRequestReceiving(httpRequestMsg);
         }
 
@@ -155,7 +165,10 @@ public class SourceHandler extends ChannelInboundHandlerAdapter {
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         // Stop the connector timer
         ctx.close();
-        if (handlerExecutor != null) {
+        // The request is abandoned unless its response is already written
+        Util.releaseMessage(sourceReqCmsg);
+        sourceReqCmsg = null;
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
             handlerExecutor.executeAtSourceConnectionTermination(Integer.toString(ctx.hashCode()));
             handlerExecutor = null;
         }
@@ -187,11 +200,12 @@ public class SourceHandler extends ChannelInboundHandlerAdapter {
 
     private HTTPCarbonMessage setupCarbonMessage(HttpMessage httpMessage) throws URISyntaxException {
 
-        if (handlerExecutor != null) {
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
             handlerExecutor.executeAtSourceRequestReceiving(sourceReqCmsg);
         }
 
-        sourceReqCmsg = new HttpCarbonRequest((HttpRequest) httpMessage);
+        sourceReqCmsg = new HttpCarbonRequest((HttpRequest) httpMessage, entityCollectorFactory);
+        sourceReqCmsg.setContentChannel(ctx.channel());
 
         HttpRequest httpRequest = (HttpRequest) httpMessage;
         sourceReqCmsg.setProperty(Constants.CHNL_HNDLR_CTX, this.ctx);
@@ -199,18 +213,10 @@ public class SourceHandler extends ChannelInboundHandlerAdapter {
         sourceReqCmsg.setProperty(Constants.HTTP_VERSION, httpRequest.getProtocolVersion().text());
         sourceReqCmsg.setProperty(Constants.HTTP_METHOD, httpRequest.getMethod().name());
 
-        InetSocketAddress localAddress = (InetSocketAddress) ctx.channel().localAddress();
-        sourceReqCmsg.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_PORT, localAddress.getPort());
+        // Local address and whether the connection is secured are captured now, the listener port when first read
+        sourceReqCmsg.deriveConnectionProperties(ctx.channel());
         sourceReqCmsg.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_INTERFACE_ID, interfaceId);
         sourceReqCmsg.setProperty(org.wso2.carbon.messaging.Constants.PROTOCOL, Constants.HTTP_SCHEME);
-
-        boolean isSecuredConnection = false;
-        if (ctx.channel().pipeline().get(Constants.SSL_HANDLER) != null) {
-            isSecuredConnection = true;
-        }
-        sourceReqCmsg.setProperty(Constants.IS_SECURED_CONNECTION, isSecuredConnection);
-
-        sourceReqCmsg.setProperty(Constants.LOCAL_ADDRESS, ctx.channel().localAddress());
         sourceReqCmsg.setProperty(Constants.REQUEST_URL, httpRequest.getUri());
         sourceReqCmsg.setProperty(Constants.TO, httpRequest.getUri());
         //Added protocol name as a string
@@ -109,6 +109,11 @@ public class WebSocketSourceHandler extends SourceHandler {
         this.subProtocol = negotiatedSubProtocol;
     }
 
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        // The connection is already initiated by the HTTP source handler which handled the handshake.
+    }
+
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof IdleStateEvent) {
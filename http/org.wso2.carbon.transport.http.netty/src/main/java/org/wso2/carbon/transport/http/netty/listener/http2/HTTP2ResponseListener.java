@@ -0,0 +1,140 @@
+/*
+*  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.transport.http.netty.listener.http2;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.Util;
+import org.wso2.carbon.transport.http.netty.contract.HttpConnectorListener;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpResponseStatusFuture;
+import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
+import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+
+/**
+ * {@code HTTP2ResponseListener} writes the response of a HTTP/2 stream back to the client as HEADERS and DATA frames.
+ */
+public class HTTP2ResponseListener implements HttpConnectorListener {
+
+    private static final Logger log = LoggerFactory.getLogger(HTTP2ResponseListener.class);
+
+    private final HTTP2SourceHandler sourceHandler;
+    private final ChannelHandlerContext ctx;
+    private final int streamId;
+    private final HTTPCarbonMessage inboundRequestMsg;
+    private final HandlerExecutor handlerExecutor;
+    private HTTPCarbonMessage httpResponseMessage;
+
+    HTTP2ResponseListener(HTTP2SourceHandler sourceHandler, ChannelHandlerContext ctx, int streamId,
+                          HTTPCarbonMessage inboundRequestMsg) {
+        this.sourceHandler = sourceHandler;
+        this.ctx = ctx;
+        this.streamId = streamId;
+        this.inboundRequestMsg = inboundRequestMsg;
+        this.handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
+    }
+
+    @Override
+    public void onMessage(HTTPCarbonMessage httpResponseMessage) {
+        ctx.channel().eventLoop().execute(() -> {
+            this.httpResponseMessage = httpResponseMessage;
+            if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+                handlerExecutor.executeAtSourceResponseReceiving(httpResponseMessage);
+            }
+
+            HttpResponse response = Util.createHttpResponse(httpResponseMessage);
+            Http2Headers http2Headers;
+            try {
+                http2Headers = HttpConversionUtil.toHttp2Headers(response, true);
+            } catch (Exception e) {
+                log.error("Invalid headers in the response of stream " + streamId, e);
+                inboundRequestMsg.getHttpOutboundRespStatusFuture().notifyHttpListener(e);
+                resetStream();
+                return;
+            }
+            sourceHandler.encoder().writeHeaders(ctx, streamId, http2Headers, 0, false, ctx.newPromise());
+
+            httpResponseMessage.getHttpContentAsync().setMessageListener(httpContent ->
+                    ctx.channel().eventLoop().execute(() -> writeContent(httpResponseMessage, httpContent)));
+        });
+        Util.prepareBuiltMessageForTransfer(httpResponseMessage);
+    }
+
+    private void writeContent(HTTPCarbonMessage httpResponseMessage, HttpContent httpContent) {
+        if (!Util.isLastHttpContent(httpContent)) {
+            sourceHandler.encoder().writeData(ctx, streamId, httpContent.content(), 0, false, ctx.newPromise());
+            return;
+        }
+
+        ChannelPromise outboundChannelFuture = ctx.newPromise();
+        HttpHeaders trailingHeaders = ((LastHttpContent) httpContent).trailingHeaders();
+        if (trailingHeaders.isEmpty()) {
+            sourceHandler.encoder().writeData(ctx, streamId, httpContent.content(), 0, true, outboundChannelFuture);
+        } else {
+            sourceHandler.encoder().writeData(ctx, streamId, httpContent.content(), 0, false, ctx.newPromise());
+            sourceHandler.encoder().writeHeaders(ctx, streamId, HttpConversionUtil.toHttp2Headers(trailingHeaders,
+                    true), 0, true, outboundChannelFuture);
+        }
+        ctx.flush();
+
+        HttpResponseStatusFuture outboundRespStatusFuture = inboundRequestMsg.getHttpOutboundRespStatusFuture();
+        outboundChannelFuture.addListener(genericFutureListener -> {
+            if (genericFutureListener.cause() != null) {
+                log.error("Failed to write the response of stream " + streamId, genericFutureListener.cause());
+                outboundRespStatusFuture.notifyHttpListener(genericFutureListener.cause());
+                resetStream();
+                return;
+            }
+            outboundRespStatusFuture.notifyHttpListener(inboundRequestMsg);
+            // The exchange is over, release what is left of both messages
+            Util.releaseMessage(httpResponseMessage);
+            Util.releaseMessage(inboundRequestMsg);
+        });
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+            handlerExecutor.executeAtSourceResponseSending(httpResponseMessage);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.error("Error while sending the response of stream " + streamId, throwable);
+        ctx.channel().eventLoop().execute(this::resetStream);
+    }
+
+    /**
+     * Reset the stream, so that the client does not wait for the rest of the response, and release both messages.
+     * This is invoked from the event loop.
+     */
+    private void resetStream() {
+        sourceHandler.resetStream(ctx, streamId, Http2Error.INTERNAL_ERROR.code(), ctx.newPromise());
+        ctx.flush();
+        if (httpResponseMessage != null) {
+            Util.releaseMessage(httpResponseMessage);
+        }
+        Util.releaseMessage(inboundRequestMsg);
+    }
+}
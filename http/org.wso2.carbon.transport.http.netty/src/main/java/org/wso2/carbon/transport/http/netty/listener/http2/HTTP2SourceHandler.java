@@ -18,16 +18,17 @@
 package org.wso2.carbon.transport.http.netty.listener.http2;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
-import io.netty.channel.ChannelFutureListener;
-import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
-import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpServerUpgradeHandler;
 import io.netty.handler.codec.http.HttpVersion;
-import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2CodecUtil;
 import io.netty.handler.codec.http2.Http2ConnectionDecoder;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
 import io.netty.handler.codec.http2.Http2ConnectionHandler;
@@ -36,58 +37,64 @@ import io.netty.handler.codec.http2.Http2Flags;
 import io.netty.handler.codec.http2.Http2FrameListener;
 import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.handler.codec.http2.Http2Settings;
-import io.netty.util.AsciiString;
+import io.netty.handler.codec.http2.Http2Stream;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.util.CharsetUtil;
-import io.netty.util.internal.PlatformDependent;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.wso2.carbon.messaging.CarbonMessageProcessor;
 import org.wso2.carbon.transport.http.netty.common.Constants;
-import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
 import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
-import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
-import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
-
-import java.net.InetSocketAddress;
-import java.util.Map;
-
-import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
 
 /**
- * Class {@code HTTP2SourceHandler} will read the Http2 binary frames sent from client through the channel
- * and build carbon messages and sent to message processor.
- *
- * WE HAVE TO REVISIT THE ENTIRE IMPLEMENTATION INCLUDING THE COMMENTED CODE
+ * Class {@code HTTP2SourceHandler} will read the Http2 binary frames sent from client through the channel,
+ * build a carbon message per stream and notify the server connector listener.
+ * <p>
+ * Request payloads are streamed to the carbon message as DATA frames arrive, and the flow control window of a stream
+ * is only replenished as the consumer reads its payload. Responses are written back by {@link HTTP2ResponseListener}.
  */
 public final class HTTP2SourceHandler extends Http2ConnectionHandler implements Http2FrameListener {
 
     private static final Logger log = LoggerFactory.getLogger(HTTP2SourceHandler.class);
+
     /**
-     * streamIdRequestMap contains mapping of http carbon messages to streamid to support multiplexing capability of.
-     * http2 tcp connections
+     * Requests whose payload is still being received, keyed by stream id. Only accessed from the event loop.
      */
-    private Map<Integer, HTTPCarbonMessage> streamIdRequestMap = PlatformDependent.newConcurrentHashMap();
-    private ConnectionManager connectionManager;
-    private ListenerConfiguration listenerConfiguration;
+    private final IntObjectMap<HTTP2SourceRequest> inboundRequests = new IntObjectHashMap<>();
+    private final ServerConnectorFuture serverConnectorFuture;
+    private final String interfaceId;
+    private final EntityCollectorFactory entityCollectorFactory;
     private ChannelHandlerContext ctx;
+    private HandlerExecutor handlerExecutor;
 
-    HTTP2SourceHandler(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
-                       Http2Settings initialSettings, ConnectionManager connectionManager, ListenerConfiguration
-                               listenerConfiguration) {
+    HTTP2SourceHandler(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder, Http2Settings initialSettings,
+                       ServerConnectorFuture serverConnectorFuture, String interfaceId,
+                       EntityCollectorFactory entityCollectorFactory) {
         super(decoder, encoder, initialSettings);
-        this.listenerConfiguration = listenerConfiguration;
-        this.connectionManager = connectionManager;
+        this.serverConnectorFuture = serverConnectorFuture;
+        this.interfaceId = interfaceId;
+        this.entityCollectorFactory = entityCollectorFactory;
     }
 
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         super.handlerAdded(ctx);
         this.ctx = ctx;
+        // The handler is added once the protocol is negotiated, which is after the channel became active.
+        this.handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+            handlerExecutor.executeAtSourceConnectionInitiation(Integer.toString(ctx.hashCode()));
+        }
     }
 
     /**
-     * This method handles the cleartext HTTP upgrade event. If an upgrade occurred, sends a simple response via HTTP/2
-     * on stream 1 (the stream specifically reserved for cleartext HTTP upgrade).
+     * This method handles the cleartext HTTP upgrade event. The upgrade request is the request of stream 1, which is
+     * already half closed by the client.
      *
      * @param ctx Channel context
      * @param evt Event
@@ -96,11 +103,23 @@ public final class HTTP2SourceHandler extends Http2ConnectionHandler implements
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof HttpServerUpgradeHandler.UpgradeEvent) {
-            // Write an HTTP/2 response to the upgrade request
-            Http2Headers headers =
-                    new DefaultHttp2Headers().status(OK.codeAsText())
-                            .set(new AsciiString(Constants.UPGRADE_RESPONSE_HEADER), new AsciiString("true"));
-            encoder().writeHeaders(ctx, 1, headers, 0, true, ctx.newPromise());
+            FullHttpRequest upgradeRequest = ((HttpServerUpgradeHandler.UpgradeEvent) evt).upgradeRequest();
+            HttpHeaders headers = upgradeRequest.headers().copy();
+            headers.remove(HttpHeaderNames.CONNECTION);
+            headers.remove(HttpHeaderNames.UPGRADE);
+            headers.remove(Http2CodecUtil.HTTP_UPGRADE_SETTINGS_HEADER);
+            int streamId = Http2CodecUtil.HTTP_UPGRADE_STREAM_ID;
+            HTTP2SourceRequest request = setupCarbonMessage(streamId,
+                    new DefaultHttpRequest(upgradeRequest.protocolVersion(), upgradeRequest.method(),
+                            upgradeRequest.uri(), headers));
+            notifyRequestListener(streamId, request);
+            request.addHttpContent(new DefaultLastHttpContent(upgradeRequest.content().retain()));
+            if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+                handlerExecutor.executeAtSourceRequestSending(request);
+            }
+        } else if (evt instanceof IdleStateEvent) {
+            ctx.close();
+            return;
         }
         super.userEventTriggered(ctx, evt);
     }
@@ -108,30 +127,54 @@ public final class HTTP2SourceHandler extends Http2ConnectionHandler implements
     @Override
     public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding, boolean endOfStream)
             throws Http2Exception {
-
-        HTTPCarbonMessage cMsg = streamIdRequestMap.get(streamId);
-        if (cMsg != null) {
-            cMsg.addHttpContent(new DefaultLastHttpContent(data.retain()));
-            if (endOfStream) {
-                cMsg.setEndOfMsgAdded(true);
-//                if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-//                    HTTPTransportContextHolder.getInstance().getHandlerExecutor().executeAtSourceRequestSending(cMsg);
-//                }
+        HTTP2SourceRequest request = endOfStream ? inboundRequests.remove(streamId) : inboundRequests.get(streamId);
+        if (request == null) {
+            return data.readableBytes() + padding;
+        }
+        int dataBytes = data.readableBytes();
+        int consumedBytes;
+        if (endOfStream) {
+            consumedBytes = request.addFlowControlledContent(new DefaultLastHttpContent(data.retain()), dataBytes);
+            if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+                handlerExecutor.executeAtSourceRequestSending(request);
             }
+        } else {
+            consumedBytes = request.addFlowControlledContent(new DefaultHttpContent(data.retain()), dataBytes);
         }
-        return data.readableBytes() + padding;
+        // Padding is never handed to the consumer, so it is acknowledged right away.
+        return consumedBytes + padding;
     }
 
+    @Override
+    public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers, int padding,
+                              boolean endOfStream) throws Http2Exception {
+        HTTP2SourceRequest request = inboundRequests.get(streamId);
+        if (request != null) {
+            // Trailing headers of a request which is still being received.
+            if (endOfStream) {
+                inboundRequests.remove(streamId);
+                DefaultLastHttpContent lastHttpContent = new DefaultLastHttpContent();
+                HttpConversionUtil.addHttp2ToHttpHeaders(streamId, headers, lastHttpContent.trailingHeaders(),
+                        HttpVersion.HTTP_1_1, true, true);
+                request.addHttpContent(lastHttpContent);
+                if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+                    handlerExecutor.executeAtSourceRequestSending(request);
+                }
+            }
+            return;
+        }
 
-    public void onHeadersRead(ChannelHandlerContext ctx, int streamId,
-                              Http2Headers headers, int padding, boolean endOfStream) throws Http2Exception {
-
-        HTTPCarbonMessage cMsg = publishToMessageProcessor(streamId, headers);
+        HttpRequest httpRequest = HttpConversionUtil.toHttpRequest(streamId, headers, true);
+        httpRequest.headers().remove(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text());
+        request = setupCarbonMessage(streamId, httpRequest);
+        notifyRequestListener(streamId, request);
         if (endOfStream) {
-            cMsg.setEndOfMsgAdded(true);
-//            if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-//                HTTPTransportContextHolder.getInstance().getHandlerExecutor().executeAtSourceRequestSending(cMsg);
-//            }
+            request.addHttpContent(new DefaultLastHttpContent());
+            if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+                handlerExecutor.executeAtSourceRequestSending(request);
+            }
+        } else {
+            inboundRequests.put(streamId, request);
         }
     }
 
@@ -142,118 +185,105 @@ public final class HTTP2SourceHandler extends Http2ConnectionHandler implements
     }
 
     @Override
-    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-        if (ctx != null && ctx.channel().isActive()) {
-            ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+    public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode) {
+        HTTP2SourceRequest request = inboundRequests.remove(streamId);
+        if (request != null) {
+            log.warn("Stream " + streamId + " was reset by the client before the request payload was received, "
+                    + "error code: " + errorCode);
+            // Terminate the payload so that a consumer waiting for the rest of it is not blocked.
+            request.addHttpContent(new DefaultLastHttpContent());
         }
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        // Stop the connector timer
-        ctx.close();
-        if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-            HTTPTransportContextHolder.getInstance().getHandlerExecutor()
-                    .executeAtSourceConnectionTermination(Integer.toString(ctx.hashCode()));
+        inboundRequests.forEach((streamId, request) -> request.addHttpContent(new DefaultLastHttpContent()));
+        inboundRequests.clear();
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+            handlerExecutor.executeAtSourceConnectionTermination(Integer.toString(ctx.hashCode()));
+            handlerExecutor = null;
         }
-//        connectionManager.notifyChannelInactive();
+        super.channelInactive(ctx);
     }
 
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        super.exceptionCaught(ctx, cause);
+        serverConnectorFuture.notifyErrorListener(cause);
+    }
 
     /**
-     * Carbon Message is published to registered message processor and Message Processor should return transport.
-     * thread immediately
+     * Return the given number of bytes of a stream to the flow controller, which lets the client send more data once
+     * a WINDOW_UPDATE is due. Can be called from any thread.
      *
-     * @param streamId Stream id of HTTP2 request received
-     * @param headers  HTTP2 Headers
-     * @return HTTPCarbonMessage
+     * @param streamId stream of the consumed bytes.
+     * @param numBytes number of consumed bytes.
      */
-    private HTTPCarbonMessage publishToMessageProcessor(int streamId, Http2Headers headers) {
-        HTTPCarbonMessage cMsg = setupCarbonMessage(streamId, headers);
-//        if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-//            HTTPTransportContextHolder.getInstance().getHandlerExecutor().executeAtSourceRequestReceiving(cMsg);
-//        }
-
-        boolean continueRequest = true;
-
-//        if (HTTPTransportContextHolder.getInstance().getHandlerExecutor() != null) {
-//
-//            continueRequest = HTTPTransportContextHolder.getInstance().getHandlerExecutor()
-//                    .executeRequestContinuationValidator(cMsg, carbonMessage -> {
-//                        CarbonCallback responseCallback = (CarbonCallback) cMsg
-//                                .getProperty(org.wso2.carbon.messaging.Constants.CALL_BACK);
-//                        responseCallback.done(carbonMessage);
-//                    });
-//
-//        }
-        if (continueRequest) {
-            CarbonMessageProcessor carbonMessageProcessor = HTTPTransportContextHolder.getInstance()
-                    .getMessageProcessor(listenerConfiguration.getMessageProcessorId());
-            if (carbonMessageProcessor != null) {
-                try {
-//                    carbonMessageProcessor.receive(cMsg, new HTTP2ResponseCallback(ctx, streamId));
-                } catch (Exception e) {
-                    log.error("Error while submitting HTTPCarbonMessage to CarbonMessageProcessor", e);
-                }
-            } else {
-                log.error("Cannot find registered MessageProcessor for forward the message");
+    void consumeBytes(int streamId, int numBytes) {
+        if (!ctx.executor().inEventLoop()) {
+            ctx.executor().execute(() -> consumeBytes(streamId, numBytes));
+            return;
+        }
+        Http2Stream stream = connection().stream(streamId);
+        if (stream == null) {
+            // Bytes of a closed stream are returned to the connection window by the flow controller.
+            return;
+        }
+        try {
+            if (decoder().flowController().consumeBytes(stream, numBytes)) {
+                ctx.flush();
             }
+        } catch (Http2Exception e) {
+            log.error("Error while updating the flow control window of stream " + streamId, e);
+            ctx.close();
         }
-
-        return cMsg;
     }
 
     /**
-     * Setup carbon message for HTTP2 request.
+     * Carbon Message is published to registered listener and the listener should return transport thread
+     * immediately.
      *
-     * @param streamId Stream id of HTTP2 request received
-     * @param headers  HTTP2 Headers
-     * @return HTTPCarbonMessage
+     * @param streamId stream id of the request.
+     * @param request  request of the stream.
      */
-    protected HTTPCarbonMessage setupCarbonMessage(int streamId, Http2Headers headers) {
+    private void notifyRequestListener(int streamId, HTTP2SourceRequest request) {
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+            handlerExecutor.executeAtSourceRequestReceiving(request);
+        }
 
-        // Construct new HTTP carbon message and put into stream id request map
-        // TODO: This fix is temporary and we need to revisit this and the entire http2 implementation.
-        HTTPCarbonMessage cMsg = new HTTPCarbonMessage(new DefaultHttpRequest(HttpVersion.HTTP_1_1,
-                HttpMethod.GET, ""));
-        cMsg.setProperty(Constants.PORT, ((InetSocketAddress) ctx.channel().remoteAddress()).getPort());
-        cMsg.setProperty(Constants.HOST, ((InetSocketAddress) ctx.channel().remoteAddress()).getHostName());
-        cMsg.setProperty(Constants.SCHEME, listenerConfiguration.getScheme());
-        cMsg.setProperty(Constants.HTTP_VERSION, Constants.HTTP2_VERSION);
-        cMsg.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_PORT,
-                ((InetSocketAddress) ctx.channel().localAddress()).getPort());
-        cMsg.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_INTERFACE_ID, listenerConfiguration.getId());
-        cMsg.setProperty(org.wso2.carbon.messaging.Constants.PROTOCOL, Constants.HTTP_SCHEME);
-        if (listenerConfiguration.getSslConfig() != null) {
-            cMsg.setProperty(Constants.IS_SECURED_CONNECTION, true);
+        if (serverConnectorFuture != null) {
+            try {
+                request.getHttpResponseFuture().setHttpConnectorListener(
+                        new HTTP2ResponseListener(this, ctx, streamId, request));
+                serverConnectorFuture.notifyHttpListener(request);
+            } catch (Exception e) {
+                log.error("Error while notifying listeners", e);
+            }
         } else {
-            cMsg.setProperty(Constants.IS_SECURED_CONNECTION, false);
-        }
-        cMsg.setProperty(Constants.LOCAL_ADDRESS, ctx.channel().localAddress());
-        cMsg.setProperty(Constants.LOCAL_NAME, ((InetSocketAddress) ctx.channel().localAddress()).getHostName());
-        cMsg.setProperty(Constants.REMOTE_ADDRESS, ctx.channel().remoteAddress());
-        cMsg.setProperty(Constants.REMOTE_HOST, ((InetSocketAddress) ctx.channel().remoteAddress()).getHostName());
-        cMsg.setProperty(Constants.REMOTE_PORT, ((InetSocketAddress) ctx.channel().remoteAddress()).getPort());
-        ChannelHandler handler = ctx.handler();
-        cMsg.setProperty(Constants.CHANNEL_ID, ((HTTP2SourceHandler) handler).getListenerConfiguration().getId());
-        cMsg.setProperty(Constants.STREAM_ID, streamId);
-        if (headers.path() != null) {
-            String path = headers.getAndRemove(Constants.HTTP2_PATH).toString();
-            cMsg.setProperty(Constants.TO, path);
-            cMsg.setProperty(Constants.REQUEST_URL, path);
+            log.error("Cannot find registered listener to forward the message");
         }
-        if (headers.method() != null) {
-            String method = headers.getAndRemove(Constants.HTTP2_METHOD).toString();
-            cMsg.setProperty(Constants.HTTP_METHOD, method);
-        }
-        // Remove PseudoHeaderNames from headers
-        headers.getAndRemove(Constants.HTTP2_AUTHORITY);
-        headers.getAndRemove(Constants.HTTP2_SCHEME);
+    }
 
-        // Copy Http2 headers to carbon message
-        headers.forEach(k -> cMsg.setHeader(k.getKey().toString(), k.getValue().toString()));
-        streamIdRequestMap.put(streamId, cMsg);
-        return cMsg;
+    /**
+     * Setup carbon message for HTTP2 request.
+     *
+     * @param streamId    Stream id of HTTP2 request received
+     * @param httpRequest HTTP/1.x representation of the request headers
+     * @return HTTP2SourceRequest
+     */
+    private HTTP2SourceRequest setupCarbonMessage(int streamId, HttpRequest httpRequest) {
+        HTTP2SourceRequest request = new HTTP2SourceRequest(httpRequest, this, streamId, entityCollectorFactory);
+        request.setProperty(Constants.CHNL_HNDLR_CTX, ctx);
+        request.setProperty(Constants.HTTP_VERSION, Constants.HTTP2_VERSION);
+        request.setProperty(Constants.HTTP_METHOD, httpRequest.method().name());
+        request.setProperty(Constants.STREAM_ID, streamId);
+
+        request.deriveConnectionProperties(ctx.channel());
+        request.setProperty(org.wso2.carbon.messaging.Constants.LISTENER_INTERFACE_ID, interfaceId);
+        request.setProperty(org.wso2.carbon.messaging.Constants.PROTOCOL, Constants.HTTP_SCHEME);
+        request.setProperty(Constants.REQUEST_URL, httpRequest.uri());
+        request.setProperty(Constants.TO, httpRequest.uri());
+        return request;
     }
 
     @Override
@@ -261,10 +291,6 @@ public final class HTTP2SourceHandler extends Http2ConnectionHandler implements
                                short weight, boolean exclusive) {
     }
 
-    @Override
-    public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode) {
-    }
-
     @Override
     public void onSettingsAckRead(ChannelHandlerContext ctx) {
     }
@@ -290,11 +316,8 @@ public final class HTTP2SourceHandler extends Http2ConnectionHandler implements
     public void onGoAwayRead(ChannelHandlerContext ctx, int lastStreamId, long errorCode, ByteBuf debugData) {
         if (log.isDebugEnabled()) {
             if (errorCode != 0 && debugData.isReadable()) {
-                int contentLength = debugData.readableBytes();
-                byte[] arr = new byte[contentLength];
-                debugData.readBytes(arr);
-                log.debug("Error occurred while closing the client connection " + new String(arr, 0, contentLength,
-                        CharsetUtil.UTF_8));
+                log.debug("Error occurred while closing the client connection "
+                        + debugData.toString(CharsetUtil.UTF_8));
             }
         }
     }
@@ -307,10 +330,4 @@ public final class HTTP2SourceHandler extends Http2ConnectionHandler implements
     public void onUnknownFrame(ChannelHandlerContext ctx, byte frameType, int streamId,
                                Http2Flags flags, ByteBuf payload) {
     }
-
-    public ListenerConfiguration getListenerConfiguration() {
-        return listenerConfiguration;
-    }
-
 }
-
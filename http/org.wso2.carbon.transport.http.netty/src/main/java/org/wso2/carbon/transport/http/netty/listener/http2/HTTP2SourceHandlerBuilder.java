@@ -19,26 +19,34 @@ package org.wso2.carbon.transport.http.netty.listener.http2;
 
 
 import io.netty.handler.codec.http2.AbstractHttp2ConnectionHandlerBuilder;
-import io.netty.handler.codec.http2.DefaultHttp2Connection;
 import io.netty.handler.codec.http2.Http2ConnectionDecoder;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2FrameLogger;
 import io.netty.handler.codec.http2.Http2Settings;
-import org.wso2.carbon.transport.http.netty.config.ListenerConfiguration;
-import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import io.netty.handler.logging.LogLevel;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
 
 /**
- * {@code HTTP2SourceHandlerBuilder} is used to build the http2 response handler with frame listener and connection
- * manager.
+ * {@code HTTP2SourceHandlerBuilder} is used to build the http2 source handler with frame listener and the server
+ * connector future which the requests are dispatched to.
  */
 public final class HTTP2SourceHandlerBuilder
         extends AbstractHttp2ConnectionHandlerBuilder<HTTP2SourceHandler, HTTP2SourceHandlerBuilder> {
 
-    private ConnectionManager connectionManager;
-    private ListenerConfiguration listenerConfiguration;
+    private ServerConnectorFuture serverConnectorFuture;
+    private String interfaceId;
+    private EntityCollectorFactory entityCollectorFactory;
 
-    public HTTP2SourceHandlerBuilder(ConnectionManager connectionManager, ListenerConfiguration listenerConfiguration) {
-        this.listenerConfiguration = listenerConfiguration;
-        this.connectionManager = connectionManager;
+    public HTTP2SourceHandlerBuilder(ServerConnectorFuture serverConnectorFuture, String interfaceId,
+                                     boolean httpTraceLogEnabled, EntityCollectorFactory entityCollectorFactory) {
+        this.serverConnectorFuture = serverConnectorFuture;
+        this.interfaceId = interfaceId;
+        this.entityCollectorFactory = entityCollectorFactory;
+        server(true);
+        if (httpTraceLogEnabled) {
+            frameLogger(new Http2FrameLogger(LogLevel.DEBUG, "tracelog.http.downstream"));
+        }
     }
 
     @Override
@@ -49,10 +57,9 @@ public final class HTTP2SourceHandlerBuilder
     @Override
     protected HTTP2SourceHandler build(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
                                        Http2Settings initialSettings) {
-        HTTP2SourceHandler handler = new HTTP2SourceHandler(decoder, encoder, initialSettings, connectionManager,
-                listenerConfiguration);
+        HTTP2SourceHandler handler = new HTTP2SourceHandler(decoder, encoder, initialSettings, serverConnectorFuture,
+                interfaceId, entityCollectorFactory);
         frameListener(handler);
-        connection(new DefaultHttp2Connection(true));
         return handler;
     }
 }
@@ -0,0 +1,132 @@
+/*
+*  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.transport.http.netty.listener.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
+import org.wso2.carbon.transport.http.netty.message.HttpCarbonRequest;
+import org.wso2.carbon.transport.http.netty.message.MessageFuture;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code HTTP2SourceRequest} is the inbound request of a single HTTP/2 stream.
+ * <p>
+ * DATA frames of the stream are only acknowledged to the flow controller once the consumer has taken them out of the
+ * message, so a client cannot send more than a stream window ahead of a slow consumer. Consumers which read the
+ * payload as a whole or register an async listener switch the stream to acknowledge data as soon as it is read.
+ */
+final class HTTP2SourceRequest extends HttpCarbonRequest {
+
+    private final HTTP2SourceHandler sourceHandler;
+    private final int streamId;
+    private final AtomicLong unconsumedBytes = new AtomicLong();
+    private volatile boolean autoConsume;
+
+    HTTP2SourceRequest(HttpRequest httpRequest, HTTP2SourceHandler sourceHandler, int streamId,
+            EntityCollectorFactory entityCollectorFactory) {
+        super(httpRequest, entityCollectorFactory);
+        this.sourceHandler = sourceHandler;
+        this.streamId = streamId;
+    }
+
+    /**
+     * Add the content of a DATA frame. Must be called from the event loop.
+     *
+     * @param httpContent content of the frame.
+     * @param flowControlledBytes number of bytes of the frame which are subject to flow control.
+     * @return number of bytes which can be acknowledged right away.
+     */
+    int addFlowControlledContent(HttpContent httpContent, int flowControlledBytes) {
+        if (autoConsume) {
+            addHttpContent(httpContent);
+            return flowControlledBytes;
+        }
+        // Count the bytes before publishing the content, so that a consumer never returns more than was counted.
+        unconsumedBytes.addAndGet(flowControlledBytes);
+        addHttpContent(httpContent);
+        if (autoConsume) {
+            // Switched while the content was added, return whatever is still outstanding.
+            returnBytes(unconsumedBytes.getAndSet(0));
+        }
+        return 0;
+    }
+
+    @Override
+    public HttpContent getHttpContent() {
+        HttpContent httpContent = super.getHttpContent();
+        if (httpContent != null && !autoConsume) {
+            int readableBytes = httpContent.content().readableBytes();
+            long current;
+            long consumed;
+            do {
+                current = unconsumedBytes.get();
+                consumed = Math.min(current, readableBytes);
+            } while (!unconsumedBytes.compareAndSet(current, current - consumed));
+            returnBytes(consumed);
+        }
+        return httpContent;
+    }
+
+    @Override
+    public synchronized MessageFuture getHttpContentAsync() {
+        enableAutoConsume();
+        return super.getHttpContentAsync();
+    }
+
+    @Override
+    public ByteBuf getMessageBody() {
+        enableAutoConsume();
+        return super.getMessageBody();
+    }
+
+    @Override
+    public List<ByteBuffer> getFullMessageBody() {
+        enableAutoConsume();
+        return super.getFullMessageBody();
+    }
+
+    @Override
+    public long getFullPayloadLength() {
+        enableAutoConsume();
+        return super.getFullPayloadLength();
+    }
+
+    @Override
+    public void waitAndReleaseAllEntities() {
+        enableAutoConsume();
+        super.waitAndReleaseAllEntities();
+    }
+
+    private void enableAutoConsume() {
+        if (!autoConsume) {
+            autoConsume = true;
+            returnBytes(unconsumedBytes.getAndSet(0));
+        }
+    }
+
+    private void returnBytes(long numBytes) {
+        if (numBytes > 0) {
+            sourceHandler.consumeBytes(streamId, (int) numBytes);
+        }
+    }
+}
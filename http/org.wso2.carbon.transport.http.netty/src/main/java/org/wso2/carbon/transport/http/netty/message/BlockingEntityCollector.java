@@ -34,6 +34,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Blocking entity collector
@@ -42,11 +43,18 @@ public class BlockingEntityCollector implements EntityCollector {
 
     private static final Logger LOG = LoggerFactory.getLogger(BlockingEntityCollector.class);
 
+    private static final AtomicLongFieldUpdater<BlockingEntityCollector> QUEUED_BYTES_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(BlockingEntityCollector.class, "queuedBytes");
+
     private int soTimeOut;
     private AtomicBoolean alreadyRead;
     private AtomicBoolean endOfMsgAdded;
     private AtomicBoolean isConsumed;
     private BlockingQueue<HttpContent> httpContentQueue;
+    // Readable bytes of the queued content, and whether it ends with the last content
+    private volatile long queuedBytes;
+    private volatile boolean contentComplete;
+    private volatile boolean released;
 
     public BlockingEntityCollector(int soTimeOut) {
         this.soTimeOut = soTimeOut;
@@ -59,7 +67,7 @@ public class BlockingEntityCollector implements EntityCollector {
     public void addHttpContent(HttpContent httpContent) {
         try {
             isConsumed.set(false);
-            httpContentQueue.add(httpContent);
+            enqueue(httpContent);
         } catch (Exception e) {
             LOG.error("Cannot put content to queue", e);
         }
@@ -68,12 +76,12 @@ public class BlockingEntityCollector implements EntityCollector {
     public HttpContent getHttpContent() {
         try {
             if (!isConsumed.get() || !alreadyRead.get()) {
-                HttpContent httpContent = httpContentQueue.poll(soTimeOut, TimeUnit.SECONDS);
+                HttpContent httpContent = dequeue();
 
                 if (httpContent instanceof LastHttpContent) {
                     isConsumed.set(true);
                     alreadyRead.set(false);
-                    httpContentQueue.clear();
+                    clear();
                 }
 
                 return httpContent;
@@ -86,7 +94,7 @@ public class BlockingEntityCollector implements EntityCollector {
 
     public void addMessageBody(ByteBuffer msgBody) {
         isConsumed.set(false);
-        httpContentQueue.add(new DefaultHttpContent(Unpooled.copiedBuffer(msgBody)));
+        enqueue(new DefaultHttpContent(Unpooled.copiedBuffer(msgBody)));
     }
 
     public ByteBuf getMessageBody() {
@@ -105,7 +113,7 @@ public class BlockingEntityCollector implements EntityCollector {
             boolean isEndOfMessageProcessed = false;
             while (!isEndOfMessageProcessed) {
                 try {
-                    HttpContent httpContent = httpContentQueue.poll(soTimeOut, TimeUnit.SECONDS);
+                    HttpContent httpContent = dequeue();
                     // This check is to make sure we add the last http content after getClone and avoid adding
                     // empty content to bytebuf list again and again
                     if (httpContent instanceof EmptyLastHttpContent) {
@@ -115,7 +123,7 @@ public class BlockingEntityCollector implements EntityCollector {
                     if (httpContent instanceof LastHttpContent) {
                         isEndOfMessageProcessed = true;
                         isConsumed.set(true);
-                        httpContentQueue.clear();
+                        clear();
                     }
                     ByteBuf buf = httpContent.content();
                     byteBufferList.add(buf.nioBuffer());
@@ -133,7 +141,7 @@ public class BlockingEntityCollector implements EntityCollector {
             boolean isEndOfMessageProcessed = false;
             while (!isEndOfMessageProcessed) {
                 try {
-                    HttpContent httpContent = httpContentQueue.poll(soTimeOut, TimeUnit.SECONDS);
+                    HttpContent httpContent = dequeue();
                     // This check is to make sure we add the last http content after getClone and avoid adding
                     // empty content to bytebuf list again and again
                     if (httpContent instanceof EmptyLastHttpContent) {
@@ -152,12 +160,35 @@ public class BlockingEntityCollector implements EntityCollector {
         }
     }
 
-    public int getFullMessageLength() {
+    /**
+     * Return the length of the queued content. Waits till the last content is added unless it already is.
+     *
+     * @return the length.
+     */
+    public long getFullMessageLength() {
+        if (!contentComplete) {
+            awaitContentComplete();
+        }
+        return queuedBytes;
+    }
+
+    public boolean isContentComplete() {
+        return contentComplete;
+    }
+
+    /**
+     * Wait till the last content is added. The queued content is left as it is.
+     */
+    protected void awaitContentComplete() {
         List<HttpContent> contentList = new ArrayList<>();
         boolean isEndOfMessageProcessed = false;
         while (!isEndOfMessageProcessed) {
             try {
                 HttpContent httpContent = httpContentQueue.poll(soTimeOut, TimeUnit.SECONDS);
+                if (httpContent == null) {
+                    LOG.error("Timed out while waiting for the end of the message");
+                    break;
+                }
                 if ((httpContent instanceof LastHttpContent)) {
                     isEndOfMessageProcessed = true;
                 }
@@ -167,13 +198,37 @@ public class BlockingEntityCollector implements EntityCollector {
                 LOG.error("Error while getting full message length", e);
             }
         }
-        int size = 0;
-        for (HttpContent httpContent : contentList) {
-            size += httpContent.content().readableBytes();
-            httpContentQueue.add(httpContent);
+        // Put the content back, the byte count is not affected
+        httpContentQueue.addAll(contentList);
+    }
+
+    private void enqueue(HttpContent httpContent) {
+        if (released) {
+            httpContent.release();
+            return;
+        }
+        QUEUED_BYTES_UPDATER.addAndGet(this, httpContent.content().readableBytes());
+        if (httpContent instanceof LastHttpContent) {
+            contentComplete = true;
         }
+        httpContentQueue.add(httpContent);
+    }
 
-        return size;
+    private HttpContent dequeue() throws InterruptedException {
+        HttpContent httpContent = httpContentQueue.poll(soTimeOut, TimeUnit.SECONDS);
+        if (httpContent != null) {
+            QUEUED_BYTES_UPDATER.addAndGet(this, -httpContent.content().readableBytes());
+            if (httpContent instanceof LastHttpContent) {
+                contentComplete = false;
+            }
+        }
+        return httpContent;
+    }
+
+    private void clear() {
+        httpContentQueue.clear();
+        queuedBytes = 0;
+        contentComplete = false;
     }
 
     public boolean isEmpty() {
@@ -185,20 +240,37 @@ public class BlockingEntityCollector implements EntityCollector {
     }
 
     public void markMessageEnd() {
-        httpContentQueue.add(new EmptyLastHttpContent());
+        enqueue(new EmptyLastHttpContent());
     }
 
     public void setEndOfMsgAdded(boolean endOfMsgAdded) {
         this.endOfMsgAdded.compareAndSet(false, endOfMsgAdded);
-        this.httpContentQueue.add(new DefaultLastHttpContent());
+        enqueue(new DefaultLastHttpContent());
     }
 
     public HttpContent peek() {
         return this.httpContentQueue.peek();
     }
 
-    @Deprecated
+    /**
+     * @return the content which is not consumed yet, without removing it.
+     */
+    protected Iterable<HttpContent> getQueuedContent() {
+        return this.httpContentQueue;
+    }
+
+    protected int getSoTimeOut() {
+        return soTimeOut;
+    }
+
     public synchronized void release() {
+        released = true;
+        HttpContent httpContent;
+        while ((httpContent = httpContentQueue.poll()) != null) {
+            httpContent.release();
+        }
+        queuedBytes = 0;
+        contentComplete = false;
     }
 
     // TODO: Need to move below two to ballerina code
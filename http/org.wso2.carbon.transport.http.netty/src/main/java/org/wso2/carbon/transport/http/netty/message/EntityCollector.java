@@ -66,10 +66,17 @@ public interface EntityCollector {
     boolean isEmpty();
 
     /**
-     * Get the full message length
+     * Get the full message length. Returns at once if the content is complete, otherwise waits till it is.
      * @return message length
      */
-    int getFullMessageLength();
+    long getFullMessageLength();
+
+    /**
+     * Check if the last content is added to the queue and not consumed yet, in which case the full message length
+     * is known without waiting.
+     * @return true or false
+     */
+    boolean isContentComplete();
 
     /**
      * Check if the last message is added to the queue.
@@ -89,7 +96,7 @@ public interface EntityCollector {
     void setEndOfMsgAdded(boolean endOfMsgAdded);
 
     /**
-     * Release the allocated netty buffers
+     * Release the queued content, and the content which is added afterwards.
      */
     void release();
 
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.sender.channel.BootstrapConfiguration;
+
+/**
+ * Creates the entity collectors of messages, as configured for a connector. The configuration is resolved once when
+ * the factory is created rather than for every message. The factory also carries the size of the buffers which the
+ * content written to the messages of the connector is collected in.
+ */
+public final class EntityCollectorFactory {
+
+    private static final int DEFAULT_SO_TIMEOUT = 60;
+
+    private static volatile EntityCollectorFactory defaultFactory;
+
+    private final int soTimeOut;
+    private final int entitySpillThreshold;
+    private final boolean nonBlocking;
+    private final int outputContentBufferSize;
+    // Configuration the factory is resolved from
+    private final Object source;
+
+    public EntityCollectorFactory(int soTimeOut, int entitySpillThreshold, boolean nonBlocking) {
+        this(soTimeOut, entitySpillThreshold, nonBlocking, Constants.DEFAULT_OUTPUT_CONTENT_BUFFER_SIZE, null);
+    }
+
+    private EntityCollectorFactory(int soTimeOut, int entitySpillThreshold, boolean nonBlocking,
+            int outputContentBufferSize, Object source) {
+        this.soTimeOut = soTimeOut;
+        this.entitySpillThreshold = entitySpillThreshold;
+        this.nonBlocking = nonBlocking;
+        this.outputContentBufferSize = outputContentBufferSize;
+        this.source = source;
+    }
+
+    /**
+     * Factory for the messages of a server connector.
+     *
+     * @param serverBootstrapConfiguration configuration of the server connector.
+     * @return the factory.
+     */
+    public static EntityCollectorFactory of(ServerBootstrapConfiguration serverBootstrapConfiguration) {
+        return new EntityCollectorFactory(serverBootstrapConfiguration.getSoTimeOut(),
+                serverBootstrapConfiguration.getEntitySpillThreshold(),
+                serverBootstrapConfiguration.isNonBlockingEntityCollector(),
+                Constants.DEFAULT_OUTPUT_CONTENT_BUFFER_SIZE, serverBootstrapConfiguration);
+    }
+
+    /**
+     * Factory for the messages of a client connector.
+     *
+     * @param bootstrapConfiguration configuration of the client connector.
+     * @return the factory.
+     */
+    public static EntityCollectorFactory of(BootstrapConfiguration bootstrapConfiguration) {
+        return new EntityCollectorFactory(bootstrapConfiguration.getSocketTimeout(),
+                bootstrapConfiguration.getEntitySpillThreshold(),
+                bootstrapConfiguration.isNonBlockingEntityCollector(),
+                Constants.DEFAULT_OUTPUT_CONTENT_BUFFER_SIZE, bootstrapConfiguration);
+    }
+
+    /**
+     * Factory for the messages of the client connectors, which share the client configuration. Resolve it once for a
+     * pool of connections rather than for every message.
+     *
+     * @return the factory.
+     */
+    public static EntityCollectorFactory forClient() {
+        BootstrapConfiguration bootstrapConfiguration = BootstrapConfiguration.getInstance();
+        return bootstrapConfiguration != null ? of(bootstrapConfiguration) : getDefault();
+    }
+
+    /**
+     * Factory which collects the content written to messages in buffers of the given size.
+     *
+     * @param outputContentBufferSize size of the buffers in bytes.
+     * @return the factory.
+     */
+    public EntityCollectorFactory withOutputContentBufferSize(int outputContentBufferSize) {
+        if (outputContentBufferSize == this.outputContentBufferSize) {
+            return this;
+        }
+        return new EntityCollectorFactory(soTimeOut, entitySpillThreshold, nonBlocking, outputContentBufferSize,
+                source);
+    }
+
+    /**
+     * @return size in bytes of the buffers which the content written to a message is collected in.
+     */
+    public int getOutputContentBufferSize() {
+        return outputContentBufferSize;
+    }
+
+    /**
+     * Factory for messages which are not bound to a connector, such as the ones built by the application. Uses the
+     * client configuration if there is one, otherwise the server configuration.
+     *
+     * @return the factory.
+     */
+    public static EntityCollectorFactory getDefault() {
+        Object source = BootstrapConfiguration.getInstance();
+        if (source == null) {
+            source = ServerBootstrapConfiguration.getInstance();
+        }
+        EntityCollectorFactory factory = defaultFactory;
+        if (factory != null && factory.source == source) {
+            return factory;
+        }
+        if (source instanceof BootstrapConfiguration) {
+            factory = of((BootstrapConfiguration) source);
+        } else if (source != null) {
+            factory = of((ServerBootstrapConfiguration) source);
+        } else {
+            factory = new EntityCollectorFactory(DEFAULT_SO_TIMEOUT, 0, false);
+        }
+        defaultFactory = factory;
+        return factory;
+    }
+
+    /**
+     * @return a new entity collector.
+     */
+    public EntityCollector createEntityCollector() {
+        if (entitySpillThreshold > 0) {
+            return new SpillableEntityCollector(soTimeOut, entitySpillThreshold);
+        } else if (nonBlocking) {
+            return new NonBlockingEntityCollector(soTimeOut);
+        }
+        return new BlockingEntityCollector(soTimeOut);
+    }
+}
@@ -19,6 +19,8 @@
 package org.wso2.carbon.transport.http.netty.message;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.DefaultHttpRequest;
@@ -27,50 +29,98 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCounted;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetectorFactory;
+import io.netty.util.ResourceLeakTracker;
 import org.wso2.carbon.messaging.MessageDataSource;
 import org.wso2.carbon.messaging.MessageUtil;
 import org.wso2.carbon.messaging.exceptions.MessagingException;
+import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.contract.ServerConnectorException;
 import org.wso2.carbon.transport.http.netty.contract.ServerConnectorFuture;
 import org.wso2.carbon.transport.http.netty.contractimpl.HttpResponseStatusFuture;
 import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsServerConnectorFuture;
-import org.wso2.carbon.transport.http.netty.listener.ServerBootstrapConfiguration;
-import org.wso2.carbon.transport.http.netty.sender.channel.BootstrapConfiguration;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.stream.Collectors;
 
 /**
  * HTTP based representation for HTTPCarbonMessage.
+ * <p>
+ * A message is reference counted. The reference a message is created with is given up by {@link #release()}, which
+ * the transport calls when the response of the exchange is written or the connection is closed, and which the
+ * application may call earlier. Only the first call releases it, and the content that is not consumed by then is
+ * released with it. A message used after that has to be retained first, and the reference taken is given up by
+ * {@link #releaseReference()}.
+ * <p>
+ * With the {@code http.message.leak.detection} system property set, a sample of the messages is tracked by the netty
+ * leak detector, which reports the messages garbage collected without being released along with where they were
+ * created. The sampling follows {@code io.netty.leakDetection.level}.
  */
 public class HTTPCarbonMessage {
 
+    private static final boolean LEAK_DETECTION = Boolean.getBoolean(Constants.MESSAGE_LEAK_DETECTION);
+    private static final ResourceLeakDetector<HTTPCarbonMessage> LEAK_DETECTOR =
+            ResourceLeakDetectorFactory.instance().newResourceLeakDetector(HTTPCarbonMessage.class);
+    private static final AtomicReferenceFieldUpdater<HTTPCarbonMessage, MessageFuture> MESSAGE_FUTURE_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(HTTPCarbonMessage.class, MessageFuture.class, "messageFuture");
+    private static final AtomicIntegerFieldUpdater<HTTPCarbonMessage> CREATION_REFERENCE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(HTTPCarbonMessage.class, "creationReferenceHeld");
+
     protected HttpMessage httpMessage;
     private EntityCollector blockingEntityCollector;
-    private Map<String, Object> properties = new HashMap<>();
+    private NonBlockingEntityCollector nonBlockingEntityCollector;
+    private MessageProperties properties = new MessageProperties();
 
     private MessagingException messagingException = null;
     private MessageDataSource messageDataSource;
-    private MessageFuture messageFuture;
-    private final ServerConnectorFuture httpOutboundRespFuture = new HttpWsServerConnectorFuture();
-    private final HttpResponseStatusFuture httpOutboundRespStatusFuture = new HttpResponseStatusFuture();
+    private volatile MessageFuture messageFuture;
+    private Channel contentChannel;
+    private EventLoop contentEventLoop;
+    private volatile MessageListener passthroughListener;
+    private final EntityCollectorFactory entityCollectorFactory;
+    // Created when first used, most messages never respond
+    private volatile ServerConnectorFuture httpOutboundRespFuture;
+    private volatile HttpResponseStatusFuture httpOutboundRespStatusFuture;
+    private final ResourceLeakTracker<HTTPCarbonMessage> leak;
+    private final ReferenceCounted reference = new AbstractReferenceCounted() {
+        @Override
+        protected void deallocate() {
+            HTTPCarbonMessage.this.deallocate();
+        }
 
-    public HTTPCarbonMessage(HttpMessage httpMessage) {
-        int soTimeOut = 60;
-        BootstrapConfiguration clientBootstrapConfig = BootstrapConfiguration.getInstance();
-        if (clientBootstrapConfig != null) {
-            soTimeOut = clientBootstrapConfig.getSocketTimeout();
-        } else {
-            ServerBootstrapConfiguration serverBootstrapConfiguration = ServerBootstrapConfiguration.getInstance();
-            if (serverBootstrapConfiguration != null) {
-                soTimeOut = serverBootstrapConfiguration.getSoTimeOut();
-            }
+        @Override
+        public ReferenceCounted touch(Object hint) {
+            return this;
         }
+    };
+    private volatile int creationReferenceHeld = 1;
+
+    /**
+     * Create a message which is not bound to a connector, such as one built by the application. Messages of a
+     * connector, and messages built for one, should be created with the factory of that connector instead.
+     *
+     * @param httpMessage the http message.
+     */
+    public HTTPCarbonMessage(HttpMessage httpMessage) {
+        this(httpMessage, EntityCollectorFactory.getDefault());
+    }
+
+    public HTTPCarbonMessage(HttpMessage httpMessage, EntityCollectorFactory entityCollectorFactory) {
         this.httpMessage = httpMessage;
-        setBlockingEntityCollector(new BlockingEntityCollector(soTimeOut));
+        this.entityCollectorFactory = entityCollectorFactory;
+        EntityCollector entityCollector = entityCollectorFactory.createEntityCollector();
+        if (entityCollector instanceof NonBlockingEntityCollector) {
+            this.nonBlockingEntityCollector = (NonBlockingEntityCollector) entityCollector;
+        }
+        setBlockingEntityCollector(entityCollector);
+        this.leak = LEAK_DETECTION ? LEAK_DETECTOR.track(this) : null;
     }
 
     /**
@@ -78,7 +128,22 @@ public class HTTPCarbonMessage {
      *
      * @param httpContent chunks of the payload.
      */
-    public synchronized void addHttpContent(HttpContent httpContent) {
+    public void addHttpContent(HttpContent httpContent) {
+        MessageListener listener = this.passthroughListener;
+        if (listener != null) {
+            // Passed through, hand over the content without queueing or locking
+            listener.onMessage(httpContent);
+            return;
+        }
+        if (this.nonBlockingEntityCollector != null) {
+            // The collector hands the content to the async listener itself
+            this.nonBlockingEntityCollector.addHttpContent(httpContent);
+            return;
+        }
+        addBufferedHttpContent(httpContent);
+    }
+
+    private synchronized void addBufferedHttpContent(HttpContent httpContent) {
         if (this.messageFuture != null) {
             this.messageFuture.notifyMessageListener(httpContent);
         } else {
@@ -95,11 +160,90 @@ public class HTTPCarbonMessage {
         return this.blockingEntityCollector.getHttpContent();
     }
 
-    public synchronized MessageFuture getHttpContentAsync() {
+    public MessageFuture getHttpContentAsync() {
+        if (this.nonBlockingEntityCollector != null) {
+            // The collector has a single listener, so every caller shares the future which is published first
+            MessageFuture future;
+            while ((future = this.messageFuture) == null) {
+                MessageFuture newFuture = new MessageFuture(this, this.nonBlockingEntityCollector);
+                if (MESSAGE_FUTURE_UPDATER.compareAndSet(this, null, newFuture)) {
+                    return newFuture;
+                }
+            }
+            return future;
+        }
+        return createMessageFuture();
+    }
+
+    private synchronized MessageFuture createMessageFuture() {
         this.messageFuture = new MessageFuture(this);
         return this.messageFuture;
     }
 
+    /**
+     * Forward the content of this message to the given listener as it is read from the network, bypassing the entity
+     * collector. Content which is already collected is forwarded first. The listener is called on the event loop
+     * which reads the message, so it must not block, and it takes over the ownership of the content.
+     *
+     * @param messageListener listener which forwards the content.
+     * @return false if the message is not read from a channel or its content is already being consumed, in which
+     * case the content has to be consumed with {@link #getHttpContentAsync()}.
+     */
+    public synchronized boolean passthroughHttpContent(MessageListener messageListener) {
+        EventLoop eventLoop = this.contentEventLoop;
+        if (eventLoop == null || this.messageFuture != null || this.passthroughListener != null || isAlreadyRead()) {
+            return false;
+        }
+        if (this.nonBlockingEntityCollector != null) {
+            // The collector pushes the content on the thread which adds it, which is the content event loop
+            getHttpContentAsync().setMessageListener(messageListener);
+            return true;
+        }
+        if (eventLoop.inEventLoop()) {
+            startPassthrough(messageListener);
+        } else {
+            eventLoop.execute(() -> startPassthrough(messageListener));
+        }
+        return true;
+    }
+
+    // Runs on the content event loop, hence no content can be added while the collected content is drained
+    private synchronized void startPassthrough(MessageListener messageListener) {
+        while (!this.blockingEntityCollector.isEmpty()) {
+            messageListener.onMessage(this.blockingEntityCollector.getHttpContent());
+        }
+        this.passthroughListener = messageListener;
+    }
+
+    /**
+     * Set the event loop which reads the content of this message from the network. Content of such a message can be
+     * passed through with {@link #passthroughHttpContent(MessageListener)}.
+     *
+     * @param contentEventLoop event loop of the inbound channel.
+     */
+    public void setContentEventLoop(EventLoop contentEventLoop) {
+        this.contentEventLoop = contentEventLoop;
+    }
+
+    public EventLoop getContentEventLoop() {
+        return contentEventLoop;
+    }
+
+    /**
+     * Set the channel which the content of this message is read from. Reading from the channel is paused while the
+     * content cannot be written out as fast as it is read.
+     *
+     * @param contentChannel inbound channel.
+     */
+    public void setContentChannel(Channel contentChannel) {
+        this.contentChannel = contentChannel;
+        setContentEventLoop(contentChannel.eventLoop());
+    }
+
+    public Channel getContentChannel() {
+        return contentChannel;
+    }
+
     @Deprecated
     public ByteBuf getMessageBody() {
         return blockingEntityCollector.getMessageBody();
@@ -124,13 +268,31 @@ public class HTTPCarbonMessage {
     }
 
     /**
-     * Return the length of entire payload. This is a blocking method.
+     * Return the length of entire payload. This is a blocking method unless the content is complete.
      * @return the length.
+     * @throws ArithmeticException if the payload is longer than {@link Integer#MAX_VALUE}, in which case its length
+     * has to be read with {@link #getFullPayloadLength()}.
      */
     public int getFullMessageLength() {
+        return Math.toIntExact(getFullPayloadLength());
+    }
+
+    /**
+     * Return the length of entire payload. This is a blocking method unless the content is complete.
+     * @return the length.
+     */
+    public long getFullPayloadLength() {
         return blockingEntityCollector.getFullMessageLength();
     }
 
+    /**
+     * Check if the entire payload is received, in which case its length is known without blocking.
+     * @return true or false
+     */
+    public boolean isContentComplete() {
+        return blockingEntityCollector.isContentComplete();
+    }
+
     @Deprecated
     public boolean isEndOfMsgAdded() {
         return blockingEntityCollector.isEndOfMsgAdded();
@@ -225,6 +387,16 @@ public class HTTPCarbonMessage {
         properties.remove(key);
     }
 
+    /**
+     * Capture the local address, the listener port and whether the connection is secured from the given channel. They
+     * are captured when the message is created, so they are still known after the channel is closed.
+     *
+     * @param connectionChannel channel the message is received from.
+     */
+    public void deriveConnectionProperties(Channel connectionChannel) {
+        properties.deriveConnectionProperties(connectionChannel);
+    }
+
     public MessageDataSource getMessageDataSource() {
         return messageDataSource;
     }
@@ -251,13 +423,77 @@ public class HTTPCarbonMessage {
         this.messagingException = messagingException;
     }
 
-    private void setBlockingEntityCollector(BlockingEntityCollector blockingEntityCollector) {
+    private void setBlockingEntityCollector(EntityCollector blockingEntityCollector) {
         this.blockingEntityCollector = blockingEntityCollector;
     }
 
-    @Deprecated
+    /**
+     * Returns the number of references held on this message.
+     *
+     * @return the reference count, zero once the message is released.
+     */
+    public int refCnt() {
+        return reference.refCnt();
+    }
+
+    /**
+     * Take a reference on this message, so that it outlives the release of the transport.
+     *
+     * @return this message.
+     */
+    public HTTPCarbonMessage retain() {
+        if (leak != null) {
+            leak.record();
+        }
+        reference.retain();
+        return this;
+    }
+
+    /**
+     * Record where the message is used, for the leak report.
+     *
+     * @param hint the hint to record.
+     * @return this message.
+     */
+    public HTTPCarbonMessage touch(Object hint) {
+        if (leak != null) {
+            leak.record(hint);
+        }
+        return this;
+    }
+
+    /**
+     * Release the reference the message is created with. Only the first call releases it, so that the transport,
+     * which calls this when the exchange is over, and the application, which may call this when it is done with the
+     * message, do not release it twice. The content which is not consumed is released with the last reference.
+     */
     public void release() {
+        if (CREATION_REFERENCE_UPDATER.compareAndSet(this, 1, 0)) {
+            releaseReference();
+        }
+    }
+
+    /**
+     * Release a reference taken with {@link #retain()}. The content which is not consumed is released with the last
+     * reference.
+     *
+     * @return true if this was the last reference.
+     */
+    public boolean releaseReference() {
+        if (leak != null) {
+            leak.record();
+        }
+        return reference.release();
+    }
+
+    /**
+     * Release the content which is not consumed, and the content which is added afterwards.
+     */
+    private void deallocate() {
         blockingEntityCollector.release();
+        if (leak != null) {
+            leak.close(this);
+        }
     }
 
     /**
@@ -266,7 +502,17 @@ public class HTTPCarbonMessage {
      * @return httpOutboundRespFuture.
      */
     public ServerConnectorFuture getHttpResponseFuture() {
-        return this.httpOutboundRespFuture;
+        ServerConnectorFuture responseFuture = this.httpOutboundRespFuture;
+        if (responseFuture == null) {
+            synchronized (this) {
+                responseFuture = this.httpOutboundRespFuture;
+                if (responseFuture == null) {
+                    responseFuture = new HttpWsServerConnectorFuture();
+                    this.httpOutboundRespFuture = responseFuture;
+                }
+            }
+        }
+        return responseFuture;
     }
 
     /**
@@ -275,12 +521,22 @@ public class HTTPCarbonMessage {
      * @return httpOutboundRespStatusFuture.
      */
     public HttpResponseStatusFuture getHttpOutboundRespStatusFuture() {
-        return httpOutboundRespStatusFuture;
+        HttpResponseStatusFuture statusFuture = this.httpOutboundRespStatusFuture;
+        if (statusFuture == null) {
+            synchronized (this) {
+                statusFuture = this.httpOutboundRespStatusFuture;
+                if (statusFuture == null) {
+                    statusFuture = new HttpResponseStatusFuture();
+                    this.httpOutboundRespStatusFuture = statusFuture;
+                }
+            }
+        }
+        return statusFuture;
     }
 
     public HttpResponseStatusFuture respond(HTTPCarbonMessage httpCarbonMessage) throws ServerConnectorException {
-        httpOutboundRespFuture.notifyHttpListener(httpCarbonMessage);
-        return httpOutboundRespStatusFuture;
+        getHttpResponseFuture().notifyHttpListener(httpCarbonMessage);
+        return getHttpOutboundRespStatusFuture();
     }
 
     /**
@@ -320,7 +576,7 @@ public class HTTPCarbonMessage {
                 httpHeaders.set(entry.getKey(), entry.getValue());
             }
         }
-        HTTPCarbonMessage httpCarbonMessage = new HTTPCarbonMessage(newHttpMessage);
+        HTTPCarbonMessage httpCarbonMessage = new HTTPCarbonMessage(newHttpMessage, entityCollectorFactory);
         httpCarbonMessage.setHeaders(httpHeaders);
         return httpCarbonMessage;
     }
@@ -336,6 +592,12 @@ public class HTTPCarbonMessage {
         Map<String, Object> propertiesMap = this.getProperties();
         propertiesMap.forEach(httpCarbonMessage::setProperty);
 
+        if (blockingEntityCollector instanceof SpillableEntityCollector) {
+            // Shares the spilled payload with the clone instead of reading it back
+            ((SpillableEntityCollector) blockingEntityCollector).duplicateContent()
+                    .forEach(httpCarbonMessage::addHttpContent);
+            return httpCarbonMessage;
+        }
         this.getCopyOfFullMessageBody().forEach(httpCarbonMessage::addMessageBody);
         httpCarbonMessage.setEndOfMsgAdded(true);
         return httpCarbonMessage;
@@ -358,9 +620,15 @@ public class HTTPCarbonMessage {
         blockingEntityCollector.waitAndReleaseAllEntities();
     }
 
-    @Override
-    protected void finalize() {
-        release();
+    /**
+     * Get the factory the entity collector of this message is created from, which is the one of the connector the
+     * message is read from. Messages which are built for the same connector, such as a response to this message,
+     * should be created with it.
+     *
+     * @return the factory.
+     */
+    public EntityCollectorFactory getEntityCollectorFactory() {
+        return entityCollectorFactory;
     }
 
     public EntityCollector getBlockingEntityCollector() {
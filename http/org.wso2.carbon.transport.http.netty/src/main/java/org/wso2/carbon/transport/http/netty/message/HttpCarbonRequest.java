@@ -34,6 +34,11 @@ public class HttpCarbonRequest extends HTTPCarbonMessage {
         this.httpRequest = (HttpRequest) this.httpMessage;
     }
 
+    public HttpCarbonRequest(HttpRequest httpRequest, EntityCollectorFactory entityCollectorFactory) {
+        super(httpRequest, entityCollectorFactory);
+        this.httpRequest = (HttpRequest) this.httpMessage;
+    }
+
     public void setHttpVersion(HttpVersion httpVersion) {
         this.httpRequest.setProtocolVersion(httpVersion);
     }
@@ -33,6 +33,11 @@ public class HttpCarbonResponse extends HTTPCarbonMessage {
         this.httpResponse = (HttpResponse) this.httpMessage;
     }
 
+    public HttpCarbonResponse(HttpResponse httpResponse, EntityCollectorFactory entityCollectorFactory) {
+        super(httpResponse, entityCollectorFactory);
+        this.httpResponse = (HttpResponse) this.httpMessage;
+    }
+
     public void setStatus(HttpResponseStatus httpResponseStatus) {
         this.httpResponse.setStatus(httpResponseStatus);
     }
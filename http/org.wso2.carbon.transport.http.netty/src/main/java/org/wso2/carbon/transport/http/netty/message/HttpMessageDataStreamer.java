@@ -18,20 +18,21 @@
 
 package org.wso2.carbon.transport.http.netty.message;
 
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.LastHttpContent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.wso2.carbon.messaging.BufferFactory;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
 
@@ -43,12 +44,31 @@ public class HttpMessageDataStreamer {
     private static final Logger LOG = LoggerFactory.getLogger(HttpMessageDataStreamer.class);
 
     private HTTPCarbonMessage httpCarbonMessage;
+    private ByteBufAllocator allocator;
+    private int outputContentBufferSize;
 
     private HttpMessageDataStreamer.ByteBufferInputStream byteBufferInputStream;
     private HttpMessageDataStreamer.ByteBufferOutputStream byteBufferOutputStream;
 
+    /**
+     * Output is collected in pooled direct buffers of the channel the message is read from, or of the default pooled
+     * allocator, sized as configured for the connector the message belongs to. See
+     * {@link HTTPCarbonMessage#getEntityCollectorFactory()}.
+     *
+     * @param httpCarbonMessage message to stream.
+     */
     public HttpMessageDataStreamer(HTTPCarbonMessage httpCarbonMessage) {
         this.httpCarbonMessage = httpCarbonMessage;
+        Channel contentChannel = httpCarbonMessage.getContentChannel();
+        this.allocator = contentChannel != null ? contentChannel.alloc() : PooledByteBufAllocator.DEFAULT;
+        this.outputContentBufferSize = httpCarbonMessage.getEntityCollectorFactory().getOutputContentBufferSize();
+    }
+
+    public HttpMessageDataStreamer(HTTPCarbonMessage httpCarbonMessage, ByteBufAllocator allocator,
+            int outputContentBufferSize) {
+        this.httpCarbonMessage = httpCarbonMessage;
+        this.allocator = allocator;
+        this.outputContentBufferSize = outputContentBufferSize;
     }
 
     /**
@@ -58,37 +78,71 @@ public class HttpMessageDataStreamer {
      */
     protected class ByteBufferInputStream extends InputStream {
 
-        private int count;
-        private boolean chunkFinished = true;
-        private int limit;
-        private ByteBuffer byteBuffer;
         private HttpContent httpContent;
+        private ByteBuf content;
+        private boolean lastContentRead;
 
         @Override
         public int read() throws IOException {
-            httpCarbonMessage.setAlreadyRead(true); // TODO: No need to set this again and again
-            if ((httpContent instanceof LastHttpContent) && chunkFinished) {
+            if (!nextReadableContent()) {
                 return -1;
-            } else if (chunkFinished) {
-                httpContent = httpCarbonMessage.getHttpContent();
-                byteBuffer = httpContent.content().nioBuffer();
-                count = 0;
-                limit = byteBuffer.limit();
-                if (limit == 0) {
-                    return -1;
+            }
+            int value = content.readByte() & 0xff;
+            releaseIfConsumed();
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (offset < 0 || length < 0 || length > bytes.length - offset) {
+                throw new IndexOutOfBoundsException();
+            } else if (length == 0) {
+                return 0;
+            }
+            if (!nextReadableContent()) {
+                return -1;
+            }
+            int readLength = Math.min(length, content.readableBytes());
+            content.readBytes(bytes, offset, readLength);
+            releaseIfConsumed();
+            return readLength;
+        }
+
+        @Override
+        public int available() {
+            return content != null ? content.readableBytes() : 0;
+        }
+
+        // Returns false at the end of the stream
+        private boolean nextReadableContent() throws IOException {
+            if (content == null) {
+                httpCarbonMessage.setAlreadyRead(true);
+            }
+            while (content == null) {
+                if (lastContentRead) {
+                    return false;
+                }
+                HttpContent nextContent = httpCarbonMessage.getHttpContent();
+                if (nextContent == null) {
+                    throw new IOException("No content received from the message within the socket timeout");
+                }
+                lastContentRead = nextContent instanceof LastHttpContent;
+                if (nextContent.content().isReadable()) {
+                    httpContent = nextContent;
+                    content = nextContent.content();
+                } else {
+                    nextContent.release();
                 }
-                chunkFinished = false;
             }
-            count++;
-            if (count == limit) {
-                int value = byteBuffer.get() & 0xff;
-                chunkFinished = true;
-                byteBuffer = null;
-                httpContent.release();
+            return true;
+        }
 
-                return value;
+        private void releaseIfConsumed() {
+            if (!content.isReadable()) {
+                httpContent.release();
+                httpContent = null;
+                content = null;
             }
-            return byteBuffer.get() & 0xff;
         }
     }
 
@@ -100,32 +154,50 @@ public class HttpMessageDataStreamer {
      */
     protected class ByteBufferOutputStream extends OutputStream {
 
-        private ByteBuffer buffer;
+        private ByteBuf buffer;
 
         @Override
         public void write(int b) throws IOException {
             if (buffer == null) {
-                buffer = BufferFactory.getInstance().getBuffer();
+                buffer = allocator.directBuffer(outputContentBufferSize);
             }
-            if (buffer.hasRemaining()) {
-                buffer.put((byte) b);
-            } else {
-                buffer.flip();
-                httpCarbonMessage.addHttpContent(new DefaultHttpContent(Unpooled.wrappedBuffer(buffer)));
-                buffer = BufferFactory.getInstance().getBuffer();
-                buffer.put((byte) b);
+            buffer.writeByte(b);
+            if (buffer.writableBytes() == 0) {
+                addBuffer();
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (offset < 0 || length < 0 || length > bytes.length - offset) {
+                throw new IndexOutOfBoundsException();
+            }
+            while (length > 0) {
+                if (buffer == null) {
+                    buffer = allocator.directBuffer(outputContentBufferSize);
+                }
+                int writeLength = Math.min(length, buffer.writableBytes());
+                buffer.writeBytes(bytes, offset, writeLength);
+                offset += writeLength;
+                length -= writeLength;
+                if (buffer.writableBytes() == 0) {
+                    addBuffer();
+                }
             }
         }
 
         @Override
         public void flush() throws IOException {
-            if (buffer != null && buffer.position() > 0) {
-                buffer.flip();
-                httpCarbonMessage.addHttpContent(new DefaultHttpContent(Unpooled.wrappedBuffer(buffer)));
-                buffer = BufferFactory.getInstance().getBuffer();
+            if (buffer != null && buffer.isReadable()) {
+                addBuffer();
             }
         }
 
+        private void addBuffer() {
+            httpCarbonMessage.addHttpContent(new DefaultHttpContent(buffer));
+            buffer = null;
+        }
+
         @Override
         public void close() {
             try {
@@ -136,7 +208,10 @@ public class HttpMessageDataStreamer {
                 LOG.error("Error while closing output stream but underlying resources are reset", e);
             } finally {
                 byteBufferOutputStream = null;
-                buffer = null;
+                if (buffer != null) {
+                    buffer.release();
+                    buffer = null;
+                }
             }
         }
     }
@@ -30,14 +30,27 @@ public class MessageFuture {
     private MessageListener messageListener;
     private HTTPCarbonMessage httpCarbonMessage;
     private ConcurrentLinkedQueue<HttpContent> pendingPayload;
+    private NonBlockingEntityCollector nonBlockingEntityCollector;
 
-     public MessageFuture(HTTPCarbonMessage httpCarbonMessage) {
+    public MessageFuture(HTTPCarbonMessage httpCarbonMessage) {
         this.httpCarbonMessage = httpCarbonMessage;
         this.pendingPayload = new ConcurrentLinkedQueue<>();
     }
 
+    /**
+     * Future over a collector which pushes the content to the listener by itself.
+     */
+    MessageFuture(HTTPCarbonMessage httpCarbonMessage, NonBlockingEntityCollector nonBlockingEntityCollector) {
+        this.httpCarbonMessage = httpCarbonMessage;
+        this.nonBlockingEntityCollector = nonBlockingEntityCollector;
+    }
+
     public synchronized void setMessageListener(MessageListener messageListener) {
         this.messageListener = messageListener;
+        if (nonBlockingEntityCollector != null) {
+            nonBlockingEntityCollector.setMessageListener(messageListener);
+            return;
+        }
         while (!httpCarbonMessage.isEmpty()) {
             HttpContent httpContent = httpCarbonMessage.getHttpContent();
             notifyMessageListener(httpContent);
@@ -49,6 +62,9 @@ public class MessageFuture {
 
     public synchronized void removeMessageListener() {
         this.messageListener = null;
+        if (nonBlockingEntityCollector != null) {
+            nonBlockingEntityCollector.setMessageListener(null);
+        }
     }
 
     public synchronized void notifyMessageListener(HttpContent httpContent) {
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.channel.Channel;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Properties of a {@link HTTPCarbonMessage}.
+ * <p>
+ * The properties set by the transport for every message are kept in fixed slots, and a map is only allocated for the
+ * other properties. Properties of the connection are captured from the channel when the message is created, except
+ * for the listener port which is derived from the captured local address when it is first read.
+ * <p>
+ * The map is mutable through its views as well: removing through the entry set, its iterator or the key set removes
+ * the property.
+ */
+public class MessageProperties extends AbstractMap<String, Object> {
+
+    private static final String[] SLOT_KEYS = {
+            Constants.CHNL_HNDLR_CTX,
+            Constants.SRC_HANDLER,
+            Constants.HTTP_VERSION,
+            Constants.HTTP_METHOD,
+            Constants.HTTP_STATUS_CODE,
+            Constants.REQUEST_URL,
+            Constants.TO,
+            Constants.EXECUTOR_WORKER_POOL,
+            Constants.STREAM_ID,
+            org.wso2.carbon.messaging.Constants.LISTENER_INTERFACE_ID,
+            org.wso2.carbon.messaging.Constants.PROTOCOL,
+            org.wso2.carbon.messaging.Constants.DIRECTION,
+            Constants.LOCAL_ADDRESS,
+            Constants.IS_SECURED_CONNECTION,
+            // Derived from the local address unless set
+            org.wso2.carbon.messaging.Constants.LISTENER_PORT
+    };
+
+    private static final int LOCAL_ADDRESS_SLOT = SLOT_KEYS.length - 3;
+    private static final int IS_SECURED_CONNECTION_SLOT = SLOT_KEYS.length - 2;
+    private static final int LISTENER_PORT_SLOT = SLOT_KEYS.length - 1;
+
+    private static final Map<String, Integer> SLOTS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            SLOTS.put(SLOT_KEYS[i], i);
+        }
+    }
+
+    // Marks the derived property which is removed, so that it is not derived again
+    private static final Object REMOVED = new Object();
+
+    private final Object[] slots = new Object[SLOT_KEYS.length];
+    private Map<String, Object> overflow;
+    private SocketAddress localAddress;
+
+    /**
+     * Capture the local address and whether the connection is secured from the given channel, so that they are
+     * still known once the channel is closed. The listener port is derived from the local address when it is read.
+     *
+     * @param connectionChannel channel the message is received from.
+     */
+    public void deriveConnectionProperties(Channel connectionChannel) {
+        // The channel caches its local address, so capturing it does not allocate
+        this.localAddress = connectionChannel.localAddress();
+        slots[LOCAL_ADDRESS_SLOT] = localAddress;
+        slots[IS_SECURED_CONNECTION_SLOT] = connectionChannel.pipeline().get(Constants.SSL_HANDLER) != null;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Integer slot = SLOTS.get(key);
+        if (slot == null) {
+            return overflow != null ? overflow.get(key) : null;
+        }
+        return getSlot(slot);
+    }
+
+    private Object getSlot(int slot) {
+        Object value = slots[slot];
+        if (value == null && slot == LISTENER_PORT_SLOT && localAddress instanceof InetSocketAddress) {
+            value = ((InetSocketAddress) localAddress).getPort();
+            slots[slot] = value;
+        }
+        return value == REMOVED ? null : value;
+    }
+
+    private Object putSlot(int slot, Object value) {
+        Object previous = getSlot(slot);
+        slots[slot] = value == null && slot == LISTENER_PORT_SLOT ? REMOVED : value;
+        return previous;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Integer slot = SLOTS.get(key);
+        if (slot == null) {
+            return overflow != null && overflow.containsKey(key);
+        }
+        return getSlot(slot) != null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Integer slot = SLOTS.get(key);
+        if (slot == null) {
+            if (overflow == null) {
+                overflow = new HashMap<>();
+            }
+            return overflow.put(key, value);
+        }
+        return putSlot(slot, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        Integer slot = SLOTS.get(key);
+        if (slot == null) {
+            return overflow != null ? overflow.remove(key) : null;
+        }
+        return putSlot(slot, null);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = i == LISTENER_PORT_SLOT ? REMOVED : null;
+        }
+        overflow = null;
+    }
+
+    @Override
+    public int size() {
+        int size = overflow != null ? overflow.size() : 0;
+        for (int i = 0; i < slots.length; i++) {
+            if (getSlot(i) != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return MessageProperties.this.size();
+            }
+
+            @Override
+            public void clear() {
+                MessageProperties.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Iterates over the set slots first and the other properties after them. Removing an entry clears its slot or
+     * removes it from the other properties.
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private int nextSlot = nextSetSlot(0);
+        private int lastSlot = -1;
+        private Iterator<Entry<String, Object>> overflowIterator;
+        private boolean lastFromOverflow;
+
+        private int nextSetSlot(int from) {
+            int slot = from;
+            while (slot < slots.length && getSlot(slot) == null) {
+                slot++;
+            }
+            return slot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextSlot < slots.length) {
+                return true;
+            }
+            if (overflowIterator == null) {
+                overflowIterator = overflow != null ? overflow.entrySet().iterator() : Collections.emptyIterator();
+            }
+            return overflowIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (nextSlot < slots.length) {
+                lastSlot = nextSlot;
+                lastFromOverflow = false;
+                nextSlot = nextSetSlot(nextSlot + 1);
+                return new SlotEntry(lastSlot);
+            }
+            lastSlot = -1;
+            lastFromOverflow = true;
+            return overflowIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (lastFromOverflow) {
+                overflowIterator.remove();
+                lastFromOverflow = false;
+            } else if (lastSlot >= 0) {
+                putSlot(lastSlot, null);
+                lastSlot = -1;
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    /**
+     * Entry of a slot, setting its value sets the slot.
+     */
+    private final class SlotEntry extends SimpleEntry<String, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int slot;
+
+        SlotEntry(int slot) {
+            super(SLOT_KEYS[slot], getSlot(slot));
+            this.slot = slot;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            putSlot(slot, value);
+            return super.setValue(value);
+        }
+    }
+}
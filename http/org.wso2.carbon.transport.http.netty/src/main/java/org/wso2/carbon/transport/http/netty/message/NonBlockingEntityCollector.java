@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Entity collector which does not lock between the thread producing the content and the thread consuming it.
+ * <p>
+ * Content is kept in a single producer, single consumer queue made of fixed size arrays, so no node is allocated per
+ * chunk. The content is pulled until a {@link MessageListener} is set, after which it is only pushed to the listener,
+ * so there is never more than one kind of consumer. Only one thread acts as the consumer at a time: it owns the
+ * {@code wip} counter, and a thread which finds the counter taken leaves its work, such as pushing or releasing the
+ * content, to the owner. Only the pulling methods block, and only when the content they wait for is not there yet.
+ */
+public class NonBlockingEntityCollector implements EntityCollector {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NonBlockingEntityCollector.class);
+
+    private static final AtomicIntegerFieldUpdater<NonBlockingEntityCollector> WIP_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(NonBlockingEntityCollector.class, "wip");
+    private static final AtomicIntegerFieldUpdater<NonBlockingEntityCollector> SIZE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(NonBlockingEntityCollector.class, "size");
+    private static final AtomicLongFieldUpdater<NonBlockingEntityCollector> QUEUED_BYTES_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(NonBlockingEntityCollector.class, "queuedBytes");
+
+    private final SpscChunkQueue queue = new SpscChunkQueue();
+    private final long soTimeOutNanos;
+    private volatile MessageListener messageListener;
+    private volatile boolean pushed;
+    private volatile boolean released;
+    private volatile Thread waiter;
+    private volatile int wip;
+    private volatile int size;
+    private volatile long queuedBytes;
+    private volatile boolean contentComplete;
+    private volatile boolean alreadyRead;
+    private volatile boolean endOfMsgAdded;
+    private volatile boolean consumed;
+
+    public NonBlockingEntityCollector(int soTimeOut) {
+        this.soTimeOutNanos = TimeUnit.SECONDS.toNanos(soTimeOut);
+    }
+
+    /**
+     * Push the collected and the future content to the given listener instead of collecting it. The listener is
+     * called on the thread which adds the content, or on the calling thread for the content collected so far. Once
+     * a listener is set the content can no longer be pulled.
+     *
+     * @param messageListener listener to push the content to, or null to hold the content till a listener is set.
+     */
+    public void setMessageListener(MessageListener messageListener) {
+        this.messageListener = messageListener;
+        this.pushed = true;
+        Thread waitingThread = waiter;
+        if (waitingThread != null) {
+            LockSupport.unpark(waitingThread);
+        }
+        drain();
+    }
+
+    @Override
+    public void addHttpContent(HttpContent httpContent) {
+        consumed = false;
+        QUEUED_BYTES_UPDATER.addAndGet(this, httpContent.content().readableBytes());
+        if (httpContent instanceof LastHttpContent) {
+            contentComplete = true;
+        }
+        queue.offer(httpContent);
+        SIZE_UPDATER.incrementAndGet(this);
+        if (pushed || released) {
+            drain();
+        } else {
+            Thread waitingThread = waiter;
+            if (waitingThread != null) {
+                LockSupport.unpark(waitingThread);
+            }
+        }
+    }
+
+    // Only one thread drains at a time, the others leave their work to it
+    private void drain() {
+        if (WIP_UPDATER.getAndIncrement(this) != 0) {
+            return;
+        }
+        drainAndExit(1);
+    }
+
+    // Called by the owner of the consumer side, which gives it up once no work is left
+    private void drainAndExit(int missed) {
+        do {
+            if (released) {
+                HttpContent httpContent;
+                while ((httpContent = poll()) != null) {
+                    httpContent.release();
+                }
+            } else {
+                MessageListener listener = messageListener;
+                if (pushed && listener != null) {
+                    HttpContent httpContent;
+                    while ((httpContent = poll()) != null) {
+                        listener.onMessage(httpContent);
+                    }
+                }
+            }
+            missed = WIP_UPDATER.addAndGet(this, -missed);
+        } while (missed != 0);
+    }
+
+    // Become the consumer to pull the content. Returns false if there is nothing left to pull.
+    private boolean enterPuller() {
+        if (pushed) {
+            throw new IllegalStateException("The content is pushed to a message listener and cannot be pulled");
+        }
+        while (!WIP_UPDATER.compareAndSet(this, 0, 1)) {
+            if (released || pushed) {
+                return false;
+            }
+            // Another puller or a peek owns the consumer side, which it gives up shortly
+            Thread.yield();
+        }
+        return true;
+    }
+
+    private void exitConsumer() {
+        drainAndExit(1);
+    }
+
+    private HttpContent poll() {
+        HttpContent httpContent = queue.poll();
+        if (httpContent != null) {
+            SIZE_UPDATER.decrementAndGet(this);
+            QUEUED_BYTES_UPDATER.addAndGet(this, -httpContent.content().readableBytes());
+            if (httpContent instanceof LastHttpContent) {
+                contentComplete = false;
+            }
+        }
+        return httpContent;
+    }
+
+    // Wait till content is available, for at most the socket timeout. Called by the puller only.
+    private HttpContent take() {
+        HttpContent httpContent = poll();
+        if (httpContent != null) {
+            return httpContent;
+        }
+        long deadline = System.nanoTime() + soTimeOutNanos;
+        waiter = Thread.currentThread();
+        try {
+            while ((httpContent = poll()) == null) {
+                // Released or handed over to a listener, the remaining content is left to the drain
+                if (released || pushed || !park(deadline)) {
+                    return null;
+                }
+            }
+            return httpContent;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    private void awaitContentComplete() {
+        long deadline = System.nanoTime() + soTimeOutNanos;
+        waiter = Thread.currentThread();
+        try {
+            while (!contentComplete) {
+                if (!park(deadline)) {
+                    return;
+                }
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    private boolean park(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            LOG.error("Timed out while waiting for http content");
+            return false;
+        }
+        LockSupport.parkNanos(this, remaining);
+        if (Thread.interrupted()) {
+            Thread.currentThread().interrupt();
+            LOG.error("Interrupted while waiting for http content");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public HttpContent getHttpContent() {
+        if ((consumed && alreadyRead) || !enterPuller()) {
+            return null;
+        }
+        try {
+            HttpContent httpContent = take();
+            if (httpContent instanceof LastHttpContent) {
+                consumed = true;
+                alreadyRead = false;
+            }
+            return httpContent;
+        } finally {
+            exitConsumer();
+        }
+    }
+
+    @Override
+    public ByteBuf getMessageBody() {
+        HttpContent httpContent = getHttpContent();
+        if (httpContent != null) {
+            return httpContent.content();
+        }
+        return null;
+    }
+
+    @Override
+    public void addMessageBody(ByteBuffer msgBody) {
+        addHttpContent(new DefaultHttpContent(Unpooled.copiedBuffer(msgBody)));
+    }
+
+    @Override
+    public List<ByteBuffer> getFullMessageBody() {
+        List<ByteBuffer> byteBufferList = new ArrayList<>();
+        if (consumed || !enterPuller()) {
+            return byteBufferList;
+        }
+        try {
+            HttpContent httpContent;
+            while ((httpContent = take()) != null) {
+                // Avoid adding the empty last content which marks the end of a copied message
+                if (httpContent instanceof EmptyLastHttpContent) {
+                    break;
+                }
+                byteBufferList.add(httpContent.content().nioBuffer());
+                if (httpContent instanceof LastHttpContent) {
+                    consumed = true;
+                    break;
+                }
+            }
+        } finally {
+            exitConsumer();
+        }
+        return byteBufferList;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return the length of the payload which is not consumed yet. Waits till the last content is added, without
+     * consuming the payload.
+     *
+     * @return the length.
+     */
+    @Override
+    public long getFullMessageLength() {
+        if (!contentComplete) {
+            awaitContentComplete();
+        }
+        return queuedBytes;
+    }
+
+    @Override
+    public boolean isContentComplete() {
+        return contentComplete;
+    }
+
+    @Override
+    public boolean isEndOfMsgAdded() {
+        return endOfMsgAdded;
+    }
+
+    @Override
+    public void markMessageEnd() {
+        addHttpContent(new EmptyLastHttpContent());
+    }
+
+    @Override
+    public void setEndOfMsgAdded(boolean endOfMsgAdded) {
+        this.endOfMsgAdded = this.endOfMsgAdded || endOfMsgAdded;
+        addHttpContent(new DefaultLastHttpContent());
+    }
+
+    /**
+     * Release the collected and the future content. The content is released by the thread which owns the consumer
+     * side, so a blocked puller returns and releases it on its way out.
+     */
+    @Override
+    public void release() {
+        released = true;
+        Thread waitingThread = waiter;
+        if (waitingThread != null) {
+            LockSupport.unpark(waitingThread);
+        }
+        drain();
+    }
+
+    @Override
+    public boolean isAlreadyRead() {
+        return alreadyRead;
+    }
+
+    @Override
+    public void setAlreadyRead(boolean alreadyRead) {
+        this.alreadyRead = alreadyRead;
+    }
+
+    @Override
+    public void waitAndReleaseAllEntities() {
+        // Content pushed to a listener belongs to the listener
+        if (pushed || consumed || alreadyRead || !enterPuller()) {
+            return;
+        }
+        try {
+            HttpContent httpContent;
+            while ((httpContent = take()) != null) {
+                if (httpContent instanceof EmptyLastHttpContent) {
+                    break;
+                }
+                httpContent.release();
+                if (httpContent instanceof LastHttpContent) {
+                    consumed = true;
+                    break;
+                }
+            }
+        } finally {
+            exitConsumer();
+        }
+    }
+
+    /**
+     * Peek the head of the queue. Returns null while another thread is consuming the content.
+     */
+    @Override
+    public HttpContent peek() {
+        if (!WIP_UPDATER.compareAndSet(this, 0, 1)) {
+            return null;
+        }
+        try {
+            return queue.peek();
+        } finally {
+            exitConsumer();
+        }
+    }
+
+    /**
+     * Unbounded single producer, single consumer queue. Elements are stored in linked arrays, so a new array is only
+     * allocated once every {@code CHUNK_SIZE} elements. The consumer cursors are plain fields, they are handed from
+     * one consumer thread to the next through the {@code wip} counter of the collector.
+     */
+    private static final class SpscChunkQueue {
+
+        private static final int CHUNK_SIZE = 16;
+
+        private Chunk producerChunk;
+        private int producerIndex;
+        private Chunk consumerChunk;
+        private int consumerIndex;
+
+        SpscChunkQueue() {
+            producerChunk = new Chunk();
+            consumerChunk = producerChunk;
+        }
+
+        void offer(HttpContent httpContent) {
+            if (producerIndex == CHUNK_SIZE) {
+                Chunk next = new Chunk();
+                producerChunk.next = next;
+                producerChunk = next;
+                producerIndex = 0;
+            }
+            // Volatile store, so that a consumer which parks after checking the queue cannot miss the element
+            producerChunk.elements.set(producerIndex++, httpContent);
+        }
+
+        HttpContent poll() {
+            if (!advanceConsumerChunk()) {
+                return null;
+            }
+            HttpContent httpContent = consumerChunk.elements.get(consumerIndex);
+            if (httpContent != null) {
+                consumerChunk.elements.lazySet(consumerIndex++, null);
+            }
+            return httpContent;
+        }
+
+        HttpContent peek() {
+            if (!advanceConsumerChunk()) {
+                return null;
+            }
+            return consumerChunk.elements.get(consumerIndex);
+        }
+
+        private boolean advanceConsumerChunk() {
+            if (consumerIndex == CHUNK_SIZE) {
+                Chunk next = consumerChunk.next;
+                if (next == null) {
+                    return false;
+                }
+                consumerChunk = next;
+                consumerIndex = 0;
+            }
+            return true;
+        }
+
+        private static final class Chunk {
+            private final AtomicReferenceArray<HttpContent> elements = new AtomicReferenceArray<>(CHUNK_SIZE);
+            private volatile Chunk next;
+        }
+    }
+}
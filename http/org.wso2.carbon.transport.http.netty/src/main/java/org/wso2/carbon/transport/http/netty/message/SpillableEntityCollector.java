@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.buffer.UnpooledDirectByteBuf;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Entity collector which keeps the first {@code memoryThreshold} bytes of the payload in memory and spills the rest
+ * to a memory mapped temporary file.
+ * <p>
+ * Spilled content is handed out as direct buffers over the mapped file, so large payloads stay in the page cache
+ * instead of the heap, and are written to the network without being copied to the heap. Measuring and duplicating
+ * the payload does not consume or copy the spilled content.
+ * <p>
+ * Each mapped segment is reference counted by the content handed out over it, and is unmapped as soon as the
+ * collector and all of that content are released. The file is deleted when it is closed, so its blocks are freed
+ * once the last segment is unmapped. Segments start small and grow, so that a short spill does not map a large region.
+ */
+public class SpillableEntityCollector extends BlockingEntityCollector {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpillableEntityCollector.class);
+
+    // Sizes of the first and the largest mapping of the spill file
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+    private static final int MAX_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    private final int memoryThreshold;
+    private final CountDownLatch lastContentAdded = new CountDownLatch(1);
+    private long memoryBytes;
+    private final AtomicInteger mappedSegments = new AtomicInteger();
+    private FileChannel spillFile;
+    private Path spillFilePath;
+    private long spillFileSize;
+    private int nextSegmentSize = MIN_SEGMENT_SIZE;
+    private MappedSegment segment;
+    private int segmentPosition;
+    private boolean spillFailed;
+    private volatile boolean released;
+
+    public SpillableEntityCollector(int soTimeOut, int memoryThreshold) {
+        super(soTimeOut);
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    @Override
+    public void addHttpContent(HttpContent httpContent) {
+        HttpContent collectedContent = httpContent;
+        // Content added after the collector is released is dropped, so it is not spilled
+        if (!released && !(httpContent instanceof SpilledContent)) {
+            int readableBytes = httpContent.content().readableBytes();
+            if (memoryBytes + readableBytes > memoryThreshold && readableBytes > 0) {
+                collectedContent = spill(httpContent);
+            }
+            if (collectedContent == httpContent) {
+                memoryBytes += readableBytes;
+            }
+        }
+        super.addHttpContent(collectedContent);
+        if (collectedContent instanceof LastHttpContent) {
+            lastContentAdded.countDown();
+            closeSpillFile();
+        }
+    }
+
+    @Override
+    public void addMessageBody(ByteBuffer msgBody) {
+        addHttpContent(new DefaultHttpContent(Unpooled.copiedBuffer(msgBody)));
+    }
+
+    @Override
+    public void markMessageEnd() {
+        super.markMessageEnd();
+        lastContentAdded.countDown();
+    }
+
+    @Override
+    public void setEndOfMsgAdded(boolean endOfMsgAdded) {
+        super.setEndOfMsgAdded(endOfMsgAdded);
+        lastContentAdded.countDown();
+    }
+
+    /**
+     * Duplicate the payload which is not consumed yet, without consuming it. Spilled content is shared with the
+     * duplicate rather than copied. Waits till the last content is added.
+     *
+     * @return duplicated content, ending with the last content.
+     */
+    public List<HttpContent> duplicateContent() {
+        awaitLastContent();
+        List<HttpContent> duplicates = new ArrayList<>();
+        for (HttpContent httpContent : getQueuedContent()) {
+            if (httpContent instanceof SpilledContent) {
+                ByteBuf content = httpContent.content().retainedDuplicate();
+                duplicates.add(httpContent instanceof LastHttpContent ?
+                        new SpilledLastHttpContent(content, ((LastHttpContent) httpContent).trailingHeaders()) :
+                        new SpilledHttpContent(content));
+            } else if (httpContent instanceof LastHttpContent) {
+                DefaultLastHttpContent lastHttpContent = new DefaultLastHttpContent(httpContent.content().copy());
+                lastHttpContent.trailingHeaders().set(((LastHttpContent) httpContent).trailingHeaders());
+                duplicates.add(lastHttpContent);
+            } else {
+                duplicates.add(new DefaultHttpContent(httpContent.content().copy()));
+            }
+        }
+        return duplicates;
+    }
+
+    @Override
+    public void waitAndReleaseAllEntities() {
+        super.waitAndReleaseAllEntities();
+        closeSpillFile();
+    }
+
+    @Override
+    public synchronized void release() {
+        released = true;
+        super.release();
+        closeSpillFile();
+    }
+
+    @Override
+    protected void awaitContentComplete() {
+        awaitLastContent();
+    }
+
+    private void awaitLastContent() {
+        try {
+            if (!lastContentAdded.await(getSoTimeOut(), TimeUnit.SECONDS)) {
+                LOG.warn("Timed out while waiting for the end of the message");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Interrupted while waiting for the end of the message", e);
+        }
+    }
+
+    private synchronized HttpContent spill(HttpContent httpContent) {
+        if (spillFailed) {
+            return httpContent;
+        }
+        ByteBuf content = httpContent.content();
+        ByteBuf spilledContent;
+        try {
+            spilledContent = write(content);
+        } catch (IOException e) {
+            // Keep the rest of the payload in memory rather than failing the message
+            LOG.error("Cannot spill the payload to a temporary file", e);
+            spillFailed = true;
+            closeSpillFile();
+            return httpContent;
+        }
+        if (httpContent instanceof LastHttpContent) {
+            HttpHeaders trailingHeaders = ((LastHttpContent) httpContent).trailingHeaders();
+            httpContent.release();
+            return new SpilledLastHttpContent(spilledContent, trailingHeaders);
+        }
+        httpContent.release();
+        return new SpilledHttpContent(spilledContent);
+    }
+
+    // Copy the readable bytes to the mapped segments and return a view of the copied bytes, which holds a reference
+    // to the segments it spans
+    private ByteBuf write(ByteBuf content) throws IOException {
+        List<ByteBuf> views = new ArrayList<>(1);
+        int readerIndex = content.readerIndex();
+        int remaining = content.readableBytes();
+        while (remaining > 0) {
+            if (segment == null || segmentPosition == segment.capacity()) {
+                releaseSegment();
+                segment = mapSegment();
+                segmentPosition = 0;
+            }
+            int length = Math.min(remaining, segment.capacity() - segmentPosition);
+            segment.setBytes(segmentPosition, content, readerIndex, length);
+            views.add(segment.retainedSlice(segmentPosition, length));
+            segmentPosition += length;
+            readerIndex += length;
+            remaining -= length;
+        }
+        return views.size() == 1 ? views.get(0) : Unpooled.wrappedBuffer(views.toArray(new ByteBuf[views.size()]));
+    }
+
+    private MappedSegment mapSegment() throws IOException {
+        if (spillFile == null) {
+            spillFilePath = Files.createTempFile("carbon-transport-entity-", ".tmp");
+            spillFile = FileChannel.open(spillFilePath, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        int segmentSize = nextSegmentSize;
+        nextSegmentSize = Math.min(nextSegmentSize * 2, MAX_SEGMENT_SIZE);
+        MappedByteBuffer mappedBuffer = spillFile.map(FileChannel.MapMode.READ_WRITE, spillFileSize, segmentSize);
+        spillFileSize += segmentSize;
+        mappedSegments.incrementAndGet();
+        return new MappedSegment(mappedBuffer);
+    }
+
+    private void releaseSegment() {
+        if (segment != null) {
+            segment.release();
+            segment = null;
+        }
+    }
+
+    private synchronized void closeSpillFile() {
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                LOG.warn("Cannot close the spill file", e);
+            }
+            spillFile = null;
+        }
+        // The segment is unmapped once the content over it is released as well
+        releaseSegment();
+    }
+
+    /**
+     * Get the path of the spill file, which is deleted once the file is closed.
+     */
+    Path getSpillFilePath() {
+        return spillFilePath;
+    }
+
+    /**
+     * Get the number of segments of the spill file which are still mapped.
+     */
+    int getMappedSegmentCount() {
+        return mappedSegments.get();
+    }
+
+    /**
+     * A mapped region of the spill file, which is unmapped when it is released.
+     */
+    private final class MappedSegment extends UnpooledDirectByteBuf {
+
+        private final MappedByteBuffer mappedBuffer;
+
+        MappedSegment(MappedByteBuffer mappedBuffer) {
+            super(UnpooledByteBufAllocator.DEFAULT, mappedBuffer, mappedBuffer.capacity());
+            this.mappedBuffer = mappedBuffer;
+        }
+
+        @Override
+        protected void deallocate() {
+            super.deallocate();
+            PlatformDependent.freeDirectBuffer(mappedBuffer);
+            mappedSegments.decrementAndGet();
+        }
+    }
+
+    /**
+     * Marks content held in the spill file.
+     */
+    private interface SpilledContent {
+    }
+
+    private static class SpilledHttpContent extends DefaultHttpContent implements SpilledContent {
+
+        SpilledHttpContent(ByteBuf content) {
+            super(content);
+        }
+    }
+
+    private static class SpilledLastHttpContent extends DefaultLastHttpContent implements SpilledContent {
+
+        SpilledLastHttpContent(ByteBuf content, HttpHeaders trailingHeaders) {
+            super(content);
+            trailingHeaders().set(trailingHeaders);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.sender;
+
+/**
+ * User event fired on a target channel when a deadline of the request in flight passes.
+ *
+ * @see EndpointTimeoutHandler
+ */
+public enum EndpointTimeoutEvent {
+    /**
+     * No response was read from the endpoint within the read timeout, either after the request was written or
+     * between the reads of the response.
+     */
+    READ_TIMEOUT,
+    /**
+     * The request could not be written to the endpoint within the write timeout between the writes.
+     */
+    WRITE_TIMEOUT,
+    /**
+     * The exchange did not complete within the total timeout.
+     */
+    TOTAL_TIMEOUT
+}
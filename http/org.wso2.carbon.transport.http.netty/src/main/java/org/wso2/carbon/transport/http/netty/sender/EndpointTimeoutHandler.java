@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.sender;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the deadlines of the request in flight on a target channel with a hashed wheel timer shared by the
+ * transport.
+ * <p>
+ * The handler stays in the pipeline for the life time of the channel and is armed for each request, instead of an
+ * {@link io.netty.handler.timeout.IdleStateHandler} being added and removed per request. While the request is written
+ * the write timeout bounds the time between the writes. Once it is written, the read timeout bounds the time to the
+ * first byte of the response and between the reads after that, and the total timeout bounds the whole exchange.
+ * Reads and writes only record the time; the single wheel timeout of the channel is moved forward when it expires
+ * before the deadline. An {@link EndpointTimeoutEvent} is fired to the next handlers when a deadline passes.
+ */
+public class EndpointTimeoutHandler extends ChannelDuplexHandler implements TimerTask {
+
+    private static final Timer TIMER = new HashedWheelTimer(new DefaultThreadFactory("endpoint-timeout", true),
+            Constants.ENDPOINT_TIMEOUT_TICK_DURATION, TimeUnit.MILLISECONDS);
+
+    private ChannelHandlerContext ctx;
+    private long readTimeoutNanos;
+    private long writeTimeoutNanos;
+    private long totalTimeoutNanos;
+    private long checkIntervalNanos;
+    private long startTime;
+    private long lastReadTime;
+    private long lastWriteTime;
+    private boolean writing;
+    private Timeout timeout;
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        cancel();
+    }
+
+    /**
+     * Arm the timeouts for a request, unless they are already armed for an earlier request which is in flight on
+     * the channel. Must be called on the event loop of the channel.
+     *
+     * @param readTimeout  read timeout in milliseconds, zero or less to disable.
+     * @param writeTimeout write timeout in milliseconds, zero or less to disable.
+     * @param totalTimeout total timeout in milliseconds, zero or less to disable.
+     */
+    public void start(int readTimeout, int writeTimeout, int totalTimeout) {
+        if (timeout != null) {
+            return;
+        }
+        readTimeoutNanos = toNanos(readTimeout);
+        writeTimeoutNanos = toNanos(writeTimeout);
+        totalTimeoutNanos = toNanos(totalTimeout);
+        checkIntervalNanos = Math.min(Math.min(readTimeoutNanos, writeTimeoutNanos), totalTimeoutNanos);
+        if (checkIntervalNanos == Long.MAX_VALUE) {
+            return;
+        }
+        long now = System.nanoTime();
+        startTime = now;
+        lastReadTime = now;
+        lastWriteTime = now;
+        writing = true;
+        timeout = TIMER.newTimeout(this, checkIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Start the total timeout over for the next pipelined request, once the response of the previous one is read.
+     */
+    public void restart() {
+        if (timeout != null) {
+            startTime = System.nanoTime();
+            lastReadTime = startTime;
+        }
+    }
+
+    /**
+     * Disarm the timeouts once the response is read. This is a no-op when they are not armed.
+     */
+    public void cancel() {
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (timeout != null) {
+            lastReadTime = System.nanoTime();
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (timeout != null) {
+            lastWriteTime = System.nanoTime();
+            if (msg instanceof LastHttpContent) {
+                // The time to the first byte of the response starts now
+                writing = false;
+                lastReadTime = lastWriteTime;
+            }
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        cancel();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void run(Timeout expired) {
+        // Runs on the thread of the wheel, hence the deadlines are checked on the event loop
+        ctx.executor().execute(() -> expire(expired));
+    }
+
+    private void expire(Timeout expired) {
+        if (expired != timeout) {
+            // Cancelled or armed again after the timeout has expired
+            return;
+        }
+        long now = System.nanoTime();
+        long next = checkIntervalNanos;
+        EndpointTimeoutEvent event = null;
+        long idleTimeoutNanos = writing ? writeTimeoutNanos : readTimeoutNanos;
+        if (idleTimeoutNanos != Long.MAX_VALUE) {
+            long remaining = (writing ? lastWriteTime : lastReadTime) + idleTimeoutNanos - now;
+            if (remaining <= 0) {
+                event = writing ? EndpointTimeoutEvent.WRITE_TIMEOUT : EndpointTimeoutEvent.READ_TIMEOUT;
+            } else {
+                next = Math.min(next, remaining);
+            }
+        }
+        if (totalTimeoutNanos != Long.MAX_VALUE) {
+            long remaining = startTime + totalTimeoutNanos - now;
+            if (remaining <= 0) {
+                event = EndpointTimeoutEvent.TOTAL_TIMEOUT;
+            } else {
+                next = Math.min(next, remaining);
+            }
+        }
+
+        if (event != null) {
+            timeout = null;
+            ctx.fireUserEventTriggered(event);
+        } else {
+            timeout = TIMER.newTimeout(this, next, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static long toNanos(int timeoutMillis) {
+        return timeoutMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : Long.MAX_VALUE;
+    }
+}
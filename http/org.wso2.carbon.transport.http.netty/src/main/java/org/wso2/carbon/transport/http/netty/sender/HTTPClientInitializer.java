@@ -25,10 +25,13 @@ import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.BackPressureHandler;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
+import org.wso2.carbon.transport.http.netty.common.metrics.MetricsHandler;
 import org.wso2.carbon.transport.http.netty.listener.CustomHttpContentCompressor;
 import org.wso2.carbon.transport.http.netty.listener.HTTPTraceLoggingHandler;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
 
 import javax.net.ssl.SSLEngine;
 
@@ -41,14 +44,25 @@ public class HTTPClientInitializer extends ChannelInitializer<SocketChannel> {
 
     private SSLEngine sslEngine;
     private TargetHandler handler;
+    private EndpointTimeoutHandler endpointTimeoutHandler;
     private boolean httpTraceLogEnabled;
     private boolean followRedirect;
     private int maxRedirectCount;
     private boolean chunkDisabled;
     private ProxyServerConfiguration proxyServerConfiguration;
+    private MetricsHandler metricsHandler;
+    private EntityCollectorFactory entityCollectorFactory;
 
     public HTTPClientInitializer(SSLEngine sslEngine, boolean httpTraceLogEnabled, boolean chunkDisabled
             , boolean followRedirect, int maxRedirectCount, ProxyServerConfiguration proxyServerConfiguration) {
+        this(sslEngine, httpTraceLogEnabled, chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration,
+                EntityCollectorFactory.forClient());
+    }
+
+    public HTTPClientInitializer(SSLEngine sslEngine, boolean httpTraceLogEnabled, boolean chunkDisabled
+            , boolean followRedirect, int maxRedirectCount, ProxyServerConfiguration proxyServerConfiguration
+            , EntityCollectorFactory entityCollectorFactory) {
+        this.entityCollectorFactory = entityCollectorFactory;
         this.sslEngine = sslEngine;
         this.httpTraceLogEnabled = httpTraceLogEnabled;
         this.followRedirect = followRedirect;
@@ -80,11 +94,17 @@ public class HTTPClientInitializer extends ChannelInitializer<SocketChannel> {
         ch.pipeline().addLast("compressor", new CustomHttpContentCompressor(chunkDisabled));
         ch.pipeline().addLast("decoder", new HttpResponseDecoder());
         ch.pipeline().addLast("encoder", new HttpRequestEncoder());
+        if (metricsHandler != null) {
+            ch.pipeline().addLast(Constants.METRICS_HANDLER, metricsHandler);
+        }
         ch.pipeline().addLast("chunkWriter", new ChunkedWriteHandler());
+        ch.pipeline().addLast(Constants.BACK_PRESSURE_HANDLER, new BackPressureHandler());
         if (httpTraceLogEnabled) {
             ch.pipeline().addLast(Constants.HTTP_TRACE_LOG_HANDLER,
                                   new HTTPTraceLoggingHandler("tracelog.http.upstream", LogLevel.DEBUG));
         }
+        endpointTimeoutHandler = new EndpointTimeoutHandler();
+        ch.pipeline().addLast(Constants.ENDPOINT_TIMEOUT_HANDLER, endpointTimeoutHandler);
         if (followRedirect) {
             if (log.isDebugEnabled()) {
                 log.debug("Follow Redirect is enabled, so adding the redirect handler to the pipeline.");
@@ -93,11 +113,19 @@ public class HTTPClientInitializer extends ChannelInitializer<SocketChannel> {
                     , chunkDisabled);
             ch.pipeline().addLast(Constants.REDIRECT_HANDLER, redirectHandler);
         }
-        handler = new TargetHandler();
+        handler = new TargetHandler(entityCollectorFactory);
         ch.pipeline().addLast(Constants.TARGET_HANDLER, handler);
     }
 
     public TargetHandler getTargetHandler() {
         return handler;
     }
+
+    public EndpointTimeoutHandler getEndpointTimeoutHandler() {
+        return endpointTimeoutHandler;
+    }
+
+    public void setMetricsHandler(MetricsHandler metricsHandler) {
+        this.metricsHandler = metricsHandler;
+    }
 }
@@ -42,17 +42,14 @@ public class RedirectChannelInitializer extends ChannelInitializer<SocketChannel
     private int maxRedirectCount;
     private boolean chunkDisabled;
     private ChannelHandlerContext originalChannelContext;
-    private boolean isIdleHandlerOfTargetChannelRemoved;
 
     public RedirectChannelInitializer(SSLEngine sslEngine, boolean httpTraceLogEnabled, int maxRedirectCount
-            , boolean chunkDisabled, ChannelHandlerContext originalChannelContext
-            , boolean isIdleHandlerOfTargetChannelRemoved) {
+            , boolean chunkDisabled, ChannelHandlerContext originalChannelContext) {
         this.sslEngine = sslEngine;
         this.httpTraceLogEnabled = httpTraceLogEnabled;
         this.maxRedirectCount = maxRedirectCount;
         this.chunkDisabled = chunkDisabled;
         this.originalChannelContext = originalChannelContext;
-        this.isIdleHandlerOfTargetChannelRemoved = isIdleHandlerOfTargetChannelRemoved;
     }
 
     @Override
@@ -72,8 +69,9 @@ public class RedirectChannelInitializer extends ChannelInitializer<SocketChannel
             ch.pipeline().addLast(Constants.HTTP_TRACE_LOG_HANDLER,
                     new HTTPTraceLoggingHandler("tracelog.http.upstream", LogLevel.DEBUG));
         }
+        ch.pipeline().addLast(Constants.ENDPOINT_TIMEOUT_HANDLER, new EndpointTimeoutHandler());
         RedirectHandler redirectHandler = new RedirectHandler(sslEngine, httpTraceLogEnabled, maxRedirectCount
-                , chunkDisabled, originalChannelContext, isIdleHandlerOfTargetChannelRemoved);
+                , chunkDisabled, originalChannelContext);
         ch.pipeline().addLast(Constants.REDIRECT_HANDLER, redirectHandler);
     }
 
@@ -22,7 +22,6 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
@@ -32,27 +31,25 @@ import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
-import io.netty.handler.timeout.IdleState;
-import io.netty.handler.timeout.IdleStateEvent;
-import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.EventLoopUtil;
 import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.contract.HttpResponseFuture;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetAddressResolver;
 import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
 import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
 
 import java.io.UnsupportedEncodingException;
-import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 import javax.net.ssl.SSLEngine;
 
 /**
@@ -72,7 +69,8 @@ public class RedirectHandler extends ChannelInboundHandlerAdapter {
     private boolean chunkDisabled;
     private HTTPCarbonMessage targetRespMsg;
     private ChannelHandlerContext originalChannelContext;
-    private boolean isIdleHandlerOfTargetChannelRemoved = false;
+    // Redirects are rare, so the factory is resolved per connection rather than passed down from the pool
+    private final EntityCollectorFactory entityCollectorFactory = EntityCollectorFactory.forClient();
 
     public RedirectHandler(SSLEngine sslEngine, boolean httpTraceLogEnabled, int maxRedirectCount
             , boolean chunkDisabled) {
@@ -83,14 +81,12 @@ public class RedirectHandler extends ChannelInboundHandlerAdapter {
     }
 
     public RedirectHandler(SSLEngine sslEngine, boolean httpTraceLogEnabled, int maxRedirectCount
-            , boolean chunkDisabled, ChannelHandlerContext originalChannelContext
-            , boolean isIdleHandlerOfTargetChannelRemoved) {
+            , boolean chunkDisabled, ChannelHandlerContext originalChannelContext) {
         this.sslEngine = sslEngine;
         this.httpTraceLogEnabled = httpTraceLogEnabled;
         this.maxRedirectCount = maxRedirectCount;
         this.chunkDisabled = chunkDisabled;
         this.originalChannelContext = originalChannelContext;
-        this.isIdleHandlerOfTargetChannelRemoved = isIdleHandlerOfTargetChannelRemoved;
     }
 
     @Override
@@ -154,23 +150,19 @@ public class RedirectHandler extends ChannelInboundHandlerAdapter {
      */
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
-        if (evt instanceof IdleStateEvent) {
-            IdleStateEvent event = (IdleStateEvent) evt;
-            if (event.state() == IdleState.READER_IDLE || event.state() == IdleState.WRITER_IDLE) {
-                if (originalChannelContext == null) {
-                    originalChannelContext = ctx;
-                }
-                if (ctx == originalChannelContext) {
-                    originalChannelContext.fireUserEventTriggered(evt);
-                    isIdleHandlerOfTargetChannelRemoved = true;
-                } else {
-                    sendTimeoutError(ctx);
-                }
-                /*Once a timeout occurs after sending the response, close the channel, otherwise we will still be
-                 getting response data  after the timeout, if backend sends data. */
-                if (ctx != originalChannelContext) {
-                    ctx.close();
-                }
+        if (evt instanceof EndpointTimeoutEvent) {
+            if (originalChannelContext == null) {
+                originalChannelContext = ctx;
+            }
+            if (ctx == originalChannelContext) {
+                originalChannelContext.fireUserEventTriggered(evt);
+            } else {
+                sendTimeoutError(ctx);
+            }
+            /*Once a timeout occurs after sending the response, close the channel, otherwise we will still be
+             getting response data  after the timeout, if backend sends data. */
+            if (ctx != originalChannelContext) {
+                ctx.close();
             }
         }
     }
@@ -339,12 +331,7 @@ public class RedirectHandler extends ChannelInboundHandlerAdapter {
             }
             Util.resetChannelAttributes(ctx);
             Util.resetChannelAttributes(originalChannelContext);
-            if (!isIdleHandlerOfTargetChannelRemoved) {
-                if (targetChannel.getChannel().isActive()) {
-                    targetChannel.getChannel().pipeline().remove(Constants.IDLE_STATE_HANDLER);
-                    isIdleHandlerOfTargetChannelRemoved = true;
-                }
-            }
+            targetChannel.cancelEndPointTimeout();
             ConnectionManager.getInstance().returnChannel(targetChannel);
             if (ctx != originalChannelContext) {
                 ctx.close();
@@ -598,7 +585,7 @@ public class RedirectHandler extends ChannelInboundHandlerAdapter {
 
         HttpMethod httpMethod = new HttpMethod(redirectState.get(Constants.HTTP_METHOD));
         HTTPCarbonMessage httpCarbonRequest = new HTTPCarbonMessage(
-                new DefaultHttpRequest(HttpVersion.HTTP_1_1, httpMethod, ""));
+                new DefaultHttpRequest(HttpVersion.HTTP_1_1, httpMethod, ""), entityCollectorFactory);
         httpCarbonRequest.setProperty(Constants.PORT,
                 locationUrl.getPort() != -1 ? locationUrl.getPort() : getDefaultPort(locationUrl.getProtocol()));
         httpCarbonRequest.setProperty(Constants.PROTOCOL, locationUrl.getProtocol());
@@ -624,7 +611,7 @@ public class RedirectHandler extends ChannelInboundHandlerAdapter {
      * @return HTTPCarbonMessage
      */
     private HTTPCarbonMessage setUpCarbonResponseMessage(Object msg) {
-        targetRespMsg = new HTTPCarbonMessage((HttpMessage) msg);
+        targetRespMsg = new HTTPCarbonMessage((HttpMessage) msg, entityCollectorFactory);
         targetRespMsg.setProperty(org.wso2.carbon.messaging.Constants.DIRECTION,
                 org.wso2.carbon.messaging.Constants.DIRECTION_RESPONSE);
         HttpResponse httpResponse = (HttpResponse) msg;
@@ -662,12 +649,13 @@ public class RedirectHandler extends ChannelInboundHandlerAdapter {
             HTTPCarbonMessage httpCarbonRequest, HttpRequest httpRequest) {
         EventLoopGroup group = channelHandlerContext.channel().eventLoop();
         Bootstrap clientBootstrap = new Bootstrap();
-        clientBootstrap.group(group).channel(NioSocketChannel.class).remoteAddress(
-                new InetSocketAddress(redirectUrl.getHost(), redirectUrl.getPort() != -1 ?
+        clientBootstrap.group(group).channel(EventLoopUtil.getSocketChannelClass(group))
+                .resolver(TargetAddressResolver.getResolverGroup(null)).remoteAddress(
+                TargetAddressResolver.getAddress(redirectUrl.getHost(), redirectUrl.getPort() != -1 ?
                         redirectUrl.getPort() :
                         getDefaultPort(redirectUrl.getProtocol()))).handler(
                 new RedirectChannelInitializer(sslEngine, httpTraceLogEnabled, maxRedirectCount, chunkDisabled
-                        , originalChannelContext, isIdleHandlerOfTargetChannelRemoved));
+                        , originalChannelContext));
         clientBootstrap.option(ChannelOption.SO_KEEPALIVE, true).option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 15000);
         ChannelFuture channelFuture = clientBootstrap.connect();
         registerListener(channelHandlerContext, channelFuture, httpCarbonRequest, httpRequest);
@@ -702,9 +690,10 @@ public class RedirectHandler extends ChannelInboundHandlerAdapter {
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Remaining time for redirection is : " + remainingTimeForRedirection);
                     }
-                    future.channel().pipeline().addBefore(Constants.REDIRECT_HANDLER, Constants.IDLE_STATE_HANDLER,
-                            new IdleStateHandler(remainingTimeForRedirection, remainingTimeForRedirection, 0,
-                                    TimeUnit.MILLISECONDS));
+                    // An exhausted timeout of the original request times the redirect out right away
+                    int redirectTimeout = (int) Math.max(1, remainingTimeForRedirection);
+                    ((EndpointTimeoutHandler) future.channel().pipeline().get(Constants.ENDPOINT_TIMEOUT_HANDLER))
+                            .start(redirectTimeout, redirectTimeout, 0);
                     future.channel().write(httpRequest);
                     future.channel().writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
                     /* if the previous channel is not original channel, closes it after sending the request through
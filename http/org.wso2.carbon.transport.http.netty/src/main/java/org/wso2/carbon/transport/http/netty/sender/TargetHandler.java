@@ -16,11 +16,10 @@ package org.wso2.carbon.transport.http.netty.sender;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
-import io.netty.handler.timeout.IdleState;
-import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,17 +29,20 @@ import org.wso2.carbon.transport.http.netty.contract.ClientConnectorException;
 import org.wso2.carbon.transport.http.netty.contract.HttpResponseFuture;
 import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
 import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
 import org.wso2.carbon.transport.http.netty.message.HttpCarbonResponse;
 import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
 import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
 
+import java.util.ArrayDeque;
+import java.util.Queue;
+
 /**
  * A class responsible for handling responses coming from BE.
  *
- * Timer tasks in IdleStateHandler (parent of ReadTimeoutHandler) is not working properly with overridden methods which
- * causes timeout issues when TargetHandler is re-used from the ConnectionManager.
- *
+ * Timeouts of the requests are tracked by the {@link EndpointTimeoutHandler} of the channel, which notifies this
+ * handler with an {@link EndpointTimeoutEvent}.
  */
 public class TargetHandler extends ChannelInboundHandlerAdapter {
     private static final Logger LOG = LoggerFactory.getLogger(TargetHandler.class);
@@ -51,11 +53,25 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
     private TargetChannel targetChannel;
     private HTTPCarbonMessage incomingMsg;
     private HandlerExecutor handlerExecutor;
+    private final Queue<PipelinedRequest> pipelinedRequests = new ArrayDeque<>();
+    private final EntityCollectorFactory entityCollectorFactory;
+
+    public TargetHandler() {
+        this(EntityCollectorFactory.forClient());
+    }
+
+    /**
+     * @param entityCollectorFactory factory of the entity collectors of the responses, resolved once for the pool the
+     *                               connection belongs to.
+     */
+    public TargetHandler(EntityCollectorFactory entityCollectorFactory) {
+        this.entityCollectorFactory = entityCollectorFactory;
+    }
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
-        if (handlerExecutor != null) {
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
             handlerExecutor.executeAtTargetConnectionInitiation(Integer.toString(ctx.hashCode()));
         }
 
@@ -69,7 +85,7 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
             if (msg instanceof HttpResponse) {
                 targetRespMsg = setUpCarbonMessage(ctx, msg);
                 // TODO: Revisit all of these after the refactor
-                if (handlerExecutor != null) {
+                if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
                     handlerExecutor.executeAtTargetResponseReceiving(targetRespMsg);
                 }
                 if (this.httpResponseFuture != null) {
@@ -86,12 +102,22 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
                     HttpContent httpContent = (HttpContent) msg;
                     targetRespMsg.addHttpContent(httpContent);
                     if (Util.isLastHttpContent(httpContent)) {
-                        if (handlerExecutor != null) {
+                        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
                             handlerExecutor.executeAtTargetResponseSending(targetRespMsg);
                         }
-                        targetChannel.getChannel().pipeline().remove(Constants.IDLE_STATE_HANDLER);
+                        PipelinedRequest nextRequest = pipelinedRequests.poll();
+                        if (nextRequest != null) {
+                            httpResponseFuture = nextRequest.httpResponseFuture;
+                            incomingMsg = nextRequest.incomingMsg;
+                            targetChannel.restartEndPointTimeout();
+                        } else {
+                            targetChannel.cancelEndPointTimeout();
+                        }
+                        targetRespMsg = null;
                         connectionManager.returnChannel(targetChannel);
                     }
+                } else {
+                    ReferenceCountUtil.release(msg);
                 }
             }
         } else {
@@ -103,7 +129,8 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
     }
 
     private HTTPCarbonMessage setUpCarbonMessage(ChannelHandlerContext ctx, Object msg) {
-        targetRespMsg = new HttpCarbonResponse((HttpResponse) msg);
+        targetRespMsg = new HttpCarbonResponse((HttpResponse) msg, entityCollectorFactory);
+        targetRespMsg.setContentChannel(ctx.channel());
 
         targetRespMsg.setProperty(org.wso2.carbon.messaging.Constants.DIRECTION,
                 org.wso2.carbon.messaging.Constants.DIRECTION_RESPONSE);
@@ -116,7 +143,7 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
                 .getProperty(Constants.EXECUTOR_WORKER_POOL));
         //TODO copy mandatory properties from previous message if needed
 
-        if (handlerExecutor != null) {
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
             handlerExecutor.executeAtTargetResponseReceiving(targetRespMsg);
         }
 
@@ -129,14 +156,35 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
             LOG.debug("Channel " + ctx.channel().id() + " gets inactive so closing it from Target handler.");
         }
         ctx.close();
-        connectionManager.invalidateTargetChannel(targetChannel);
+        if (connectionManager != null) {
+            connectionManager.invalidateTargetChannel(targetChannel);
+        }
+        failPipelinedRequests(new ClientConnectorException("Connection closed before receiving the response",
+                HttpResponseStatus.BAD_GATEWAY.code()));
 
-        if (handlerExecutor != null) {
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
             handlerExecutor.executeAtTargetConnectionTermination(Integer.toString(ctx.hashCode()));
             handlerExecutor = null;
         }
     }
 
+    /**
+     * Queue a request which is written while the responses of earlier requests on the connection are pending.
+     *
+     * @param incomingMsg        the pipelined request.
+     * @param httpResponseFuture the future to notify with the response of the request.
+     */
+    public void addPipelinedRequest(HTTPCarbonMessage incomingMsg, HttpResponseFuture httpResponseFuture) {
+        pipelinedRequests.add(new PipelinedRequest(incomingMsg, httpResponseFuture));
+    }
+
+    private void failPipelinedRequests(ClientConnectorException cause) {
+        PipelinedRequest pipelinedRequest;
+        while ((pipelinedRequest = pipelinedRequests.poll()) != null) {
+            pipelinedRequest.httpResponseFuture.notifyHttpListener(cause);
+        }
+    }
+
     public void setHttpResponseFuture(HttpResponseFuture httpResponseFuture) {
         this.httpResponseFuture = httpResponseFuture;
     }
@@ -171,17 +219,39 @@ public class TargetHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
-        if (evt instanceof IdleStateEvent) {
-            IdleStateEvent event = (IdleStateEvent) evt;
-            if (event.state() == IdleState.READER_IDLE || event.state() == IdleState.WRITER_IDLE) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Timeout occurred in Targethandler. Channel ID : " + ctx.channel().id());
-                }
-                targetChannel.getChannel().pipeline().remove(Constants.IDLE_STATE_HANDLER);
-                targetChannel.setRequestWritten(false);
-                httpResponseFuture.notifyHttpListener(new ClientConnectorException(
-                        HttpResponseStatus.GATEWAY_TIMEOUT.reasonPhrase(), HttpResponseStatus.GATEWAY_TIMEOUT.code()));
+        if (evt instanceof EndpointTimeoutEvent) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(evt + " occurred in Targethandler. Channel ID : " + ctx.channel().id());
+            }
+            targetChannel.setRequestWritten(false);
+            ClientConnectorException timeout = new ClientConnectorException(
+                    HttpResponseStatus.GATEWAY_TIMEOUT.reasonPhrase(), HttpResponseStatus.GATEWAY_TIMEOUT.code());
+            if (targetRespMsg != null) {
+                // The response is already notified, hence end its entity rather than notifying the timeout again
+                targetRespMsg.addHttpContent(new DefaultLastHttpContent());
+                targetRespMsg = null;
+            } else {
+                httpResponseFuture.notifyHttpListener(timeout);
             }
+            // Responses of the pipelined requests can no longer be correlated
+            failPipelinedRequests(timeout);
+            // The channel cannot be reused as a late response may still arrive, closing it invalidates the channel in
+            // its pool from channelInactive
+            ctx.close();
+        }
+    }
+
+    /**
+     * A request waiting for its response behind the responses of earlier requests.
+     */
+    private static class PipelinedRequest {
+
+        private final HTTPCarbonMessage incomingMsg;
+        private final HttpResponseFuture httpResponseFuture;
+
+        PipelinedRequest(HTTPCarbonMessage incomingMsg, HttpResponseFuture httpResponseFuture) {
+            this.incomingMsg = incomingMsg;
+            this.httpResponseFuture = httpResponseFuture;
         }
     }
 }
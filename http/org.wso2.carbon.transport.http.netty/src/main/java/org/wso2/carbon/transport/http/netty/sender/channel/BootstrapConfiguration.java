@@ -31,9 +31,9 @@ public class BootstrapConfiguration {
 
     private static BootstrapConfiguration bootstrapConfig;
 
-    private boolean tcpNoDelay, keepAlive, socketReuse;
+    private boolean tcpNoDelay, keepAlive, socketReuse, nativeTransport, nonBlockingEntityCollector;
 
-    private int connectTimeOut, receiveBufferSize, sendBufferSize, socketTimeout;
+    private int connectTimeOut, receiveBufferSize, sendBufferSize, socketTimeout, entitySpillThreshold;
 
     private BootstrapConfiguration(Map<String, Object> properties) {
 
@@ -57,6 +57,14 @@ public class BootstrapConfiguration {
         socketReuse = Util.getBooleanProperty(
                 properties, Constants.CLIENT_BOOTSTRAP_SO_REUSE, false);
 
+        nativeTransport = Util.getBooleanProperty(
+                properties, Constants.NATIVE_TRANSPORT_ENABLED, Constants.DEFAULT_NATIVE_TRANSPORT_ENABLED);
+
+        entitySpillThreshold = Util.getIntProperty(properties, Constants.ENTITY_SPILL_THRESHOLD, 0);
+
+        nonBlockingEntityCollector = Util.getBooleanProperty(
+                properties, Constants.ENTITY_COLLECTOR_NON_BLOCKING, false);
+
         logger.debug(Constants.CLIENT_BOOTSTRAP_TCP_NO_DELY + ": " + tcpNoDelay);
         logger.debug(Constants.CLIENT_BOOTSTRAP_CONNECT_TIME_OUT + ":" + connectTimeOut);
         logger.debug(Constants.CLIENT_BOOTSTRAP_RECEIVE_BUFFER_SIZE + ":" + receiveBufferSize);
@@ -64,6 +72,9 @@ public class BootstrapConfiguration {
         logger.debug(Constants.CLIENT_BOOTSTRAP_SO_TIMEOUT + ":" + socketTimeout);
         logger.debug(Constants.CLIENT_BOOTSTRAP_KEEPALIVE + ":" + keepAlive);
         logger.debug(Constants.CLIENT_BOOTSTRAP_SO_REUSE + ":" + socketReuse);
+        logger.debug(Constants.NATIVE_TRANSPORT_ENABLED + ":" + nativeTransport);
+        logger.debug(Constants.ENTITY_SPILL_THRESHOLD + ":" + entitySpillThreshold);
+        logger.debug(Constants.ENTITY_COLLECTOR_NON_BLOCKING + ":" + nonBlockingEntityCollector);
     }
 
     public boolean isTcpNoDelay() {
@@ -90,10 +101,22 @@ public class BootstrapConfiguration {
         return socketReuse;
     }
 
+    public boolean isNativeTransport() {
+        return nativeTransport;
+    }
+
     public int getSocketTimeout() {
         return socketTimeout;
     }
 
+    public int getEntitySpillThreshold() {
+        return entitySpillThreshold;
+    }
+
+    public boolean isNonBlockingEntityCollector() {
+        return nonBlockingEntityCollector;
+    }
+
     public static BootstrapConfiguration getInstance() {
         return bootstrapConfig;
     }
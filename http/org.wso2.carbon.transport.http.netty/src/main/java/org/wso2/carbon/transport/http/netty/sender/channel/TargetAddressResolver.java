@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.sender.channel;
+
+import io.netty.channel.ChannelFactory;
+import io.netty.channel.EventLoop;
+import io.netty.channel.ReflectiveChannelFactory;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.DefaultAddressResolverGroup;
+import io.netty.resolver.NameResolver;
+import io.netty.resolver.NoopAddressResolverGroup;
+import io.netty.resolver.RoundRobinInetAddressResolver;
+import io.netty.resolver.dns.DefaultDnsCache;
+import io.netty.resolver.dns.DnsAddressResolverGroup;
+import io.netty.resolver.dns.DnsCache;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.DnsServerAddressStreamProvider;
+import io.netty.resolver.dns.DnsServerAddressStreamProviders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.EventLoopUtil;
+import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
+import org.wso2.carbon.transport.http.netty.config.SenderConfiguration;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * Resolves the host names of the targets the transport connects to.
+ * <p>
+ * The resolver is shared by all the client connectors and is configured by the first one created, in the same way
+ * as the connection pools. By default the names are resolved with the non blocking DNS resolver of netty on the event
+ * loop of the connection, and the records are cached across the event loops for their TTL within the configured
+ * bounds. Failed lookups are cached as well, and connections are spread over all the addresses of a name.
+ */
+public class TargetAddressResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(TargetAddressResolver.class);
+
+    private static volatile AddressResolverGroup<InetSocketAddress> resolverGroup;
+
+    private TargetAddressResolver() {
+    }
+
+    /**
+     * Create the shared resolver with the DNS settings of the given sender configuration, unless it is already
+     * created.
+     *
+     * @param senderConfiguration the sender configuration of the client connector.
+     */
+    public static void init(SenderConfiguration senderConfiguration) {
+        if (resolverGroup == null) {
+            synchronized (TargetAddressResolver.class) {
+                if (resolverGroup == null) {
+                    resolverGroup = createResolverGroup(senderConfiguration);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the resolver group to be set on the bootstrap of a target connection.
+     *
+     * @param proxyServerConfiguration the proxy the connection goes through, or null.
+     * @return the resolver group.
+     */
+    public static AddressResolverGroup<? extends SocketAddress> getResolverGroup(
+            ProxyServerConfiguration proxyServerConfiguration) {
+        if (proxyServerConfiguration != null) {
+            // The target is resolved by the proxy
+            return NoopAddressResolverGroup.INSTANCE;
+        }
+        init(SenderConfiguration.getDefault());
+        return resolverGroup;
+    }
+
+    /**
+     * Get the address of a target to connect to. The address is left unresolved, so that it is resolved with the
+     * resolver group of the bootstrap when the connection is made rather than on the calling thread.
+     *
+     * @param host the host name or address of the target.
+     * @param port the port of the target.
+     * @return the unresolved address.
+     */
+    public static InetSocketAddress getAddress(String host, int port) {
+        return InetSocketAddress.createUnresolved(host, port);
+    }
+
+    private static AddressResolverGroup<InetSocketAddress> createResolverGroup(
+            SenderConfiguration senderConfiguration) {
+        if (!senderConfiguration.isAsyncDnsResolution()) {
+            return DefaultAddressResolverGroup.INSTANCE;
+        }
+        DnsCache dnsCache = new DefaultDnsCache(senderConfiguration.getDnsCacheMinTtl(),
+                senderConfiguration.getDnsCacheMaxTtl(), senderConfiguration.getDnsCacheNegativeTtl());
+        if (log.isDebugEnabled()) {
+            log.debug("Resolving target hosts asynchronously with {}, query timeout: {}ms, round robin: {}",
+                    dnsCache, senderConfiguration.getDnsQueryTimeout(), senderConfiguration.isDnsRoundRobin());
+        }
+        return new CachingDnsAddressResolverGroup(dnsCache, senderConfiguration.getDnsQueryTimeout(),
+                senderConfiguration.isDnsRoundRobin());
+    }
+
+    /**
+     * DNS resolver group which shares one cache among the resolvers of the event loops, and creates the resolver of
+     * an event loop with the datagram channel of its transport.
+     */
+    private static class CachingDnsAddressResolverGroup extends DnsAddressResolverGroup {
+
+        private final DnsCache dnsCache;
+        private final long queryTimeoutMillis;
+        private final boolean roundRobin;
+
+        CachingDnsAddressResolverGroup(DnsCache dnsCache, long queryTimeoutMillis, boolean roundRobin) {
+            super(NioDatagramChannel.class, DnsServerAddressStreamProviders.platformDefault());
+            this.dnsCache = dnsCache;
+            this.queryTimeoutMillis = queryTimeoutMillis;
+            this.roundRobin = roundRobin;
+        }
+
+        @Override
+        protected NameResolver<InetAddress> newNameResolver(EventLoop eventLoop,
+                ChannelFactory<? extends DatagramChannel> channelFactory,
+                DnsServerAddressStreamProvider nameServerProvider) throws Exception {
+            return new DnsNameResolverBuilder(eventLoop)
+                    .channelFactory(new ReflectiveChannelFactory<>(EventLoopUtil.getDatagramChannelClass(eventLoop)))
+                    .nameServerProvider(nameServerProvider)
+                    .resolveCache(dnsCache)
+                    .queryTimeoutMillis(queryTimeoutMillis)
+                    .build();
+        }
+
+        @Override
+        protected AddressResolver<InetSocketAddress> newAddressResolver(EventLoop eventLoop,
+                NameResolver<InetAddress> resolver) throws Exception {
+            if (roundRobin) {
+                return new RoundRobinInetAddressResolver(eventLoop, resolver).asAddressResolver();
+            }
+            return super.newAddressResolver(eventLoop, resolver);
+        }
+    }
+}
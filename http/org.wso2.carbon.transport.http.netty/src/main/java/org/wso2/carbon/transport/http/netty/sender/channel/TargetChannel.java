@@ -18,11 +18,12 @@ package org.wso2.carbon.transport.http.netty.sender.channel;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpRequest;
-import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.messaging.exceptions.MessagingException;
+import org.wso2.carbon.transport.http.netty.common.BackPressureHandler;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.carbon.transport.http.netty.common.HttpRoute;
 import org.wso2.carbon.transport.http.netty.common.Util;
@@ -32,12 +33,15 @@ import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
 import org.wso2.carbon.transport.http.netty.listener.HTTPTraceLoggingHandler;
 import org.wso2.carbon.transport.http.netty.listener.SourceHandler;
 import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.MessageListener;
+import org.wso2.carbon.transport.http.netty.sender.EndpointTimeoutHandler;
 import org.wso2.carbon.transport.http.netty.sender.HTTPClientInitializer;
 import org.wso2.carbon.transport.http.netty.sender.TargetHandler;
 import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.EventLoopChannelPool;
+import org.wso2.carbon.transport.http.netty.sender.http2.HTTP2ClientInitializer;
 
 import java.util.Locale;
-import java.util.concurrent.TimeUnit;
 
 /**
  * A class that encapsulate channel and state.
@@ -49,6 +53,7 @@ public class TargetChannel {
     private Channel channel;
     private TargetHandler targetHandler;
     private HTTPClientInitializer httpClientInitializer;
+    private HTTP2ClientInitializer http2ClientInitializer;
     private HttpRoute httpRoute;
     private SourceHandler correlatedSource;
     private ChannelFuture channelFuture;
@@ -56,6 +61,11 @@ public class TargetChannel {
     private boolean isRequestWritten = false;
     private boolean chunkDisabled = false;
     private HandlerExecutor handlerExecutor;
+    private EventLoopChannelPool channelPool;
+    private long idleSince;
+    private int inFlightRequests;
+    private boolean pipelinable;
+    private boolean requestWriteCompleted = true;
 
     public TargetChannel(HTTPClientInitializer httpClientInitializer, ChannelFuture channelFuture) {
         this.httpClientInitializer = httpClientInitializer;
@@ -63,6 +73,12 @@ public class TargetChannel {
         this.handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
     }
 
+    public TargetChannel(HTTP2ClientInitializer http2ClientInitializer, ChannelFuture channelFuture) {
+        this.http2ClientInitializer = http2ClientInitializer;
+        this.channelFuture = channelFuture;
+        this.handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
+    }
+
     public Channel getChannel() {
         return channel;
     }
@@ -84,6 +100,17 @@ public class TargetChannel {
         return httpClientInitializer;
     }
 
+    public HTTP2ClientInitializer getHTTP2ClientInitializer() {
+        return http2ClientInitializer;
+    }
+
+    /**
+     * @return true if requests are multiplexed as HTTP/2 streams over this channel.
+     */
+    public boolean isHttp2() {
+        return http2ClientInitializer != null;
+    }
+
     public HttpRoute getHttpRoute() {
         return httpRoute;
     }
@@ -115,16 +142,54 @@ public class TargetChannel {
     public void configTargetHandler(HTTPCarbonMessage httpCarbonMessage, HttpResponseFuture httpResponseFuture) {
         this.setTargetHandler(this.getHTTPClientInitializer().getTargetHandler());
         TargetHandler targetHandler = this.getTargetHandler();
-        targetHandler.setHttpResponseFuture(httpResponseFuture);
-        targetHandler.setIncomingMsg(httpCarbonMessage);
+        if (inFlightRequests > 1) {
+            // Response of an earlier request is still pending, hence this request is pipelined behind it
+            targetHandler.addPipelinedRequest(httpCarbonMessage, httpResponseFuture);
+        } else {
+            targetHandler.setHttpResponseFuture(httpResponseFuture);
+            targetHandler.setIncomingMsg(httpCarbonMessage);
+        }
         this.getTargetHandler().setConnectionManager(connectionManager);
         targetHandler.setTargetChannel(this);
     }
 
-    public void setEndPointTimeout(int socketIdleTimeout, boolean followRedirect) {
-        this.getChannel().pipeline().addBefore((followRedirect ? Constants.REDIRECT_HANDLER : Constants.TARGET_HANDLER),
-                Constants.IDLE_STATE_HANDLER, new IdleStateHandler(socketIdleTimeout, socketIdleTimeout, 0,
-                        TimeUnit.MILLISECONDS));
+    /**
+     * Arm the timeouts of the endpoint for the request, unless they are already armed for an earlier pipelined
+     * request.
+     *
+     * @param readTimeout  read timeout in milliseconds
+     * @param writeTimeout write timeout in milliseconds
+     * @param totalTimeout total timeout in milliseconds, zero to disable
+     */
+    public void setEndPointTimeout(int readTimeout, int writeTimeout, int totalTimeout) {
+        EndpointTimeoutHandler endpointTimeoutHandler = getEndpointTimeoutHandler();
+        if (endpointTimeoutHandler != null) {
+            endpointTimeoutHandler.start(readTimeout, writeTimeout, totalTimeout);
+        }
+    }
+
+    /**
+     * Start the total timeout of the endpoint over for the next pipelined request.
+     */
+    public void restartEndPointTimeout() {
+        EndpointTimeoutHandler endpointTimeoutHandler = getEndpointTimeoutHandler();
+        if (endpointTimeoutHandler != null) {
+            endpointTimeoutHandler.restart();
+        }
+    }
+
+    /**
+     * Disarm the timeouts of the endpoint once no response is pending on the channel.
+     */
+    public void cancelEndPointTimeout() {
+        EndpointTimeoutHandler endpointTimeoutHandler = getEndpointTimeoutHandler();
+        if (endpointTimeoutHandler != null) {
+            endpointTimeoutHandler.cancel();
+        }
+    }
+
+    private EndpointTimeoutHandler getEndpointTimeoutHandler() {
+        return httpClientInitializer != null ? httpClientInitializer.getEndpointTimeoutHandler() : null;
     }
 
     public void setCorrelationIdForLogging() {
@@ -142,13 +207,61 @@ public class TargetChannel {
         this.connectionManager = connectionManager;
     }
 
+    public ConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
     public ChannelFuture getChannelFuture() {
         return channelFuture;
     }
 
+    public EventLoopChannelPool getChannelPool() {
+        return channelPool;
+    }
+
+    public void setChannelPool(EventLoopChannelPool channelPool) {
+        this.channelPool = channelPool;
+    }
+
+    public long getIdleSince() {
+        return idleSince;
+    }
+
+    public void setIdleSince(long idleSince) {
+        this.idleSince = idleSince;
+    }
+
+    public int getInFlightRequests() {
+        return inFlightRequests;
+    }
+
+    public void setInFlightRequests(int inFlightRequests) {
+        this.inFlightRequests = inFlightRequests;
+    }
+
+    public boolean isPipelinable() {
+        return pipelinable;
+    }
+
+    public void setPipelinable(boolean pipelinable) {
+        this.pipelinable = pipelinable;
+    }
+
+    /**
+     * @return true if the last request written to the channel is fully written, so that another request can be
+     * pipelined behind it without interleaving the content.
+     */
+    public boolean isRequestWriteCompleted() {
+        return requestWriteCompleted;
+    }
+
+    public void setRequestWriteCompleted(boolean requestWriteCompleted) {
+        this.requestWriteCompleted = requestWriteCompleted;
+    }
+
     public void writeContent(HTTPCarbonMessage httpCarbonRequest) {
         try {
-            if (handlerExecutor != null) {
+            if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
                 handlerExecutor.executeAtTargetRequestReceiving(httpCarbonRequest);
             }
             HttpRequest httpRequest = Util.createHttpRequest(httpCarbonRequest);
@@ -156,19 +269,17 @@ public class TargetChannel {
             this.setRequestWritten(true);
             this.getChannel().write(httpRequest);
 
-            httpCarbonRequest.getHttpContentAsync().setMessageListener(httpContent ->
-                    this.channel.eventLoop().execute(() -> {
-                if (Util.isLastHttpContent(httpContent)) {
-                    this.getChannel().writeAndFlush(httpContent);
-                    httpCarbonRequest.removeHttpContentAsyncFuture();
-
-                    if (handlerExecutor != null) {
-                        handlerExecutor.executeAtTargetRequestSending(httpCarbonRequest);
-                    }
+            MessageListener contentWriter = httpContent -> {
+                if (this.channel.eventLoop().inEventLoop()) {
+                    writeHttpContent(httpCarbonRequest, httpContent);
                 } else {
-                    this.getChannel().write(httpContent);
+                    this.channel.eventLoop().execute(() -> writeHttpContent(httpCarbonRequest, httpContent));
                 }
-            }));
+            };
+            // Content read from a source channel is spliced straight to this channel
+            if (!httpCarbonRequest.passthroughHttpContent(contentWriter)) {
+                httpCarbonRequest.getHttpContentAsync().setMessageListener(contentWriter);
+            }
         } catch (Exception e) {
             String msg;
             if (e instanceof NullPointerException) {
@@ -183,4 +294,19 @@ public class TargetChannel {
             this.targetHandler.getHttpResponseFuture().notifyHttpListener(httpCarbonRequest);
         }
     }
+
+    private void writeHttpContent(HTTPCarbonMessage httpCarbonRequest, HttpContent httpContent) {
+        if (Util.isLastHttpContent(httpContent)) {
+            this.getChannel().writeAndFlush(httpContent);
+            this.requestWriteCompleted = true;
+            httpCarbonRequest.removeHttpContentAsyncFuture();
+
+            if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+                handlerExecutor.executeAtTargetRequestSending(httpCarbonRequest);
+            }
+        } else {
+            this.getChannel().write(httpContent);
+        }
+        BackPressureHandler.pauseIfUnwritable(this.channel, httpCarbonRequest.getContentChannel());
+    }
 }
@@ -16,45 +16,85 @@
 package org.wso2.carbon.transport.http.netty.sender.channel.pool;
 
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
 import org.apache.commons.pool.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.EventLoopUtil;
 import org.wso2.carbon.transport.http.netty.common.HttpRoute;
 import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
 import org.wso2.carbon.transport.http.netty.common.Util;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
+import org.wso2.carbon.transport.http.netty.config.RouteConfiguration;
+import org.wso2.carbon.transport.http.netty.contract.ClientConnectorException;
 import org.wso2.carbon.transport.http.netty.listener.SourceHandler;
 import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * A class which handles connection pool management.
  */
 public class ConnectionManager {
 
+    private static final Logger log = LoggerFactory.getLogger(ConnectionManager.class);
+
+    private static final String POOL_MBEAN_DOMAIN = "org.wso2.carbon.transport.http";
+
     private EventLoopGroup clientEventGroup;
     private PoolConfiguration poolConfiguration;
     private PoolManagementPolicy poolManagementPolicy;
     private final Map<String, GenericObjectPool> connGlobalPool;
+    private final Map<HttpRoute, TargetChannelPool> routePools;
+    private final Map<HttpRoute, TargetChannelPool> http2RoutePools;
+    private final Map<String, ConnectionPoolMetrics> pooledRouteMetrics;
     private EventLoopGroup targetEventLoopGroup;
+    private ExecutorService borrowExecutor;
     private static volatile ConnectionManager connectionManager;
 
     private ConnectionManager(PoolConfiguration poolConfiguration, Map<String, Object> transportProperties) {
         this.poolConfiguration = poolConfiguration;
-        if (poolConfiguration.getNumberOfPools() == 1) {
-            this.poolManagementPolicy = PoolManagementPolicy.LOCK_DEFAULT_POOLING;
-        }
+        this.poolManagementPolicy = getPoolManagementPolicy(poolConfiguration);
         connGlobalPool = new ConcurrentHashMap<>();
-        clientEventGroup = new NioEventLoopGroup(
-                Util.getIntProperty(transportProperties, Constants.CLIENT_BOOTSTRAP_WORKER_GROUP_SIZE, 4));
-        targetEventLoopGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2);
+        routePools = new ConcurrentHashMap<>();
+        http2RoutePools = new ConcurrentHashMap<>();
+        pooledRouteMetrics = new ConcurrentHashMap<>();
+        boolean nativeTransport = Util.getBooleanProperty(transportProperties, Constants.NATIVE_TRANSPORT_ENABLED,
+                Constants.DEFAULT_NATIVE_TRANSPORT_ENABLED);
+        clientEventGroup = EventLoopUtil.createEventLoopGroup(
+                Util.getIntProperty(transportProperties, Constants.CLIENT_BOOTSTRAP_WORKER_GROUP_SIZE, 4),
+                nativeTransport);
+        targetEventLoopGroup = EventLoopUtil.createEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2,
+                nativeTransport);
+        if (poolManagementPolicy != PoolManagementPolicy.EVENT_LOOP_POOLING) {
+            borrowExecutor = Executors.newFixedThreadPool(poolConfiguration.getExecutorServiceThreads(),
+                    new DefaultThreadFactory("target-channel-borrow", true));
+        }
     }
 
-    private GenericObjectPool createPoolForRoute(PoolableTargetChannelFactory poolableTargetChannelFactory) {
+    private GenericObjectPool createPoolForRoute(PoolableTargetChannelFactory poolableTargetChannelFactory,
+            ConnectionPoolMetrics poolMetrics) {
+        poolableTargetChannelFactory.setPoolMetrics(poolMetrics);
         return new GenericObjectPool(poolableTargetChannelFactory, instantiateAndConfigureConfig());
     }
 
@@ -63,6 +103,24 @@ public class ConnectionManager {
                 instantiateAndConfigureConfig());
     }
 
+    private static PoolManagementPolicy getPoolManagementPolicy(PoolConfiguration poolConfiguration) {
+        if (poolConfiguration.getPoolManagementPolicy() != null) {
+            try {
+                return PoolManagementPolicy.valueOf(
+                        poolConfiguration.getPoolManagementPolicy().trim().toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown " + Constants.CONNECTION_POOL_MANAGEMENT_POLICY + " '"
+                        + poolConfiguration.getPoolManagementPolicy() + "', expected one of "
+                        + Arrays.toString(PoolManagementPolicy.values()) + ", using the default policy");
+            }
+        }
+        if (poolConfiguration.getNumberOfPools() == 1) {
+            return PoolManagementPolicy.LOCK_DEFAULT_POOLING;
+        }
+        // Event loop pooling keeps a pool per event loop, so it is opted in rather than changing connection counts
+        return PoolManagementPolicy.GLOBAL_POOLING;
+    }
+
     public static ConnectionManager getInstance() {
         return connectionManager;
     }
@@ -82,6 +140,185 @@ public class ConnectionManager {
         }
     }
 
+    /**
+     * Acquire a target channel without blocking the calling thread.
+     * <p>
+     * With {@link PoolManagementPolicy#EVENT_LOOP_POOLING} the channel is taken from the pool bound to the event loop
+     * of the incoming channel (or to one of the client event loops when there is no incoming channel), so that both
+     * sides of a passthrough are served by the same thread. When the pool is exhausted the acquire waits in a bounded
+     * queue and the future fails with a 503 {@link ClientConnectorException} if the queue is full or the wait times
+     * out.
+     * <p>
+     * The commons-pool based policies borrow the channel synchronously and a borrow blocks while the pool is
+     * exhausted. When called from any event loop, not only the one the channel is acquired for, the borrow is
+     * therefore run on a separate executor, sized by {@code sender.thread.count}, and the future is notified on the
+     * event loop.
+     *
+     * @param httpRoute           BE address
+     * @param sourceHandler       Incoming channel
+     * @param sslConfig           netty sender config
+     * @param httpTraceLogEnabled Indicates whether HTTP trace logs are enabled
+     * @param pipelinable         Indicates whether the request can be pipelined on a channel which is in use
+     * @return future which is notified with the target channel.
+     */
+    public Future<TargetChannel> acquireTargetChannel(HttpRoute httpRoute, SourceHandler sourceHandler,
+            SSLConfig sslConfig, boolean httpTraceLogEnabled, boolean chunkDisabled, boolean followRedirect,
+            int maxRedirectCount, ProxyServerConfiguration proxyServerConfiguration, boolean pipelinable) {
+        EventLoop eventLoop = getEventLoop(sourceHandler);
+
+        if (poolManagementPolicy != PoolManagementPolicy.EVENT_LOOP_POOLING) {
+            if (!eventLoop.inEventLoop() && !EventLoopUtil.isEventLoopThread()) {
+                return borrowTargetChannel(eventLoop, httpRoute, sourceHandler, sslConfig, httpTraceLogEnabled,
+                        chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration);
+            }
+            Promise<TargetChannel> promise = eventLoop.newPromise();
+            borrowExecutor.execute(() -> borrowTargetChannel(eventLoop, httpRoute, sourceHandler, sslConfig,
+                    httpTraceLogEnabled, chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration)
+                    .addListener(future -> {
+                        if (future.isSuccess()) {
+                            promise.trySuccess((TargetChannel) future.getNow());
+                        } else {
+                            promise.tryFailure(future.cause());
+                        }
+                    }));
+            return promise;
+        }
+
+        return getEventLoopPool(httpRoute, eventLoop, poolConfiguration.getMinIdlePerPool(), sslConfig,
+                httpTraceLogEnabled, chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration)
+                .acquire(pipelinable);
+    }
+
+    /**
+     * Connect the pools of the given routes ahead of the first request, so that the requests made right after a
+     * startup do not pay the connect latency. A pool is pre-warmed for every event loop of the given group, which is
+     * the group of the incoming channels, and of the client event loop group, as either may serve the route, so
+     * the minimum idle connections of a route are multiplied by the number of those event loops. The pools are kept
+     * at the minimum number of idle connections by their eviction task afterwards. Routes are only pre-warmed with
+     * {@link PoolManagementPolicy#EVENT_LOOP_POOLING}.
+     *
+     * @param routes                   the known backends.
+     * @param inboundEventLoopGroup    the event loop group of the incoming channels, may be null.
+     * @param sslConfig                netty sender config
+     * @param httpTraceLogEnabled      Indicates whether HTTP trace logs are enabled
+     * @param proxyServerConfiguration the proxy the backends are connected through, may be null.
+     */
+    public void prewarmRoutes(List<RouteConfiguration> routes, EventLoopGroup inboundEventLoopGroup,
+            SSLConfig sslConfig, boolean httpTraceLogEnabled, boolean chunkDisabled, boolean followRedirect,
+            int maxRedirectCount, ProxyServerConfiguration proxyServerConfiguration) {
+        if (routes == null || routes.isEmpty()) {
+            return;
+        }
+        if (poolManagementPolicy != PoolManagementPolicy.EVENT_LOOP_POOLING) {
+            log.warn("Routes are not pre-warmed with the " + poolManagementPolicy + " pool management policy");
+            return;
+        }
+        List<EventLoop> eventLoops = new ArrayList<>();
+        if (inboundEventLoopGroup != null) {
+            for (EventExecutor executor : inboundEventLoopGroup) {
+                eventLoops.add((EventLoop) executor);
+            }
+        }
+        for (EventExecutor executor : clientEventGroup) {
+            eventLoops.add((EventLoop) executor);
+        }
+
+        for (RouteConfiguration route : routes) {
+            HttpRoute httpRoute = new HttpRoute(route.getHost(), route.getPort());
+            int minIdle = route.getMinIdleConnections(Math.max(poolConfiguration.getMinIdlePerPool(), 1));
+            for (EventLoop eventLoop : eventLoops) {
+                getEventLoopPool(httpRoute, eventLoop, minIdle, sslConfig, httpTraceLogEnabled, chunkDisabled,
+                        followRedirect, maxRedirectCount, proxyServerConfiguration).prewarm();
+            }
+            log.info("Pre-warming " + minIdle * eventLoops.size() + " connections to " + httpRoute + ", "
+                    + minIdle + " for each of " + eventLoops.size() + " event loops");
+        }
+    }
+
+    /**
+     * Get the pool of the route bound to the given event loop, creating it if it does not exist yet. An existing
+     * pool keeps the minimum number of idle channels it was created with.
+     */
+    private EventLoopChannelPool getEventLoopPool(HttpRoute httpRoute, EventLoop eventLoop, int minIdle,
+            SSLConfig sslConfig, boolean httpTraceLogEnabled, boolean chunkDisabled, boolean followRedirect,
+            int maxRedirectCount, ProxyServerConfiguration proxyServerConfiguration) {
+        TargetChannelPool routePool = getRoutePool(routePools, httpRoute, ConnectionPoolMetrics.EVENT_LOOP_SCOPE);
+        EventLoopChannelPool channelPool = routePool.getEventLoopPool(eventLoop);
+        if (channelPool == null) {
+            PoolableTargetChannelFactory poolableTargetChannelFactory = new PoolableTargetChannelFactory(httpRoute,
+                    eventLoop, EventLoopUtil.getSocketChannelClass(eventLoop), sslConfig, httpTraceLogEnabled,
+                    chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration);
+            channelPool = routePool.addEventLoopPool(new EventLoopChannelPool(httpRoute, eventLoop,
+                    poolableTargetChannelFactory, poolConfiguration, minIdle, routePool.getPoolMetrics()));
+        }
+        return channelPool;
+    }
+
+    /**
+     * Acquire a HTTP/2 target channel without blocking the calling thread. Requests to the same route are multiplexed
+     * as streams over the HTTP/2 connections of the event loop pool, and a new connection is only opened when all the
+     * existing ones have reached the maximum number of concurrent streams. HTTP/2 connections are always pooled per
+     * event loop regardless of the pool management policy.
+     *
+     * @param httpRoute            BE address
+     * @param sourceHandler        Incoming channel
+     * @param sslConfig            netty sender config, h2 is negotiated with ALPN if present, otherwise h2c is used
+     * @param httpTraceLogEnabled  Indicates whether HTTP trace logs are enabled
+     * @param socketIdleTimeout    Idle timeout of a connection with in-flight streams
+     * @param maxConcurrentStreams Maximum number of concurrent streams per connection
+     * @return future which is notified with the target channel.
+     */
+    public Future<TargetChannel> acquireHttp2TargetChannel(HttpRoute httpRoute, SourceHandler sourceHandler,
+            SSLConfig sslConfig, boolean httpTraceLogEnabled, int socketIdleTimeout, int maxConcurrentStreams) {
+        EventLoop eventLoop = getEventLoop(sourceHandler);
+        TargetChannelPool routePool = getRoutePool(http2RoutePools, httpRoute, ConnectionPoolMetrics.HTTP2_SCOPE);
+        EventLoopChannelPool channelPool = routePool.getEventLoopPool(eventLoop);
+        if (channelPool == null) {
+            PoolableHttp2TargetChannelFactory channelFactory = new PoolableHttp2TargetChannelFactory(httpRoute,
+                    eventLoop, EventLoopUtil.getSocketChannelClass(eventLoop), sslConfig, httpTraceLogEnabled,
+                    socketIdleTimeout, maxConcurrentStreams);
+            channelPool = routePool.addEventLoopPool(new EventLoopChannelPool(httpRoute, eventLoop, channelFactory,
+                    poolConfiguration, poolConfiguration.getMinIdlePerPool(), routePool.getPoolMetrics()));
+        }
+        return channelPool.acquire(true);
+    }
+
+    private EventLoop getEventLoop(SourceHandler sourceHandler) {
+        if (sourceHandler != null) {
+            return sourceHandler.getInboundChannelContext().channel().eventLoop();
+        }
+        return clientEventGroup.next();
+    }
+
+    private TargetChannelPool getRoutePool(Map<HttpRoute, TargetChannelPool> pools, HttpRoute httpRoute,
+            String scope) {
+        TargetChannelPool routePool = pools.get(httpRoute);
+        if (routePool == null) {
+            routePool = new TargetChannelPool(httpRoute, scope);
+            TargetChannelPool existing = pools.putIfAbsent(httpRoute, routePool);
+            if (existing != null) {
+                routePool = existing;
+            } else {
+                registerMBean(routePool.getPoolMetrics());
+            }
+        }
+        return routePool;
+    }
+
+    /**
+     * Get the statistics of the commons-pool based pools of a route. All the pools of the incoming channels share
+     * the statistics of the route.
+     */
+    private ConnectionPoolMetrics getPooledRouteMetrics(HttpRoute httpRoute, SourceHandler sourceHandler) {
+        String scope = sourceHandler != null && poolManagementPolicy == PoolManagementPolicy.LOCK_DEFAULT_POOLING
+                ? ConnectionPoolMetrics.SOURCE_HANDLER_SCOPE : ConnectionPoolMetrics.GLOBAL_SCOPE;
+        return pooledRouteMetrics.computeIfAbsent(scope + ":" + httpRoute, key -> {
+            ConnectionPoolMetrics poolMetrics = new ConnectionPoolMetrics(httpRoute, scope);
+            registerMBean(poolMetrics);
+            return poolMetrics;
+        });
+    }
+
     /**
      * @param httpRoute           BE address
      * @param sourceHandler       Incoming channel
@@ -90,10 +327,25 @@ public class ConnectionManager {
      * @return the target channel which is requested for given parameters.
      * @throws Exception to notify any errors occur during retrieving the target channel
      */
-    public TargetChannel borrowTargetChannel(HttpRoute httpRoute, SourceHandler sourceHandler, SSLConfig sslConfig,
+    private Future<TargetChannel> borrowTargetChannel(EventLoop eventLoop, HttpRoute httpRoute,
+            SourceHandler sourceHandler, SSLConfig sslConfig, boolean httpTraceLogEnabled, boolean chunkDisabled,
+            boolean followRedirect, int maxRedirectCount, ProxyServerConfiguration proxyServerConfiguration) {
+        try {
+            return eventLoop.newSucceededFuture(borrowTargetChannel(httpRoute, sourceHandler, sslConfig,
+                    httpTraceLogEnabled, chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration));
+        } catch (NoSuchElementException e) {
+            return eventLoop.newFailedFuture(new ClientConnectorException("Connection pool for " + httpRoute
+                    + " is exhausted", HttpResponseStatus.SERVICE_UNAVAILABLE.code(), e));
+        } catch (Exception e) {
+            return eventLoop.newFailedFuture(e);
+        }
+    }
+
+    private TargetChannel borrowTargetChannel(HttpRoute httpRoute, SourceHandler sourceHandler, SSLConfig sslConfig,
             boolean httpTraceLogEnabled, boolean chunkDisabled, boolean followRedirect, int maxRedirectCount,
             ProxyServerConfiguration proxyServerConfiguration) throws Exception {
         GenericObjectPool trgHlrConnPool;
+        ConnectionPoolMetrics poolMetrics = getPooledRouteMetrics(httpRoute, sourceHandler);
 
         if (sourceHandler != null) {
             EventLoopGroup group;
@@ -101,17 +353,14 @@ public class ConnectionManager {
             group = ctx.channel().eventLoop();
             Class cl = ctx.channel().getClass();
 
+            // Borrows of the same incoming channel may run concurrently on the borrow executor
             if (poolManagementPolicy == PoolManagementPolicy.LOCK_DEFAULT_POOLING) {
                 // This is faster than the above one (about 2k difference)
                 Map<String, GenericObjectPool> srcHlrConnPool = sourceHandler.getTargetChannelPool();
-                trgHlrConnPool = srcHlrConnPool.get(httpRoute.toString());
-                if (trgHlrConnPool == null) {
-                    PoolableTargetChannelFactory poolableTargetChannelFactory =
-                            new PoolableTargetChannelFactory(httpRoute, group, cl, sslConfig, httpTraceLogEnabled
-                                    , chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration);
-                    trgHlrConnPool = createPoolForRoute(poolableTargetChannelFactory);
-                    srcHlrConnPool.put(httpRoute.toString(), trgHlrConnPool);
-                }
+                trgHlrConnPool = srcHlrConnPool.computeIfAbsent(httpRoute.toString(), key -> createPoolForRoute(
+                        new PoolableTargetChannelFactory(httpRoute, group, cl, sslConfig, httpTraceLogEnabled,
+                                chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration),
+                        poolMetrics));
             } else {
                 Map<String, GenericObjectPool> srcHlrConnPool = sourceHandler.getTargetChannelPool();
                 trgHlrConnPool = srcHlrConnPool.get(httpRoute.toString());
@@ -122,31 +371,47 @@ public class ConnectionManager {
                                     new PoolableTargetChannelFactory(
                                             httpRoute, group, cl, sslConfig, httpTraceLogEnabled, chunkDisabled
                                             , followRedirect, maxRedirectCount, proxyServerConfiguration);
-                            trgHlrConnPool = createPoolForRoute(poolableTargetChannelFactory);
+                            trgHlrConnPool = createPoolForRoute(poolableTargetChannelFactory, poolMetrics);
                             this.connGlobalPool.put(httpRoute.toString(), trgHlrConnPool);
                         }
                         trgHlrConnPool = this.connGlobalPool.get(httpRoute.toString());
                         trgHlrConnPool = createPoolForRoutePerSrcHndlr(trgHlrConnPool);
                     }
-                    srcHlrConnPool.put(httpRoute.toString(), trgHlrConnPool);
+                    GenericObjectPool existing = srcHlrConnPool.putIfAbsent(httpRoute.toString(), trgHlrConnPool);
+                    if (existing != null) {
+                        trgHlrConnPool.close();
+                        trgHlrConnPool = existing;
+                    }
                 }
             }
         } else {
-            Class cl = NioSocketChannel.class;
             EventLoopGroup group = clientEventGroup;
+            Class cl = EventLoopUtil.getSocketChannelClass(group);
             synchronized (this) {
                 if (!this.connGlobalPool.containsKey(httpRoute.toString())) {
                     PoolableTargetChannelFactory poolableTargetChannelFactory =
                             new PoolableTargetChannelFactory(httpRoute, group, cl, sslConfig, httpTraceLogEnabled
                                     , chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration);
-                    trgHlrConnPool = createPoolForRoute(poolableTargetChannelFactory);
+                    trgHlrConnPool = createPoolForRoute(poolableTargetChannelFactory, poolMetrics);
                     this.connGlobalPool.put(httpRoute.toString(), trgHlrConnPool);
                 }
                 trgHlrConnPool = this.connGlobalPool.get(httpRoute.toString());
             }
         }
 
-        TargetChannel targetChannel = (TargetChannel) trgHlrConnPool.borrowObject();
+        TargetChannel targetChannel;
+        long borrowStart = System.nanoTime();
+        poolMetrics.pendingAcquireAdded();
+        try {
+            targetChannel = (TargetChannel) trgHlrConnPool.borrowObject();
+        } catch (NoSuchElementException e) {
+            poolMetrics.acquireRejected();
+            throw e;
+        } finally {
+            poolMetrics.pendingAcquireRemoved();
+        }
+        poolMetrics.acquired(System.nanoTime() - borrowStart);
+        poolMetrics.connectionLeased();
         targetChannel.setCorrelatedSource(sourceHandler);
         targetChannel.setConnectionManager(this);
         return targetChannel;
@@ -154,9 +419,16 @@ public class ConnectionManager {
 
     //Add connection to Pool back
     public void returnChannel(TargetChannel targetChannel) throws Exception {
-        targetChannel.setRequestWritten(false);
-        if (targetChannel.getCorrelatedSource() != null) {
+        if (targetChannel.getInFlightRequests() <= 1) {
+            // Keep accepting responses while pipelined requests are still in flight
+            targetChannel.setRequestWritten(false);
+        }
+        if (targetChannel.getChannelPool() != null) {
+            targetChannel.getChannelPool().release(targetChannel);
+        } else if (targetChannel.getCorrelatedSource() != null) {
             Map<String, GenericObjectPool> objectPoolMap = targetChannel.getCorrelatedSource().getTargetChannelPool();
+            getPooledRouteMetrics(targetChannel.getHttpRoute(), targetChannel.getCorrelatedSource())
+                    .connectionReleased();
             releaseChannelToPool(targetChannel, objectPoolMap.get(targetChannel.getHttpRoute().toString()));
         }
     }
@@ -173,11 +445,17 @@ public class ConnectionManager {
 
     public void invalidateTargetChannel(TargetChannel targetChannel) throws Exception {
         targetChannel.setRequestWritten(false);
-        if (targetChannel.getCorrelatedSource() != null) {
+        if (targetChannel.getChannelPool() != null) {
+            targetChannel.getChannelPool().invalidate(targetChannel);
+        } else if (targetChannel.getCorrelatedSource() != null) {
             Map<String, GenericObjectPool> objectPoolMap = targetChannel.getCorrelatedSource().getTargetChannelPool();
             try {
                 // Need a null check because SourceHandler side could timeout before TargetHandler side.
                 if (objectPoolMap.get(targetChannel.getHttpRoute().toString()) != null) {
+                    ConnectionPoolMetrics poolMetrics = getPooledRouteMetrics(targetChannel.getHttpRoute(),
+                            targetChannel.getCorrelatedSource());
+                    poolMetrics.connectionReleased();
+                    poolMetrics.connectionInvalidated();
                     objectPoolMap.get(targetChannel.getHttpRoute().toString()).invalidateObject(targetChannel);
                 }
             } catch (Exception e) {
@@ -195,11 +473,111 @@ public class ConnectionManager {
         return this.connGlobalPool;
     }
 
+    /**
+     * Provide the event loop bound pools of each route.
+     *
+     * @return Map contains pools for each route
+     */
+    public Map<HttpRoute, TargetChannelPool> getRoutePools() {
+        return this.routePools;
+    }
+
+    /**
+     * Provide the event loop bound HTTP/2 connection pools of each route.
+     *
+     * @return Map contains pools for each route
+     */
+    public Map<HttpRoute, TargetChannelPool> getHttp2RoutePools() {
+        return this.http2RoutePools;
+    }
+
+    /**
+     * Provide the statistics of the connection pools of each route, one per pooling scope of the route.
+     *
+     * @return the statistics of the pools.
+     */
+    public Collection<ConnectionPoolMetrics> getPoolMetrics() {
+        List<ConnectionPoolMetrics> poolMetrics = new ArrayList<>();
+        routePools.values().forEach(routePool -> poolMetrics.add(routePool.getPoolMetrics()));
+        http2RoutePools.values().forEach(routePool -> poolMetrics.add(routePool.getPoolMetrics()));
+        poolMetrics.addAll(pooledRouteMetrics.values());
+        return poolMetrics;
+    }
+
+    /**
+     * Close the event loop bound pools of all the routes, and unregister the statistics of all the pools from JMX.
+     * The statistics of the commons-pool based pools are kept, as those pools outlive this call.
+     */
+    public void closeRoutePools() {
+        routePools.values().forEach(this::closeRoutePool);
+        routePools.clear();
+        http2RoutePools.values().forEach(this::closeRoutePool);
+        http2RoutePools.clear();
+        pooledRouteMetrics.values().forEach(this::unregisterMBean);
+    }
+
+    private void closeRoutePool(TargetChannelPool routePool) {
+        routePool.close();
+        unregisterMBean(routePool.getPoolMetrics());
+    }
+
+    private void registerMBean(ConnectionPoolMetrics poolMetrics) {
+        if (!poolConfiguration.isJmxEnabled()) {
+            return;
+        }
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getObjectName(poolMetrics);
+            // Left behind by a connection manager which is not closed, such as one of a previous bundle
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(poolMetrics, objectName);
+        } catch (JMException e) {
+            log.warn("Cannot register the statistics of connection pool " + poolMetrics + " with JMX", e);
+        }
+    }
+
+    private void unregisterMBean(ConnectionPoolMetrics poolMetrics) {
+        if (!poolConfiguration.isJmxEnabled()) {
+            return;
+        }
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getObjectName(poolMetrics);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            log.warn("Cannot unregister the statistics of connection pool " + poolMetrics + " from JMX", e);
+        }
+    }
+
+    private static ObjectName getObjectName(ConnectionPoolMetrics poolMetrics) throws JMException {
+        return new ObjectName(POOL_MBEAN_DOMAIN + ":type=ConnectionPool,scope=" + poolMetrics.getScope()
+                + ",route=" + ObjectName.quote(poolMetrics.getRoute()));
+    }
+
+    public PoolManagementPolicy getPoolManagementPolicy() {
+        return poolManagementPolicy;
+    }
+
     /**
      * Connection pool management policies for  target channels.
      */
     public enum PoolManagementPolicy {
+        /**
+         * commons-pool based pool per incoming channel.
+         */
         LOCK_DEFAULT_POOLING,
+        /**
+         * commons-pool based global pool per route, wrapped by a pool per incoming channel.
+         */
+        GLOBAL_POOLING,
+        /**
+         * Lock free pools per route which keep channels on the event loop they are registered with.
+         */
+        EVENT_LOOP_POOLING,
     }
 
     private GenericObjectPool.Config instantiateAndConfigureConfig() {
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.channel.pool;
+
+/**
+ * Management interface of the statistics of a connection pool. Counts are cumulative since the pool was created,
+ * times are in microseconds.
+ */
+public interface ConnectionPoolMXBean {
+
+    String getRoute();
+
+    String getScope();
+
+    long getOpenConnections();
+
+    long getActiveConnections();
+
+    long getIdleConnections();
+
+    long getPendingAcquires();
+
+    long getAcquireCount();
+
+    long getMeanAcquireWaitTime();
+
+    long getMaxAcquireWaitTime();
+
+    long getConnectCount();
+
+    long getMeanConnectTime();
+
+    long getMaxConnectTime();
+
+    long getCreatedConnections();
+
+    long getDestroyedConnections();
+
+    long getEvictedConnections();
+
+    long getInvalidatedConnections();
+
+    long getExhaustedCount();
+}
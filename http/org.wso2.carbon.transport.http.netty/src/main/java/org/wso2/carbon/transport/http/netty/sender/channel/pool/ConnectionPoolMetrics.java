@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.channel.pool;
+
+import io.netty.channel.ChannelFuture;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the connection pools of a route within a pooling scope.
+ * <p>
+ * A single instance is shared by all the pools of the route in the scope, i.e. by the pools of each event loop or
+ * of each incoming channel, hence all the counters can be updated concurrently. Open and active connections are
+ * derived from the counters, so that they can be read from any thread without touching the pool state.
+ */
+public class ConnectionPoolMetrics implements ConnectionPoolMXBean {
+
+    /**
+     * Scope of the event loop bound pools.
+     */
+    public static final String EVENT_LOOP_SCOPE = "event-loop";
+    /**
+     * Scope of the event loop bound HTTP/2 connection pools.
+     */
+    public static final String HTTP2_SCOPE = "http2";
+    /**
+     * Scope of the commons-pool based pools of each incoming channel.
+     */
+    public static final String SOURCE_HANDLER_SCOPE = "source-handler";
+    /**
+     * Scope of the commons-pool based pools which are shared by all the incoming channels.
+     */
+    public static final String GLOBAL_SCOPE = "global";
+
+    private final HttpRoute httpRoute;
+    private final String scope;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder invalidated = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder active = new LongAdder();
+    private final LongAdder pending = new LongAdder();
+    private final LongAdder acquires = new LongAdder();
+    private final LongAdder acquireWaitTime = new LongAdder();
+    private final LongAccumulator maxAcquireWaitTime = new LongAccumulator(Math::max, 0);
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder connectTime = new LongAdder();
+    private final LongAccumulator maxConnectTime = new LongAccumulator(Math::max, 0);
+
+    public ConnectionPoolMetrics(HttpRoute httpRoute, String scope) {
+        this.httpRoute = httpRoute;
+        this.scope = scope;
+    }
+
+    public HttpRoute getHttpRoute() {
+        return httpRoute;
+    }
+
+    /**
+     * Record a connection which is created by the pool, along with the time it takes to connect.
+     *
+     * @param channelFuture the connect future of the connection.
+     */
+    void connectionCreated(ChannelFuture channelFuture) {
+        created.increment();
+        long connectStart = System.nanoTime();
+        channelFuture.addListener(future -> {
+            if (future.isSuccess()) {
+                long elapsed = System.nanoTime() - connectStart;
+                connects.increment();
+                connectTime.add(elapsed);
+                maxConnectTime.accumulate(elapsed);
+            }
+        });
+    }
+
+    void connectionDestroyed() {
+        destroyed.increment();
+    }
+
+    void connectionEvicted() {
+        evicted.increment();
+    }
+
+    void connectionInvalidated() {
+        invalidated.increment();
+    }
+
+    /**
+     * Record an acquire which failed because the pool is exhausted, either immediately or after waiting.
+     */
+    void acquireRejected() {
+        exhausted.increment();
+    }
+
+    /**
+     * Record an acquire which is completed.
+     *
+     * @param waitTime time in nanoseconds from the acquire request until a connection is handed over.
+     */
+    void acquired(long waitTime) {
+        acquires.increment();
+        acquireWaitTime.add(waitTime);
+        maxAcquireWaitTime.accumulate(waitTime);
+    }
+
+    void connectionLeased() {
+        active.increment();
+    }
+
+    void connectionReleased() {
+        active.decrement();
+    }
+
+    void pendingAcquireAdded() {
+        pending.increment();
+    }
+
+    void pendingAcquireRemoved() {
+        pending.decrement();
+    }
+
+    @Override
+    public String getRoute() {
+        return httpRoute.toString();
+    }
+
+    @Override
+    public String getScope() {
+        return scope;
+    }
+
+    @Override
+    public long getOpenConnections() {
+        return Math.max(created.sum() - destroyed.sum(), 0);
+    }
+
+    @Override
+    public long getActiveConnections() {
+        return Math.max(active.sum(), 0);
+    }
+
+    @Override
+    public long getIdleConnections() {
+        return Math.max(getOpenConnections() - getActiveConnections(), 0);
+    }
+
+    @Override
+    public long getPendingAcquires() {
+        return Math.max(pending.sum(), 0);
+    }
+
+    @Override
+    public long getAcquireCount() {
+        return acquires.sum();
+    }
+
+    @Override
+    public long getMeanAcquireWaitTime() {
+        return mean(acquireWaitTime.sum(), acquires.sum());
+    }
+
+    @Override
+    public long getMaxAcquireWaitTime() {
+        return TimeUnit.NANOSECONDS.toMicros(maxAcquireWaitTime.get());
+    }
+
+    @Override
+    public long getConnectCount() {
+        return connects.sum();
+    }
+
+    @Override
+    public long getMeanConnectTime() {
+        return mean(connectTime.sum(), connects.sum());
+    }
+
+    @Override
+    public long getMaxConnectTime() {
+        return TimeUnit.NANOSECONDS.toMicros(maxConnectTime.get());
+    }
+
+    @Override
+    public long getCreatedConnections() {
+        return created.sum();
+    }
+
+    @Override
+    public long getDestroyedConnections() {
+        return destroyed.sum();
+    }
+
+    @Override
+    public long getEvictedConnections() {
+        return evicted.sum();
+    }
+
+    @Override
+    public long getInvalidatedConnections() {
+        return invalidated.sum();
+    }
+
+    @Override
+    public long getExhaustedCount() {
+        return exhausted.sum();
+    }
+
+    private static long mean(long totalNanos, long count) {
+        return count > 0 ? TimeUnit.NANOSECONDS.toMicros(totalNanos / count) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return scope + ":" + httpRoute;
+    }
+}
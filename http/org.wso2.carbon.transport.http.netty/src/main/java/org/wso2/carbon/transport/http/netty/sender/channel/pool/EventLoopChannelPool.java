@@ -0,0 +1,505 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.channel.pool;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.apache.commons.pool.PoolableObjectFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.contract.ClientConnectorException;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pool of target channels for a single route which are bound to a single event loop.
+ * <p>
+ * All the pool state is confined to the event loop thread, hence no locking is required. Calls coming from other
+ * threads are handed over to the event loop and the caller is notified through a future. An acquire never blocks;
+ * when the pool is exhausted the returned future is completed once a channel is released back to the pool. The
+ * number of such pending acquires and the time they may wait are bounded, so that an overloaded backend results
+ * in a fast 503 failure instead of an ever growing backlog.
+ * <p>
+ * When pipelining is enabled (a maximum pipeline depth greater than one), pipelinable requests may share a channel
+ * which is already in use, as long as the earlier requests on it are fully written and are pipelinable as well. A
+ * channel is only returned to the idle set once all of its in-flight requests are completed. HTTP/2 channels are
+ * always shared this way, up to the number of concurrent streams allowed on the connection.
+ * <p>
+ * A pool may be pre-warmed with a minimum number of idle channels. The eviction task, which runs on the event loop,
+ * does not evict those channels for being idle and, when the pool has dropped below the minimum (for instance after
+ * the backend closed its connections), reconnects after a random delay so that the pools of all the event loops do
+ * not reconnect to the backend at once.
+ */
+public class EventLoopChannelPool {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLoopChannelPool.class);
+
+    private final HttpRoute httpRoute;
+    private final EventLoop eventLoop;
+    private final PoolableObjectFactory channelFactory;
+    private final int maxActive;
+    private final int maxIdle;
+    private final int minIdle;
+    private final long evictionInterval;
+    private final long minEvictableIdleTime;
+    private final int maxPendingAcquires;
+    private final long pendingAcquireTimeout;
+    private final int maxPipelineDepth;
+    private final ConnectionPoolMetrics poolMetrics;
+
+    private final Deque<TargetChannel> idleChannels = new ArrayDeque<>();
+    private final Queue<PendingAcquire> pendingAcquires = new ArrayDeque<>();
+    private final List<TargetChannel> pipelinedChannels = new ArrayList<>();
+    private int activeCount;
+    private boolean closed;
+    private boolean refillScheduled;
+    private ScheduledFuture<?> evictionTask;
+
+    /**
+     * Create a pool for the given route and event loop. The limits of the pool are taken from the pool configuration,
+     * while the minimum number of idle channels may be set per route.
+     *
+     * @param httpRoute         the route the channels are connected to.
+     * @param eventLoop         the event loop the channels and the pool state are bound to.
+     * @param channelFactory    factory used to create the channels.
+     * @param poolConfiguration the limits, eviction and pending acquire settings of the pool.
+     * @param minIdle           number of idle channels which are kept connected by {@link #prewarm()} and the
+     *                          eviction task.
+     * @param poolMetrics       statistics which the pool is recorded to, may be shared with other pools.
+     */
+    public EventLoopChannelPool(HttpRoute httpRoute, EventLoop eventLoop, PoolableObjectFactory channelFactory,
+            PoolConfiguration poolConfiguration, int minIdle, ConnectionPoolMetrics poolMetrics) {
+        this.httpRoute = httpRoute;
+        this.eventLoop = eventLoop;
+        this.channelFactory = channelFactory;
+        this.maxActive = poolConfiguration.getMaxActivePerPool();
+        this.maxIdle = poolConfiguration.getMaxIdlePerPool();
+        this.minIdle = maxIdle >= 0 ? Math.min(minIdle, maxIdle) : minIdle;
+        this.evictionInterval = poolConfiguration.getTimeBetweenEvictionRuns();
+        this.minEvictableIdleTime = poolConfiguration.getMinEvictableIdleTime();
+        this.maxPendingAcquires = poolConfiguration.getMaxPendingAcquiresPerPool();
+        this.pendingAcquireTimeout = poolConfiguration.getPendingAcquireTimeout();
+        this.maxPipelineDepth = poolConfiguration.getMaxPipelineDepth();
+        this.poolMetrics = poolMetrics;
+
+        if (evictionInterval > 0) {
+            evictionTask = eventLoop.scheduleWithFixedDelay(this::evictIdleChannels, evictionInterval,
+                    evictionInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public EventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    public HttpRoute getHttpRoute() {
+        return httpRoute;
+    }
+
+    public ConnectionPoolMetrics getPoolMetrics() {
+        return poolMetrics;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Acquire a target channel from the pool for exclusive use.
+     *
+     * @return future which is notified with the target channel.
+     */
+    public Future<TargetChannel> acquire() {
+        return acquire(false);
+    }
+
+    /**
+     * Acquire a target channel from the pool.
+     *
+     * @param pipelinable whether the request can be pipelined on a channel which is already in use.
+     * @return future which is notified with the target channel.
+     */
+    public Future<TargetChannel> acquire(boolean pipelinable) {
+        Promise<TargetChannel> promise = eventLoop.newPromise();
+        long acquireStart = System.nanoTime();
+        if (eventLoop.inEventLoop()) {
+            doAcquire(promise, pipelinable, acquireStart);
+        } else {
+            eventLoop.execute(() -> doAcquire(promise, pipelinable, acquireStart));
+        }
+        return promise;
+    }
+
+    /**
+     * Return a target channel back to the pool.
+     *
+     * @param targetChannel the target channel which is no longer used.
+     */
+    public void release(TargetChannel targetChannel) {
+        if (eventLoop.inEventLoop()) {
+            doRelease(targetChannel);
+        } else {
+            eventLoop.execute(() -> doRelease(targetChannel));
+        }
+    }
+
+    /**
+     * Remove a target channel from the pool and close it.
+     *
+     * @param targetChannel the target channel which should not be used anymore.
+     */
+    public void invalidate(TargetChannel targetChannel) {
+        if (eventLoop.inEventLoop()) {
+            doInvalidate(targetChannel);
+        } else {
+            eventLoop.execute(() -> doInvalidate(targetChannel));
+        }
+    }
+
+    /**
+     * Connect channels until the pool holds the minimum number of idle channels, so that the first requests to the
+     * route do not pay the connect latency. The channels are connected asynchronously on the event loop.
+     */
+    public void prewarm() {
+        if (eventLoop.inEventLoop()) {
+            ensureMinIdle();
+        } else {
+            eventLoop.execute(this::ensureMinIdle);
+        }
+    }
+
+    /**
+     * Close all the idle channels and fail the pending acquires. Channels which are in use are closed when they are
+     * returned to the pool.
+     */
+    public void close() {
+        if (eventLoop.inEventLoop()) {
+            doClose();
+        } else {
+            eventLoop.execute(this::doClose);
+        }
+    }
+
+    private void doAcquire(Promise<TargetChannel> promise, boolean pipelinable, long acquireStart) {
+        if (closed) {
+            promise.tryFailure(new IllegalStateException("Connection pool for " + httpRoute + " is closed"));
+            return;
+        }
+
+        TargetChannel targetChannel;
+        while ((targetChannel = idleChannels.pollFirst()) != null) {
+            if (isHealthy(targetChannel)) {
+                notifyAcquired(promise, targetChannel, pipelinable, acquireStart);
+                return;
+            }
+            destroy(targetChannel);
+        }
+
+        if (!pipelinedChannels.isEmpty()) {
+            targetChannel = findPipelinedChannel(pipelinable);
+            if (targetChannel != null) {
+                targetChannel.setInFlightRequests(targetChannel.getInFlightRequests() + 1);
+                targetChannel.setRequestWriteCompleted(false);
+                if (promise.trySuccess(targetChannel)) {
+                    poolMetrics.acquired(System.nanoTime() - acquireStart);
+                } else {
+                    doRelease(targetChannel);
+                }
+                return;
+            }
+        }
+
+        if (maxActive < 0 || activeCount < maxActive) {
+            createAndNotify(promise, pipelinable, acquireStart);
+        } else if (maxPendingAcquires >= 0 && pendingAcquires.size() >= maxPendingAcquires) {
+            poolMetrics.acquireRejected();
+            promise.tryFailure(new ClientConnectorException("Connection pool for " + httpRoute
+                    + " is exhausted and the maximum of " + maxPendingAcquires + " pending acquires is reached",
+                    HttpResponseStatus.SERVICE_UNAVAILABLE.code()));
+        } else {
+            addPendingAcquire(promise, pipelinable, acquireStart);
+        }
+    }
+
+    /**
+     * Find an in-use channel which can take one more pipelined request or HTTP/2 stream.
+     */
+    private TargetChannel findPipelinedChannel(boolean pipelinable) {
+        for (TargetChannel targetChannel : pipelinedChannels) {
+            if (targetChannel.isHttp2()) {
+                if (targetChannel.getHTTP2ClientInitializer().canOpenStream(targetChannel.getInFlightRequests())) {
+                    return targetChannel;
+                }
+            } else if (pipelinable && maxPipelineDepth > 1 && targetChannel.isRequestWriteCompleted()
+                    && targetChannel.getInFlightRequests() < maxPipelineDepth && targetChannel.getChannel() != null
+                    && targetChannel.getChannel().isActive()) {
+                return targetChannel;
+            }
+        }
+        return null;
+    }
+
+    private void notifyAcquired(Promise<TargetChannel> promise, TargetChannel targetChannel, boolean pipelinable,
+            long acquireStart) {
+        poolMetrics.connectionLeased();
+        targetChannel.setInFlightRequests(1);
+        targetChannel.setRequestWriteCompleted(false);
+        targetChannel.setPipelinable(targetChannel.isHttp2() || (pipelinable && maxPipelineDepth > 1));
+        if (targetChannel.isPipelinable()) {
+            pipelinedChannels.add(targetChannel);
+        }
+        if (promise.trySuccess(targetChannel)) {
+            poolMetrics.acquired(System.nanoTime() - acquireStart);
+        } else {
+            doRelease(targetChannel);
+        }
+    }
+
+    private void addPendingAcquire(Promise<TargetChannel> promise, boolean pipelinable, long acquireStart) {
+        PendingAcquire pendingAcquire = new PendingAcquire(promise, pipelinable, acquireStart);
+        if (pendingAcquireTimeout > 0) {
+            pendingAcquire.timeoutTask = eventLoop.schedule(() -> {
+                if (pendingAcquires.remove(pendingAcquire)) {
+                    poolMetrics.pendingAcquireRemoved();
+                    poolMetrics.acquireRejected();
+                    promise.tryFailure(new ClientConnectorException("Timeout while waiting for a connection to "
+                            + httpRoute + " after " + pendingAcquireTimeout + " ms",
+                            HttpResponseStatus.SERVICE_UNAVAILABLE.code()));
+                }
+            }, pendingAcquireTimeout, TimeUnit.MILLISECONDS);
+        }
+        pendingAcquires.add(pendingAcquire);
+        poolMetrics.pendingAcquireAdded();
+    }
+
+    private PendingAcquire pollPendingAcquire() {
+        PendingAcquire pendingAcquire = pendingAcquires.poll();
+        if (pendingAcquire != null) {
+            poolMetrics.pendingAcquireRemoved();
+            if (pendingAcquire.timeoutTask != null) {
+                pendingAcquire.timeoutTask.cancel(false);
+            }
+        }
+        return pendingAcquire;
+    }
+
+    private void doRelease(TargetChannel targetChannel) {
+        if (targetChannel.getChannelPool() != this) {
+            return;
+        }
+
+        if (targetChannel.getInFlightRequests() > 1) {
+            // Pipelined requests are still being served on this channel
+            targetChannel.setInFlightRequests(targetChannel.getInFlightRequests() - 1);
+            return;
+        }
+        targetChannel.setInFlightRequests(0);
+        poolMetrics.connectionReleased();
+        if (targetChannel.isPipelinable()) {
+            pipelinedChannels.remove(targetChannel);
+            targetChannel.setPipelinable(false);
+        }
+
+        if (closed || !isHealthy(targetChannel)) {
+            destroy(targetChannel);
+            servePendingAcquires();
+            return;
+        }
+
+        PendingAcquire pending;
+        while ((pending = pollPendingAcquire()) != null) {
+            if (!pending.promise.isDone()) {
+                notifyAcquired(pending.promise, targetChannel, pending.pipelinable, pending.acquireStart);
+                return;
+            }
+        }
+
+        if (maxIdle >= 0 && idleChannels.size() >= maxIdle) {
+            destroy(targetChannel);
+            return;
+        }
+        targetChannel.setIdleSince(System.currentTimeMillis());
+        idleChannels.addFirst(targetChannel);
+    }
+
+    private void doInvalidate(TargetChannel targetChannel) {
+        if (targetChannel.getChannelPool() != this) {
+            return;
+        }
+        if (!idleChannels.remove(targetChannel)) {
+            poolMetrics.connectionReleased();
+        }
+        poolMetrics.connectionInvalidated();
+        destroy(targetChannel);
+        servePendingAcquires();
+    }
+
+    private void doClose() {
+        closed = true;
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+        TargetChannel targetChannel;
+        while ((targetChannel = idleChannels.pollFirst()) != null) {
+            destroy(targetChannel);
+        }
+        PendingAcquire pending;
+        while ((pending = pollPendingAcquire()) != null) {
+            pending.promise.tryFailure(new IllegalStateException("Connection pool for " + httpRoute + " is closed"));
+        }
+    }
+
+    private void servePendingAcquires() {
+        while (!pendingAcquires.isEmpty() && (maxActive < 0 || activeCount < maxActive)) {
+            PendingAcquire pending = pollPendingAcquire();
+            if (!pending.promise.isDone()) {
+                createAndNotify(pending.promise, pending.pipelinable, pending.acquireStart);
+            }
+        }
+    }
+
+    private void createAndNotify(Promise<TargetChannel> promise, boolean pipelinable, long acquireStart) {
+        TargetChannel targetChannel;
+        try {
+            targetChannel = (TargetChannel) channelFactory.makeObject();
+        } catch (Exception e) {
+            promise.tryFailure(e);
+            return;
+        }
+        targetChannel.setChannelPool(this);
+        activeCount++;
+        poolMetrics.connectionCreated(targetChannel.getChannelFuture());
+        notifyAcquired(promise, targetChannel, pipelinable, acquireStart);
+    }
+
+    /**
+     * Create idle channels up to the minimum, as far as the maximum number of channels allows. A channel which is
+     * still connecting counts as an idle one; if the connect fails, it is destroyed when validated.
+     */
+    private void ensureMinIdle() {
+        while (!closed && idleChannels.size() < minIdle && (maxActive < 0 || activeCount < maxActive)) {
+            TargetChannel targetChannel;
+            try {
+                targetChannel = (TargetChannel) channelFactory.makeObject();
+            } catch (Exception e) {
+                log.warn("Error while creating an idle target channel for route " + httpRoute, e);
+                return;
+            }
+            targetChannel.setChannelPool(this);
+            activeCount++;
+            poolMetrics.connectionCreated(targetChannel.getChannelFuture());
+            targetChannel.setIdleSince(System.currentTimeMillis());
+            idleChannels.addLast(targetChannel);
+        }
+    }
+
+    /**
+     * Refill the pool after a random delay of up to half the eviction interval.
+     */
+    private void scheduleRefill() {
+        if (refillScheduled || closed) {
+            return;
+        }
+        refillScheduled = true;
+        long delay = ThreadLocalRandom.current().nextLong(Math.max(evictionInterval / 2, 1));
+        eventLoop.schedule(() -> {
+            refillScheduled = false;
+            ensureMinIdle();
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void destroy(TargetChannel targetChannel) {
+        if (targetChannel.getChannelPool() != this) {
+            return;
+        }
+        targetChannel.setChannelPool(null);
+        activeCount--;
+        poolMetrics.connectionDestroyed();
+        if (targetChannel.isPipelinable()) {
+            pipelinedChannels.remove(targetChannel);
+        }
+        try {
+            if (targetChannel.getChannel() != null) {
+                channelFactory.destroyObject(targetChannel);
+            } else {
+                targetChannel.getChannelFuture().channel().close();
+            }
+        } catch (Exception e) {
+            log.warn("Error while closing the target channel for route " + httpRoute, e);
+        }
+    }
+
+    private void evictIdleChannels() {
+        long now = System.currentTimeMillis();
+        Iterator<TargetChannel> iterator = idleChannels.descendingIterator();
+        while (iterator.hasNext()) {
+            TargetChannel targetChannel = iterator.next();
+            // The minimum idle channels are kept regardless of how long they were idle
+            if (!isHealthy(targetChannel) || (minEvictableIdleTime > 0 && idleChannels.size() > minIdle
+                    && now - targetChannel.getIdleSince() >= minEvictableIdleTime)) {
+                iterator.remove();
+                poolMetrics.connectionEvicted();
+                destroy(targetChannel);
+            }
+        }
+        if (idleChannels.size() < minIdle) {
+            scheduleRefill();
+        }
+    }
+
+    /**
+     * Validate the channel. This is always invoked from the event loop which the channel is registered with.
+     */
+    private boolean isHealthy(TargetChannel targetChannel) {
+        Channel channel = targetChannel.getChannel();
+        if (channel == null) {
+            ChannelFuture channelFuture = targetChannel.getChannelFuture();
+            return !channelFuture.isDone() || (channelFuture.isSuccess() && channelFuture.channel().isActive());
+        }
+        return channel.isActive();
+    }
+
+    /**
+     * An acquire which is waiting for a channel to be released.
+     */
+    private static class PendingAcquire {
+
+        private final Promise<TargetChannel> promise;
+        private final boolean pipelinable;
+        private final long acquireStart;
+        private ScheduledFuture<?> timeoutTask;
+
+        PendingAcquire(Promise<TargetChannel> promise, boolean pipelinable, long acquireStart) {
+            this.promise = promise;
+            this.pipelinable = pipelinable;
+            this.acquireStart = acquireStart;
+        }
+    }
+}
@@ -56,7 +56,23 @@ public class PoolConfiguration {
 
     private long setMaxWait = 60000L;
 
-    private PoolConfiguration(Map<String, Object> transportProperties) {
+    private String poolManagementPolicy;
+
+    private int maxPendingAcquiresPerPool = Constants.DEFAULT_MAX_PENDING_ACQUIRES_PER_POOL;
+
+    private long pendingAcquireTimeout = 60000L;
+
+    private int maxPipelineDepth = 1;
+
+    private boolean jmxEnabled = true;
+
+    /**
+     * Create a pool configuration from the transport properties. The shared configuration of the transport is
+     * created with {@link #createPoolConfiguration(Map)}.
+     *
+     * @param transportProperties the transport properties.
+     */
+    public PoolConfiguration(Map<String, Object> transportProperties) {
 
         numberOfPools = Util.getIntProperty(transportProperties, Constants.NUMBER_OF_POOLS, 0);
 
@@ -72,6 +88,9 @@ public class PoolConfiguration {
         minEvictableIdleTime = Util.getIntProperty(
                 transportProperties, Constants.MIN_EVICTION_IDLE_TIME, 5 * 60 * 1000);
 
+        timeBetweenEvictionRuns = Util.getIntProperty(
+                transportProperties, Constants.TIME_BETWEEN_EVICTION_RUNS, 30 * 1000);
+
         executorServiceThreads = Util.getIntProperty(
                 transportProperties, Constants.NO_THREADS_IN_EXECUTOR_SERVICE, 20);
 
@@ -81,15 +100,36 @@ public class PoolConfiguration {
         eventGroupExecutorThreads = Util.getIntProperty(
                 transportProperties, Constants.MAX_WAIT_FOR_CLIENT_CONNECTION_POOL, 60000);
 
+        poolManagementPolicy = Util.getStringProperty(
+                transportProperties, Constants.CONNECTION_POOL_MANAGEMENT_POLICY, null);
+
+        maxPendingAcquiresPerPool = Util.getIntProperty(
+                transportProperties, Constants.MAX_PENDING_ACQUIRES_PER_POOL,
+                Constants.DEFAULT_MAX_PENDING_ACQUIRES_PER_POOL);
+
+        pendingAcquireTimeout = Util.getIntProperty(
+                transportProperties, Constants.PENDING_ACQUIRE_TIMEOUT, 60000);
+
+        maxPipelineDepth = Util.getIntProperty(
+                transportProperties, Constants.CLIENT_PIPELINING_MAX_DEPTH, 1);
+
+        jmxEnabled = Util.getBooleanProperty(
+                transportProperties, Constants.CONNECTION_POOL_JMX_ENABLED, true);
+
         logger.debug(Constants.NUMBER_OF_POOLS + ": " + numberOfPools);
         logger.debug(Constants.MAX_ACTIVE_CONNECTIONS_PER_POOL + ":" + maxActivePerPool);
-        logger.debug(Constants.MIN_IDLE_CONNECTIONS_PER_POOL + ":" + maxIdlePerPool);
+        logger.debug(Constants.MIN_IDLE_CONNECTIONS_PER_POOL + ":" + minIdlePerPool);
         logger.debug(Constants.MAX_IDLE_CONNECTIONS_PER_POOL + ":" + maxIdlePerPool);
         logger.debug(Constants.MIN_EVICTION_IDLE_TIME + ":" + minEvictableIdleTime);
         logger.debug(Constants.NO_THREADS_IN_EXECUTOR_SERVICE + ":" + executorServiceThreads);
         logger.debug("Time between Evictions Runs" + ":" + timeBetweenEvictionRuns);
         logger.debug("Pool exhausted action" + ":" + exhaustedAction);
         logger.debug("Event group executor threads : " + eventGroupExecutorThreads);
+        logger.debug(Constants.CONNECTION_POOL_MANAGEMENT_POLICY + ":" + poolManagementPolicy);
+        logger.debug(Constants.MAX_PENDING_ACQUIRES_PER_POOL + ":" + maxPendingAcquiresPerPool);
+        logger.debug(Constants.PENDING_ACQUIRE_TIMEOUT + ":" + pendingAcquireTimeout);
+        logger.debug(Constants.CLIENT_PIPELINING_MAX_DEPTH + ":" + maxPipelineDepth);
+        logger.debug(Constants.CONNECTION_POOL_JMX_ENABLED + ":" + jmxEnabled);
     }
 
     public static PoolConfiguration getInstance() {
@@ -148,4 +188,24 @@ public class PoolConfiguration {
     public long getMaxWait() {
         return setMaxWait;
     }
+
+    public String getPoolManagementPolicy() {
+        return poolManagementPolicy;
+    }
+
+    public int getMaxPendingAcquiresPerPool() {
+        return maxPendingAcquiresPerPool;
+    }
+
+    public long getPendingAcquireTimeout() {
+        return pendingAcquireTimeout;
+    }
+
+    public int getMaxPipelineDepth() {
+        return maxPipelineDepth;
+    }
+
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.ssl.SslContext;
+import org.apache.commons.pool.PoolableObjectFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
+import org.wso2.carbon.transport.http.netty.common.ssl.SSLContextCache;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
+import org.wso2.carbon.transport.http.netty.sender.channel.BootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetAddressResolver;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
+import org.wso2.carbon.transport.http.netty.sender.http2.HTTP2ClientInitializer;
+
+import javax.net.ssl.SSLException;
+
+/**
+ * A class which creates HTTP/2 target channels for a route.
+ */
+public class PoolableHttp2TargetChannelFactory implements PoolableObjectFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(PoolableHttp2TargetChannelFactory.class);
+
+    private EventLoopGroup eventLoopGroup;
+    private Class eventLoopClass;
+    private HttpRoute httpRoute;
+    private SslContext sslContext;
+    private boolean httpTraceLogEnabled;
+    private int socketIdleTimeout;
+    private int maxConcurrentStreams;
+    private EntityCollectorFactory entityCollectorFactory;
+
+    public PoolableHttp2TargetChannelFactory(HttpRoute httpRoute, EventLoopGroup eventLoopGroup, Class eventLoopClass,
+            SSLConfig sslConfig, boolean httpTraceLogEnabled, int socketIdleTimeout, int maxConcurrentStreams) {
+        this.eventLoopGroup = eventLoopGroup;
+        this.eventLoopClass = eventLoopClass;
+        this.httpRoute = httpRoute;
+        this.httpTraceLogEnabled = httpTraceLogEnabled;
+        this.socketIdleTimeout = socketIdleTimeout;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.entityCollectorFactory = EntityCollectorFactory.forClient();
+        if (sslConfig != null) {
+            try {
+                sslContext = SSLContextCache.getInstance().getSSLHandlerFactory(sslConfig)
+                        .createHttp2TLSContextForClient();
+            } catch (SSLException e) {
+                throw new IllegalArgumentException("Failed to initialize the HTTP/2 client SSL context", e);
+            }
+        }
+    }
+
+    @Override
+    public Object makeObject() throws Exception {
+        BootstrapConfiguration bootstrapConfiguration = BootstrapConfiguration.getInstance();
+        HTTP2ClientInitializer http2ClientInitializer = new HTTP2ClientInitializer(httpRoute, sslContext,
+                httpTraceLogEnabled, socketIdleTimeout, maxConcurrentStreams, entityCollectorFactory);
+        Bootstrap clientBootstrap = new Bootstrap()
+                .channel(eventLoopClass)
+                .group(eventLoopGroup)
+                .resolver(TargetAddressResolver.getResolverGroup(null))
+                .option(ChannelOption.SO_KEEPALIVE, bootstrapConfiguration.isKeepAlive())
+                .option(ChannelOption.TCP_NODELAY, bootstrapConfiguration.isTcpNoDelay())
+                .option(ChannelOption.SO_REUSEADDR, bootstrapConfiguration.isSocketReuse())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, bootstrapConfiguration.getConnectTimeOut())
+                .handler(http2ClientInitializer);
+        ChannelFuture channelFuture = clientBootstrap
+                .connect(TargetAddressResolver.getAddress(httpRoute.getHost(), httpRoute.getPort()));
+        TargetChannel targetChannel = new TargetChannel(http2ClientInitializer, channelFuture);
+        targetChannel.setHttpRoute(httpRoute);
+        log.debug("Created HTTP/2 channel: {}", httpRoute);
+        return targetChannel;
+    }
+
+    @Override
+    public void destroyObject(Object o) throws Exception {
+        log.debug("Destroying HTTP/2 channel: {}", o);
+        if (((TargetChannel) o).getChannel().isOpen()) {
+            ((TargetChannel) o).getChannel().close();
+        }
+    }
+
+    @Override
+    public boolean validateObject(Object o) {
+        if (((TargetChannel) o).getChannel() != null) {
+            return ((TargetChannel) o).getChannel().isActive();
+        }
+        return true;
+    }
+
+    @Override
+    public void activateObject(Object o) throws Exception {
+
+    }
+
+    @Override
+    public void passivateObject(Object o) throws Exception {
+
+    }
+}
@@ -24,13 +24,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.transport.http.netty.common.HttpRoute;
 import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
+import org.wso2.carbon.transport.http.netty.common.metrics.TransportMetrics;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLConfig;
+import org.wso2.carbon.transport.http.netty.common.ssl.SSLContextCache;
 import org.wso2.carbon.transport.http.netty.common.ssl.SSLHandlerFactory;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
 import org.wso2.carbon.transport.http.netty.sender.HTTPClientInitializer;
 import org.wso2.carbon.transport.http.netty.sender.channel.BootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetAddressResolver;
 import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
 
-import java.net.InetSocketAddress;
 import javax.net.ssl.SSLEngine;
 
 /**
@@ -49,6 +52,8 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
     private int maxRedirectCount;
     private boolean chunkDisabled;
     private ProxyServerConfiguration proxyServerConfiguration;
+    private ConnectionPoolMetrics poolMetrics;
+    private EntityCollectorFactory entityCollectorFactory;
 
     public PoolableTargetChannelFactory(HttpRoute httpRoute, EventLoopGroup eventLoopGroup, Class eventLoopClass
             , SSLConfig sslConfig, boolean httpTraceLogEnabled, boolean chunkDisabled, boolean followRedirect
@@ -62,6 +67,17 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
         this.maxRedirectCount = maxRedirectCount;
         this.chunkDisabled = chunkDisabled;
         this.proxyServerConfiguration = proxyServerConfiguration;
+        this.entityCollectorFactory = EntityCollectorFactory.forClient();
+    }
+
+    /**
+     * Set the statistics which the channels created and destroyed by a commons-pool based pool are recorded to.
+     * The event loop bound pools record these themselves.
+     *
+     * @param poolMetrics the statistics of the pool.
+     */
+    public void setPoolMetrics(ConnectionPoolMetrics poolMetrics) {
+        this.poolMetrics = poolMetrics;
     }
 
 
@@ -74,9 +90,12 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
                 clientSslEngine);
         clientBootstrap.handler(httpClientInitializer);
         ChannelFuture channelFuture = clientBootstrap
-                .connect(new InetSocketAddress(httpRoute.getHost(), httpRoute.getPort()));
+                .connect(TargetAddressResolver.getAddress(httpRoute.getHost(), httpRoute.getPort()));
         TargetChannel targetChannel = new TargetChannel(httpClientInitializer, channelFuture);
         targetChannel.setHttpRoute(httpRoute);
+        if (poolMetrics != null) {
+            poolMetrics.connectionCreated(channelFuture);
+        }
         log.debug("Created channel: {}", httpRoute);
         return targetChannel;
     }
@@ -84,6 +103,9 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
     @Override
     public void destroyObject(Object o) throws Exception {
         log.debug("Destroying channel: {}", o);
+        if (poolMetrics != null) {
+            poolMetrics.connectionDestroyed();
+        }
         if (((TargetChannel) o).getChannel().isOpen()) {
             if (log.isDebugEnabled()) {
                 log.debug("And channel id is : " + ((TargetChannel) o).getChannel().id());
@@ -118,6 +140,7 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
         Bootstrap clientBootstrap = new Bootstrap();
         clientBootstrap.channel(eventLoopClass);
         clientBootstrap.group(eventLoopGroup);
+        clientBootstrap.resolver(TargetAddressResolver.getResolverGroup(proxyServerConfiguration));
         clientBootstrap.option(ChannelOption.SO_KEEPALIVE, bootstrapConfiguration.isKeepAlive());
         clientBootstrap.option(ChannelOption.TCP_NODELAY, bootstrapConfiguration.isTcpNoDelay());
         clientBootstrap.option(ChannelOption.SO_REUSEADDR, bootstrapConfiguration.isSocketReuse());
@@ -129,8 +152,9 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
         // set the pipeline factory, which creates the pipeline for each newly created channels
         SSLEngine sslEngine = null;
         if (sslConfig != null) {
-            SSLHandlerFactory sslHandlerFactory = new SSLHandlerFactory(sslConfig);
-            sslEngine = sslHandlerFactory.build();
+            SSLHandlerFactory sslHandlerFactory = SSLContextCache.getInstance().getSSLHandlerFactory(sslConfig);
+            // Tied to the route, so that reconnects resume the cached session of the route
+            sslEngine = sslHandlerFactory.build(httpRoute.getHost(), httpRoute.getPort());
             sslEngine.setUseClientMode(true);
             sslHandlerFactory.setSNIServerNames(sslEngine, httpRoute.getHost());
         }
@@ -141,7 +165,12 @@ public class PoolableTargetChannelFactory implements PoolableObjectFactory {
     private HTTPClientInitializer instantiateAndConfigClientInitializer(Bootstrap clientBootstrap,
             SSLEngine sslEngine) {
         HTTPClientInitializer httpClientInitializer = new HTTPClientInitializer(sslEngine, httpTraceLogEnabled
-                , chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration);
+                , chunkDisabled, followRedirect, maxRedirectCount, proxyServerConfiguration, entityCollectorFactory);
+        TransportMetrics transportMetrics = TransportMetrics.getInstance();
+        if (transportMetrics.isEnabled()) {
+            httpClientInitializer.setMetricsHandler(
+                    transportMetrics.getRouteHandler(httpRoute.getHost(), httpRoute.getPort()));
+        }
         if (log.isDebugEnabled()) {
             log.debug("Created new TCP client bootstrap connecting to {}:{} with options: {}", httpRoute.getHost(),
                     httpRoute.getPort(), clientBootstrap);
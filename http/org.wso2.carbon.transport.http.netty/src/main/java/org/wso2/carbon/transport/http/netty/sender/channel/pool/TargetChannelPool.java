@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.channel.pool;
+
+import io.netty.channel.EventLoop;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the per event loop channel pools of a route.
+ */
+public class TargetChannelPool {
+
+    private final HttpRoute httpRoute;
+    private final ConnectionPoolMetrics poolMetrics;
+    private final Map<EventLoop, EventLoopChannelPool> eventLoopPools = new ConcurrentHashMap<>();
+
+    public TargetChannelPool(HttpRoute httpRoute) {
+        this(httpRoute, ConnectionPoolMetrics.EVENT_LOOP_SCOPE);
+    }
+
+    /**
+     * Create the holder of the pools of a route.
+     *
+     * @param httpRoute the route.
+     * @param scope     the pooling scope which the statistics of the event loop pools are reported under.
+     */
+    public TargetChannelPool(HttpRoute httpRoute, String scope) {
+        this.httpRoute = httpRoute;
+        this.poolMetrics = new ConnectionPoolMetrics(httpRoute, scope);
+    }
+
+    public HttpRoute getHttpRoute() {
+        return httpRoute;
+    }
+
+    /**
+     * Get the statistics which are shared by all the event loop pools of the route.
+     *
+     * @return the pool statistics of the route.
+     */
+    public ConnectionPoolMetrics getPoolMetrics() {
+        return poolMetrics;
+    }
+
+    /**
+     * Get the pool bound to the given event loop.
+     *
+     * @param eventLoop the event loop.
+     * @return the channel pool or null if a pool is not created yet for the event loop.
+     */
+    public EventLoopChannelPool getEventLoopPool(EventLoop eventLoop) {
+        return eventLoopPools.get(eventLoop);
+    }
+
+    /**
+     * Register a pool for the event loop of it. If another pool is already registered for the same event loop, the
+     * given pool is closed and the existing one is returned.
+     *
+     * @param channelPool the channel pool.
+     * @return the pool which is registered for the event loop.
+     */
+    public EventLoopChannelPool addEventLoopPool(EventLoopChannelPool channelPool) {
+        EventLoopChannelPool existing = eventLoopPools.putIfAbsent(channelPool.getEventLoop(), channelPool);
+        if (existing != null) {
+            channelPool.close();
+            return existing;
+        }
+        return channelPool;
+    }
+
+    public Collection<EventLoopChannelPool> getEventLoopPools() {
+        return eventLoopPools.values();
+    }
+
+    /**
+     * Close all the event loop pools of the route.
+     */
+    public void close() {
+        eventLoopPools.values().forEach(EventLoopChannelPool::close);
+        eventLoopPools.clear();
+    }
+}
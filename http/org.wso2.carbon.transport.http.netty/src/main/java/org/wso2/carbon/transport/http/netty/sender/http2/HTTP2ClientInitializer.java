@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.http2;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class that responsible for initialize the pipeline of a HTTP/2 connection to the target server. h2 is negotiated
+ * with ALPN when a SSL context is given, otherwise the connection starts with HTTP/2 directly (h2c with prior
+ * knowledge).
+ */
+public class HTTP2ClientInitializer extends ChannelInitializer<SocketChannel> {
+
+    private static final Logger log = LoggerFactory.getLogger(HTTP2ClientInitializer.class);
+
+    private final HttpRoute httpRoute;
+    private final SslContext sslContext;
+    private final boolean httpTraceLogEnabled;
+    private final int socketIdleTimeout;
+    private final int maxConcurrentStreams;
+    private final EntityCollectorFactory entityCollectorFactory;
+    private final Promise<HTTP2TargetHandler> handlerPromise = new DefaultPromise<>(ImmediateEventExecutor.INSTANCE);
+    private HTTP2TargetHandler handler;
+
+    public HTTP2ClientInitializer(HttpRoute httpRoute, SslContext sslContext, boolean httpTraceLogEnabled,
+            int socketIdleTimeout, int maxConcurrentStreams, EntityCollectorFactory entityCollectorFactory) {
+        this.httpRoute = httpRoute;
+        this.sslContext = sslContext;
+        this.httpTraceLogEnabled = httpTraceLogEnabled;
+        this.socketIdleTimeout = socketIdleTimeout;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.entityCollectorFactory = entityCollectorFactory;
+    }
+
+    @Override
+    protected void initChannel(SocketChannel ch) throws Exception {
+        ch.closeFuture().addListener(future -> handlerPromise.tryFailure(new ClosedChannelException()));
+        if (sslContext != null) {
+            ch.pipeline().addLast("ssl", sslContext.newHandler(ch.alloc(), httpRoute.getHost(),
+                    httpRoute.getPort()));
+            ch.pipeline().addLast("alpn", new ApplicationProtocolNegotiationHandler(
+                    ApplicationProtocolNames.HTTP_1_1) {
+                @Override
+                protected void configurePipeline(ChannelHandlerContext ctx, String protocol) throws Exception {
+                    if (!ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                        throw new IllegalStateException(httpRoute + " did not negotiate h2, protocol: " + protocol);
+                    }
+                    addHttp2Handler(ctx.pipeline());
+                }
+            });
+        } else {
+            addHttp2Handler(ch.pipeline());
+        }
+    }
+
+    private void addHttp2Handler(ChannelPipeline pipeline) {
+        if (log.isDebugEnabled()) {
+            log.debug("Adding HTTP/2 handler to the connection to {}", httpRoute);
+        }
+        pipeline.addLast(Constants.IDLE_STATE_HANDLER, new IdleStateHandler(socketIdleTimeout, socketIdleTimeout, 0,
+                TimeUnit.MILLISECONDS));
+        String scheme = sslContext != null ? Constants.HTTPS_SCHEME : Constants.HTTP_SCHEME;
+        handler = new HTTP2TargetHandlerBuilder(httpRoute, scheme, maxConcurrentStreams, httpTraceLogEnabled,
+                entityCollectorFactory).build();
+        pipeline.addLast(Constants.TARGET_HANDLER, handler);
+        handlerPromise.trySuccess(handler);
+    }
+
+    /**
+     * @return future which is notified once the HTTP/2 handler is added to the pipeline, or failed if the connection
+     * is closed before that.
+     */
+    public Future<HTTP2TargetHandler> getHandlerFuture() {
+        return handlerPromise;
+    }
+
+    /**
+     * Check whether the connection can take one more stream. Before the handler is added, i.e. while connecting, only
+     * the configured limit is considered.
+     *
+     * @param inFlightRequests number of requests which are already assigned to the connection.
+     * @return true if a new stream can be opened.
+     */
+    public boolean canOpenStream(int inFlightRequests) {
+        if (handlerPromise.isDone() && !handlerPromise.isSuccess()) {
+            return false;
+        }
+        return handler != null ? handler.canOpenStream(inFlightRequests) : inFlightRequests < maxConcurrentStreams;
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http2.Http2ConnectionAdapter;
+import io.netty.handler.codec.http2.Http2ConnectionDecoder;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Flags;
+import io.netty.handler.codec.http2.Http2FrameListener;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2Stream;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.common.Util;
+import org.wso2.carbon.transport.http.netty.contract.ClientConnectorException;
+import org.wso2.carbon.transport.http.netty.contract.HttpResponseFuture;
+import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
+import org.wso2.carbon.transport.http.netty.internal.HandlerExecutor;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HttpCarbonResponse;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code HTTP2TargetHandler} writes requests as HTTP/2 streams over a single connection to the backend and
+ * correlates the response frames back to the request by stream id.
+ * <p>
+ * All methods are invoked from the event loop of the connection. Every completed or failed stream is returned to the
+ * connection pool, so that the pool can account the number of concurrent streams of the connection.
+ */
+public final class HTTP2TargetHandler extends Http2ConnectionHandler implements Http2FrameListener {
+
+    private static final Logger log = LoggerFactory.getLogger(HTTP2TargetHandler.class);
+
+    private final IntObjectMap<OutboundStream> inFlightStreams = new IntObjectHashMap<>();
+    private final HttpRoute httpRoute;
+    private final String scheme;
+    private final int maxConcurrentStreams;
+    private final EntityCollectorFactory entityCollectorFactory;
+    private ChannelHandlerContext ctx;
+    private TargetChannel targetChannel;
+    private boolean goAwayReceived;
+
+    HTTP2TargetHandler(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder, Http2Settings initialSettings,
+            HttpRoute httpRoute, String scheme, int maxConcurrentStreams,
+            EntityCollectorFactory entityCollectorFactory) {
+        super(decoder, encoder, initialSettings);
+        this.httpRoute = httpRoute;
+        this.scheme = scheme;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.entityCollectorFactory = entityCollectorFactory;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        this.ctx = ctx;
+        connection().addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamClosed(Http2Stream stream) {
+                // Streams closed by the codec, e.g. due to a stream error, before the response is completed
+                failStream(stream.id(), new ClientConnectorException("Stream closed before receiving the response, "
+                        + httpRoute, HttpResponseStatus.BAD_GATEWAY.code()));
+            }
+        });
+    }
+
+    public void setTargetChannel(TargetChannel targetChannel) {
+        this.targetChannel = targetChannel;
+    }
+
+    /**
+     * Check whether the connection can take one more stream.
+     *
+     * @param inFlightRequests number of requests which are already assigned to the connection.
+     * @return true if a new stream can be opened.
+     */
+    public boolean canOpenStream(int inFlightRequests) {
+        return !goAwayReceived && inFlightRequests < Math.min(maxConcurrentStreams,
+                connection().local().maxActiveStreams());
+    }
+
+    /**
+     * Write the request as a new stream. The content of the request is streamed as data frames as it arrives.
+     *
+     * @param httpCarbonRequest  the outbound request.
+     * @param httpResponseFuture the future to notify with the response.
+     */
+    public void writeRequest(HTTPCarbonMessage httpCarbonRequest, HttpResponseFuture httpResponseFuture) {
+        HandlerExecutor handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
+        int streamId;
+        Http2Headers http2Headers;
+        try {
+            if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+                handlerExecutor.executeAtTargetRequestReceiving(httpCarbonRequest);
+            }
+            streamId = connection().local().incrementAndGetNextStreamId();
+            http2Headers = createHttp2Headers(httpCarbonRequest);
+        } catch (Exception e) {
+            log.error("Failed to send the request to " + httpRoute, e);
+            httpResponseFuture.notifyHttpListener(e);
+            releaseStream();
+            return;
+        }
+
+        inFlightStreams.put(streamId, new OutboundStream(httpCarbonRequest, httpResponseFuture));
+        encoder().writeHeaders(ctx, streamId, http2Headers, 0, false, ctx.newPromise())
+                .addListener(future -> {
+                    if (!future.isSuccess()) {
+                        ClientConnectorException cause = new ClientConnectorException("Failed to open stream, "
+                                + httpRoute, HttpResponseStatus.BAD_GATEWAY.code());
+                        cause.initCause(future.cause());
+                        failStream(streamId, cause);
+                    }
+                });
+
+        httpCarbonRequest.getHttpContentAsync().setMessageListener(httpContent ->
+                ctx.executor().execute(() -> writeContent(streamId, httpCarbonRequest, httpContent)));
+    }
+
+    private void writeContent(int streamId, HTTPCarbonMessage httpCarbonRequest, HttpContent httpContent) {
+        boolean endOfStream = Util.isLastHttpContent(httpContent);
+        encoder().writeData(ctx, streamId, httpContent.content(), 0, endOfStream, ctx.newPromise());
+        if (endOfStream) {
+            ctx.flush();
+            httpCarbonRequest.removeHttpContentAsyncFuture();
+            HandlerExecutor handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
+            if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+                handlerExecutor.executeAtTargetRequestSending(httpCarbonRequest);
+            }
+        }
+    }
+
+    private Http2Headers createHttp2Headers(HTTPCarbonMessage httpCarbonRequest) throws Exception {
+        HttpRequest httpRequest = Util.createHttpRequest(httpCarbonRequest);
+        httpRequest.headers().set(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), scheme);
+        Http2Headers http2Headers = HttpConversionUtil.toHttp2Headers(httpRequest, true);
+        if (http2Headers.authority() == null) {
+            String host = httpRequest.headers().get(HttpHeaderNames.HOST);
+            http2Headers.authority(host != null ? host : httpRoute.getHost() + ":" + httpRoute.getPort());
+        }
+        return http2Headers;
+    }
+
+    @Override
+    public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers, int padding,
+            boolean endOfStream) throws Http2Exception {
+        OutboundStream stream = inFlightStreams.get(streamId);
+        if (stream == null) {
+            return;
+        }
+
+        if (stream.response == null) {
+            HttpResponse httpResponse = HttpConversionUtil.toHttpResponse(streamId, headers, false);
+            if (httpResponse.status().codeClass() == HttpStatusClass.INFORMATIONAL) {
+                return;
+            }
+            httpResponse.headers().remove(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text());
+            stream.response = setUpCarbonMessage(httpResponse, stream.request);
+            try {
+                stream.responseFuture.notifyHttpListener(stream.response);
+            } catch (Exception e) {
+                log.error("Error while notifying response to listener ", e);
+            }
+        }
+
+        if (endOfStream) {
+            stream.response.addHttpContent(new DefaultLastHttpContent());
+            completeStream(streamId);
+        }
+    }
+
+    @Override
+    public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers, int streamDependency,
+            short weight, boolean exclusive, int padding, boolean endOfStream) throws Http2Exception {
+        onHeadersRead(ctx, streamId, headers, padding, endOfStream);
+    }
+
+    @Override
+    public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding, boolean endOfStream)
+            throws Http2Exception {
+        int processed = data.readableBytes() + padding;
+        OutboundStream stream = inFlightStreams.get(streamId);
+        if (stream == null || stream.response == null) {
+            return processed;
+        }
+
+        if (endOfStream) {
+            stream.response.addHttpContent(new DefaultLastHttpContent(data.retain()));
+            completeStream(streamId);
+        } else {
+            stream.response.addHttpContent(new DefaultHttpContent(data.retain()));
+        }
+        return processed;
+    }
+
+    @Override
+    public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode) {
+        failStream(streamId, new ClientConnectorException("Stream reset by the backend with error code "
+                + errorCode + ", " + httpRoute, HttpResponseStatus.BAD_GATEWAY.code()));
+    }
+
+    @Override
+    public void onGoAwayRead(ChannelHandlerContext ctx, int lastStreamId, long errorCode, ByteBuf debugData) {
+        goAwayReceived = true;
+        for (int streamId : new ArrayList<>(inFlightStreams.keySet())) {
+            if (streamId > lastStreamId) {
+                failStream(streamId, new ClientConnectorException("Connection is going away, " + httpRoute,
+                        HttpResponseStatus.BAD_GATEWAY.code()));
+            }
+        }
+        if (inFlightStreams.isEmpty()) {
+            ctx.close();
+        }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            if (!inFlightStreams.isEmpty()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Timeout occurred in HTTP2TargetHandler. Channel ID : " + ctx.channel().id());
+                }
+                failAllStreams(new ClientConnectorException(HttpResponseStatus.GATEWAY_TIMEOUT.reasonPhrase(),
+                        HttpResponseStatus.GATEWAY_TIMEOUT.code()));
+                ctx.close();
+            }
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (log.isDebugEnabled()) {
+            log.debug("Channel " + ctx.channel().id() + " gets inactive so closing it from HTTP2 Target handler.");
+        }
+        failAllStreams(new ClientConnectorException("Connection closed before receiving the response, "
+                + httpRoute, HttpResponseStatus.BAD_GATEWAY.code()));
+        ConnectionManager connectionManager = targetChannel != null ? targetChannel.getConnectionManager() : null;
+        if (connectionManager != null) {
+            connectionManager.invalidateTargetChannel(targetChannel);
+        }
+        super.channelInactive(ctx);
+    }
+
+    private HTTPCarbonMessage setUpCarbonMessage(HttpResponse httpResponse, HTTPCarbonMessage request) {
+        HTTPCarbonMessage response = new HttpCarbonResponse(httpResponse, entityCollectorFactory);
+        response.setProperty(org.wso2.carbon.messaging.Constants.DIRECTION,
+                org.wso2.carbon.messaging.Constants.DIRECTION_RESPONSE);
+        response.setProperty(Constants.HTTP_STATUS_CODE, httpResponse.status().code());
+        response.setProperty(Constants.HTTP_VERSION, Constants.HTTP2_VERSION);
+        response.setProperty(Constants.EXECUTOR_WORKER_POOL, request.getProperty(Constants.EXECUTOR_WORKER_POOL));
+
+        HandlerExecutor handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+            handlerExecutor.executeAtTargetResponseReceiving(response);
+        }
+        return response;
+    }
+
+    private void completeStream(int streamId) {
+        OutboundStream stream = inFlightStreams.remove(streamId);
+        if (stream == null) {
+            return;
+        }
+        HandlerExecutor handlerExecutor = HTTPTransportContextHolder.getInstance().getHandlerExecutor();
+        if (handlerExecutor != null && handlerExecutor.hasHandlers()) {
+            handlerExecutor.executeAtTargetResponseSending(stream.response);
+        }
+        closeIfGoingAway();
+        releaseStream();
+    }
+
+    private void failStream(int streamId, ClientConnectorException cause) {
+        OutboundStream stream = inFlightStreams.remove(streamId);
+        if (stream == null) {
+            return;
+        }
+        if (stream.response == null) {
+            stream.responseFuture.notifyHttpListener(cause);
+        } else {
+            log.warn("Response from " + httpRoute + " is truncated. " + cause.getMessage());
+            stream.response.addHttpContent(new DefaultLastHttpContent());
+        }
+        closeIfGoingAway();
+        releaseStream();
+    }
+
+    private void failAllStreams(ClientConnectorException cause) {
+        List<Integer> streamIds = new ArrayList<>(inFlightStreams.keySet());
+        for (int streamId : streamIds) {
+            failStream(streamId, cause);
+        }
+    }
+
+    private void closeIfGoingAway() {
+        if (goAwayReceived && inFlightStreams.isEmpty()) {
+            ctx.close();
+        }
+    }
+
+    private void releaseStream() {
+        ConnectionManager connectionManager = targetChannel != null ? targetChannel.getConnectionManager() : null;
+        if (connectionManager == null) {
+            return;
+        }
+        try {
+            connectionManager.returnChannel(targetChannel);
+        } catch (Exception e) {
+            log.error("Error occurred while returning the HTTP/2 connection to the pool", e);
+        }
+    }
+
+    @Override
+    public void onPriorityRead(ChannelHandlerContext ctx, int streamId, int streamDependency, short weight,
+            boolean exclusive) {
+    }
+
+    @Override
+    public void onSettingsAckRead(ChannelHandlerContext ctx) {
+    }
+
+    @Override
+    public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings) {
+    }
+
+    @Override
+    public void onPingRead(ChannelHandlerContext ctx, ByteBuf data) {
+    }
+
+    @Override
+    public void onPingAckRead(ChannelHandlerContext ctx, ByteBuf data) {
+    }
+
+    @Override
+    public void onPushPromiseRead(ChannelHandlerContext ctx, int streamId, int promisedStreamId, Http2Headers headers,
+            int padding) {
+        // Server push is disabled through the initial settings
+    }
+
+    @Override
+    public void onWindowUpdateRead(ChannelHandlerContext ctx, int streamId, int windowSizeIncrement) {
+    }
+
+    @Override
+    public void onUnknownFrame(ChannelHandlerContext ctx, byte frameType, int streamId, Http2Flags flags,
+            ByteBuf payload) {
+    }
+
+    /**
+     * A request which is waiting for its response on a stream.
+     */
+    private static class OutboundStream {
+
+        private final HTTPCarbonMessage request;
+        private final HttpResponseFuture responseFuture;
+        private HTTPCarbonMessage response;
+
+        OutboundStream(HTTPCarbonMessage request, HttpResponseFuture responseFuture) {
+            this.request = request;
+            this.responseFuture = responseFuture;
+        }
+    }
+}
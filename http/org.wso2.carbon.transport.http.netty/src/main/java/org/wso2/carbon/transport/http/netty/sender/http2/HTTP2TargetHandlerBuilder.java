@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.sender.http2;
+
+import io.netty.handler.codec.http2.AbstractHttp2ConnectionHandlerBuilder;
+import io.netty.handler.codec.http2.Http2ConnectionDecoder;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2FrameLogger;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.logging.LogLevel;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.message.EntityCollectorFactory;
+
+/**
+ * {@code HTTP2TargetHandlerBuilder} is used to build the client side http2 handler which acts as the frame listener
+ * of the connection as well.
+ */
+public final class HTTP2TargetHandlerBuilder
+        extends AbstractHttp2ConnectionHandlerBuilder<HTTP2TargetHandler, HTTP2TargetHandlerBuilder> {
+
+    private HttpRoute httpRoute;
+    private String scheme;
+    private int maxConcurrentStreams;
+    private EntityCollectorFactory entityCollectorFactory;
+
+    public HTTP2TargetHandlerBuilder(HttpRoute httpRoute, String scheme, int maxConcurrentStreams,
+            boolean httpTraceLogEnabled, EntityCollectorFactory entityCollectorFactory) {
+        this.httpRoute = httpRoute;
+        this.entityCollectorFactory = entityCollectorFactory;
+        this.scheme = scheme;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        server(false);
+        initialSettings(Http2Settings.defaultSettings().pushEnabled(false));
+        if (httpTraceLogEnabled) {
+            frameLogger(new Http2FrameLogger(LogLevel.DEBUG, "tracelog.http.upstream"));
+        }
+    }
+
+    @Override
+    public HTTP2TargetHandler build() {
+        return super.build();
+    }
+
+    @Override
+    protected HTTP2TargetHandler build(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
+            Http2Settings initialSettings) {
+        HTTP2TargetHandler handler = new HTTP2TargetHandler(decoder, encoder, initialSettings, httpRoute, scheme,
+                maxConcurrentStreams, entityCollectorFactory);
+        frameListener(handler);
+        return handler;
+    }
+}
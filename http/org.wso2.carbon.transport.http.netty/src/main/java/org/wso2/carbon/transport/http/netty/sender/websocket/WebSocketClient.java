@@ -25,9 +25,7 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -42,10 +40,12 @@ import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.transport.http.netty.common.EventLoopUtil;
 import org.wso2.carbon.transport.http.netty.contract.websocket.HandshakeFuture;
 import org.wso2.carbon.transport.http.netty.contract.websocket.WebSocketConnectorListener;
 import org.wso2.carbon.transport.http.netty.contractimpl.websocket.HandshakeFutureImpl;
 import org.wso2.carbon.transport.http.netty.internal.websocket.WebSocketSessionImpl;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetAddressResolver;
 
 import java.net.URI;
 import java.util.Map;
@@ -68,6 +68,7 @@ public class WebSocketClient {
     private final int idleTimeout;
     private final Map<String, String> headers;
     private final WebSocketConnectorListener connectorListener;
+    private final boolean nativeTransport;
 
     /**
      *
@@ -80,12 +81,29 @@ public class WebSocketClient {
      */
     public WebSocketClient(String url, String target, String subProtocols, int idleTimeout,
                            Map<String, String> headers, WebSocketConnectorListener connectorListener) {
+        this(url, target, subProtocols, idleTimeout, headers, connectorListener, false);
+    }
+
+    /**
+     *
+     * @param url url of the remote endpoint.
+     * @param target target for the inbound messages from the remote server.
+     * @param subProtocols the negotiable sub-protocol if server is asking for it.
+     * @param idleTimeout Idle timeout of the connection.
+     * @param headers any specific headers which need to send to the server.
+     * @param connectorListener connector listener to notify incoming messages.
+     * @param nativeTransport use the native transport for the connection when it is available.
+     */
+    public WebSocketClient(String url, String target, String subProtocols, int idleTimeout,
+                           Map<String, String> headers, WebSocketConnectorListener connectorListener,
+                           boolean nativeTransport) {
         this.url = url;
         this.target = target;
         this.subProtocols = subProtocols;
         this.idleTimeout = idleTimeout;
         this.headers = headers;
         this.connectorListener = connectorListener;
+        this.nativeTransport = nativeTransport;
     }
 
     /**
@@ -126,7 +144,7 @@ public class WebSocketClient {
                 sslCtx = null;
             }
 
-            group = new NioEventLoopGroup();
+            group = EventLoopUtil.createEventLoopGroup(0, nativeTransport);
             HttpHeaders httpHeaders = new DefaultHttpHeaders();
 
             // Adding custom headers to the handshake request.
@@ -144,7 +162,8 @@ public class WebSocketClient {
 
             Bootstrap b = new Bootstrap();
             b.group(group)
-                    .channel(NioSocketChannel.class)
+                    .channel(EventLoopUtil.getSocketChannelClass(group))
+                    .resolver(TargetAddressResolver.getResolverGroup(null))
                     .handler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(SocketChannel ch) {
@@ -163,7 +182,7 @@ public class WebSocketClient {
                         }
                     });
 
-            b.connect(uri.getHost(), port).sync();
+            b.connect(TargetAddressResolver.getAddress(uri.getHost(), port)).sync();
             ChannelFuture future = handler.handshakeFuture().addListener(new ChannelFutureListener() {
                 @Override
                 public void operationComplete(ChannelFuture future) {
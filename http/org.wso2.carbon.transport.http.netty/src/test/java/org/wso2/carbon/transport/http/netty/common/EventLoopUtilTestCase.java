@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the selection of the native or NIO transport.
+ */
+public class EventLoopUtilTestCase {
+
+    @Test
+    public void testNioTransportIsUsedWhenNativeIsNotPreferred() throws InterruptedException {
+        EventLoopGroup eventLoopGroup = EventLoopUtil.createEventLoopGroup(1, false);
+        try {
+            assertTrue(eventLoopGroup instanceof NioEventLoopGroup);
+            assertFalse(EventLoopUtil.isNativeEventLoopGroup(eventLoopGroup));
+            assertFalse(EventLoopUtil.isNativeEventLoopGroup(eventLoopGroup.next()));
+            assertEquals(EventLoopUtil.getServerChannelClass(eventLoopGroup), NioServerSocketChannel.class);
+            assertEquals(EventLoopUtil.getSocketChannelClass(eventLoopGroup.next()), NioSocketChannel.class);
+        } finally {
+            eventLoopGroup.shutdownGracefully().sync();
+        }
+    }
+
+    @Test
+    public void testNativeTransportIsUsedWhenAvailable() throws InterruptedException {
+        EventLoopGroup eventLoopGroup = EventLoopUtil.createEventLoopGroup(1, true);
+        try {
+            // Falls back to NIO on the platforms without epoll
+            boolean nativeTransport = Epoll.isAvailable();
+            assertEquals(EventLoopUtil.isNativeEventLoopGroup(eventLoopGroup), nativeTransport);
+            assertEquals(EventLoopUtil.isNativeEventLoopGroup(eventLoopGroup.next()), nativeTransport);
+            assertEquals(EventLoopUtil.getServerChannelClass(eventLoopGroup),
+                    nativeTransport ? EpollServerSocketChannel.class : NioServerSocketChannel.class);
+            assertEquals(EventLoopUtil.getSocketChannelClass(eventLoopGroup.next()),
+                    nativeTransport ? EpollSocketChannel.class : NioSocketChannel.class);
+        } finally {
+            eventLoopGroup.shutdownGracefully().sync();
+        }
+    }
+}
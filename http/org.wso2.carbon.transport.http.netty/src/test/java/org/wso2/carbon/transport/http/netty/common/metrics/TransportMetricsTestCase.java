@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.common.metrics;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+/**
+ * Tests for recording the metrics of a listener.
+ */
+public class TransportMetricsTestCase {
+
+    @Test
+    public void testExchangeOfListenerIsRecorded() {
+        TransportMetrics transportMetrics = TransportMetrics.getInstance();
+        EmbeddedChannel channel = new EmbeddedChannel(transportMetrics.getListenerHandler("metricsTest"));
+
+        channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[10])));
+        channel.writeOutbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeOutbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[20])));
+
+        EndpointSnapshot snapshot = transportMetrics.snapshot().get(TransportMetrics.LISTENER_PREFIX + "metricsTest");
+        assertNotNull(snapshot);
+        assertEquals(snapshot.getRequestCount(), 1);
+        assertEquals(snapshot.getBytesIn(), 10);
+        assertEquals(snapshot.getBytesOut(), 20);
+        assertEquals(snapshot.getActiveConnections(), 1);
+
+        channel.finishAndReleaseAll();
+        snapshot = transportMetrics.snapshot().get(TransportMetrics.LISTENER_PREFIX + "metricsTest");
+        assertEquals(snapshot.getActiveConnections(), 0);
+        assertEquals(snapshot.getConnectionDuration().getTotalCount(), 1);
+        assertEquals(snapshot.getRequestCount(), 1);
+    }
+
+    @Test
+    public void testMetricsOfTerminatedEventLoopAreKept() throws InterruptedException {
+        TransportMetrics transportMetrics = TransportMetrics.getInstance();
+        Thread eventLoopThread = new FastThreadLocalThread(() -> {
+            try {
+                EmbeddedChannel channel = new EmbeddedChannel(transportMetrics.getListenerHandler("retiredTest"));
+                channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"));
+                channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[10])));
+                channel.writeOutbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+                channel.writeOutbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[20])));
+                channel.finishAndReleaseAll();
+            } finally {
+                // As a terminating event loop does
+                FastThreadLocal.removeAll();
+            }
+        });
+        eventLoopThread.start();
+        eventLoopThread.join();
+
+        // The counters of the dropped stripe are kept for the later snapshots too
+        for (int i = 0; i < 2; i++) {
+            EndpointSnapshot snapshot = transportMetrics.snapshot().get(TransportMetrics.LISTENER_PREFIX +
+                    "retiredTest");
+            assertNotNull(snapshot);
+            assertEquals(snapshot.getRequestCount(), 1);
+            assertEquals(snapshot.getBytesIn(), 10);
+            assertEquals(snapshot.getBytesOut(), 20);
+            assertEquals(snapshot.getActiveConnections(), 0);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common.ssl;
+
+import io.netty.util.ReferenceCountUtil;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import javax.net.ssl.SSLEngine;
+
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for sharing and reloading the SSL contexts of a configuration.
+ */
+public class SSLContextCacheTestCase {
+
+    private static final String KEY_STORE = "src/test/resources/simple-test-config/wso2carbon.jks";
+    private static final String PASSWORD = "wso2carbon";
+
+    @Test
+    public void testFactoryIsSharedByEqualConfigurations() {
+        SSLContextCache cache = SSLContextCache.getInstance();
+        SSLHandlerFactory sslHandlerFactory = cache.getSSLHandlerFactory(createConfig(new File(KEY_STORE), 0));
+        assertSame(cache.getSSLHandlerFactory(createConfig(new File(KEY_STORE), 0)), sslHandlerFactory);
+
+        SSLEngine first = sslHandlerFactory.build();
+        SSLEngine second = sslHandlerFactory.build();
+        assertNotSame(first, second);
+
+        cache.invalidate(createConfig(new File(KEY_STORE), 0));
+        assertNotSame(cache.getSSLHandlerFactory(createConfig(new File(KEY_STORE), 0)), sslHandlerFactory);
+    }
+
+    @Test
+    public void testFactoryIsReloadedWhenTheKeyStoreChanges() throws IOException, InterruptedException {
+        File keyStore = File.createTempFile("reloadable", ".jks");
+        try {
+            Files.copy(Paths.get(KEY_STORE), keyStore.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            SSLConfig sslConfig = createConfig(keyStore, 1);
+            SSLContextCache cache = SSLContextCache.getInstance();
+            SSLHandlerFactory sslHandlerFactory = cache.getSSLHandlerFactory(sslConfig);
+
+            Thread.sleep(5);
+            assertSame(cache.getSSLHandlerFactory(sslConfig), sslHandlerFactory);
+
+            assertTrue(keyStore.setLastModified(keyStore.lastModified() + 1000));
+            // The stores are reloaded by a background task, so wait for it to replace the factory
+            SSLHandlerFactory reloaded = cache.getSSLHandlerFactory(sslConfig);
+            for (int i = 0; i < 500 && reloaded == sslHandlerFactory; i++) {
+                Thread.sleep(10);
+                reloaded = cache.getSSLHandlerFactory(sslConfig);
+            }
+            assertNotSame(reloaded, sslHandlerFactory);
+            assertNotNull(reloaded.build());
+            cache.invalidate(sslConfig);
+        } finally {
+            Files.deleteIfExists(keyStore.toPath());
+        }
+    }
+
+    @Test
+    public void testOpenSslProviderCreatesEngines() {
+        SSLConfig sslConfig = createConfig(new File(KEY_STORE), 0);
+        sslConfig.setSslProvider("openssl");
+        // Falls back to the JDK engine when netty-tcnative is not available on the platform
+        SSLEngine sslEngine = new SSLHandlerFactory(sslConfig).build();
+        assertNotNull(sslEngine);
+        ReferenceCountUtil.release(sslEngine);
+    }
+
+    private static SSLConfig createConfig(File keyStore, long reloadInterval) {
+        SSLConfig sslConfig = new SSLConfig(keyStore, PASSWORD).setCertPass(PASSWORD);
+        sslConfig.setSslProtocol("TLS");
+        sslConfig.setTlsStoreType("JKS");
+        sslConfig.setCertificateReloadInterval(reloadInterval);
+        return sslConfig;
+    }
+}
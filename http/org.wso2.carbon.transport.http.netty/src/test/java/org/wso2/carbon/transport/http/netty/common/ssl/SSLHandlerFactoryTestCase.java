@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common.ssl;
+
+import io.netty.util.ReferenceCountUtil;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import javax.net.ssl.SSLEngine;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for applying the configuration to the engines of both providers.
+ */
+public class SSLHandlerFactoryTestCase {
+
+    private static final String KEY_STORE = "src/test/resources/simple-test-config/wso2carbon.jks";
+    private static final String PASSWORD = "wso2carbon";
+
+    @DataProvider(name = "providers")
+    public Object[][] providers() {
+        // The OpenSSL provider falls back to the JDK engine when netty-tcnative is not available on the platform
+        return new Object[][] { { "jdk" }, { "openssl" } };
+    }
+
+    @Test(dataProvider = "providers")
+    public void testWantClientAuthRequestsOptionalCertificate(String sslProvider) {
+        SSLConfig sslConfig = createConfig(sslProvider);
+        sslConfig.setWantClientAuth(true);
+
+        SSLEngine sslEngine = new SSLHandlerFactory(sslConfig).build();
+        try {
+            assertTrue(sslEngine.getWantClientAuth());
+            assertFalse(sslEngine.getNeedClientAuth());
+        } finally {
+            ReferenceCountUtil.release(sslEngine);
+        }
+    }
+
+    @Test(dataProvider = "providers")
+    public void testNeedClientAuthTakesPrecedence(String sslProvider) {
+        SSLConfig sslConfig = createConfig(sslProvider);
+        sslConfig.setWantClientAuth(true);
+        sslConfig.setNeedClientAuth(true);
+
+        SSLEngine sslEngine = new SSLHandlerFactory(sslConfig).build();
+        try {
+            assertTrue(sslEngine.getNeedClientAuth());
+        } finally {
+            ReferenceCountUtil.release(sslEngine);
+        }
+    }
+
+    @Test(dataProvider = "providers")
+    public void testEnabledProtocolsAreApplied(String sslProvider) {
+        SSLConfig sslConfig = createConfig(sslProvider);
+        sslConfig.setEnableProtocols("TLSv1.2");
+
+        SSLEngine sslEngine = new SSLHandlerFactory(sslConfig).build();
+        try {
+            assertEquals(sslEngine.getEnabledProtocols(), new String[] { "TLSv1.2" });
+        } finally {
+            ReferenceCountUtil.release(sslEngine);
+        }
+    }
+
+    private static SSLConfig createConfig(String sslProvider) {
+        SSLConfig sslConfig = new SSLConfig(new File(KEY_STORE), PASSWORD).setCertPass(PASSWORD);
+        sslConfig.setSslProtocol("TLS");
+        sslConfig.setTlsStoreType("JKS");
+        sslConfig.setSslProvider(sslProvider);
+        return sslConfig;
+    }
+}
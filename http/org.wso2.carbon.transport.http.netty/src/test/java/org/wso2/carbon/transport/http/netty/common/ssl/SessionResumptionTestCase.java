@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.common.ssl;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.ssl.SslHandler;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.metrics.EndpointSnapshot;
+import org.wso2.carbon.transport.http.netty.common.metrics.TransportMetrics;
+
+import java.io.File;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests for resuming the TLS sessions of a route, and counting the resumed handshakes.
+ */
+public class SessionResumptionTestCase {
+
+    private static final String HOST = "resumption.test";
+    private static final int PORT = 9443;
+    private static final String PASSWORD = "wso2carbon";
+
+    private final LocalAddress address = new LocalAddress("session-resumption");
+    private EventLoopGroup group;
+    private Channel serverChannel;
+
+    @BeforeClass
+    public void setup() throws InterruptedException {
+        SSLConfig serverConfig = new SSLConfig(new File("src/test/resources/simple-test-config/wso2carbon.jks"),
+                PASSWORD).setCertPass(PASSWORD);
+        configure(serverConfig);
+        SSLHandlerFactory serverFactory = new SSLHandlerFactory(serverConfig);
+
+        group = new DefaultEventLoopGroup(1);
+        serverChannel = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        channel.pipeline().addLast(new SslHandler(serverFactory.build()));
+                    }
+                }).bind(address).sync().channel();
+    }
+
+    @AfterClass
+    public void tearDown() throws InterruptedException {
+        serverChannel.close().sync();
+        group.shutdownGracefully().sync();
+    }
+
+    @Test
+    public void testReconnectResumesTheSessionOfTheRoute() throws InterruptedException {
+        SSLConfig clientConfig = new SSLConfig(null, null);
+        clientConfig.setTrustStore(new File("src/test/resources/simple-test-config/client-truststore.jks"))
+                .setTrustStorePass(PASSWORD);
+        clientConfig.setClientMode(true);
+        clientConfig.setSessionCacheSize(16);
+        clientConfig.setSessionTimeout(60);
+        configure(clientConfig);
+        SSLHandlerFactory clientFactory = new SSLHandlerFactory(clientConfig);
+
+        handshake(clientFactory);
+        handshake(clientFactory);
+
+        EndpointSnapshot snapshot = TransportMetrics.getInstance().snapshot()
+                .get(TransportMetrics.ROUTE_PREFIX + HOST + ":" + PORT);
+        assertEquals(snapshot.getHandshakeCount(), 2);
+        assertEquals(snapshot.getResumedHandshakeCount(), 1);
+        assertEquals(snapshot.getFailedHandshakeCount(), 0);
+    }
+
+    private void handshake(SSLHandlerFactory clientFactory) throws InterruptedException {
+        SslHandler sslHandler = new SslHandler(clientFactory.build(HOST, PORT));
+        Channel channel = new Bootstrap().group(group).channel(LocalChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        channel.pipeline().addLast(sslHandler,
+                                TransportMetrics.getInstance().getRouteHandler(HOST, PORT));
+                    }
+                }).connect(address).sync().channel();
+        sslHandler.handshakeFuture().sync();
+        channel.close().sync();
+    }
+
+    private static void configure(SSLConfig sslConfig) {
+        sslConfig.setSslProtocol("TLS");
+        sslConfig.setTlsStoreType("JKS");
+        // Resumption is counted by the id of the session, which TLSv1.3 does not carry over
+        sslConfig.setEnableProtocols("TLSv1.2");
+    }
+}
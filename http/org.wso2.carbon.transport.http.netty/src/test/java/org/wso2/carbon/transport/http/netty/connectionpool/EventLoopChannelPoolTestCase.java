@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.connectionpool;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.concurrent.Future;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.contract.ClientConnectorException;
+import org.wso2.carbon.transport.http.netty.contract.HttpResponseFuture;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpResponseFutureImpl;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.sender.channel.BootstrapConfiguration;
+import org.wso2.carbon.transport.http.netty.sender.channel.TargetChannel;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionPoolMetrics;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.EventLoopChannelPool;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.PoolConfiguration;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.PoolableTargetChannelFactory;
+import org.wso2.carbon.transport.http.netty.util.HTTPConnectorListener;
+import org.wso2.carbon.transport.http.netty.util.TestUtil;
+import org.wso2.carbon.transport.http.netty.util.server.HttpServer;
+import org.wso2.carbon.transport.http.netty.util.server.initializers.EchoServerInitializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the event loop bound target channel pool.
+ */
+public class EventLoopChannelPoolTestCase {
+
+    private HttpServer httpServer;
+    private EventLoopGroup eventLoopGroup;
+    private HttpRoute httpRoute;
+
+    @BeforeClass
+    public void setup() {
+        httpServer = TestUtil.startHTTPServer(TestUtil.TEST_HTTP_SERVER_PORT, new EchoServerInitializer());
+        if (BootstrapConfiguration.getInstance() == null) {
+            BootstrapConfiguration.createBootStrapConfiguration(new HashMap<>());
+        }
+        eventLoopGroup = new NioEventLoopGroup(1);
+        httpRoute = new HttpRoute(TestUtil.TEST_HOST, TestUtil.TEST_HTTP_SERVER_PORT);
+    }
+
+    @Test
+    public void testAcquireWhenPoolIsExhausted() throws Exception {
+        EventLoopChannelPool channelPool = createChannelPool(1);
+
+        TargetChannel first = acquireConnected(channelPool);
+        Future<TargetChannel> second = channelPool.acquire();
+        assertFalse(second.await(500), "Acquire should wait until a channel is released");
+
+        channelPool.release(first);
+        assertTrue(second.await(5000));
+        assertSame(second.getNow(), first);
+
+        channelPool.close();
+    }
+
+    @Test
+    public void testReleasedChannelIsReused() throws Exception {
+        EventLoopChannelPool channelPool = createChannelPool(-1);
+
+        TargetChannel first = acquireConnected(channelPool);
+        channelPool.release(first);
+        TargetChannel second = acquireConnected(channelPool);
+        assertSame(second, first);
+
+        channelPool.close();
+    }
+
+    @Test
+    public void testInactiveChannelIsNotReused() throws Exception {
+        EventLoopChannelPool channelPool = createChannelPool(1);
+
+        TargetChannel first = acquireConnected(channelPool);
+        first.getChannel().close().sync();
+        channelPool.release(first);
+        TargetChannel second = acquireConnected(channelPool);
+        assertNotSame(second, first);
+        assertTrue(second.getChannel().isActive());
+
+        channelPool.close();
+    }
+
+    @Test
+    public void testPendingAcquireLimitAndTimeout() throws Exception {
+        EventLoop eventLoop = eventLoopGroup.next();
+        EventLoopChannelPool channelPool = new EventLoopChannelPool(httpRoute, eventLoop,
+                createChannelFactory(eventLoop), createPoolConfiguration(1, Constants.MAX_PENDING_ACQUIRES_PER_POOL, 1,
+                Constants.PENDING_ACQUIRE_TIMEOUT, 1000), 0, createPoolMetrics());
+
+        acquireConnected(channelPool);
+        Future<TargetChannel> pending = channelPool.acquire();
+        Future<TargetChannel> rejected = channelPool.acquire();
+        assertTrue(rejected.await(500), "Acquire should fail immediately when the pending queue is full");
+        assertServiceUnavailable(rejected);
+
+        assertTrue(pending.await(5000));
+        assertServiceUnavailable(pending);
+
+        channelPool.close();
+    }
+
+    @Test
+    public void testPipelinedAcquire() throws Exception {
+        EventLoop eventLoop = eventLoopGroup.next();
+        EventLoopChannelPool channelPool = new EventLoopChannelPool(httpRoute, eventLoop,
+                createChannelFactory(eventLoop), createPoolConfiguration(1, Constants.CLIENT_PIPELINING_MAX_DEPTH, 2),
+                0, createPoolMetrics());
+
+        TargetChannel first = acquireConnected(channelPool, true);
+        Future<TargetChannel> notWritten = channelPool.acquire(true);
+        assertFalse(notWritten.await(500), "Request should not be pipelined before the earlier one is written");
+        first.setRequestWriteCompleted(true);
+        channelPool.release(first);
+        TargetChannel second = notWritten.sync().getNow();
+        assertSame(second, first);
+
+        second.setRequestWriteCompleted(true);
+        TargetChannel pipelined = channelPool.acquire(true).sync().getNow();
+        assertSame(pipelined, first);
+        assertEquals(pipelined.getInFlightRequests(), 2);
+
+        pipelined.setRequestWriteCompleted(true);
+        Future<TargetChannel> exclusive = channelPool.acquire(false);
+        assertFalse(exclusive.await(500), "Non pipelinable request should wait for an exclusive channel");
+        channelPool.release(pipelined);
+        assertFalse(exclusive.await(500), "Channel should not be released while requests are in flight");
+        channelPool.release(pipelined);
+        assertSame(exclusive.sync().getNow(), first);
+
+        channelPool.close();
+    }
+
+    @Test
+    public void testPoolStatistics() throws Exception {
+        EventLoop eventLoop = eventLoopGroup.next();
+        ConnectionPoolMetrics poolMetrics = createPoolMetrics();
+        EventLoopChannelPool channelPool = new EventLoopChannelPool(httpRoute, eventLoop,
+                createChannelFactory(eventLoop), createPoolConfiguration(1, Constants.MAX_PENDING_ACQUIRES_PER_POOL, 0),
+                0, poolMetrics);
+
+        TargetChannel first = acquireConnected(channelPool);
+        Future<TargetChannel> rejected = channelPool.acquire();
+        assertTrue(rejected.await(500));
+        assertServiceUnavailable(rejected);
+        assertEquals(poolMetrics.getExhaustedCount(), 1);
+        assertEquals(poolMetrics.getConnectCount(), 1);
+        assertEquals(poolMetrics.getActiveConnections(), 1);
+
+        channelPool.release(first);
+        assertSame(acquireConnected(channelPool), first);
+        assertEquals(poolMetrics.getAcquireCount(), 2);
+        assertEquals(poolMetrics.getCreatedConnections(), 1);
+
+        channelPool.release(first);
+        eventLoop.submit(() -> { }).sync();
+        assertEquals(poolMetrics.getOpenConnections(), 1);
+        assertEquals(poolMetrics.getIdleConnections(), 1);
+        assertEquals(poolMetrics.getActiveConnections(), 0);
+
+        channelPool.invalidate(first);
+        eventLoop.submit(() -> { }).sync();
+        assertEquals(poolMetrics.getInvalidatedConnections(), 1);
+        assertEquals(poolMetrics.getOpenConnections(), 0);
+
+        channelPool.close();
+    }
+
+    @Test
+    public void testPrewarmAndMinIdleRefill() throws Exception {
+        EventLoop eventLoop = eventLoopGroup.next();
+        ConnectionPoolMetrics poolMetrics = createPoolMetrics();
+        EventLoopChannelPool channelPool = new EventLoopChannelPool(httpRoute, eventLoop,
+                createChannelFactory(eventLoop), createPoolConfiguration(-1, Constants.TIME_BETWEEN_EVICTION_RUNS, 200,
+                Constants.MIN_EVICTION_IDLE_TIME, 100), 2, poolMetrics);
+
+        channelPool.prewarm();
+        eventLoop.submit(() -> { }).sync();
+        assertEquals(poolMetrics.getCreatedConnections(), 2);
+        assertEquals(poolMetrics.getIdleConnections(), 2);
+
+        // The minimum idle channels are not evicted for being idle
+        Thread.sleep(500);
+        assertEquals(poolMetrics.getEvictedConnections(), 0);
+
+        TargetChannel first = acquireConnected(channelPool);
+        channelPool.invalidate(first);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (poolMetrics.getCreatedConnections() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(poolMetrics.getCreatedConnections(), 3);
+        assertEquals(poolMetrics.getIdleConnections(), 2);
+
+        channelPool.close();
+    }
+
+    @Test
+    public void testTimedOutRequestsDoNotLeakChannels() throws Exception {
+        EventLoop eventLoop = eventLoopGroup.next();
+        int maxActive = 2;
+        EventLoopChannelPool channelPool = new EventLoopChannelPool(httpRoute, eventLoop,
+                createChannelFactory(eventLoop), createPoolConfiguration(maxActive, Constants.PENDING_ACQUIRE_TIMEOUT,
+                2000), 0, createPoolMetrics());
+        ConnectionManager.init(new HashMap<>());
+
+        // The requests are never written, hence the server never responds and each of them times out
+        for (int i = 0; i < maxActive * 2; i++) {
+            TargetChannel targetChannel = acquireConnected(channelPool);
+            CountDownLatch latch = new CountDownLatch(1);
+            HTTPConnectorListener listener = new HTTPConnectorListener(latch);
+            HttpResponseFuture responseFuture = new HttpResponseFutureImpl();
+            responseFuture.setHttpConnectorListener(listener);
+            eventLoop.submit(() -> {
+                targetChannel.setConnectionManager(ConnectionManager.getInstance());
+                targetChannel.configTargetHandler(new HTTPCarbonMessage(
+                        new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/")), responseFuture);
+                targetChannel.setRequestWritten(true);
+                targetChannel.setEndPointTimeout(100, 100, 0);
+            }).sync();
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS), "Request should time out");
+            assertTrue(listener.getHttpErrorMessage() instanceof ClientConnectorException);
+            assertEquals(((ClientConnectorException) listener.getHttpErrorMessage()).getHttpStatusCode(),
+                    HttpResponseStatus.GATEWAY_TIMEOUT.code());
+        }
+
+        // Every lease is given back, so the pool can still hand out as many channels as it allows
+        for (int i = 0; i < maxActive; i++) {
+            assertTrue(acquireConnected(channelPool).getChannel().isActive());
+        }
+
+        channelPool.close();
+    }
+
+    @AfterClass
+    public void cleanUp() throws InterruptedException {
+        eventLoopGroup.shutdownGracefully().sync();
+        httpServer.shutdown();
+    }
+
+    private EventLoopChannelPool createChannelPool(int maxActive) {
+        EventLoop eventLoop = eventLoopGroup.next();
+        return new EventLoopChannelPool(httpRoute, eventLoop, createChannelFactory(eventLoop),
+                createPoolConfiguration(maxActive), 0, createPoolMetrics());
+    }
+
+    /**
+     * Create a pool configuration without eviction and pending acquire limits, overridden by the given pairs of
+     * transport property keys and values.
+     */
+    private PoolConfiguration createPoolConfiguration(int maxActive, Object... properties) {
+        Map<String, Object> transportProperties = new HashMap<>();
+        transportProperties.put(Constants.MAX_ACTIVE_CONNECTIONS_PER_POOL, maxActive);
+        transportProperties.put(Constants.MAX_IDLE_CONNECTIONS_PER_POOL, -1);
+        transportProperties.put(Constants.TIME_BETWEEN_EVICTION_RUNS, 0);
+        transportProperties.put(Constants.MIN_EVICTION_IDLE_TIME, 0);
+        transportProperties.put(Constants.MAX_PENDING_ACQUIRES_PER_POOL, -1);
+        transportProperties.put(Constants.PENDING_ACQUIRE_TIMEOUT, 0);
+        for (int i = 0; i < properties.length; i += 2) {
+            transportProperties.put((String) properties[i], properties[i + 1]);
+        }
+        return new PoolConfiguration(transportProperties);
+    }
+
+    private ConnectionPoolMetrics createPoolMetrics() {
+        return new ConnectionPoolMetrics(httpRoute, ConnectionPoolMetrics.EVENT_LOOP_SCOPE);
+    }
+
+    private PoolableTargetChannelFactory createChannelFactory(EventLoop eventLoop) {
+        return new PoolableTargetChannelFactory(httpRoute, eventLoop, NioSocketChannel.class, null, false, false,
+                false, 5, null);
+    }
+
+    private void assertServiceUnavailable(Future<TargetChannel> future) {
+        assertFalse(future.isSuccess());
+        assertTrue(future.cause() instanceof ClientConnectorException);
+        assertEquals(((ClientConnectorException) future.cause()).getHttpStatusCode(),
+                HttpResponseStatus.SERVICE_UNAVAILABLE.code());
+    }
+
+    private TargetChannel acquireConnected(EventLoopChannelPool channelPool) throws InterruptedException {
+        return acquireConnected(channelPool, false);
+    }
+
+    private TargetChannel acquireConnected(EventLoopChannelPool channelPool, boolean pipelinable)
+            throws InterruptedException {
+        TargetChannel targetChannel = channelPool.acquire(pipelinable).sync().getNow();
+        if (targetChannel.getChannel() == null) {
+            targetChannel.setChannel(targetChannel.getChannelFuture().sync().channel());
+        }
+        return targetChannel;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2ConnectionHandlerBuilder;
+import io.netty.handler.codec.http2.Http2FrameAdapter;
+import io.netty.handler.codec.http2.Http2Headers;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.HttpRoute;
+import org.wso2.carbon.transport.http.netty.config.SenderConfiguration;
+import org.wso2.carbon.transport.http.netty.config.TransportsConfiguration;
+import org.wso2.carbon.transport.http.netty.contract.HttpClientConnector;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsConnectorFactoryImpl;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HTTPConnectorUtil;
+import org.wso2.carbon.transport.http.netty.message.HttpMessageDataStreamer;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import org.wso2.carbon.transport.http.netty.util.HTTPConnectorListener;
+import org.wso2.carbon.transport.http.netty.util.TestUtil;
+import org.wso2.carbon.transport.http.netty.util.server.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the HTTP/2 client connector against a h2c prior knowledge server.
+ */
+public class HTTP2ClientConnectorTestCase {
+
+    private static final String TEST_VALUE = "Test Message";
+
+    private HttpServer httpServer;
+    private HttpClientConnector httpClientConnector;
+
+    @BeforeClass
+    public void setUp() {
+        httpServer = TestUtil.startHTTPServer(TestUtil.TEST_HTTP_SERVER_PORT, new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel channel) {
+                EchoFrameListener frameListener = new EchoFrameListener();
+                Http2ConnectionHandler connectionHandler = new Http2ConnectionHandlerBuilder()
+                        .frameListener(frameListener).build();
+                frameListener.encoder = connectionHandler.encoder();
+                channel.pipeline().addLast(connectionHandler);
+            }
+        });
+
+        TransportsConfiguration configuration = TestUtil.getConfiguration(
+                "/simple-test-config/netty-transports.yml");
+        SenderConfiguration senderConfiguration = HTTPConnectorUtil.getSenderConfiguration(configuration,
+                Constants.HTTP_SCHEME);
+        senderConfiguration.setHttp2(true);
+        httpClientConnector = new HttpWsConnectorFactoryImpl().createHttpClientConnector(
+                HTTPConnectorUtil.getTransportProperties(configuration), senderConfiguration);
+    }
+
+    @Test
+    public void testRequestsAreMultiplexedOverOneConnection() throws Exception {
+        assertEquals(getResponseContent(send()), TEST_VALUE);
+
+        List<HTTPConnectorListener> listeners = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            HTTPConnectorListener listener = new HTTPConnectorListener(latch);
+            httpClientConnector.send(createRequest()).setHttpConnectorListener(listener);
+            listeners.add(listener);
+        }
+        assertTrue(latch.await(TestUtil.HTTP2_RESPONSE_TIME_OUT, TestUtil.HTTP2_RESPONSE_TIME_UNIT));
+        for (HTTPConnectorListener listener : listeners) {
+            assertEquals(getResponseContent(listener), TEST_VALUE);
+        }
+
+        HttpRoute httpRoute = new HttpRoute(TestUtil.TEST_HOST, TestUtil.TEST_HTTP_SERVER_PORT);
+        assertEquals(ConnectionManager.getInstance().getHttp2RoutePools().get(httpRoute).getPoolMetrics()
+                .getCreatedConnections(), 1);
+    }
+
+    @AfterClass
+    public void cleanUp() throws InterruptedException {
+        ConnectionManager.getInstance().closeRoutePools();
+        httpServer.shutdown();
+    }
+
+    private HTTPConnectorListener send() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        HTTPConnectorListener listener = new HTTPConnectorListener(latch);
+        httpClientConnector.send(createRequest()).setHttpConnectorListener(listener);
+        assertTrue(latch.await(TestUtil.HTTP2_RESPONSE_TIME_OUT, TestUtil.HTTP2_RESPONSE_TIME_UNIT));
+        return listener;
+    }
+
+    private HTTPCarbonMessage createRequest() {
+        HTTPCarbonMessage request = new HTTPCarbonMessage(new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.POST, "/"));
+        request.setProperty(Constants.HOST, TestUtil.TEST_HOST);
+        request.setProperty(Constants.PORT, TestUtil.TEST_HTTP_SERVER_PORT);
+        request.setProperty(Constants.PROTOCOL, Constants.HTTP_SCHEME);
+        request.setProperty(Constants.HTTP_METHOD, HttpMethod.POST.name());
+        request.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(TEST_VALUE.length()));
+        request.addMessageBody(ByteBuffer.wrap(TEST_VALUE.getBytes(StandardCharsets.UTF_8)));
+        request.setEndOfMsgAdded(true);
+        return request;
+    }
+
+    private String getResponseContent(HTTPConnectorListener listener) {
+        HTTPCarbonMessage response = listener.getHttpResponseMessage();
+        assertNotNull(response, "No response for the request: " + listener.getHttpErrorMessage());
+        return new BufferedReader(new InputStreamReader(new HttpMessageDataStreamer(response).getInputStream()))
+                .lines().collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Echoes the request of each stream back as the response of the stream.
+     */
+    private static class EchoFrameListener extends Http2FrameAdapter {
+
+        private Http2ConnectionEncoder encoder;
+
+        @Override
+        public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding,
+                boolean endOfStream) {
+            int processed = data.readableBytes() + padding;
+            encoder.writeData(ctx, streamId, data.retain(), 0, endOfStream, ctx.newPromise());
+            ctx.flush();
+            return processed;
+        }
+
+        @Override
+        public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers, int padding,
+                boolean endOfStream) {
+            encoder.writeHeaders(ctx, streamId, new DefaultHttp2Headers().status(HttpResponseStatus.OK.codeAsText()),
+                    0, endOfStream, ctx.newPromise());
+            ctx.flush();
+        }
+
+        @Override
+        public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers,
+                int streamDependency, short weight, boolean exclusive, int padding, boolean endOfStream) {
+            onHeadersRead(ctx, streamId, headers, padding, endOfStream);
+        }
+    }
+}
@@ -18,95 +18,115 @@
 
 package org.wso2.carbon.transport.http.netty.http2;
 
-//import io.netty.buffer.ByteBuf;
-//import io.netty.handler.codec.http.DefaultFullHttpRequest;
-//import io.netty.handler.codec.http.HttpHeaderNames;
-//import org.slf4j.Logger;
-//import org.slf4j.LoggerFactory;
-//import org.testng.annotations.AfterClass;
-//import org.testng.annotations.BeforeClass;
-//import org.testng.annotations.Test;
-//import org.wso2.carbon.messaging.CarbonMessageProcessor;
-//import org.wso2.carbon.messaging.exceptions.ServerConnectorException;
-//import org.wso2.carbon.transport.http.netty.common.Constants;
-//import org.wso2.carbon.transport.http.netty.config.TransportsConfiguration;
-//import org.wso2.carbon.transport.http.netty.config.YAMLTransportConfigurationBuilder;
-//import org.wso2.carbon.transport.http.netty.util.TestUtil;
-//import org.wso2.carbon.transport.http.netty.util.client.http2.HTTP2Client;
-//import org.wso2.carbon.transport.http.netty.util.server.HttpServer;
-//
-//import java.util.List;
-//
-//import static io.netty.handler.codec.http.HttpMethod.GET;
-//import static io.netty.handler.codec.http.HttpMethod.POST;
-//import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
-//import static org.testng.AssertJUnit.assertEquals;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.config.SenderConfiguration;
+import org.wso2.carbon.transport.http.netty.config.TransportsConfiguration;
+import org.wso2.carbon.transport.http.netty.contentaware.listeners.EchoMessageListener;
+import org.wso2.carbon.transport.http.netty.contract.HttpClientConnector;
+import org.wso2.carbon.transport.http.netty.contract.ServerConnector;
+import org.wso2.carbon.transport.http.netty.contractimpl.HttpWsConnectorFactoryImpl;
+import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HTTPConnectorUtil;
+import org.wso2.carbon.transport.http.netty.message.HttpMessageDataStreamer;
+import org.wso2.carbon.transport.http.netty.sender.channel.pool.ConnectionManager;
+import org.wso2.carbon.transport.http.netty.util.HTTPConnectorListener;
+import org.wso2.carbon.transport.http.netty.util.TestUtil;
+import org.wso2.carbon.transport.http.netty.util.client.http2.HTTP2Client;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
 
 /**
  * A test class for http2 transport.
  */
 public class HTTP2RequestResponseTestCase {
 
-//    private static final Logger log = LoggerFactory.getLogger(HTTP2RequestResponseTestCase.class);
-//    private List<HTTPServerConnector> serverConnectors;
-//    private HttpServer httpServer;
-//    HTTP2Client http2Client = null;
-//    private CarbonMessageProcessor carbonMessageProcessor;
-//
-//    @BeforeClass
-//    public void setUp() throws Exception {
-//        TransportsConfiguration configuration = YAMLTransportConfigurationBuilder
-//                .build("src/test/resources/simple-test-config/http2/netty-transports.yml");
-//        carbonMessageProcessor = new HTTP2MessageProcessor();
-//        serverConnectors = TestUtil.startConnectors(configuration, carbonMessageProcessor);
-//        httpServer = TestUtil.startHTTPServer(TestUtil.TEST_SERVER_PORT, HTTP2MessageProcessor.TEST_VALUE, Constants
-//                .TEXT_PLAIN);
-//        http2Client = new HTTP2Client(false, "localhost", 8490);
-//    }
-//
-//    @Test
-//    public void http2GetRequestResponseTest() throws Exception {
-//        try {
-//            // Send Get http2 request and get response
-//            DefaultFullHttpRequest request = new DefaultFullHttpRequest(HTTP_1_1, GET, "/");
-//            int send = http2Client.send(request);
-//            String response = http2Client.getResponse(send);
-//            assertEquals(HTTP2MessageProcessor.TEST_VALUE, response);
-//        } catch (Exception ex) {
-//            TestUtil.handleException("Error while sending http2 request ", ex);
-//        }
-//    }
-//
-//    @Test
-//    public void http2PostRequestResponseTest() throws Exception {
-//        try {
-//            // Send Post http2 request and get response
-//            DefaultFullHttpRequest request = new DefaultFullHttpRequest(HTTP_1_1, POST, "/");
-//            String json = HTTP2MessageProcessor.TEST_VALUE;
-//            request.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain");
-//            request.headers().set(HttpHeaderNames.ACCEPT, "text/plain");
-//            ByteBuf buffer = request.content().clear();
-//            int p0 = buffer.writerIndex();
-//            buffer.writeBytes(json.getBytes());
-//            int p1 = buffer.writerIndex();
-//            request.headers().set(HttpHeaderNames.CONTENT_LENGTH, Integer.toString(p1 - p0));
-//
-//            int send = http2Client.send(request);
-//            String response = http2Client.getResponse(send);
-//            assertEquals(HTTP2MessageProcessor.TEST_VALUE, response);
-//        } catch (Exception ex) {
-//            TestUtil.handleException("Error while sending http2 request ", ex);
-//        }
-//    }
-//
-//
-//    @AfterClass
-//    public void cleanUp() throws ServerConnectorException {
-//        TestUtil.cleanUp(serverConnectors, httpServer);
-//        if (http2Client != null) {
-//            http2Client.close();
-//        }
-//        TestUtil.removeMessageProcessor(carbonMessageProcessor);
-//    }
+    private static final String TEST_VALUE = "Test Message";
+
+    private List<ServerConnector> serverConnectors;
+    private TransportsConfiguration configuration;
+    private HTTP2Client http2Client;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        configuration = TestUtil.getConfiguration("/simple-test-config/http2/netty-transports.yml");
+        serverConnectors = TestUtil.startConnectors(configuration, new EchoMessageListener());
+        http2Client = new HTTP2Client(false, TestUtil.TEST_HOST, TestUtil.TEST_DEFAULT_INTERFACE_PORT);
+    }
+
+    @Test
+    public void http2UpgradedPostRequestResponseTest() throws Exception {
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/",
+                Unpooled.copiedBuffer(TEST_VALUE, StandardCharsets.UTF_8));
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, Constants.TEXT_PLAIN);
+        request.headers().set(HttpHeaderNames.CONTENT_LENGTH, request.content().readableBytes());
+
+        int streamId = http2Client.send(request);
+        assertEquals(TEST_VALUE, http2Client.getResponse(streamId));
+    }
+
+    @Test
+    public void http2ClientConnectorRequestResponseTest() throws Exception {
+        SenderConfiguration senderConfiguration = HTTPConnectorUtil.getSenderConfiguration(configuration,
+                Constants.HTTP_SCHEME);
+        senderConfiguration.setHttp2(true);
+        HttpClientConnector httpClientConnector = new HttpWsConnectorFactoryImpl().createHttpClientConnector(
+                HTTPConnectorUtil.getTransportProperties(configuration), senderConfiguration);
+
+        for (int i = 0; i < 3; i++) {
+            HTTPCarbonMessage request = new HTTPCarbonMessage(new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+                    HttpMethod.POST, "/"));
+            request.setProperty(Constants.HOST, TestUtil.TEST_HOST);
+            request.setProperty(Constants.PORT, TestUtil.TEST_DEFAULT_INTERFACE_PORT);
+            request.setProperty(Constants.PROTOCOL, Constants.HTTP_SCHEME);
+            request.setProperty(Constants.HTTP_METHOD, HttpMethod.POST.name());
+            request.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(TEST_VALUE.length()));
+            request.addMessageBody(ByteBuffer.wrap(TEST_VALUE.getBytes(StandardCharsets.UTF_8)));
+            request.setEndOfMsgAdded(true);
+
+            CountDownLatch latch = new CountDownLatch(1);
+            HTTPConnectorListener listener = new HTTPConnectorListener(latch);
+            httpClientConnector.send(request).setHttpConnectorListener(listener);
+            latch.await(TestUtil.HTTP2_RESPONSE_TIME_OUT, TestUtil.HTTP2_RESPONSE_TIME_UNIT);
+
+            HTTPCarbonMessage response = listener.getHttpResponseMessage();
+            assertNotNull(response);
+            String content = new BufferedReader(new InputStreamReader(new HttpMessageDataStreamer(response)
+                    .getInputStream())).lines().collect(Collectors.joining("\n"));
+            assertEquals(TEST_VALUE, content);
+        }
+    }
 
+    @AfterClass
+    public void cleanUp() throws Exception {
+        if (http2Client != null) {
+            http2Client.close();
+        }
+        for (ServerConnector serverConnector : serverConnectors) {
+            serverConnector.stop();
+        }
+        if (ConnectionManager.getInstance() != null) {
+            ConnectionManager.getInstance().closeRoutePools();
+        }
+        HTTPTransportContextHolder.getInstance().getBossGroup().shutdownGracefully().sync();
+        HTTPTransportContextHolder.getInstance().getWorkerGroup().shutdownGracefully().sync();
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.internal;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.messaging.CarbonCallback;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the handler chain of the {@link HandlerExecutor}.
+ */
+public class HandlerExecutorTestCase {
+
+    @Test
+    public void testHandlersAreInvokedInOrderAtTheirPhases() {
+        List<String> invocations = new ArrayList<>();
+        HandlerExecutor handlerExecutor = new HandlerExecutor();
+        assertFalse(handlerExecutor.hasHandlers());
+
+        handlerExecutor.addHandler(new RecordingHandler("first", invocations,
+                EnumSet.of(HandlerPhase.SOURCE_CONNECTION_INITIATION)));
+        handlerExecutor.addHandler(new RecordingHandler("second", invocations,
+                EnumSet.allOf(HandlerPhase.class)));
+        assertTrue(handlerExecutor.hasHandlers());
+
+        handlerExecutor.executeAtSourceConnectionInitiation("connection");
+        handlerExecutor.executeAtSourceConnectionTermination("connection");
+        assertEquals(invocations, Arrays.asList("first:connection", "second:connection", "second:connection"));
+
+        // A handler with the same name takes the place of the old one
+        invocations.clear();
+        handlerExecutor.addHandler(new RecordingHandler("first", invocations, Collections.emptySet()));
+        handlerExecutor.executeAtSourceConnectionInitiation("connection");
+        assertEquals(invocations, Collections.singletonList("second:connection"));
+
+        handlerExecutor.removeHandler(new RecordingHandler("second", invocations, Collections.emptySet()));
+        handlerExecutor.removeHandler(new RecordingHandler("first", invocations, Collections.emptySet()));
+        assertFalse(handlerExecutor.hasHandlers());
+    }
+
+    private static class RecordingHandler implements MessagingHandler {
+
+        private final String name;
+        private final List<String> invocations;
+        private final Set<HandlerPhase> phases;
+
+        RecordingHandler(String name, List<String> invocations, Set<HandlerPhase> phases) {
+            this.name = name;
+            this.invocations = invocations;
+            this.phases = phases;
+        }
+
+        @Override
+        public boolean validateRequestContinuation(HTTPCarbonMessage carbonMessage, CarbonCallback callback) {
+            return true;
+        }
+
+        @Override
+        public void invokeAtSourceConnectionInitiation(String metadata) {
+            invocations.add(name + ":" + metadata);
+        }
+
+        @Override
+        public void invokeAtSourceConnectionTermination(String metadata) {
+            invocations.add(name + ":" + metadata);
+        }
+
+        @Override
+        public void invokeAtTargetConnectionInitiation(String metadata) {
+        }
+
+        @Override
+        public void invokeAtTargetConnectionTermination(String metadata) {
+        }
+
+        @Override
+        public void invokeAtSourceRequestReceiving(HTTPCarbonMessage carbonMessage) {
+        }
+
+        @Override
+        public void invokeAtSourceRequestSending(HTTPCarbonMessage carbonMessage) {
+        }
+
+        @Override
+        public void invokeAtTargetRequestReceiving(HTTPCarbonMessage carbonMessage) {
+        }
+
+        @Override
+        public void invokeAtTargetRequestSending(HTTPCarbonMessage carbonMessage) {
+        }
+
+        @Override
+        public void invokeAtTargetResponseReceiving(HTTPCarbonMessage carbonMessage) {
+        }
+
+        @Override
+        public void invokeAtTargetResponseSending(HTTPCarbonMessage carbonMessage) {
+        }
+
+        @Override
+        public void invokeAtSourceResponseReceiving(HTTPCarbonMessage carbonMessage) {
+        }
+
+        @Override
+        public void invokeAtSourceResponseSending(HTTPCarbonMessage carbonMessage) {
+        }
+
+        @Override
+        public String handlerName() {
+            return name;
+        }
+
+        @Override
+        public Set<HandlerPhase> handlerPhases() {
+            return phases;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.carbon.transport.http.netty.common.Util;
+import org.wso2.carbon.transport.http.netty.listener.RequestDataHolder;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for computing the Content-Length of a message from the running byte count of its collector.
+ */
+public class ContentLengthTestCase {
+
+    @Test
+    public void testLengthIsKeptWhileContentIsAddedAndConsumed() {
+        BlockingEntityCollector entityCollector = new BlockingEntityCollector(5);
+        entityCollector.addHttpContent(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[10])));
+        assertFalse(entityCollector.isContentComplete());
+
+        entityCollector.addHttpContent(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[5])));
+        assertTrue(entityCollector.isContentComplete());
+        assertEquals(entityCollector.getFullMessageLength(), 15);
+
+        HttpContent httpContent = entityCollector.getHttpContent();
+        httpContent.release();
+        assertEquals(entityCollector.getFullMessageLength(), 5);
+
+        httpContent = entityCollector.getHttpContent();
+        httpContent.release();
+        assertFalse(entityCollector.isContentComplete());
+    }
+
+    @Test
+    public void testIncompleteResponseIsChunked() {
+        HTTPCarbonMessage response = createResponse();
+        response.addHttpContent(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[10])));
+
+        Util.setupTransferEncodingForResponse(response, createRequestDataHolder(HttpVersion.HTTP_1_1));
+        assertEquals(response.getHeader(Constants.HTTP_TRANSFER_ENCODING), Constants.CHUNKED);
+        assertNull(response.getHeader(Constants.HTTP_CONTENT_LENGTH));
+        response.addHttpContent(new DefaultLastHttpContent());
+        response.waitAndReleaseAllEntities();
+    }
+
+    @Test
+    public void testCompleteResponseHasContentLength() {
+        HTTPCarbonMessage response = createResponse();
+        response.addHttpContent(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[10])));
+        response.addHttpContent(new DefaultLastHttpContent());
+
+        Util.setupTransferEncodingForResponse(response, createRequestDataHolder(HttpVersion.HTTP_1_1));
+        assertEquals(response.getHeader(Constants.HTTP_CONTENT_LENGTH), "10");
+        assertNull(response.getHeader(Constants.HTTP_TRANSFER_ENCODING));
+        response.waitAndReleaseAllEntities();
+    }
+
+    private HTTPCarbonMessage createResponse() {
+        return new HTTPCarbonMessage(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+    }
+
+    private RequestDataHolder createRequestDataHolder(HttpVersion httpVersion) {
+        HTTPCarbonMessage request = new HTTPCarbonMessage(new DefaultHttpRequest(httpVersion, HttpMethod.GET, "/"));
+        request.setProperty(Constants.HTTP_METHOD, HttpMethod.GET.name());
+        request.setProperty(Constants.HTTP_VERSION, httpVersion.text());
+        return new RequestDataHolder(request);
+    }
+}
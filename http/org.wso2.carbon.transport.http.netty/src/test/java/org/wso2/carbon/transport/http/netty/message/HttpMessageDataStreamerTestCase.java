@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the bulk input and output streams of a message.
+ */
+public class HttpMessageDataStreamerTestCase {
+
+    private static final String PAYLOAD = "Hello WSO2 transports";
+    private static final int BUFFER_SIZE = 8;
+
+    @Test
+    public void testOutputIsSplitIntoDirectBuffersOfConfiguredSize() throws IOException {
+        assertSplitIntoBuffers(writePayload());
+    }
+
+    @Test
+    public void testResponseUsesBufferSizeOfConnector() throws IOException {
+        EntityCollectorFactory entityCollectorFactory =
+                new EntityCollectorFactory(5, 0, false).withOutputContentBufferSize(BUFFER_SIZE);
+        HTTPCarbonMessage request = new HttpCarbonRequest(
+                new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"), entityCollectorFactory);
+        HTTPCarbonMessage response = new HttpCarbonResponse(
+                new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK),
+                request.getEntityCollectorFactory());
+
+        OutputStream outputStream = new HttpMessageDataStreamer(response).getOutputStream();
+        outputStream.write(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+        outputStream.close();
+        assertSplitIntoBuffers(response);
+    }
+
+    private void assertSplitIntoBuffers(HTTPCarbonMessage httpCarbonMessage) {
+        int length = 0;
+        HttpContent httpContent;
+        while (!((httpContent = httpCarbonMessage.getHttpContent()) instanceof LastHttpContent)) {
+            assertTrue(httpContent.content().isDirect());
+            assertTrue(httpContent.content().readableBytes() <= BUFFER_SIZE);
+            length += httpContent.content().readableBytes();
+            httpContent.release();
+        }
+        httpContent.release();
+        assertEquals(length, PAYLOAD.length());
+    }
+
+    @Test
+    public void testBulkReadAcrossContentBoundaries() throws IOException {
+        HTTPCarbonMessage httpCarbonMessage = writePayload();
+
+        InputStream inputStream = new HttpMessageDataStreamer(httpCarbonMessage).getInputStream();
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] bytes = new byte[3];
+        int readLength;
+        while ((readLength = inputStream.read(bytes, 0, bytes.length)) != -1) {
+            result.write(bytes, 0, readLength);
+        }
+        assertEquals(new String(result.toByteArray(), StandardCharsets.UTF_8), PAYLOAD);
+        assertEquals(inputStream.read(), -1);
+    }
+
+    private HTTPCarbonMessage writePayload() throws IOException {
+        HTTPCarbonMessage httpCarbonMessage =
+                new HTTPCarbonMessage(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"));
+        OutputStream outputStream = new HttpMessageDataStreamer(httpCarbonMessage, PooledByteBufAllocator.DEFAULT,
+                BUFFER_SIZE).getOutputStream();
+        outputStream.write(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+        outputStream.close();
+        return httpCarbonMessage;
+    }
+}
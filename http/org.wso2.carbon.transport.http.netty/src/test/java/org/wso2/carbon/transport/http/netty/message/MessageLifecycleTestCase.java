@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the reference counted lifecycle of a message.
+ */
+public class MessageLifecycleTestCase {
+
+    @DataProvider(name = "collectors")
+    public Object[][] collectors() {
+        return new Object[][] {
+                { new EntityCollectorFactory(5, 0, false) },
+                { new EntityCollectorFactory(5, 0, true) }
+        };
+    }
+
+    @Test(dataProvider = "collectors")
+    public void testReleaseReleasesUnconsumedContent(EntityCollectorFactory entityCollectorFactory) {
+        HTTPCarbonMessage message = createMessage(entityCollectorFactory);
+        ByteBuf queued = Unpooled.buffer().writeZero(10);
+        message.addHttpContent(new DefaultHttpContent(queued));
+
+        message.release();
+        assertEquals(message.refCnt(), 0);
+        assertEquals(queued.refCnt(), 0);
+
+        // The rest of an abandoned payload is released as it arrives
+        ByteBuf late = Unpooled.buffer().writeZero(10);
+        message.addHttpContent(new DefaultLastHttpContent(late));
+        assertEquals(late.refCnt(), 0);
+    }
+
+    @Test
+    public void testRetainedMessageOutlivesTransportRelease() {
+        HTTPCarbonMessage message = createMessage(new EntityCollectorFactory(5, 0, false));
+        ByteBuf queued = Unpooled.buffer().writeZero(10);
+        message.addHttpContent(new DefaultLastHttpContent(queued));
+
+        message.retain();
+        Util.releaseMessage(message);
+        assertEquals(queued.refCnt(), 1);
+
+        assertTrue(message.releaseReference());
+        assertEquals(queued.refCnt(), 0);
+    }
+
+    @Test
+    public void testCreationReferenceIsReleasedOnce() {
+        HTTPCarbonMessage message = createMessage(new EntityCollectorFactory(5, 0, false));
+        message.retain();
+
+        // The application and the transport both give up the reference the message is created with
+        message.release();
+        Util.releaseMessage(message);
+        message.release();
+        assertEquals(message.refCnt(), 1);
+
+        assertTrue(message.releaseReference());
+        assertEquals(message.refCnt(), 0);
+    }
+
+    private HTTPCarbonMessage createMessage(EntityCollectorFactory entityCollectorFactory) {
+        return new HttpCarbonRequest(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"),
+                entityCollectorFactory);
+    }
+}
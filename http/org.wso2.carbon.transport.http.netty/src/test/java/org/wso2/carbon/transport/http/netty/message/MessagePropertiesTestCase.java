@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the slot based property store of a message.
+ */
+public class MessagePropertiesTestCase {
+
+    @Test
+    public void testSlotAndUserProperties() {
+        MessageProperties properties = new MessageProperties();
+        properties.put(Constants.HTTP_METHOD, "GET");
+        properties.put("user.property", "value");
+
+        assertEquals(properties.get(Constants.HTTP_METHOD), "GET");
+        assertEquals(properties.get("user.property"), "value");
+        assertEquals(properties.size(), 2);
+
+        Map<String, Object> copy = new HashMap<>(properties);
+        assertEquals(copy.get(Constants.HTTP_METHOD), "GET");
+        assertEquals(copy.get("user.property"), "value");
+
+        properties.remove(Constants.HTTP_METHOD);
+        assertNull(properties.get(Constants.HTTP_METHOD));
+        assertFalse(properties.containsKey(Constants.HTTP_METHOD));
+    }
+
+    @Test
+    public void testRemovalThroughViews() {
+        MessageProperties properties = new MessageProperties();
+        properties.put(Constants.HTTP_METHOD, "GET");
+        properties.put(Constants.TO, "/");
+        properties.put("user.property", "value");
+        properties.put("other.property", "value");
+
+        Iterator<Map.Entry<String, Object>> iterator = properties.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey().equals(Constants.HTTP_METHOD)) {
+                iterator.remove();
+            }
+        }
+        assertFalse(properties.containsKey(Constants.HTTP_METHOD));
+
+        properties.keySet().remove("user.property");
+        assertFalse(properties.containsKey("user.property"));
+
+        properties.entrySet().removeIf(entry -> entry.getKey().equals(Constants.TO));
+        assertFalse(properties.containsKey(Constants.TO));
+
+        properties.entrySet().iterator().next().setValue("changed");
+        assertEquals(properties.get("other.property"), "changed");
+        assertEquals(properties.size(), 1);
+    }
+
+    @Test
+    public void testConnectionPropertiesAreKeptAfterClose() throws InterruptedException {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        MessageProperties properties = new MessageProperties();
+        properties.deriveConnectionProperties(channel);
+        SocketAddress localAddress = channel.localAddress();
+        channel.close().sync();
+
+        assertEquals(properties.get(Constants.LOCAL_ADDRESS), localAddress);
+        assertTrue(properties.containsKey(Constants.IS_SECURED_CONNECTION));
+    }
+
+    @Test
+    public void testListenerPortIsDerivedUntilRemoved() {
+        EmbeddedChannel channel = new EmbeddedChannel() {
+            @Override
+            protected SocketAddress localAddress0() {
+                return new InetSocketAddress(9090);
+            }
+        };
+        MessageProperties properties = new MessageProperties();
+        properties.deriveConnectionProperties(channel);
+
+        assertEquals(properties.get(org.wso2.carbon.messaging.Constants.LISTENER_PORT), 9090);
+        properties.remove(org.wso2.carbon.messaging.Constants.LISTENER_PORT);
+        assertNull(properties.get(org.wso2.carbon.messaging.Constants.LISTENER_PORT));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testConnectionPropertiesCanBeRemoved() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        MessageProperties properties = new MessageProperties();
+        properties.deriveConnectionProperties(channel);
+
+        assertEquals(properties.get(Constants.LOCAL_ADDRESS), channel.localAddress());
+        assertEquals(properties.get(Constants.IS_SECURED_CONNECTION), false);
+
+        properties.remove(Constants.LOCAL_ADDRESS);
+        assertNull(properties.get(Constants.LOCAL_ADDRESS));
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the entity collector which does not lock between the producer and the consumer.
+ */
+public class NonBlockingEntityCollectorTestCase {
+
+    private static final int CHUNK_COUNT = 100;
+
+    @Test
+    public void testBlockingReadWaitsForProducer() throws InterruptedException {
+        NonBlockingEntityCollector entityCollector = new NonBlockingEntityCollector(5);
+        Thread producer = new Thread(() -> addChunks(entityCollector, 0, CHUNK_COUNT, true));
+        producer.start();
+
+        for (int i = 0; i < CHUNK_COUNT; i++) {
+            HttpContent httpContent = entityCollector.getHttpContent();
+            assertEquals(httpContent.content().toString(StandardCharsets.UTF_8), String.valueOf(i));
+            httpContent.release();
+        }
+        HttpContent lastContent = entityCollector.getHttpContent();
+        assertTrue(lastContent instanceof LastHttpContent);
+        lastContent.release();
+        producer.join();
+    }
+
+    @Test
+    public void testListenerReceivesCollectedAndFutureContent() {
+        NonBlockingEntityCollector entityCollector = new NonBlockingEntityCollector(5);
+        addChunks(entityCollector, 0, 3, false);
+
+        List<String> received = new ArrayList<>();
+        entityCollector.setMessageListener(httpContent -> {
+            received.add(httpContent.content().toString(StandardCharsets.UTF_8));
+            httpContent.release();
+        });
+        assertEquals(received.size(), 3, "Collected content should be pushed once the listener is set");
+
+        addChunks(entityCollector, 3, CHUNK_COUNT, true);
+        assertEquals(received.size(), CHUNK_COUNT + 1);
+        for (int i = 0; i < CHUNK_COUNT; i++) {
+            assertEquals(received.get(i), String.valueOf(i));
+        }
+        assertTrue(entityCollector.isEmpty());
+    }
+
+    @Test
+    public void testLengthDoesNotConsumePayload() {
+        NonBlockingEntityCollector entityCollector = new NonBlockingEntityCollector(5);
+        addChunks(entityCollector, 0, 10, true);
+
+        assertEquals(entityCollector.getFullMessageLength(), 10);
+        HttpContent httpContent = entityCollector.getHttpContent();
+        assertEquals(httpContent.content().toString(StandardCharsets.UTF_8), "0");
+        httpContent.release();
+        assertEquals(entityCollector.getFullMessageLength(), 9);
+        entityCollector.waitAndReleaseAllEntities();
+        assertTrue(entityCollector.isEmpty());
+    }
+
+    @Test
+    public void testReleaseIsLeftToBlockedPuller() throws Exception {
+        NonBlockingEntityCollector entityCollector = new NonBlockingEntityCollector(5);
+        CompletableFuture<HttpContent> pulled = CompletableFuture.supplyAsync(entityCollector::getHttpContent);
+        // Give the puller time to block, the release is left to it either way
+        Thread.sleep(100);
+
+        entityCollector.release();
+        assertNull(pulled.get(5, TimeUnit.SECONDS), "A released collector should wake up the puller");
+        DefaultHttpContent lateContent = new DefaultHttpContent(chunk(0));
+        entityCollector.addHttpContent(lateContent);
+        assertEquals(lateContent.refCnt(), 0, "Content added after the release should be released");
+        assertTrue(entityCollector.isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testPushedContentCannotBePulled() {
+        NonBlockingEntityCollector entityCollector = new NonBlockingEntityCollector(5);
+        entityCollector.setMessageListener(HttpContent::release);
+        entityCollector.getHttpContent();
+    }
+
+    private void addChunks(NonBlockingEntityCollector entityCollector, int from, int to, boolean last) {
+        for (int i = from; i < to; i++) {
+            entityCollector.addHttpContent(new DefaultHttpContent(chunk(i)));
+        }
+        if (last) {
+            entityCollector.addHttpContent(new DefaultLastHttpContent());
+        }
+    }
+
+    private ByteBuf chunk(int index) {
+        return Unpooled.copiedBuffer(String.valueOf(index), StandardCharsets.UTF_8);
+    }
+}
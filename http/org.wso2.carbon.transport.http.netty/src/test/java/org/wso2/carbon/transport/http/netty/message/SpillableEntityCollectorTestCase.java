@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the entity collector which spills large payloads to a file.
+ */
+public class SpillableEntityCollectorTestCase {
+
+    private static final String CHUNK = "0123456789";
+
+    @Test
+    public void testPayloadBeyondThresholdIsSpilled() {
+        SpillableEntityCollector entityCollector = createCollector();
+
+        HttpContent inMemory = entityCollector.getHttpContent();
+        assertFalse(inMemory.content().isDirect(), "Content below the threshold should be kept as it is");
+        assertEquals(inMemory.content().toString(StandardCharsets.UTF_8), CHUNK);
+        inMemory.release();
+
+        for (int i = 0; i < 2; i++) {
+            HttpContent spilled = entityCollector.getHttpContent();
+            assertTrue(spilled.content().isDirect(), "Content beyond the threshold should be read from the file");
+            assertEquals(spilled.content().toString(StandardCharsets.UTF_8), CHUNK);
+            spilled.release();
+        }
+        HttpContent lastContent = entityCollector.getHttpContent();
+        assertTrue(lastContent instanceof LastHttpContent);
+        assertEquals(lastContent.content().toString(StandardCharsets.UTF_8), CHUNK);
+        lastContent.release();
+    }
+
+    @Test
+    public void testLengthAndDuplicateDoNotConsumePayload() {
+        SpillableEntityCollector entityCollector = createCollector();
+
+        assertEquals(entityCollector.getFullMessageLength(), 4 * CHUNK.length());
+        List<HttpContent> duplicates = entityCollector.duplicateContent();
+        assertEquals(duplicates.size(), 4);
+        assertTrue(duplicates.get(3) instanceof LastHttpContent);
+        assertEquals(entityCollector.getFullMessageLength(), 4 * CHUNK.length());
+
+        for (HttpContent duplicate : duplicates) {
+            HttpContent original = entityCollector.getHttpContent();
+            assertEquals(duplicate.content().toString(StandardCharsets.UTF_8),
+                    original.content().toString(StandardCharsets.UTF_8));
+            original.release();
+            duplicate.release();
+        }
+    }
+
+    @Test
+    public void testSpillFileAndMappingsAreGoneAfterRelease() {
+        SpillableEntityCollector entityCollector = createCollector();
+        Path spillFilePath = entityCollector.getSpillFilePath();
+        assertNotNull(spillFilePath);
+        assertTrue(entityCollector.getMappedSegmentCount() > 0);
+
+        List<HttpContent> duplicates = entityCollector.duplicateContent();
+        entityCollector.release();
+        assertFalse(Files.exists(spillFilePath), "The spill file should be deleted once the collector is released");
+        assertTrue(entityCollector.getMappedSegmentCount() > 0, "Duplicates should keep their segments mapped");
+
+        duplicates.forEach(HttpContent::release);
+        assertEquals(entityCollector.getMappedSegmentCount(), 0, "Segments should be unmapped once released");
+    }
+
+    private SpillableEntityCollector createCollector() {
+        SpillableEntityCollector entityCollector = new SpillableEntityCollector(5, 15);
+        for (int i = 0; i < 3; i++) {
+            entityCollector.addHttpContent(new DefaultHttpContent(chunk()));
+        }
+        entityCollector.addHttpContent(new DefaultLastHttpContent(chunk()));
+        return entityCollector;
+    }
+
+    private ByteBuf chunk() {
+        return Unpooled.copiedBuffer(CHUNK, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.passthrough;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.BackPressureHandler;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for pausing the inbound channel of a passthrough while the outbound channel is not writable.
+ */
+public class BackPressureTestCase {
+
+    @Test
+    public void testInboundChannelIsPausedUntilOutboundChannelDrains() {
+        EmbeddedChannel inboundChannel = new EmbeddedChannel();
+        EmbeddedChannel outboundChannel = new EmbeddedChannel();
+        outboundChannel.pipeline().addLast(Constants.BACK_PRESSURE_HANDLER, new BackPressureHandler());
+        outboundChannel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+
+        outboundChannel.write(Unpooled.wrappedBuffer(new byte[8]));
+        BackPressureHandler.pauseIfUnwritable(outboundChannel, inboundChannel);
+        assertTrue(inboundChannel.config().isAutoRead(), "Inbound channel should be read below the high water mark");
+
+        outboundChannel.write(Unpooled.wrappedBuffer(new byte[16]));
+        BackPressureHandler.pauseIfUnwritable(outboundChannel, inboundChannel);
+        assertFalse(inboundChannel.config().isAutoRead(), "Inbound channel should be paused above the high water mark");
+
+        outboundChannel.flush();
+        outboundChannel.runPendingTasks();
+        assertTrue(inboundChannel.config().isAutoRead(), "Inbound channel should be resumed once the buffer drains");
+
+        outboundChannel.finishAndReleaseAll();
+        inboundChannel.finishAndReleaseAll();
+    }
+}
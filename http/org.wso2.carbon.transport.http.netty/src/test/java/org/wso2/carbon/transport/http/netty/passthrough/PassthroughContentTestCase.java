@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.transport.http.netty.passthrough;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.message.HTTPCarbonMessage;
+import org.wso2.carbon.transport.http.netty.message.HttpCarbonRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for forwarding the content of a message without collecting it.
+ */
+public class PassthroughContentTestCase {
+
+    private EventLoop eventLoop;
+
+    @BeforeClass
+    public void setUp() {
+        eventLoop = new DefaultEventLoop();
+    }
+
+    @Test
+    public void testCollectedContentIsForwardedBeforeNewContent() throws Exception {
+        HTTPCarbonMessage message = createMessage();
+        message.setContentEventLoop(eventLoop);
+        eventLoop.submit(() -> message.addHttpContent(content("a"))).sync();
+
+        List<HttpContent> forwarded = new CopyOnWriteArrayList<>();
+        assertTrue(message.passthroughHttpContent(forwarded::add));
+        eventLoop.submit(() -> {
+            message.addHttpContent(content("b"));
+            message.addHttpContent(new DefaultLastHttpContent(Unpooled.copiedBuffer("c", StandardCharsets.UTF_8)));
+        }).sync();
+
+        assertTrue(message.isEmpty(), "Passed through content should not be collected");
+        assertEquals(forwarded.size(), 3);
+        StringBuilder payload = new StringBuilder();
+        for (HttpContent httpContent : forwarded) {
+            payload.append(httpContent.content().toString(StandardCharsets.UTF_8));
+            httpContent.release();
+        }
+        assertEquals(payload.toString(), "abc");
+    }
+
+    @Test
+    public void testMessageWithoutContentEventLoopIsNotPassedThrough() {
+        HTTPCarbonMessage message = createMessage();
+        assertFalse(message.passthroughHttpContent(httpContent -> { }));
+    }
+
+    @AfterClass
+    public void cleanUp() throws InterruptedException {
+        eventLoop.shutdownGracefully().sync();
+    }
+
+    private HTTPCarbonMessage createMessage() {
+        return new HttpCarbonRequest(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/"));
+    }
+
+    private HttpContent content(String value) {
+        return new DefaultHttpContent(Unpooled.copiedBuffer(value, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.sender;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests for the timeouts of the requests to an endpoint which never responds.
+ */
+public class EndpointTimeoutHandlerTestCase {
+
+    private final LocalAddress address = new LocalAddress("endpoint-timeout");
+    private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel channel;
+    private EndpointTimeoutHandler endpointTimeoutHandler;
+
+    @BeforeClass
+    public void setup() throws InterruptedException {
+        group = new DefaultEventLoopGroup(1);
+        serverChannel = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter()).bind(address).sync().channel();
+        endpointTimeoutHandler = new EndpointTimeoutHandler();
+        channel = new Bootstrap().group(group).channel(LocalChannel.class).handler(endpointTimeoutHandler)
+                .connect(address).sync().channel();
+        channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                events.add(evt);
+            }
+        });
+    }
+
+    @AfterClass
+    public void tearDown() throws InterruptedException {
+        channel.close().sync();
+        serverChannel.close().sync();
+        group.shutdownGracefully().sync();
+    }
+
+    @Test
+    public void testTimeoutsOfARequest() throws InterruptedException {
+        // The request is not written in time
+        channel.eventLoop().execute(() -> endpointTimeoutHandler.start(60000, 50, 0));
+        assertEquals(events.poll(5, TimeUnit.SECONDS), EndpointTimeoutEvent.WRITE_TIMEOUT);
+
+        // No response is read after the request is written
+        channel.eventLoop().execute(() -> endpointTimeoutHandler.start(50, 60000, 0));
+        channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        assertEquals(events.poll(5, TimeUnit.SECONDS), EndpointTimeoutEvent.READ_TIMEOUT);
+
+        // The exchange does not complete in time, while the request is still being written
+        channel.eventLoop().execute(() -> endpointTimeoutHandler.start(60000, 60000, 50));
+        assertEquals(events.poll(5, TimeUnit.SECONDS), EndpointTimeoutEvent.TOTAL_TIMEOUT);
+
+        // Nothing is fired once the response is read
+        channel.eventLoop().execute(() -> {
+            endpointTimeoutHandler.start(50, 50, 50);
+            endpointTimeoutHandler.cancel();
+        });
+        assertNull(events.poll(200, TimeUnit.MILLISECONDS));
+    }
+}
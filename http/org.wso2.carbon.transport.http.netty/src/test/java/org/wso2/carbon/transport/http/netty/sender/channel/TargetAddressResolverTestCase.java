@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.transport.http.netty.sender.channel;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.NoopAddressResolverGroup;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.transport.http.netty.common.ProxyServerConfiguration;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for resolving the addresses of targets.
+ */
+public class TargetAddressResolverTestCase {
+
+    private EventLoopGroup group;
+
+    @BeforeClass
+    public void setUp() {
+        group = new NioEventLoopGroup(1);
+    }
+
+    @Test
+    public void testAddressIsResolvedOnTheEventLoop() throws Exception {
+        InetSocketAddress address = TargetAddressResolver.getAddress("localhost", 9000);
+        assertTrue(address.isUnresolved());
+
+        @SuppressWarnings("unchecked")
+        AddressResolver<SocketAddress> resolver = (AddressResolver<SocketAddress>) TargetAddressResolver
+                .getResolverGroup(null).getResolver(group.next());
+        InetSocketAddress resolved = (InetSocketAddress) resolver.resolve(address).sync().getNow();
+        assertFalse(resolved.isUnresolved());
+        assertTrue(resolved.getAddress().isLoopbackAddress());
+        assertEquals(resolved.getPort(), 9000);
+    }
+
+    @Test
+    public void testAddressIsLeftToTheProxy() throws Exception {
+        ProxyServerConfiguration proxyServerConfiguration = new ProxyServerConfiguration("localhost", 15427);
+        assertEquals(TargetAddressResolver.getResolverGroup(proxyServerConfiguration),
+                NoopAddressResolverGroup.INSTANCE);
+    }
+
+    @AfterClass
+    public void tearDown() throws InterruptedException {
+        group.shutdownGracefully().sync();
+    }
+}
@@ -90,6 +90,7 @@ public class TestUtil {
 
         if (ConnectionManager.getInstance() != null) {
             ConnectionManager.getInstance().getTargetChannelPool().clear();
+            ConnectionManager.getInstance().closeRoutePools();
         }
 
         try {